@@ -1,53 +1,333 @@
 package fr.diginamic;
 
+import fr.diginamic.dao.ProgressionImportDaoImpl;
 import fr.diginamic.imports.GoalsScorersCsvImporter;
+import fr.diginamic.imports.ImportButsPartitionne;
+import fr.diginamic.imports.ImportContext;
+import fr.diginamic.imports.MoteurStaging;
+import fr.diginamic.imports.PlanificateurImport;
+import fr.diginamic.imports.RepriseIncrementale;
 import fr.diginamic.imports.ResultCsvImporter;
 import fr.diginamic.imports.ShootoutsCsvImporter;
+import fr.diginamic.services.ClassementService;
+import fr.diginamic.services.PurgeService;
+import fr.diginamic.utils.CacheButeurs;
+import fr.diginamic.utils.ClassementButeurs;
+import fr.diginamic.utils.CacheSecondNiveau;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.IdGenerateurs;
+import fr.diginamic.utils.LignesAffectees;
+import fr.diginamic.vues.TotalButeur;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * Classe principale qui gère l'import des fichiers csv issus de resources dans l'ordre
+ * Options (propriétés système) :
+ * -Dimport.tailleLot=N : flush/clear du contexte de persistance toutes les N lignes (défaut 1000, 0 = désactivé)
+ * -Dimport.commitParLot=true : commit de la transaction à chaque fin de lot
+ * -Dimport.progression=true : commit par lot avec enregistrement de la dernière ligne commitée de chaque fichier
+ * (table progression_import) et des erreurs ; après un arrêt, l'import suivant reprend à cette ligne
+ * -Dimport.batchJdbc=N : nombre d'INSERT regroupés par batch JDBC (défaut 50)
+ * -Dimport.idsPooled=true : ids alloués par blocs (table id_generateur) au lieu d'AUTO_INCREMENT,
+ * indispensable pour que les INSERT partent réellement en batch
+ * -Dimport.dossier=/chemin : lit les CSV de ce dossier par projection mémoire au lieu des ressources
+ * -Dimport.parseurs=N : N threads d'analyse des lignes en amont de l'écriture en base (défaut 1)
+ * -Dimport.concurrent=true : étapes indépendantes (goalscorers, shootouts) exécutées en parallèle,
+ * chacune dans sa propre transaction, une fois results.csv commité
+ * -Dimport.partitionsButs=N : goalscorers.csv réparti par match sur N threads, chacun avec sa transaction ;
+ * les buteurs sont créés une seule fois via un registre partagé. Nécessite import.concurrent
+ * -Dimport.moteur=staging : import ensembliste (tables de staging puis INSERT ... SELECT),
+ * incompatible avec import.idsPooled
+ * -Dimport.upsert=true : buteurs, buts, scores et tirs aux buts insérés en une requête
+ * (INSERT ... ON DUPLICATE KEY UPDATE) sans recherche préalable, incompatible avec import.idsPooled ;
+ * la connexion compte alors les lignes modifiées (useAffectedRows=true)
+ * -Dimport.incremental=true : n'importe que les lignes ajoutées à chaque fichier depuis le dernier import
+ * (table point_reprise), nécessite import.dossier
+ * -Dimport.echantillons=K : erreurs regroupées par fichier, traitement et message ; seules les K premières lignes
+ * de chaque groupe sont enregistrées, suivies d'une ligne de synthèse avec le nombre d'occurrences
+ * -Dimport.empreintes=true : compare chaque ligne à l'empreinte de sa version déjà importée (table empreinte_ligne) :
+ * lignes inchangées ignorées, lignes corrigées mises à jour en place, nouvelles lignes insérées
+ * -Dimport.cacheButeurs=N : nombre de buteurs (nom, équipe) gardés en mémoire pendant l'import de goalscorers.csv
+ * (défaut 10 000, éviction W-TinyLFU)
+ * -Dimport.filtresBloom=P : filtres de Bloom des buteurs, buts, scores et tirs aux buts déjà en base,
+ * construits au démarrage avec un taux de faux positifs P (ex. 0.01) : une entité absente du filtre
+ * est insérée sans requête d'existence
+ * -Dimport.purge.debut=AAAA-MM-JJ -Dimport.purge.fin=AAAA-MM-JJ : avant l'import, supprime en masse
+ * les matchs de cette période (bornes incluses) avec leurs buts, scores et tirs aux buts, pour recharger
+ * des données corrigées ; -Dimport.purge.tournoi=NOM purge de même les matchs d'un tournoi
+ * -Dimport.classement=N : classement des buteurs construit en mémoire au démarrage, tenu à jour à chaque but
+ * importé, et affiché (N premiers) en fin d'import ; avec le moteur staging, il est calculé après l'import
+ * -Dimport.statistiques=true : affiche en fin d'import les succès et échecs du cache de second niveau
+ * (équipes, buteurs) et du cache de requêtes
  */
 public class Main {
 
+    private static final int TAILLE_LOT_DEFAUT = 1000;
+    private static final int TAILLE_BATCH_JDBC_DEFAUT = 50;
+    private static final String MOTEUR_STAGING = "staging";
+
     public static void main(String[] args) {
 
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("jpa-football");
+        int tailleLot = Integer.getInteger("import.tailleLot", TAILLE_LOT_DEFAUT);
+        boolean progression = Boolean.getBoolean("import.progression");
+        boolean commitParLot = progression || Boolean.getBoolean("import.commitParLot");
+        boolean idsPooled = Boolean.getBoolean("import.idsPooled");
+        boolean staging = MOTEUR_STAGING.equals(System.getProperty("import.moteur"));
+        boolean upsert = Boolean.getBoolean("import.upsert");
+        boolean statistiques = Boolean.getBoolean("import.statistiques");
+        boolean concurrent = Boolean.getBoolean("import.concurrent");
+        int partitionsButs = Integer.getInteger("import.partitionsButs", 1);
+        int classement = Integer.getInteger("import.classement", 0);
+        if ((staging || upsert) && idsPooled) {
+            throw new IllegalStateException("Le moteur staging et le mode upsert reposent sur l'AUTO_INCREMENT "
+                    + "des ids : désactiver import.idsPooled");
+        }
+        if (partitionsButs > 1 && (!concurrent || staging || progression || Boolean.getBoolean("import.empreintes"))) {
+            throw new IllegalStateException("L'import partitionné des buts nécessite import.concurrent "
+                    + "(results.csv commité avant les buts) et exclut staging, progression et empreintes");
+        }
+        if (progression && (staging || tailleLot <= 0)) {
+            throw new IllegalStateException("Le suivi de progression nécessite l'import ligne à ligne "
+                    + "découpé en lots (import.tailleLot > 0)");
+        }
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("jpa-football", proprietesImport(idsPooled, upsert, statistiques));
         EntityManager em = emf.createEntityManager();
-        ErreurCollector collector = new ErreurCollector();
+        ErreurCollector collector = new ErreurCollector(emf);
+        collector.setEchantillons(Integer.getInteger("import.echantillons", 0));
 
         long startTime = System.currentTimeMillis();
 
         try {
-            em.getTransaction().begin();
+            if (idsPooled) {
+                em.getTransaction().begin();
+                IdGenerateurs.synchroniser(em);
+                em.getTransaction().commit();
+            }
+
+            purger(em);
 
-            System.out.println("Import : results.csv");
-            new ResultCsvImporter(em, collector).importer("results.csv");
+            String dossier = System.getProperty("import.dossier");
+            Path dossierSource = dossier != null ? Path.of(dossier) : null;
 
-             System.out.println("Import : goalscorers.csv");
-            new GoalsScorersCsvImporter(em, collector).importer("goalscorers.csv");
+            if (staging) {
+                MoteurStaging moteur = new MoteurStaging(em, dossierSource);
+                moteur.preparer();
+                em.getTransaction().begin();
+                moteur.importer();
+                if (classement > 0) {
+                    ClassementService service = new ClassementService(em, new ClassementButeurs(0));
+                    service.reconstruire();
+                    afficherClassement(service, classement);
+                }
+            } else {
+                em.getTransaction().begin();
+                ImportContext ctx = new ImportContext(em, collector, tailleLot, commitParLot);
+                ctx.setDossierSource(dossierSource);
+                ctx.setParseurs(Integer.getInteger("import.parseurs", 1));
+                ctx.setUpsert(upsert);
+                ctx.setDetectionChangements(Boolean.getBoolean("import.empreintes"));
+                ctx.setSuiviProgression(progression);
+                ctx.setCapaciteCacheButeurs(Integer.getInteger("import.cacheButeurs",
+                        ImportContext.CAPACITE_CACHE_BUTEURS_DEFAUT));
+                String tauxFiltres = System.getProperty("import.filtresBloom");
+                if (tauxFiltres != null) {
+                    ctx.chargerFiltres(Double.parseDouble(tauxFiltres));
+                }
+                if (classement > 0) {
+                    long debutClassement = System.currentTimeMillis();
+                    ClassementButeurs charge = ctx.chargerClassement();
+                    System.out.println("Classement des buteurs : " + charge.taille() + " buteurs chargés en "
+                            + (System.currentTimeMillis() - debutClassement) + " ms");
+                }
 
-             System.out.println("Import : shootouts.csv");
-            new ShootoutsCsvImporter(em, collector).importer("shootouts.csv");
+                RepriseIncrementale reprise = Boolean.getBoolean("import.incremental")
+                        ? new RepriseIncrementale(dossierSource) : null;
 
-            collector.getErreurs().forEach(em::persist);
+                if (concurrent) {
+                    planification(reprise, emf, partitionsButs).executer(emf, ctx);
+                } else if (reprise != null) {
+                    planification(reprise, emf, partitionsButs).executerEnSequence(ctx);
+                } else {
+                    System.out.println("Import : results.csv");
+                    new ResultCsvImporter(ctx).importer("results.csv");
+
+                    System.out.println("Import : goalscorers.csv");
+                    new GoalsScorersCsvImporter(ctx).importer("goalscorers.csv");
+
+                    System.out.println("Import : shootouts.csv");
+                    new ShootoutsCsvImporter(ctx).importer("shootouts.csv");
+                }
+                CacheButeurs buteurs = ctx.getButeurs();
+                if (buteurs.getSucces() + buteurs.getEchecs() > 0) {
+                    System.out.printf("Cache des buteurs : %d succès, %d échecs (%.1f %%), %d évictions%n",
+                            buteurs.getSucces(), buteurs.getEchecs(), buteurs.tauxSucces() * 100,
+                            buteurs.getEvictions());
+                }
+                if (ctx.getFiltres() != null) {
+                    ctx.getFiltres().afficher();
+                }
+                if (ctx.getClassement() != null) {
+                    afficherClassement(new ClassementService(em, ctx.getClassement()), classement);
+                }
+            }
+
+            collector.extraireNonEnregistrees().forEach(em::persist);
+            if (progression) {
+                // Import complet : plus rien à reprendre
+                new ProgressionImportDaoImpl(em).deleteAll();
+            }
             em.getTransaction().commit();
 
             System.out.println("Import terminé avec succès.");
         } catch (Exception e) {
             System.err.println("Erreur pendant l'import : rollback effectué.");
-            em.getTransaction().rollback();
+            if (progression) {
+                System.err.println("Les lots déjà commités sont conservés : relancer l'import pour le reprendre.");
+            }
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
             e.printStackTrace();
         } finally {
+            collector.close();
             em.close();
+            if (statistiques) {
+                CacheSecondNiveau.afficherStatistiques(emf);
+            }
             emf.close();
         }
 
         long endTime = System.currentTimeMillis();
         System.out.println("Durée totale : " + (endTime - startTime) + " ms");
-        System.out.println("Nombre d’erreurs collectées : " + collector.getErreurs().size());
+        System.out.println("Nombre d’erreurs collectées : " + collector.getNombreErreurs());
+        collector.getNombreParTraitement().forEach((traitement, nombre) ->
+                System.out.println("  " + traitement + " : " + nombre));
+        collector.getNombreParGroupe().entrySet().stream().limit(5).forEach(groupe ->
+                System.out.println("  " + groupe.getValue() + " x " + groupe.getKey()));
+        if (collector.getNombrePerdues() > 0) {
+            System.err.println("Erreurs non enregistrées en base : " + collector.getNombrePerdues());
+        }
+    }
+
+    /**
+     * Purge, dans sa propre transaction, la période ou le tournoi demandés par les propriétés import.purge.*
+     * @param em EntityManager de l'import
+     */
+    private static void purger(EntityManager em) {
+        String debut = System.getProperty("import.purge.debut");
+        String fin = System.getProperty("import.purge.fin");
+        String tournoi = System.getProperty("import.purge.tournoi");
+        if (debut == null && fin == null && tournoi == null) {
+            return;
+        }
+        if (tournoi != null && (debut != null || fin != null)) {
+            throw new IllegalStateException("Purger soit une période (import.purge.debut/fin), soit un tournoi");
+        }
+        if (tournoi == null && (debut == null || fin == null)) {
+            throw new IllegalStateException("Purge d'une période : import.purge.debut et import.purge.fin "
+                    + "doivent être renseignés tous les deux");
+        }
+        em.getTransaction().begin();
+        PurgeService purge = new PurgeService(em);
+        PurgeService.Bilan bilan = tournoi != null
+                ? purge.purgerTournoi(tournoi)
+                : purge.purgerPeriode(LocalDate.parse(debut), LocalDate.parse(fin));
+        em.getTransaction().commit();
+        System.out.println("Purge : " + bilan.matchs() + " matchs, " + bilan.buts() + " buts, " + bilan.scores()
+                + " scores, " + bilan.tirsButs() + " tirs aux buts, " + bilan.buteurs() + " buteurs sans but, "
+                + bilan.empreintes() + " empreintes de lignes");
+    }
+
+    /**
+     * Affiche les meilleurs buteurs, lus dans le classement en mémoire
+     * @param service service de lecture du classement
+     * @param nombre taille du classement
+     */
+    private static void afficherClassement(ClassementService service, int nombre) {
+        System.out.println("Meilleurs buteurs :");
+        int rang = 0;
+        for (TotalButeur total : service.meilleursButeurs(nombre)) {
+            System.out.printf("  %d. %s (%s) : %d buts dont %d penalties, %d contre son camp%n", ++rang,
+                    total.buteur(), total.equipe(), total.buts(), total.penalties(), total.contreSonCamp());
+        }
+    }
+
+    /**
+     * Graphe des étapes d'import : chaque importeur déclare les fichiers dont il dépend
+     * @param reprise gestion des points de reprise, null pour importer les fichiers en entier
+     * @param emf fabrique des EntityManager des partitions de l'import des buts
+     * @param partitionsButs nombre de partitions de l'import des buts, 1 pour l'import sur un seul thread
+     * @return l'ordonnanceur des trois imports
+     */
+    private static PlanificateurImport planification(RepriseIncrementale reprise, EntityManagerFactory emf,
+                                                     int partitionsButs) {
+        Consumer<ImportContext> buts = partitionsButs > 1
+                ? c -> new ImportButsPartitionne(emf, c, partitionsButs).importer(GoalsScorersCsvImporter.FICHIER)
+                : c -> new GoalsScorersCsvImporter(c).importer(GoalsScorersCsvImporter.FICHIER);
+        return new PlanificateurImport()
+                .ajouter(ResultCsvImporter.FICHIER,
+                        etape(ResultCsvImporter.FICHIER,
+                                c -> new ResultCsvImporter(c).importer(ResultCsvImporter.FICHIER), reprise),
+                        ResultCsvImporter.PREREQUIS)
+                .ajouter(GoalsScorersCsvImporter.FICHIER,
+                        etape(GoalsScorersCsvImporter.FICHIER, buts, reprise),
+                        GoalsScorersCsvImporter.PREREQUIS)
+                .ajouter(ShootoutsCsvImporter.FICHIER,
+                        etape(ShootoutsCsvImporter.FICHIER,
+                                c -> new ShootoutsCsvImporter(c).importer(ShootoutsCsvImporter.FICHIER), reprise),
+                        ShootoutsCsvImporter.PREREQUIS);
+    }
+
+    /**
+     * Encadre l'import d'un fichier par la lecture puis l'avancement de son point de reprise
+     * @param fichier nom du fichier d'import
+     * @param action import du fichier
+     * @param reprise gestion des points de reprise, null pour l'import complet
+     * @return l'action de l'étape
+     */
+    private static Consumer<ImportContext> etape(String fichier, Consumer<ImportContext> action,
+                                                 RepriseIncrementale reprise) {
+        if (reprise == null) {
+            return action;
+        }
+        return c -> reprise.importer(c, fichier, action);
+    }
+
+    /**
+     * Propriétés Hibernate ajoutées à celles de persistence.xml pour l'import :
+     * insertions envoyées par batch JDBC et triées par entité pour maximiser la taille des batchs.
+     * Avec MySQL, ajouter rewriteBatchedStatements=true à l'URL JDBC pour regrouper réellement les INSERT.
+     * Les équipes et les buteurs sont gardés dans le cache de second niveau.
+     * En mode upsert, le pilote compte les lignes modifiées et non les lignes trouvées, pour distinguer un doublon ignoré.
+     * @param idsPooled true pour activer l'allocation des ids par blocs
+     * @param upsert true si les insertions passent par INSERT ... ON DUPLICATE KEY UPDATE
+     * @param statistiques true pour collecter les statistiques Hibernate (caches notamment)
+     * @return propriétés à passer à la fabrique d'EntityManager
+     */
+    private static Map<String, Object> proprietesImport(boolean idsPooled, boolean upsert, boolean statistiques) {
+        Map<String, Object> proprietes = new HashMap<>();
+        proprietes.put("hibernate.jdbc.batch_size",
+                String.valueOf(Integer.getInteger("import.batchJdbc", TAILLE_BATCH_JDBC_DEFAUT)));
+        proprietes.put("hibernate.order_inserts", "true");
+        proprietes.put("hibernate.order_updates", "true");
+        // Associations paresseuses parcourues en boucle : initialisées par paquets plutôt qu'une à une
+        proprietes.put("hibernate.default_batch_fetch_size", "32");
+        proprietes.putAll(CacheSecondNiveau.proprietes(statistiques));
+        if (idsPooled) {
+            proprietes.putAll(IdGenerateurs.proprietes());
+        }
+        if (upsert) {
+            proprietes.putAll(LignesAffectees.proprietes());
+        }
+        return proprietes;
     }
 }
@@ -1,9 +1,13 @@
 package fr.diginamic.dao;
 
 import fr.diginamic.model.But;
+import fr.diginamic.utils.LignesAffectees;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implémentation de l'entité But via l'interface GenericDao
@@ -20,6 +24,24 @@ public class ButDaoImpl implements GenericDao<But> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité But
+     */
+    @Override
+    public Class<But> getClasseEntite() {
+        return But.class;
+    }
+
     /**
      * Méthode pour insérer un but et le persister en base de données
      * @param but désigne le but à insérer
@@ -55,6 +77,59 @@ public class ButDaoImpl implements GenericDao<But> {
                 .getResultList();
     }
 
+    /**
+     * Méthode récupérant en une requête les buts déjà enregistrés pour un match,
+     * réduits à leur clé (buteur, minute), sans charger les entités associées
+     * @param matchId désigne l'id du match
+     * @return pour chaque but, un tableau {id du buteur, minute}
+     */
+    public List<Object[]> findClesByMatch(int matchId) {
+        return em.createQuery("SELECT b.buteur.id, b.minute FROM But b WHERE b.match.id = :matchId", Object[].class)
+                .setParameter("matchId", matchId)
+                .getResultList();
+    }
+
+    /**
+     * Méthode parcourant les ids des matchs ayant au moins un but
+     * @return flux des ids de match distincts, à fermer après usage
+     */
+    public Stream<Integer> streamIdsMatchs() {
+        return em.createQuery("SELECT DISTINCT b.match.id FROM But b", Integer.class).getResultStream();
+    }
+
+    /**
+     * Méthode totalisant en un seul parcours de la table les buts de chaque buteur par tournoi
+     * @return flux de tuples {id du buteur, tournoi, buts, penalties, buts contre son camp}, à fermer après usage
+     */
+    public Stream<Object[]> streamTotauxParButeurEtTournoi() {
+        return em.createQuery("SELECT b.buteur.id, m.tournoi, COUNT(b), "
+                        + "SUM(CASE WHEN b.penalty = true THEN 1 ELSE 0 END), "
+                        + "SUM(CASE WHEN b.contreSonCamp = true THEN 1 ELSE 0 END) "
+                        + "FROM But b JOIN b.match m GROUP BY b.buteur.id, m.tournoi", Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Parcours.TAILLE_PAQUET)
+                .getResultStream();
+    }
+
+    /**
+     * Méthode insérant un but en une seule requête, sans effet s'il existe déjà
+     * pour ce match, ce buteur et cette minute (index unique uk_but_match_buteur_minute)
+     * @param but désigne le but à insérer, match et buteur déjà en base
+     * @return true si le but a été inséré, false s'il existait déjà
+     */
+    public boolean insererOuIgnorer(But but) {
+        int lignes = em.createNativeQuery("INSERT INTO but (minute, contre_son_camp, penalty, match_id, buteur_id) "
+                        + "VALUES (:minute, :csc, :penalty, :matchId, :buteurId) ON DUPLICATE KEY UPDATE id = id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(But.class)
+                .setParameter("minute", but.getMinute())
+                .setParameter("csc", but.isContreSonCamp())
+                .setParameter("penalty", but.isPenalty())
+                .setParameter("matchId", but.getMatch().getId())
+                .setParameter("buteurId", but.getButeur().getId())
+                .executeUpdate();
+        return LignesAffectees.inseree(lignes);
+    }
+
     /**
      * Méthode retournant la liste de tous les buts en base de données
      * @return liste de tous les buts en base de données
@@ -64,6 +139,53 @@ public class ButDaoImpl implements GenericDao<But> {
         return em.createQuery("SELECT b FROM But b", But.class).getResultList();
     }
 
+    /**
+     * Méthode retournant les buts d'un match par minute, avec leur buteur et son équipe
+     * chargés par la même requête (jointures FETCH)
+     * @param matchId id du match
+     * @return la liste des buts du match
+     */
+    public List<But> findByMatchAvecButeurs(int matchId) {
+        return em.createQuery("SELECT b FROM But b JOIN FETCH b.buteur bu JOIN FETCH bu.equipe "
+                        + "WHERE b.match.id = :matchId ORDER BY b.minute, b.id", But.class)
+                .setParameter("matchId", matchId)
+                .getResultList();
+    }
+
+    /**
+     * Méthode parcourant tous les buts par paquets avec leur match, les équipes du match,
+     * leur buteur et son équipe, pour les exports : une seule requête au lieu d'une par association
+     * @return flux des buts entièrement chargés, à fermer après usage
+     */
+    public Stream<But> streamAllAvecDetail() {
+        return Parcours.stream(em, em.createQuery("SELECT b FROM But b JOIN FETCH b.match m "
+                + "JOIN FETCH m.equipeHote JOIN FETCH m.equipeInvitee JOIN FETCH b.buteur bu JOIN FETCH bu.equipe "
+                + "ORDER BY b.id", But.class));
+    }
+
+    /**
+     * Méthode retournant de quoi reconstituer les clés des lignes de goalscorers.csv des buts de ces matchs
+     * @param matchIds ids des matchs
+     * @return liste de tuples (id match, nom équipe du buteur, nom du buteur, minute)
+     */
+    public List<Object[]> findClesLignesByMatchs(List<Integer> matchIds) {
+        return em.createQuery("SELECT b.match.id, b.buteur.equipe.nom, b.buteur.nom, b.minute FROM But b "
+                        + "WHERE b.match.id IN :ids", Object[].class)
+                .setParameter("ids", matchIds)
+                .getResultList();
+    }
+
+    /**
+     * Méthode supprimant en une requête tous les buts de ces matchs, sans les charger
+     * @param matchIds ids des matchs
+     * @return nombre de buts supprimés
+     */
+    public int deleteByMatchs(List<Integer> matchIds) {
+        return em.createQuery("DELETE FROM But b WHERE b.match.id IN :ids")
+                .setParameter("ids", matchIds)
+                .executeUpdate();
+    }
+
     /**
      * Méthode permettant de supprimer un but via son id unique
      * @param id id utilisé pour identifier l'instance de manière unique
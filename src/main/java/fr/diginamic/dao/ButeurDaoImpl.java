@@ -1,9 +1,14 @@
 package fr.diginamic.dao;
 
 import fr.diginamic.model.Buteur;
+import fr.diginamic.utils.CacheSecondNiveau;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implémentation de l'entité Buteur via l'interface GenericDao
@@ -20,6 +25,24 @@ public class ButeurDaoImpl implements GenericDao<Buteur> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité Buteur
+     */
+    @Override
+    public Class<Buteur> getClasseEntite() {
+        return Buteur.class;
+    }
+
     /**
      * Méthode pour insérer un buteur et le persister en base de données
      * @param buteur désigne le but à insérer
@@ -40,7 +63,17 @@ public class ButeurDaoImpl implements GenericDao<Buteur> {
     }
 
     /**
-     * Méthode permettant de récupérer la liste des buteurs selon plusieurs attributs
+     * Méthode retournant une référence vers un buteur sans requête en base
+     * @param id désigne l'id unique du buteur
+     * @return la référence (proxy ou instance gérée) du buteur
+     */
+    public Buteur getReference(int id) {
+        return em.getReference(Buteur.class, id);
+    }
+
+    /**
+     * Méthode permettant de récupérer la liste des buteurs selon plusieurs attributs,
+     * via le cache de requêtes (invalidé par Hibernate à chaque écriture dans la table buteur)
      * @param nom désigne le nom du buteur
      * @param equipeId désigne l'id de son équipe
      * @return la liste des buteurs respectant ces critères
@@ -49,9 +82,67 @@ public class ButeurDaoImpl implements GenericDao<Buteur> {
         return em.createQuery("SELECT b FROM Buteur b WHERE b.nom = :nom AND b.equipe.id = :equipeId", Buteur.class)
                 .setParameter("nom", nom)
                 .setParameter("equipeId", equipeId)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, CacheSecondNiveau.REGION_REQUETES_BUTEUR)
                 .getResultList();
     }
 
+    /**
+     * Méthode parcourant les clés naturelles de tous les buteurs sans charger les entités
+     * @return flux de tuples (nom, id équipe, id), à fermer après usage
+     */
+    public Stream<Object[]> streamCles() {
+        return em.createQuery("SELECT b.nom, b.equipe.id, b.id FROM Buteur b", Object[].class)
+                .getResultStream();
+    }
+
+    /**
+     * Méthode récupérant le nom et l'équipe de quelques buteurs sans charger les entités
+     * @param ids ids des buteurs
+     * @return pour chaque buteur trouvé, un tableau {id, nom, nom de l'équipe}
+     */
+    public List<Object[]> findNomsByIds(Collection<Integer> ids) {
+        return em.createQuery("SELECT b.id, b.nom, e.nom FROM Buteur b JOIN b.equipe e WHERE b.id IN :ids",
+                        Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * Méthode récupérant les ids des buteurs d'une équipe
+     * @param nomEquipe nom de l'équipe
+     * @return ids des buteurs de l'équipe
+     */
+    public List<Integer> findIdsByEquipe(String nomEquipe) {
+        return em.createQuery("SELECT b.id FROM Buteur b WHERE b.equipe.nom = :nom", Integer.class)
+                .setParameter("nom", nomEquipe)
+                .getResultList();
+    }
+
+    /**
+     * Méthode insérant un buteur en une seule requête, sans effet s'il existe déjà
+     * pour ce nom et cette équipe (index unique uk_buteur_nom_equipe).
+     * En cas de doublon, LAST_INSERT_ID(id) retient l'id de la ligne existante :
+     * l'id est relu sur la même connexion dans les deux cas, sans recherche par nom.
+     * @param nom nom du buteur
+     * @param equipeId id de l'équipe du buteur
+     * @return id du buteur inséré ou déjà existant
+     */
+    public int insererOuRecuperer(String nom, int equipeId) {
+        em.createNativeQuery("INSERT INTO buteur (nom, equipe_id) VALUES (:nom, :equipeId) "
+                        + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Buteur.class)
+                .setParameter("nom", nom)
+                .setParameter("equipeId", equipeId)
+                .executeUpdate();
+        Number id = (Number) em.createNativeQuery("SELECT LAST_INSERT_ID()")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Buteur.class)
+                .getSingleResult();
+        return id.intValue();
+    }
+
     /**
      * Méthode retournant la liste de tous les buteurs en base de données
      * @return liste de tous les buteurs en base de données
@@ -61,6 +152,15 @@ public class ButeurDaoImpl implements GenericDao<Buteur> {
         return em.createQuery("SELECT b FROM Buteur b", Buteur.class).getResultList();
     }
 
+    /**
+     * Méthode supprimant en une requête les buteurs qui n'ont plus aucun but
+     * @return nombre de buteurs supprimés
+     */
+    public int deleteSansBut() {
+        return em.createQuery("DELETE FROM Buteur b WHERE NOT EXISTS (SELECT 1 FROM But x WHERE x.buteur = b)")
+                .executeUpdate();
+    }
+
     /**
      * Méthode permettant de supprimer un buteur via son id unique
      * @param id id utilisé pour identifier l'instance de manière unique
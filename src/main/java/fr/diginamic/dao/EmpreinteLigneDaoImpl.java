@@ -0,0 +1,171 @@
+package fr.diginamic.dao;
+
+import fr.diginamic.model.EmpreinteLigne;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implémentation de l'entité EmpreinteLigne via l'interface GenericDao.
+ * Les empreintes se comptent en dizaines de milliers par fichier : elles sont lues
+ * en flux et écrites par batch JDBC, sans passer par le contexte de persistance.
+ */
+public class EmpreinteLigneDaoImpl implements GenericDao<EmpreinteLigne> {
+
+    /** Nombre de requêtes envoyées par batch JDBC */
+    private static final int TAILLE_BATCH = 1000;
+
+    private EntityManager em;
+
+    /**
+     * Constructeur de la classe, initialisée avec un entity manager
+     * @param em instance d'EntityManager
+     */
+    public EmpreinteLigneDaoImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité EmpreinteLigne
+     */
+    @Override
+    public Class<EmpreinteLigne> getClasseEntite() {
+        return EmpreinteLigne.class;
+    }
+
+    /**
+     * Méthode pour insérer une empreinte et la persister en base de données
+     * @param empreinte désigne l'empreinte à insérer
+     */
+    @Override
+    public void insert(EmpreinteLigne empreinte) {
+        em.persist(empreinte);
+    }
+
+    /**
+     * Méthode permettant de récupérer une empreinte en la recherchant avec son id
+     * @param id désigne l'id unique de l'empreinte
+     * @return l'instance possédant l'id recherché
+     */
+    @Override
+    public EmpreinteLigne findById(int id) {
+        return em.find(EmpreinteLigne.class, id);
+    }
+
+    /**
+     * Méthode comptant les empreintes d'un fichier, pour dimensionner leur chargement
+     * @param fichier nom du fichier d'import
+     * @return nombre d'empreintes enregistrées pour ce fichier
+     */
+    public long countByFichier(String fichier) {
+        return em.createQuery("SELECT COUNT(e) FROM EmpreinteLigne e WHERE e.fichier = :fichier", Long.class)
+                .setParameter("fichier", fichier)
+                .getSingleResult();
+    }
+
+    /**
+     * Méthode parcourant en flux les empreintes d'un fichier, sans charger d'entités
+     * @param fichier nom du fichier d'import
+     * @return flux de tableaux (cle, empreinte), à fermer après usage
+     */
+    public Stream<Object[]> streamByFichier(String fichier) {
+        return em.createQuery("SELECT e.cle, e.empreinte FROM EmpreinteLigne e WHERE e.fichier = :fichier",
+                        Object[].class)
+                .setParameter("fichier", fichier)
+                .getResultStream();
+    }
+
+    /**
+     * Méthode insérant par batch JDBC les empreintes de nouvelles lignes
+     * @param fichier nom du fichier d'import
+     * @param cles empreintes des clés naturelles
+     * @param empreintes empreintes des lignes, au même indice que leur clé
+     * @param nombre nombre d'entrées à écrire
+     */
+    public void insererParLot(String fichier, long[] cles, long[] empreintes, int nombre) {
+        executerParLot("INSERT INTO empreinte_ligne (empreinte, fichier, cle) VALUES (?, ?, ?)",
+                fichier, cles, empreintes, nombre);
+    }
+
+    /**
+     * Méthode mettant à jour par batch JDBC les empreintes de lignes modifiées
+     * @param fichier nom du fichier d'import
+     * @param cles empreintes des clés naturelles
+     * @param empreintes nouvelles empreintes des lignes, au même indice que leur clé
+     * @param nombre nombre d'entrées à écrire
+     */
+    public void mettreAJourParLot(String fichier, long[] cles, long[] empreintes, int nombre) {
+        executerParLot("UPDATE empreinte_ligne SET empreinte = ? WHERE fichier = ? AND cle = ?",
+                fichier, cles, empreintes, nombre);
+    }
+
+    /**
+     * Méthode retournant la liste de toutes les empreintes en base de données
+     * @return liste de toutes les empreintes en base de données
+     */
+    @Override
+    public List<EmpreinteLigne> findAll() {
+        return em.createQuery("SELECT e FROM EmpreinteLigne e", EmpreinteLigne.class).getResultList();
+    }
+
+    /**
+     * Méthode supprimant en une requête les empreintes de certaines lignes d'un fichier
+     * @param fichier nom du fichier d'import
+     * @param cles empreintes des clés naturelles des lignes
+     * @return nombre d'empreintes supprimées
+     */
+    public int deleteByCles(String fichier, List<Long> cles) {
+        return em.createQuery("DELETE FROM EmpreinteLigne e WHERE e.fichier = :fichier AND e.cle IN :cles")
+                .setParameter("fichier", fichier)
+                .setParameter("cles", cles)
+                .executeUpdate();
+    }
+
+    /**
+     * Méthode permettant de supprimer une empreinte via son id unique
+     * @param id id utilisé pour identifier l'instance de manière unique
+     */
+    @Override
+    public void delete(int id) {
+        EmpreinteLigne e = em.find(EmpreinteLigne.class, id);
+        if (e != null) {
+            em.remove(e);
+        }
+    }
+
+    /**
+     * Exécute une requête (empreinte, fichier, cle) pour chaque entrée, par batch JDBC
+     */
+    private void executerParLot(String sql, String fichier, long[] cles, long[] empreintes, int nombre) {
+        if (nombre == 0) {
+            return;
+        }
+        em.unwrap(Session.class).doWork(connexion -> {
+            try (PreparedStatement requete = connexion.prepareStatement(sql)) {
+                for (int i = 0; i < nombre; i++) {
+                    requete.setLong(1, empreintes[i]);
+                    requete.setString(2, fichier);
+                    requete.setLong(3, cles[i]);
+                    requete.addBatch();
+                    if ((i + 1) % TAILLE_BATCH == 0) {
+                        requete.executeBatch();
+                    }
+                }
+                requete.executeBatch();
+            }
+        });
+    }
+}
@@ -1,9 +1,11 @@
 package fr.diginamic.dao;
 
 import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.CacheSecondNiveau;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.List;
 
@@ -22,6 +24,24 @@ public class EquipeDaoImpl implements GenericDao<Equipe> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité Equipe
+     */
+    @Override
+    public Class<Equipe> getClasseEntite() {
+        return Equipe.class;
+    }
+
     /**
      * Méthode pour insérer une équipe et la persister en base de données
      * @param equipe désigne l'équipe à insérer
@@ -42,7 +62,18 @@ public class EquipeDaoImpl implements GenericDao<Equipe> {
     }
 
     /**
-     * Méthode permettant de récupérer une liste d'équipes ayant le même nom
+     * Méthode retournant une référence vers une équipe sans requête en base
+     * @param id désigne l'id unique de l'équipe
+     * @return la référence (proxy ou instance gérée) de l'équipe
+     */
+    public Equipe getReference(int id) {
+        return em.getReference(Equipe.class, id);
+    }
+
+    /**
+     * Méthode permettant de récupérer une liste d'équipes ayant le même nom.
+     * Le résultat passe par le cache de requêtes : seuls les ids sont mémorisés,
+     * les équipes elles-mêmes sont relues depuis le cache de second niveau
      * @param nom nom d'équipe à rechercher
      * @return la liste d'équipes ayant le même nom
      */
@@ -50,6 +81,8 @@ public class EquipeDaoImpl implements GenericDao<Equipe> {
         return em.createQuery(
                         "SELECT e FROM Equipe e WHERE e.nom = :nom", Equipe.class)
                 .setParameter("nom", nom)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, CacheSecondNiveau.REGION_REQUETES_EQUIPE)
                 .getResultList();
     }
 
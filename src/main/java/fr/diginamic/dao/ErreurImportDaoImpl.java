@@ -0,0 +1,130 @@
+package fr.diginamic.dao;
+
+import fr.diginamic.model.ErreurImport;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de l'entité ErreurImport via l'interface GenericDao
+ */
+public class ErreurImportDaoImpl implements GenericDao<ErreurImport> {
+
+    private EntityManager em;
+
+    /**
+     * Constructeur de la classe, initialisée avec un entity manager
+     * @param em instance d'EntityManager
+     */
+    public ErreurImportDaoImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité ErreurImport
+     */
+    @Override
+    public Class<ErreurImport> getClasseEntite() {
+        return ErreurImport.class;
+    }
+
+    /**
+     * Méthode pour insérer une erreur et la persister en base de données
+     * @param erreur désigne l'erreur à insérer
+     */
+    @Override
+    public void insert(ErreurImport erreur) {
+        em.persist(erreur);
+    }
+
+    /**
+     * Méthode insérant une liste d'erreurs en un seul batch JDBC, sans passer par le contexte de persistance.
+     * Si l'id n'est pas généré par la base (mode import.idsPooled, générateur TABLE), les ids sont
+     * alloués par le générateur de l'entité et insérés avec les erreurs.
+     * @param erreurs désigne les erreurs à insérer
+     */
+    public void insererParLot(List<ErreurImport> erreurs) {
+        if (erreurs.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        Generator generateur = session.getEntityPersister(ErreurImport.class.getName(), erreurs.get(0)).getGenerator();
+        List<Object> ids = null;
+        if (generateur instanceof BeforeExecutionGenerator avantInsert) {
+            ids = new ArrayList<>(erreurs.size());
+            for (ErreurImport erreur : erreurs) {
+                ids.add(avantInsert.generate(session, erreur, null, EventType.INSERT));
+            }
+        }
+        List<Object> idsAlloues = ids;
+        session.doWork(connexion -> {
+            try (PreparedStatement insert = connexion.prepareStatement(idsAlloues == null
+                    ? "INSERT INTO erreur_import (fichier, ligne, message, date_erreur, traitement) "
+                    + "VALUES (?, ?, ?, ?, ?)"
+                    : "INSERT INTO erreur_import (fichier, ligne, message, date_erreur, traitement, id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < erreurs.size(); i++) {
+                    ErreurImport erreur = erreurs.get(i);
+                    insert.setString(1, erreur.getFichier());
+                    insert.setString(2, erreur.getLigne());
+                    insert.setString(3, erreur.getMessage());
+                    insert.setTimestamp(4, Timestamp.valueOf(erreur.getDateErreur()));
+                    insert.setString(5, erreur.getTraitement());
+                    if (idsAlloues != null) {
+                        insert.setObject(6, idsAlloues.get(i));
+                    }
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Méthode permettant de récupérer une erreur en la recherchant avec son id
+     * @param id désigne l'id unique de l'erreur
+     * @return l'instance possédant l'id recherché
+     */
+    @Override
+    public ErreurImport findById(int id) {
+        return em.find(ErreurImport.class, id);
+    }
+
+    /**
+     * Méthode retournant la liste de toutes les erreurs en base de données
+     * @return liste de toutes les erreurs en base de données
+     */
+    @Override
+    public List<ErreurImport> findAll() {
+        return em.createQuery("SELECT e FROM ErreurImport e", ErreurImport.class).getResultList();
+    }
+
+    /**
+     * Méthode permettant de supprimer une erreur via son id unique
+     * @param id id utilisé pour identifier l'instance de manière unique
+     */
+    @Override
+    public void delete(int id) {
+        ErreurImport e = em.find(ErreurImport.class, id);
+        if (e != null) {
+            em.remove(e);
+        }
+    }
+}
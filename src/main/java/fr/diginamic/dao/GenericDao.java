@@ -1,6 +1,11 @@
 package fr.diginamic.dao;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interface DAO à implémenter dans toutes les implémentations d'entités
@@ -14,5 +19,54 @@ public interface GenericDao<T> {
 
     List<T> findAll();
 
+    /**
+     * Getter
+     * @return EntityManager du DAO, utilisé par les parcours par défaut
+     */
+    EntityManager getEntityManager();
+
+    /**
+     * Getter
+     * @return classe de l'entité gérée, utilisée par les parcours par défaut
+     */
+    Class<T> getClasseEntite();
+
+    /**
+     * Parcourt toutes les entités en mémoire constante, au lieu de les charger en liste comme findAll :
+     * l'EntityManager est vidé régulièrement pendant le parcours et doit lui être dédié
+     * @return flux des entités par ordre d'id, à fermer après usage
+     */
+    default Stream<T> streamAll() {
+        EntityManager em = getEntityManager();
+        return Parcours.stream(em, em.createQuery(requeteParId(""), getClasseEntite()));
+    }
+
+    /**
+     * Pagination par clé : entités d'id supérieur au dernier id lu, par ordre d'id
+     * @param dernierId dernier id de la page précédente, 0 pour la première page
+     * @param taille nombre maximal d'entités
+     * @return la page, vide après la dernière
+     */
+    default List<T> findPageApres(int dernierId, int taille) {
+        return Parcours.page(getEntityManager()
+                .createQuery(requeteParId("WHERE e.%s > :dernierId "), getClasseEntite())
+                .setParameter("dernierId", dernierId), taille);
+    }
+
     void delete(int id);
+
+    /**
+     * Construit une requête sur toutes les entités triées par id, nom de l'entité et de son id lus dans le métamodèle
+     * @param filtre clause WHERE éventuelle, %s désignant l'attribut id
+     * @return la requête JPQL
+     */
+    private String requeteParId(String filtre) {
+        EntityType<T> type = getEntityManager().getMetamodel().entity(getClasseEntite());
+        String id = type.getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .findFirst()
+                .orElseThrow()
+                .getName();
+        return "SELECT e FROM " + type.getName() + " e " + filtre.formatted(id) + "ORDER BY e." + id;
+    }
 }
@@ -3,9 +3,13 @@ package fr.diginamic.dao;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Implémentation de l'entité Match via l'interface GenericDao
@@ -22,6 +26,24 @@ public class MatchDaoImpl implements GenericDao<Match> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité Match
+     */
+    @Override
+    public Class<Match> getClasseEntite() {
+        return Match.class;
+    }
+
     /**
      * Méthode pour insérer un match et le persister en base de données
      * @param match désigne l'équipe à insérer
@@ -41,6 +63,33 @@ public class MatchDaoImpl implements GenericDao<Match> {
         return em.find(Match.class, id);
     }
 
+    /**
+     * Méthode permettant de récupérer un match avec ses équipes, son score et ses tirs aux buts,
+     * en une requête (graphe {@link Match#GRAPHE_RESULTAT})
+     * @param id désigne l'id unique du match
+     * @return le match entièrement chargé, ou null
+     */
+    public Match findByIdAvecResultat(int id) {
+        return em.find(Match.class, id, Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH,
+                em.getEntityGraph(Match.GRAPHE_RESULTAT)));
+    }
+
+    /**
+     * Méthode retournant les matchs joués entre deux dates, par ordre chronologique,
+     * avec leurs équipes, score et tirs aux buts chargés par la même requête
+     * @param debut première date, incluse
+     * @param fin dernière date, incluse
+     * @return la liste des matchs de la période
+     */
+    public List<Match> findByPeriodeAvecResultat(LocalDate debut, LocalDate fin) {
+        return em.createQuery("SELECT m FROM Match m WHERE m.date BETWEEN :debut AND :fin ORDER BY m.date, m.id",
+                        Match.class)
+                .setParameter("debut", debut)
+                .setParameter("fin", fin)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Match.GRAPHE_RESULTAT))
+                .getResultList();
+    }
+
     /**
      * Méthode permettant de récupérer la liste des matchs selon plusieurs attributs
      * @param date désigne la date à laquelle se déroule le match
@@ -57,6 +106,43 @@ public class MatchDaoImpl implements GenericDao<Match> {
                 .getResultList();
     }
 
+    /**
+     * Méthode retournant une référence vers un match sans requête en base
+     * @param id désigne l'id unique du match
+     * @return la référence (proxy ou instance gérée) du match
+     */
+    public Match getReference(int id) {
+        return em.getReference(Match.class, id);
+    }
+
+    /**
+     * Méthode retournant le nombre de matchs en base de données
+     * @return nombre de matchs
+     */
+    public long count() {
+        return em.createQuery("SELECT COUNT(m) FROM Match m", Long.class).getSingleResult();
+    }
+
+    /**
+     * Méthode parcourant les clés naturelles de tous les matchs sans charger les entités
+     * @return flux de tuples (id, date, id équipe hôte, id équipe invitée), à fermer après usage
+     */
+    public Stream<Object[]> streamClesNaturelles() {
+        return em.createQuery(
+                "SELECT m.id, m.date, m.equipeHote.id, m.equipeInvitee.id FROM Match m", Object[].class)
+                .getResultStream();
+    }
+
+    /**
+     * Méthode parcourant le tournoi de chaque match sans charger les entités
+     * @return flux de tuples (id, tournoi), à fermer après usage
+     */
+    public Stream<Object[]> streamTournois() {
+        return em.createQuery("SELECT m.id, m.tournoi FROM Match m", Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Parcours.TAILLE_PAQUET)
+                .getResultStream();
+    }
+
     /**
      * Méthode retournant la liste de tous les matchs en base de données
      * @return liste de tous les matchs en base de données
@@ -66,6 +152,68 @@ public class MatchDaoImpl implements GenericDao<Match> {
         return em.createQuery("SELECT m FROM Match m", Match.class).getResultList();
     }
 
+    /**
+     * Méthode retournant une page de matchs par ordre chronologique, à partir du dernier match lu
+     * (pagination par clé sur (date, id), l'id départageant les matchs d'un même jour),
+     * avec leurs équipes (graphe {@link Match#GRAPHE_EQUIPES})
+     * @param derniereDate date du dernier match de la page précédente, null pour la première page
+     * @param dernierId id du dernier match de la page précédente
+     * @param taille nombre maximal de résultats
+     * @return la page, par date puis id
+     */
+    public List<Match> findPageApresDate(LocalDate derniereDate, int dernierId, int taille) {
+        if (derniereDate == null) {
+            return Parcours.page(em.createQuery(
+                    "SELECT m FROM Match m ORDER BY m.date, m.id", Match.class)
+                    .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Match.GRAPHE_EQUIPES)), taille);
+        }
+        // m.date >= :date borne le parcours de l'index, la disjonction écarte les matchs déjà lus du même jour
+        return Parcours.page(em.createQuery(
+                "SELECT m FROM Match m WHERE m.date >= :date AND (m.date > :date OR m.id > :dernierId) "
+                        + "ORDER BY m.date, m.id", Match.class)
+                .setParameter("date", derniereDate)
+                .setParameter("dernierId", dernierId)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Match.GRAPHE_EQUIPES)), taille);
+    }
+
+    /**
+     * Méthode retournant les matchs joués entre deux dates, avec les noms de leurs équipes
+     * @param debut première date, incluse
+     * @param fin dernière date, incluse
+     * @return liste de tuples (id, date, nom équipe hôte, nom équipe invitée)
+     */
+    public List<Object[]> findClesByPeriode(LocalDate debut, LocalDate fin) {
+        return em.createQuery("SELECT m.id, m.date, m.equipeHote.nom, m.equipeInvitee.nom FROM Match m "
+                        + "WHERE m.date BETWEEN :debut AND :fin", Object[].class)
+                .setParameter("debut", debut)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Méthode retournant les matchs d'un tournoi, avec les noms de leurs équipes
+     * @param tournoi nom du tournoi
+     * @return liste de tuples (id, date, nom équipe hôte, nom équipe invitée)
+     */
+    public List<Object[]> findClesByTournoi(String tournoi) {
+        return em.createQuery("SELECT m.id, m.date, m.equipeHote.nom, m.equipeInvitee.nom FROM Match m "
+                        + "WHERE m.tournoi = :tournoi", Object[].class)
+                .setParameter("tournoi", tournoi)
+                .getResultList();
+    }
+
+    /**
+     * Méthode supprimant des matchs en une requête, sans les charger ;
+     * leurs buts, score et tirs aux buts doivent avoir été supprimés avant
+     * @param ids ids des matchs
+     * @return nombre de matchs supprimés
+     */
+    public int deleteByIds(List<Integer> ids) {
+        return em.createQuery("DELETE FROM Match m WHERE m.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
     /**
      * Méthode permettant de supprimer un match via son id unique
      * @param id id utilisé pour identifier l'instance de manière unique
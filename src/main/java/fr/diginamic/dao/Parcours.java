@@ -0,0 +1,79 @@
+package fr.diginamic.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parcours de tables entières en mémoire constante, partagés par les DAO :
+ * flux lus par paquets avec vidage périodique du contexte de persistance,
+ * et pagination par clé (keyset) plutôt que par décalage.
+ */
+final class Parcours {
+
+    /** Lignes lues par aller-retour JDBC, et entités gardées au plus dans le contexte de persistance */
+    static final int TAILLE_PAQUET = 500;
+
+    private Parcours() {
+        throw new AssertionError("Classe utilitaire");
+    }
+
+    /**
+     * Exécute une requête en flux : les entités sont lues en lecture seule, TAILLE_PAQUET par TAILLE_PAQUET,
+     * et le contexte de persistance est vidé avant de charger chaque nouveau paquet.
+     * Une entité reste donc gérée tant que l'appelant la traite, puis est détachée avec son paquet.
+     * Le vidage détache toutes les entités de l'EntityManager : il doit être dédié au parcours.
+     * Avec MySQL, ajouter useCursorFetch=true à l'URL JDBC pour que le pilote respecte la taille de fetch
+     * au lieu de charger tout le résultat.
+     * @param em EntityManager du parcours
+     * @param requete requête à parcourir
+     * @return flux des résultats, à fermer après usage (try-with-resources)
+     */
+    static <T> Stream<T> stream(EntityManager em, TypedQuery<T> requete) {
+        Stream<T> resultats = requete
+                .setHint(HibernateHints.HINT_FETCH_SIZE, TAILLE_PAQUET)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        Spliterator<T> source = resultats.spliterator();
+        Spliterator<T> parPaquets = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long lues;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                // Vidage avant la lecture de la ligne suivante, jamais pendant le traitement d'une entité
+                if (lues > 0 && lues % TAILLE_PAQUET == 0) {
+                    em.clear();
+                }
+                boolean lue = source.tryAdvance(action);
+                if (lue) {
+                    lues++;
+                }
+                return lue;
+            }
+        };
+        return StreamSupport.stream(parPaquets, false).onClose(resultats::close);
+    }
+
+    /**
+     * Lit une page d'une requête déjà filtrée et triée sur sa clé de pagination
+     * (WHERE cle > :derniere ORDER BY cle) : la base parcourt l'index à partir de la dernière clé vue,
+     * le coût d'une page ne dépend donc pas de sa position, contrairement à un OFFSET
+     * @param requete requête paginée par clé
+     * @param taille nombre maximal de résultats
+     * @return la page, vide après la dernière
+     */
+    static <T> List<T> page(TypedQuery<T> requete, int taille) {
+        if (taille < 1) {
+            throw new IllegalArgumentException("Taille de page invalide : " + taille);
+        }
+        return requete.setMaxResults(taille).getResultList();
+    }
+}
@@ -0,0 +1,101 @@
+package fr.diginamic.dao;
+
+import fr.diginamic.model.PointReprise;
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+
+/**
+ * Implémentation de l'entité PointReprise via l'interface GenericDao
+ */
+public class PointRepriseDaoImpl implements GenericDao<PointReprise> {
+
+    private EntityManager em;
+
+    /**
+     * Constructeur de la classe, initialisée avec un entity manager
+     * @param em instance d'EntityManager
+     */
+    public PointRepriseDaoImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité PointReprise
+     */
+    @Override
+    public Class<PointReprise> getClasseEntite() {
+        return PointReprise.class;
+    }
+
+    /**
+     * Méthode pour insérer un point de reprise et le persister en base de données
+     * @param pointReprise désigne le point de reprise à insérer
+     */
+    @Override
+    public void insert(PointReprise pointReprise) {
+        em.persist(pointReprise);
+    }
+
+    /**
+     * Méthode permettant de récupérer un point de reprise en le recherchant avec son id
+     * @param id désigne l'id unique du point de reprise
+     * @return l'instance possédant l'id recherché
+     */
+    @Override
+    public PointReprise findById(int id) {
+        return em.find(PointReprise.class, id);
+    }
+
+    /**
+     * Méthode permettant de récupérer le point de reprise d'un fichier
+     * @param fichier nom du fichier d'import
+     * @return le point de reprise, ou null si le fichier n'a jamais été importé
+     */
+    public PointReprise findByFichier(String fichier) {
+        return em.createQuery("SELECT p FROM PointReprise p WHERE p.fichier = :fichier", PointReprise.class)
+                .setParameter("fichier", fichier)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Méthode retournant la liste de tous les points de reprise en base de données
+     * @return liste de tous les points de reprise en base de données
+     */
+    @Override
+    public List<PointReprise> findAll() {
+        return em.createQuery("SELECT p FROM PointReprise p", PointReprise.class).getResultList();
+    }
+
+    /**
+     * Méthode permettant de supprimer un point de reprise via son id unique
+     * @param id id utilisé pour identifier l'instance de manière unique
+     */
+    @Override
+    public void delete(int id) {
+        PointReprise p = em.find(PointReprise.class, id);
+        if (p != null) {
+            em.remove(p);
+        }
+    }
+
+    /**
+     * Méthode supprimant tous les points de reprise : le prochain import incrémental relira les fichiers en entier
+     * @return nombre de points de reprise supprimés
+     */
+    public int deleteAll() {
+        return em.createQuery("DELETE FROM PointReprise p").executeUpdate();
+    }
+}
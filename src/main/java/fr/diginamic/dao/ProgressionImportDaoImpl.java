@@ -0,0 +1,101 @@
+package fr.diginamic.dao;
+
+import fr.diginamic.model.ProgressionImport;
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+
+/**
+ * Implémentation de l'entité ProgressionImport via l'interface GenericDao
+ */
+public class ProgressionImportDaoImpl implements GenericDao<ProgressionImport> {
+
+    private EntityManager em;
+
+    /**
+     * Constructeur de la classe, initialisée avec un entity manager
+     * @param em instance d'EntityManager
+     */
+    public ProgressionImportDaoImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité ProgressionImport
+     */
+    @Override
+    public Class<ProgressionImport> getClasseEntite() {
+        return ProgressionImport.class;
+    }
+
+    /**
+     * Méthode pour insérer une progression et la persister en base de données
+     * @param progression désigne la progression à insérer
+     */
+    @Override
+    public void insert(ProgressionImport progression) {
+        em.persist(progression);
+    }
+
+    /**
+     * Méthode permettant de récupérer une progression en la recherchant avec son id
+     * @param id désigne l'id unique de la progression
+     * @return l'instance possédant l'id recherché
+     */
+    @Override
+    public ProgressionImport findById(int id) {
+        return em.find(ProgressionImport.class, id);
+    }
+
+    /**
+     * Méthode permettant de récupérer la progression d'un fichier
+     * @param fichier nom du fichier d'import
+     * @return la progression, ou null si aucun import de ce fichier n'est en cours
+     */
+    public ProgressionImport findByFichier(String fichier) {
+        return em.createQuery("SELECT p FROM ProgressionImport p WHERE p.fichier = :fichier", ProgressionImport.class)
+                .setParameter("fichier", fichier)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Méthode retournant la liste de toutes les progressions en base de données
+     * @return liste de toutes les progressions en base de données
+     */
+    @Override
+    public List<ProgressionImport> findAll() {
+        return em.createQuery("SELECT p FROM ProgressionImport p", ProgressionImport.class).getResultList();
+    }
+
+    /**
+     * Méthode permettant de supprimer une progression via son id unique
+     * @param id id utilisé pour identifier l'instance de manière unique
+     */
+    @Override
+    public void delete(int id) {
+        ProgressionImport p = em.find(ProgressionImport.class, id);
+        if (p != null) {
+            em.remove(p);
+        }
+    }
+
+    /**
+     * Méthode supprimant toutes les progressions, à la fin d'un import réussi
+     * @return nombre de progressions supprimées
+     */
+    public int deleteAll() {
+        return em.createQuery("DELETE FROM ProgressionImport p").executeUpdate();
+    }
+}
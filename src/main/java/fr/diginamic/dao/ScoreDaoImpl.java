@@ -1,9 +1,12 @@
 package fr.diginamic.dao;
 
 import fr.diginamic.model.Score;
+import fr.diginamic.utils.LignesAffectees;
 import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implémentation de l'entité Score via l'interface GenericDao
@@ -20,6 +23,24 @@ public class ScoreDaoImpl implements GenericDao<Score> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité Score
+     */
+    @Override
+    public Class<Score> getClasseEntite() {
+        return Score.class;
+    }
+
     /**
      * Méthode pour insérer un score et le persister en base de données
      * @param score désigne l'équipe à insérer
@@ -55,6 +76,32 @@ public class ScoreDaoImpl implements GenericDao<Score> {
                 .getResultList();
     }
 
+    /**
+     * Méthode insérant le score d'un match en une seule requête,
+     * sans effet si ce match a déjà un score (clé primaire match_id)
+     * @param score désigne le score à insérer, match déjà en base
+     * @return true si le score a été inséré, false si le match en avait déjà un
+     */
+    public boolean insererOuIgnorer(Score score) {
+        int lignes = em.createNativeQuery("INSERT INTO score (match_id, score_hote, score_invite) "
+                        + "VALUES (:matchId, :hote, :invite) ON DUPLICATE KEY UPDATE match_id = match_id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Score.class)
+                .setParameter("matchId", score.getMatch().getId())
+                .setParameter("hote", score.getScoreHote())
+                .setParameter("invite", score.getScoreInvite())
+                .executeUpdate();
+        return LignesAffectees.inseree(lignes);
+    }
+
+    /**
+     * Méthode parcourant les ids des matchs ayant un score (clé primaire partagée avec le match)
+     * @return flux des ids, à fermer après usage
+     */
+    public Stream<Integer> streamIds() {
+        return em.createQuery("SELECT s.id FROM Score s", Integer.class).getResultStream();
+    }
+
     /**
      * Méthode retournant la liste de tous les scores en base de données
      * @return liste de tous les scores en base de données
@@ -64,6 +111,17 @@ public class ScoreDaoImpl implements GenericDao<Score> {
         return em.createQuery("SELECT s FROM Score s", Score.class).getResultList();
     }
 
+    /**
+     * Méthode supprimant en une requête les scores de ces matchs, sans les charger
+     * @param matchIds ids des matchs
+     * @return nombre de scores supprimés
+     */
+    public int deleteByMatchs(List<Integer> matchIds) {
+        return em.createQuery("DELETE FROM Score s WHERE s.matchId IN :ids")
+                .setParameter("ids", matchIds)
+                .executeUpdate();
+    }
+
     /**
      * Méthode permettant de supprimer un score via son id unique
      * @param id id utilisé pour identifier l'instance de manière unique
@@ -1,9 +1,12 @@
 package fr.diginamic.dao;
 
 import fr.diginamic.model.TirsButs;
+import fr.diginamic.utils.LignesAffectees;
 import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implémentation de l'entité TirsButs via l'interface GenericDao
@@ -20,6 +23,24 @@ public class TirsButsDaoImpl implements GenericDao<TirsButs> {
         this.em = em;
     }
 
+    /**
+     * Getter
+     * @return EntityManager du DAO
+     */
+    @Override
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return classe de l'entité TirsButs
+     */
+    @Override
+    public Class<TirsButs> getClasseEntite() {
+        return TirsButs.class;
+    }
+
     /**
      * Méthode pour insérer une séance de tirs aux buts et la persister en base de données
      * @param tirsButs désigne la séance de tirs aux buts
@@ -53,6 +74,33 @@ public class TirsButsDaoImpl implements GenericDao<TirsButs> {
                 .getResultList();
     }
 
+    /**
+     * Méthode insérant la séance de tirs aux buts d'un match en une seule requête,
+     * sans effet si ce match en a déjà une (clé primaire match_id)
+     * @param tirsButs désigne la séance à insérer, match et équipes déjà en base
+     * @return true si la séance a été insérée, false si le match en avait déjà une
+     */
+    public boolean insererOuIgnorer(TirsButs tirsButs) {
+        int lignes = em.createNativeQuery("INSERT INTO tirs_buts (match_id, equipe_commence_id, vainqueur_id) "
+                        + "VALUES (:matchId, :commence, :vainqueur) ON DUPLICATE KEY UPDATE match_id = match_id")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TirsButs.class)
+                .setParameter("matchId", tirsButs.getMatch().getId())
+                .setParameter("commence", tirsButs.getEquipeCommence() != null
+                        ? tirsButs.getEquipeCommence().getId() : null)
+                .setParameter("vainqueur", tirsButs.getVainqueur().getId())
+                .executeUpdate();
+        return LignesAffectees.inseree(lignes);
+    }
+
+    /**
+     * Méthode parcourant les ids des matchs ayant une séance de tirs aux buts (clé primaire partagée avec le match)
+     * @return flux des ids, à fermer après usage
+     */
+    public Stream<Integer> streamIds() {
+        return em.createQuery("SELECT t.id FROM TirsButs t", Integer.class).getResultStream();
+    }
+
     /**
      * Méthode retournant la liste de tous les tirs aux buts en base de données
      * @return liste de tous les tirs aux buts en base de données
@@ -62,6 +110,17 @@ public class TirsButsDaoImpl implements GenericDao<TirsButs> {
         return em.createQuery("SELECT t FROM TirsButs t", TirsButs.class).getResultList();
     }
 
+    /**
+     * Méthode supprimant en une requête les tirs aux buts de ces matchs, sans les charger
+     * @param matchIds ids des matchs
+     * @return nombre de séances supprimées
+     */
+    public int deleteByMatchs(List<Integer> matchIds) {
+        return em.createQuery("DELETE FROM TirsButs t WHERE t.matchId IN :ids")
+                .setParameter("ids", matchIds)
+                .executeUpdate();
+    }
+
     /**
      * Méthode permettant de supprimer une séance de tirs aux buts via son id unique
      * @param id id utilisé pour identifier l'instance de manière unique
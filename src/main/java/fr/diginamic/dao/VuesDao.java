@@ -0,0 +1,135 @@
+package fr.diginamic.dao;
+
+import fr.diginamic.vues.TotalButeur;
+import fr.diginamic.vues.VueBut;
+import fr.diginamic.vues.VueMatch;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Requêtes de lecture des listes et rapports : chaque ligne est construite directement en record
+ * par une expression constructeur JPQL (SELECT new ...). Aucune entité n'est chargée, le contexte
+ * de persistance reste vide quel que soit le nombre de lignes, et seules les colonnes affichées sont lues.
+ */
+public class VuesDao {
+
+    /** Projection commune des listes de matchs ; score et tirs aux buts en jointure externe */
+    private static final String SELECT_MATCH = "SELECT new fr.diginamic.vues.VueMatch(m.id, m.date, m.tournoi, "
+            + "m.ville, m.pays, m.lieuNeutre, h.nom, i.nom, s.scoreHote, s.scoreInvite, v.nom) "
+            + "FROM Match m JOIN m.equipeHote h JOIN m.equipeInvitee i "
+            + "LEFT JOIN m.score s LEFT JOIN m.tirsButs t LEFT JOIN t.vainqueur v ";
+
+    /** Projection commune des listes de buts */
+    private static final String SELECT_BUT = "SELECT new fr.diginamic.vues.VueBut(b.id, m.id, m.date, h.nom, i.nom, "
+            + "bu.nom, e.nom, b.minute, b.contreSonCamp, b.penalty) "
+            + "FROM But b JOIN b.match m JOIN m.equipeHote h JOIN m.equipeInvitee i "
+            + "JOIN b.buteur bu JOIN bu.equipe e ";
+
+    private static final String SELECT_TOTAL = "SELECT new fr.diginamic.vues.TotalButeur(bu.id, bu.nom, e.nom, "
+            + "COUNT(b), SUM(CASE WHEN b.penalty = true THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN b.contreSonCamp = true THEN 1 ELSE 0 END)) "
+            + "FROM But b JOIN b.buteur bu JOIN bu.equipe e ";
+
+    private static final String GROUPE_TOTAL = "GROUP BY bu.id, bu.nom, e.nom ORDER BY COUNT(b) DESC, bu.nom";
+
+    private EntityManager em;
+
+    /**
+     * Constructeur de la classe, initialisée avec un entity manager
+     * @param em instance d'EntityManager
+     */
+    public VuesDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Méthode retournant les matchs joués entre deux dates, par ordre chronologique
+     * @param debut première date, incluse
+     * @param fin dernière date, incluse
+     * @return les lignes des matchs de la période
+     */
+    public List<VueMatch> findMatchsByPeriode(LocalDate debut, LocalDate fin) {
+        return em.createQuery(SELECT_MATCH + "WHERE m.date BETWEEN :debut AND :fin ORDER BY m.date, m.id",
+                        VueMatch.class)
+                .setParameter("debut", debut)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Méthode retournant les matchs d'un tournoi, par ordre chronologique
+     * @param tournoi nom du tournoi
+     * @return les lignes des matchs du tournoi
+     */
+    public List<VueMatch> findMatchsByTournoi(String tournoi) {
+        return em.createQuery(SELECT_MATCH + "WHERE m.tournoi = :tournoi ORDER BY m.date, m.id", VueMatch.class)
+                .setParameter("tournoi", tournoi)
+                .getResultList();
+    }
+
+    /**
+     * Méthode retournant une page de matchs par ordre chronologique, à partir du dernier match lu
+     * (pagination par clé sur (date, id), comme {@link MatchDaoImpl#findPageApresDate})
+     * @param derniereDate date du dernier match de la page précédente, null pour la première page
+     * @param dernierId id du dernier match de la page précédente
+     * @param taille nombre maximal de lignes
+     * @return la page, vide après la dernière
+     */
+    public List<VueMatch> findPageMatchsApres(LocalDate derniereDate, int dernierId, int taille) {
+        if (derniereDate == null) {
+            return Parcours.page(em.createQuery(SELECT_MATCH + "ORDER BY m.date, m.id", VueMatch.class), taille);
+        }
+        return Parcours.page(em.createQuery(SELECT_MATCH
+                        + "WHERE m.date >= :date AND (m.date > :date OR m.id > :dernierId) ORDER BY m.date, m.id",
+                        VueMatch.class)
+                .setParameter("date", derniereDate)
+                .setParameter("dernierId", dernierId), taille);
+    }
+
+    /**
+     * Méthode retournant les buts d'un match par minute
+     * @param matchId id du match
+     * @return les lignes des buts du match
+     */
+    public List<VueBut> findButsByMatch(int matchId) {
+        return em.createQuery(SELECT_BUT + "WHERE m.id = :matchId ORDER BY b.minute, b.id", VueBut.class)
+                .setParameter("matchId", matchId)
+                .getResultList();
+    }
+
+    /**
+     * Méthode parcourant tous les buts par ordre d'id, pour les exports : les lignes n'étant pas
+     * des entités, il n'y a aucun contexte de persistance à vider pendant le parcours
+     * @return flux des lignes de buts, à fermer après usage
+     */
+    public Stream<VueBut> streamButs() {
+        return em.createQuery(SELECT_BUT + "ORDER BY b.id", VueBut.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Parcours.TAILLE_PAQUET)
+                .getResultStream();
+    }
+
+    /**
+     * Méthode retournant les meilleurs buteurs de tous les temps
+     * @param nombre nombre de buteurs du classement
+     * @return les totaux, par nombre de buts décroissant
+     */
+    public List<TotalButeur> findMeilleursButeurs(int nombre) {
+        return Parcours.page(em.createQuery(SELECT_TOTAL + GROUPE_TOTAL, TotalButeur.class), nombre);
+    }
+
+    /**
+     * Méthode retournant les meilleurs buteurs d'un tournoi
+     * @param tournoi nom du tournoi
+     * @param nombre nombre de buteurs du classement
+     * @return les totaux sur les matchs du tournoi, par nombre de buts décroissant
+     */
+    public List<TotalButeur> findMeilleursButeursByTournoi(String tournoi, int nombre) {
+        return Parcours.page(em.createQuery(SELECT_TOTAL + "WHERE b.match.tournoi = :tournoi " + GROUPE_TOTAL,
+                        TotalButeur.class)
+                .setParameter("tournoi", tournoi), nombre);
+    }
+}
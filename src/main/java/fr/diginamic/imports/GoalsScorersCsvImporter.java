@@ -1,6 +1,7 @@
 package fr.diginamic.imports;
 
 import fr.diginamic.model.Buteur;
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import fr.diginamic.services.ButService;
@@ -8,12 +9,16 @@ import fr.diginamic.services.ButeurService;
 import fr.diginamic.services.EquipeService;
 import fr.diginamic.services.MatchService;
 import fr.diginamic.utils.CheckUtils;
-import fr.diginamic.utils.CsvImporter;
-import fr.diginamic.utils.DateUtils;
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.Empreinte;
+import fr.diginamic.utils.EmpreintesLignes;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.EtatLigne;
+import fr.diginamic.utils.RegistreButeurs;
 import jakarta.persistence.EntityManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Classe organisant l'import du fichier goalsscorers.csv stocké dans resources
@@ -21,22 +26,79 @@ import java.time.LocalDate;
  */
 public class GoalsScorersCsvImporter {
 
+    /** Fichier importé */
+    public static final String FICHIER = "goalscorers.csv";
+
+    /** Étapes d'import devant être terminées avant celle-ci : matchs et équipes issus de results.csv */
+    public static final List<String> PREREQUIS = List.of(ResultCsvImporter.FICHIER);
+
     private final EquipeService equipeService;
     private final MatchService matchService;
     private final ButeurService buteurService;
     private final ButService butService;
     private final ErreurCollector collector;
+    private final ImportContext ctx;
+
+    /** Série en cours de lignes d'un même match, null avant la première ligne */
+    private Serie serie;
 
     /**
      * Initialise les services des entités concernées par l'import.
-     * @param em EntityManager partagé
+     * @param ctx contexte d'import partagé (EntityManager, erreurs, registres)
      */
-    public GoalsScorersCsvImporter(EntityManager em, ErreurCollector collector) {
-        this.equipeService = new EquipeService(em, collector);
-        this.matchService = new MatchService(em, collector);
-        this.buteurService = new ButeurService(em, collector);
+    public GoalsScorersCsvImporter(ImportContext ctx) {
+        EntityManager em = ctx.getEm();
+        ErreurCollector collector = ctx.getCollector();
+        this.equipeService = new EquipeService(em, collector, ctx.getEquipes());
+        this.matchService = new MatchService(em, collector, ctx.getMatchs());
+        this.buteurService = new ButeurService(em, collector, ctx.getButeurs());
         this.butService = new ButService(em, collector);
+        this.buteurService.setUpsert(ctx.isUpsert());
+        this.butService.setUpsert(ctx.isUpsert());
+        this.butService.setClassement(ctx.getClassement());
+        if (ctx.getFiltres() != null) {
+            this.buteurService.setFiltre(ctx.getFiltres().buteurs());
+            this.butService.setFiltre(ctx.getFiltres().butsParMatch());
+        }
         this.collector = collector;
+        this.ctx = ctx;
+    }
+
+    /**
+     * Initialise l'importeur d'une partition de l'import parallèle des buts :
+     * les buteurs sont résolus et créés via le registre partagé entre les partitions
+     * @param ctx contexte d'import de la partition
+     * @param registre registre concurrent des buteurs
+     */
+    GoalsScorersCsvImporter(ImportContext ctx, RegistreButeurs registre) {
+        this(ctx);
+        this.buteurService.setRegistre(registre);
+    }
+
+    /**
+     * Ligne de goalscorers.csv une fois analysée
+     */
+    record LigneBut(LocalDate date, String homeTeam, String awayTeam, String team, String scorer,
+                    int minute, boolean ownGoal, boolean penalty) {
+    }
+
+    /**
+     * Série de lignes consécutives d'un même match (date, équipe hôte, équipe invitée) :
+     * goalscorers.csv étant trié par date, les buts d'un match se suivent, et les équipes
+     * et le match ne sont résolus qu'une fois par série
+     */
+    private record Serie(LocalDate date, String homeTeam, String awayTeam,
+                         Equipe equipeHote, Equipe equipeInvitee, Match match) {
+
+        boolean concerne(LigneBut l) {
+            return date.equals(l.date()) && homeTeam.equals(l.homeTeam()) && awayTeam.equals(l.awayTeam());
+        }
+
+        /** Les références ne sont plus gérées après le clear() d'une fin de lot : il faut les redemander */
+        boolean estGeree(EntityManager em) {
+            Object reference = match != null ? match : equipeHote;
+            return reference == null || em.contains(reference);
+        }
     }
 
     /**
@@ -45,50 +107,103 @@ public class GoalsScorersCsvImporter {
      * @param fichier correspond au fichier d'import
      */
     public void importer(String fichier) {
-        CsvImporter.lireFichier(fichier, ligne -> {
-            try{
-                String[] tokens = ligne.split(",");
-
-                if (tokens.length < 8) {
-                    throw new IllegalArgumentException("Ligne incomplète : " + ligne);
-                }
-
-                String dateStr = tokens[0].trim();
-                String homeTeam = tokens[1].trim();
-                String awayTeam = tokens[2].trim();
-                String team = tokens[3].trim();
-                String scorer = tokens[4].trim();
-                int minute = Integer.parseInt(tokens[5]);
-                boolean ownGoal = Boolean.parseBoolean(tokens[6]);
-                boolean penalty = Boolean.parseBoolean(tokens[7]);
-
-                // Format date correspondant au csv
-                LocalDate date = LocalDate.parse(dateStr, DateUtils.CSV_DATE_FORMATTER);
-
-                // Récupérer équipes et match (import préalable de results.csv)
-                Equipe equipeHote = equipeService.getByNom(homeTeam);
-                Equipe equipeInvitee = equipeService.getByNom(awayTeam);
-                Match match = matchService.getByDateAndEquipes(date, equipeHote, equipeInvitee);
-
-                Equipe equipeButeur = equipeService.getByNom(team);
-
-                //Si match et equipeButeur existants, enregistrer nouveau buteur
-                if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(equipeButeur)) {
-                    buteurService.enregistrerButeurSiNouveau(scorer, equipeButeur, ligne, fichier);
-                }
-
-                // Récupérer le buteur
-                Buteur buteur = buteurService.getByNomAndEquipe(scorer, equipeButeur);
-
-                // Si match et buteur existants, enregistrer nouveau but
-                if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(buteur)){
-                    butService.enregistrerButSiNouveau(minute, ownGoal, penalty, match, buteur, ligne, fichier);
-                }
-            } catch (Exception e) {
-                System.err.println("Erreur de parsing ligne: " + ligne);
-                e.printStackTrace();
-                collector.log("goalsscorers.csv", ligne, e.getMessage(), "GoalScorer");
+        EmpreintesLignes empreintes = ctx.getEmpreintes(fichier);
+        new PipelineImport<>(ctx, GoalsScorersCsvImporter::parser,
+                (ligne, l) -> ecrire(l, ligne, fichier, empreintes),
+                (ligne, e) -> collector.logException("goalsscorers.csv", ligne, e, "GoalScorer")).executer(fichier);
+        if (empreintes != null) {
+            empreintes.enregistrer(new EmpreinteLigneDaoImpl(ctx.getEm()));
+        }
+    }
+
+    /**
+     * Analyse d'une ligne, sans accès à la base (exécutable par les parseurs du pipeline)
+     * @param csv lecteur positionné sur la ligne
+     * @return la ligne analysée
+     */
+    static LigneBut parser(CsvTokenizer csv) {
+        if (csv.nombreChamps() < 8) {
+            throw new IllegalArgumentException("Ligne incomplète : " + csv.ligne());
+        }
+
+        // Format date correspondant au csv, lu sans passer par une String
+        return new LigneBut(csv.date(0), csv.texte(1), csv.texte(2), csv.texte(3), csv.texte(4),
+                csv.entier(5), csv.booleen(6), csv.booleen(7));
+    }
+
+    /**
+     * Écriture d'une ligne analysée, sans détection des changements
+     * @param l ligne analysée
+     * @param ligne ligne source
+     * @param fichier correspond au fichier d'import
+     */
+    void ecrire(LigneBut l, String ligne, String fichier) {
+        ecrire(l, ligne, fichier, null);
+    }
+
+    /**
+     * Écriture d'une ligne analysée : vérification si doublon et import,
+     * ou mise à jour en place si la ligne a changé depuis le dernier import
+     * @param l ligne analysée
+     * @param ligne ligne source
+     * @param fichier correspond au fichier d'import
+     * @param empreintes empreintes des lignes déjà importées, null pour tout traiter
+     */
+    private void ecrire(LigneBut l, String ligne, String fichier, EmpreintesLignes empreintes) {
+        // Ignorer la ligne si elle est identique à celle déjà importée pour cette clé
+        long cle = 0;
+        long empreinte = 0;
+        EtatLigne etat = EtatLigne.NOUVELLE;
+        if (empreintes != null) {
+            cle = Empreinte.cle(l.date().toEpochDay(), l.homeTeam(), l.awayTeam(), l.team(), l.scorer(),
+                    Integer.toString(l.minute()));
+            empreinte = Empreinte.texte(ligne);
+            etat = empreintes.etat(cle, empreinte);
+            if (etat == EtatLigne.INCHANGEE) {
+                return;
             }
-        });
+        }
+
+        // Récupérer équipes et match (import préalable de results.csv), une fois par série de lignes du match
+        Serie s = serie(l);
+        Match match = s.match();
+        Equipe equipeButeur = l.team().equals(l.homeTeam()) ? s.equipeHote()
+                : l.team().equals(l.awayTeam()) ? s.equipeInvitee()
+                : equipeService.getByNom(l.team());
+
+        //Si match et equipeButeur existants, enregistrer nouveau buteur
+        if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(equipeButeur)) {
+            buteurService.enregistrerButeurSiNouveau(l.scorer(), equipeButeur, ligne, fichier);
+        }
+
+        // Récupérer le buteur
+        Buteur buteur = buteurService.getByNomAndEquipe(l.scorer(), equipeButeur);
+
+        // Si match et buteur existants, enregistrer nouveau but
+        if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(buteur)){
+            if (etat == EtatLigne.MODIFIEE) {
+                butService.mettreAJourBut(l.minute(), l.ownGoal(), l.penalty(), match, buteur, ligne, fichier);
+            } else {
+                butService.enregistrerButSiNouveau(l.minute(), l.ownGoal(), l.penalty(), match, buteur, ligne, fichier);
+            }
+            if (empreintes != null) {
+                empreintes.retenir(cle, empreinte);
+            }
+        }
+    }
+
+    /**
+     * Série du match de la ligne : celle en cours si la ligne la prolonge, sinon une nouvelle
+     * @param l ligne analysée
+     * @return la série, avec équipes et match résolus
+     */
+    private Serie serie(LigneBut l) {
+        if (serie == null || !serie.concerne(l) || !serie.estGeree(ctx.getEm())) {
+            Equipe equipeHote = equipeService.getByNom(l.homeTeam());
+            Equipe equipeInvitee = equipeService.getByNom(l.awayTeam());
+            Match match = matchService.getByDateAndEquipes(l.date(), equipeHote, equipeInvitee);
+            serie = new Serie(l.date(), l.homeTeam(), l.awayTeam(), equipeHote, equipeInvitee, match);
+        }
+        return serie;
     }
 }
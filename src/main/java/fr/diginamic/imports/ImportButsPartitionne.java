@@ -0,0 +1,285 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.dao.ButeurDaoImpl;
+import fr.diginamic.model.Buteur;
+import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.CsvImporter;
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.RegistreButeurs;
+import fr.diginamic.utils.SegmentFichier;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Import de goalscorers.csv réparti sur N partitions exécutées en parallèle.
+ * Une fois results.csv commité, les buts de matchs différents sont indépendants :
+ * le thread appelant lit et analyse le fichier, puis répartit les lignes selon leur match
+ * (date, équipe hôte, équipe invitée). Chaque partition écrit dans son propre EntityManager
+ * et sa propre transaction, et reçoit toutes les lignes d'un match, dans l'ordre du fichier.
+ * Les buteurs, eux, sont partagés entre matchs : ils sont créés via un {@link RegistreButeurs}
+ * dans une courte transaction commitée aussitôt, pour que les buts des autres partitions
+ * puissent y faire référence sans attendre la fin de la partition qui les a créés.
+ * Une partition en échec est annulée (rollback), les autres vont au bout et restent commitées.
+ * Si la lecture du fichier échoue, aucune partition ne commite : elles n'ont reçu qu'une partie des lignes.
+ * Pour la même raison, une partition ne commite jamais par lot, même avec import.commitParLot.
+ */
+public class ImportButsPartitionne {
+
+    /** Nombre de lignes par lot envoyé à une partition */
+    private static final int LIGNES_PAR_LOT = 256;
+
+    /** Lot vide signalant la fin du fichier à une partition */
+    private static final List<LigneLue> FIN = List.of();
+
+    /** Ligne analysée, accompagnée de sa ligne source pour les erreurs */
+    private record LigneLue(String ligne, GoalsScorersCsvImporter.LigneBut valeur) {
+    }
+
+    private final EntityManagerFactory emf;
+    private final ImportContext ctx;
+    private final int partitions;
+
+    /** Première erreur fatale, de la lecture ou d'une partition ; les autres partitions continuent */
+    private final AtomicReference<RuntimeException> echec = new AtomicReference<>();
+
+    /** true une fois toutes les lignes du fichier envoyées aux partitions, condition de leur commit */
+    private volatile boolean lectureComplete;
+
+    /**
+     * Prépare l'import partitionné
+     * @param emf fabrique des EntityManager des partitions
+     * @param ctx contexte de l'étape (registres, collecteur, découpage en lots, source)
+     * @param partitions nombre de partitions, donc de threads et de transactions
+     */
+    public ImportButsPartitionne(EntityManagerFactory emf, ImportContext ctx, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Nombre de partitions invalide : " + partitions);
+        }
+        this.emf = emf;
+        this.ctx = ctx;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Importe le fichier et attend la fin de toutes les partitions
+     * @param fichier nom du fichier d'import
+     * @throws IllegalStateException si la lecture ou au moins une partition a échoué
+     */
+    public void importer(String fichier) {
+        long debut = System.currentTimeMillis();
+        RegistreButeurs registre = chargerRegistre();
+        List<BlockingQueue<List<LigneLue>>> files = new ArrayList<>(partitions);
+        List<Future<Long>> fins = new ArrayList<>(partitions);
+        ExecutorService executeur = Executors.newFixedThreadPool(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                BlockingQueue<List<LigneLue>> file = new ArrayBlockingQueue<>(4);
+                EntityManager em = emf.createEntityManager();
+                ImportContext contexte = ctx.pourPartition(em);
+                files.add(file);
+                fins.add(executeur.submit(() -> ecrirePartition(contexte, registre, file, fichier)));
+            }
+            repartir(fichier, files);
+            long[] lignes = new long[partitions];
+            for (int i = 0; i < partitions; i++) {
+                lignes[i] = attendre(fins.get(i));
+            }
+            System.out.println("Buts importés par " + partitions + " partitions en "
+                    + (System.currentTimeMillis() - debut) + " ms, lignes par partition : " + Arrays.toString(lignes)
+                    + ", buteurs créés : " + registre.getCreations());
+        } finally {
+            executeur.shutdownNow();
+        }
+        if (echec.get() != null) {
+            throw new IllegalStateException("Import partitionné de " + fichier + " en échec", echec.get());
+        }
+    }
+
+    /**
+     * Précharge les buteurs déjà en base
+     * @return le registre partagé par les partitions
+     */
+    private RegistreButeurs chargerRegistre() {
+        RegistreButeurs registre = new RegistreButeurs(this::creerButeur);
+        try (Stream<Object[]> cles = new ButeurDaoImpl(ctx.getEm()).streamCles()) {
+            cles.forEach(t -> registre.charger((String) t[0], (Integer) t[1], (Integer) t[2]));
+        }
+        return registre;
+    }
+
+    /**
+     * Crée un buteur dans sa propre transaction, commitée avant de rendre son id
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return id du buteur créé
+     */
+    private int creerButeur(String nom, int equipeId) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            Buteur buteur = new Buteur(nom, em.getReference(Equipe.class, equipeId));
+            new ButeurDaoImpl(em).insert(buteur);
+            transaction.commit();
+            return buteur.getId();
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Lit et analyse le fichier puis envoie chaque ligne à la partition de son match.
+     * Une erreur de lecture est retenue comme échec de l'import : les partitions reçoivent
+     * quand même la fin de fichier, puis annulent leur transaction au lieu de la commiter.
+     */
+    private void repartir(String fichier, List<BlockingQueue<List<LigneLue>>> files) {
+        List<List<LigneLue>> lots = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            lots.add(new ArrayList<>(LIGNES_PAR_LOT));
+        }
+        try {
+            parcourir(fichier, csv -> {
+                GoalsScorersCsvImporter.LigneBut l;
+                try {
+                    l = GoalsScorersCsvImporter.parser(csv);
+                } catch (Exception e) {
+                    ctx.getCollector().logException("goalsscorers.csv", csv.ligne(), e, "GoalScorer");
+                    return;
+                }
+                int p = partition(l);
+                List<LigneLue> lot = lots.get(p);
+                lot.add(new LigneLue(csv.ligne(), l));
+                if (lot.size() == LIGNES_PAR_LOT) {
+                    envoyer(files.get(p), List.copyOf(lot));
+                    lot.clear();
+                }
+            });
+            for (int i = 0; i < partitions; i++) {
+                if (!lots.get(i).isEmpty()) {
+                    envoyer(files.get(i), List.copyOf(lots.get(i)));
+                }
+            }
+            lectureComplete = true;
+        } catch (RuntimeException e) {
+            echec.compareAndSet(null, e);
+        } finally {
+            for (BlockingQueue<List<LigneLue>> file : files) {
+                envoyer(file, FIN);
+            }
+        }
+    }
+
+    /**
+     * Partition d'une ligne : toutes les lignes d'un même match vont à la même partition
+     */
+    private int partition(GoalsScorersCsvImporter.LigneBut l) {
+        int hash = (l.date().hashCode() * 31 + l.homeTeam().hashCode()) * 31 + l.awayTeam().hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions);
+    }
+
+    /**
+     * Écrit les lignes d'une partition dans sa transaction.
+     * En cas d'échec, la partition est annulée mais continue de vider sa file pour ne pas bloquer la lecture ;
+     * elle l'est aussi si la lecture du fichier n'est pas allée au bout.
+     * @return nombre de lignes écrites
+     */
+    private Long ecrirePartition(ImportContext contexte, RegistreButeurs registre,
+                                 BlockingQueue<List<LigneLue>> file, String fichier) throws InterruptedException {
+        EntityManager em = contexte.getEm();
+        EntityTransaction transaction = em.getTransaction();
+        GoalsScorersCsvImporter importeur = new GoalsScorersCsvImporter(contexte, registre);
+        boolean enEchec = false;
+        long lignes = 0;
+        try {
+            transaction.begin();
+            List<LigneLue> lot;
+            while ((lot = file.take()) != FIN) {
+                if (enEchec) {
+                    continue;
+                }
+                try {
+                    for (LigneLue l : lot) {
+                        ecrire(importeur, contexte, l, fichier);
+                        lignes++;
+                    }
+                } catch (RuntimeException e) {
+                    enEchec = true;
+                    echec.compareAndSet(null, e);
+                }
+            }
+            if (!enEchec && lectureComplete) {
+                transaction.commit();
+            }
+        } catch (RuntimeException e) {
+            echec.compareAndSet(null, e);
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            em.close();
+        }
+        return lignes;
+    }
+
+    private void ecrire(GoalsScorersCsvImporter importeur, ImportContext contexte, LigneLue l, String fichier) {
+        try {
+            importeur.ecrire(l.valeur(), l.ligne(), fichier);
+        } catch (Exception e) {
+            contexte.getCollector().logException("goalsscorers.csv", l.ligne(), e, "GoalScorer");
+        } finally {
+            contexte.ligneTraitee();
+        }
+    }
+
+    /**
+     * Parcourt le fichier entier, ou seulement la plage fixée par le contexte (import incrémental)
+     */
+    private void parcourir(String fichier, Consumer<CsvTokenizer> traitement) {
+        SegmentFichier plage = ctx.getPlage(fichier);
+        if (plage != null) {
+            CsvImporter.lirePlage(plage, traitement);
+        } else {
+            CsvImporter.lireCsv(ctx.getDossierSource(), fichier, traitement);
+        }
+    }
+
+    private static <T> void envoyer(BlockingQueue<T> file, T lot) {
+        try {
+            file.put(lot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Répartition interrompue", e);
+        }
+    }
+
+    private long attendre(Future<Long> fin) {
+        try {
+            return fin.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import partitionné interrompu", e);
+        } catch (ExecutionException e) {
+            echec.compareAndSet(null, new IllegalStateException(e.getCause()));
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.dao.ButDaoImpl;
+import fr.diginamic.dao.ButeurDaoImpl;
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
+import fr.diginamic.dao.EquipeDaoImpl;
+import fr.diginamic.dao.MatchDaoImpl;
+import fr.diginamic.dao.ProgressionImportDaoImpl;
+import fr.diginamic.dao.ScoreDaoImpl;
+import fr.diginamic.dao.TirsButsDaoImpl;
+import fr.diginamic.model.ProgressionImport;
+import fr.diginamic.services.ClassementService;
+import fr.diginamic.utils.CacheButeurs;
+import fr.diginamic.utils.ClassementButeurs;
+import fr.diginamic.utils.EmpreintesLignes;
+import fr.diginamic.utils.EquipeRegistry;
+import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
+import fr.diginamic.utils.FiltresExistence;
+import fr.diginamic.utils.MatchIndex;
+import fr.diginamic.utils.SegmentFichier;
+import jakarta.persistence.EntityManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Contexte partagé par les importeurs d'une même exécution :
+ * EntityManager, collecteur d'erreurs et registres en mémoire.
+ * Gère aussi le découpage de l'import en lots : tous les N lignes,
+ * le contexte de persistance est flushé, éventuellement commité, puis vidé.
+ * Avec le suivi de progression, chaque commit de lot enregistre aussi le nombre de lignes
+ * du fichier en cours déjà traitées et les erreurs collectées : un import interrompu
+ * reprend après la dernière ligne commitée.
+ */
+public class ImportContext {
+
+    /** Nombre de buteurs gardés en cache par défaut (environ 14 000 buteurs distincts dans goalscorers.csv) */
+    public static final int CAPACITE_CACHE_BUTEURS_DEFAUT = 10_000;
+
+    /** Nombre minimal de clés prévu par filtre de Bloom, pour absorber un premier import sur une base vide */
+    private static final long CLES_FILTRE_MIN = 100_000;
+
+    private final EntityManager em;
+    private final ErreurCollector collector;
+    private final EquipeRegistry equipes;
+    private final MatchIndex matchs;
+
+    /** Buteurs déjà résolus, créé au premier accès */
+    private CacheButeurs buteurs;
+    private int capaciteCacheButeurs = CAPACITE_CACHE_BUTEURS_DEFAUT;
+
+    /** Filtres de Bloom des entités déjà en base, null tant qu'ils ne sont pas chargés */
+    private FiltresExistence filtres;
+
+    /** Classement des buteurs tenu à jour pendant l'import, null tant qu'il n'est pas chargé */
+    private ClassementButeurs classement;
+
+    /** Nombre de lignes par lot, 0 pour tout traiter dans un seul contexte de persistance */
+    private final int tailleLot;
+    private final boolean commitParLot;
+    private long lignesTraitees;
+
+    /** true pour enregistrer la progression de chaque fichier à chaque commit de lot */
+    private boolean suiviProgression;
+
+    /** Fichier en cours d'import et nombre de lignes parcourues depuis le début de son parcours */
+    private String fichierCourant;
+    private long lignesFichier;
+
+    /** Dossier des fichiers d'import sur le disque, null pour lire les ressources du classpath */
+    private Path dossierSource;
+
+    /** Nombre de threads d'analyse des lignes, 1 pour tout traiter dans le thread appelant */
+    private int parseurs = 1;
+
+    /** Plage restant à importer par fichier (import incrémental), fichier entier si absente */
+    private final Map<String, SegmentFichier> plages;
+
+    /** Empreintes des lignes déjà importées par fichier, chargées au premier accès */
+    private final Map<String, EmpreintesLignes> empreintes;
+
+    /** true pour classer les lignes par empreinte (inchangées ignorées, modifiées mises à jour) */
+    private boolean detectionChangements;
+
+    /** true pour que les services insèrent en une requête sur les clés naturelles (INSERT ... ON DUPLICATE KEY) */
+    private boolean upsert;
+
+    /**
+     * Initialise le contexte sans découpage en lots
+     * @param em EntityManager partagé
+     * @param collector collecteur d'erreurs partagé
+     */
+    public ImportContext(EntityManager em, ErreurCollector collector) {
+        this(em, collector, 0, false);
+    }
+
+    /**
+     * Initialise le contexte et précharge le registre des équipes et l'index des matchs
+     * @param em EntityManager partagé
+     * @param collector collecteur d'erreurs partagé
+     * @param tailleLot nombre de lignes entre deux flush/clear, 0 pour désactiver
+     * @param commitParLot true pour commiter la transaction à chaque fin de lot
+     */
+    public ImportContext(EntityManager em, ErreurCollector collector, int tailleLot, boolean commitParLot) {
+        this.em = em;
+        this.collector = collector;
+        this.tailleLot = tailleLot;
+        this.commitParLot = commitParLot;
+        this.equipes = new EquipeRegistry();
+        this.equipes.charger(new EquipeDaoImpl(em).findAll());
+        this.matchs = chargerMatchs(new MatchDaoImpl(em));
+        this.plages = new ConcurrentHashMap<>();
+        this.empreintes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Contexte d'une étape exécutée avec son propre EntityManager :
+     * registres, collecteur et réglages sont partagés avec le contexte modèle
+     * @param modele contexte dont les registres sont repris
+     * @param em EntityManager propre à l'étape
+     * @param commitParLot true pour commiter la transaction de l'étape à chaque fin de lot
+     */
+    private ImportContext(ImportContext modele, EntityManager em, boolean commitParLot) {
+        this.em = em;
+        this.collector = modele.collector;
+        this.tailleLot = modele.tailleLot;
+        this.commitParLot = commitParLot;
+        this.equipes = modele.equipes;
+        this.matchs = modele.matchs;
+        this.buteurs = modele.getButeurs();
+        this.filtres = modele.filtres;
+        this.classement = modele.classement;
+        this.dossierSource = modele.dossierSource;
+        this.parseurs = modele.parseurs;
+        this.upsert = modele.upsert;
+        this.plages = modele.plages;
+        this.empreintes = modele.empreintes;
+        this.detectionChangements = modele.detectionChangements;
+        this.suiviProgression = modele.suiviProgression;
+    }
+
+    /**
+     * Crée le contexte d'une étape d'import exécutée sur son propre EntityManager
+     * @param em EntityManager de l'étape
+     * @return un contexte partageant registres, collecteur et réglages avec celui-ci
+     */
+    public ImportContext pourEtape(EntityManager em) {
+        return new ImportContext(this, em, commitParLot);
+    }
+
+    /**
+     * Crée le contexte d'une partition de l'import partitionné : comme une étape, mais sans commit par lot,
+     * la transaction de la partition n'étant commitée qu'une fois toutes ses lignes reçues.
+     * Les lots restent flushés puis vidés.
+     * @param em EntityManager de la partition
+     * @return un contexte partageant registres, collecteur et réglages avec celui-ci
+     */
+    public ImportContext pourPartition(EntityManager em) {
+        return new ImportContext(this, em, false);
+    }
+
+    /**
+     * Signale qu'une ligne a été traitée ; en fin de lot, envoie les insertions en attente
+     * (par batch JDBC), commite si demandé puis vide le contexte de persistance.
+     * Les registres ne conservant que des ids, les références restent valides après le clear.
+     */
+    public void ligneTraitee() {
+        lignesTraitees++;
+        lignesFichier++;
+        if (tailleLot > 0 && lignesTraitees % tailleLot == 0) {
+            finLot();
+        }
+    }
+
+    /**
+     * Termine le lot courant : flush, commit éventuel et clear
+     */
+    public void finLot() {
+        em.flush();
+        if (commitParLot) {
+            if (suiviProgression) {
+                enregistrerProgression();
+            }
+            em.getTransaction().commit();
+            em.getTransaction().begin();
+        }
+        em.clear();
+    }
+
+    /**
+     * Signale le début de l'import d'un fichier
+     * @param fichier nom du fichier d'import
+     * @return nombre de lignes déjà commitées par un import interrompu, à ne pas retraiter (0 sinon)
+     */
+    public long debutFichier(String fichier) {
+        fichierCourant = fichier;
+        lignesFichier = 0;
+        if (!suiviProgression) {
+            return 0;
+        }
+        SegmentFichier plage = getPlage(fichier);
+        long debut = plage != null ? plage.debut() : 0;
+        ProgressionImportDaoImpl dao = new ProgressionImportDaoImpl(em);
+        ProgressionImport progression = dao.findByFichier(fichier);
+        if (progression == null) {
+            dao.insert(new ProgressionImport(fichier, debut));
+        } else if (progression.getDebut() != debut) {
+            // La plage a changé (point de reprise avancé entre-temps) : le décompte enregistré ne s'applique plus
+            progression.recommencer(debut);
+        } else {
+            lignesFichier = progression.getLignes();
+        }
+        return lignesFichier;
+    }
+
+    /**
+     * Signale la fin de l'import du fichier en cours ; sa progression sera commitée avec ses dernières lignes
+     */
+    public void finFichier() {
+        if (suiviProgression) {
+            enregistrerProgression();
+        }
+        fichierCourant = null;
+    }
+
+    /**
+     * Reporte dans la transaction courante le nombre de lignes traitées du fichier en cours
+     * et les erreurs collectées depuis le dernier enregistrement
+     */
+    private void enregistrerProgression() {
+        if (fichierCourant != null) {
+            ProgressionImport progression = new ProgressionImportDaoImpl(em).findByFichier(fichierCourant);
+            if (progression != null) {
+                progression.avancer(lignesFichier);
+            }
+        }
+        collector.extraireNonEnregistrees().forEach(em::persist);
+    }
+
+    /**
+     * Getter
+     * @return nombre de lignes traitées depuis le début de l'import
+     */
+    public long getLignesTraitees() {
+        return lignesTraitees;
+    }
+
+    /**
+     * Construit l'index des matchs en parcourant les clés naturelles en base
+     * @param matchDao DAO des matchs
+     * @return l'index rempli
+     */
+    private static MatchIndex chargerMatchs(MatchDaoImpl matchDao) {
+        long nombre = matchDao.count();
+        MatchIndex index = new MatchIndex((int) Math.min(nombre, Integer.MAX_VALUE / 2));
+        try (Stream<Object[]> cles = matchDao.streamClesNaturelles()) {
+            cles.forEach(t -> index.charger((Integer) t[0], ((LocalDate) t[1]).toEpochDay(),
+                    (Integer) t[2], (Integer) t[3]));
+        }
+        return index;
+    }
+
+    /**
+     * Getter
+     * @return EntityManager partagé
+     */
+    public EntityManager getEm() {
+        return em;
+    }
+
+    /**
+     * Getter
+     * @return collecteur d'erreurs partagé
+     */
+    public ErreurCollector getCollector() {
+        return collector;
+    }
+
+    /**
+     * Getter
+     * @return registre des équipes
+     */
+    public EquipeRegistry getEquipes() {
+        return equipes;
+    }
+
+    /**
+     * Getter
+     * @return dossier des fichiers d'import, ou null pour les ressources
+     */
+    public Path getDossierSource() {
+        return dossierSource;
+    }
+
+    /**
+     * Setter
+     * @param dossierSource dossier des fichiers d'import lus par projection mémoire
+     */
+    public void setDossierSource(Path dossierSource) {
+        this.dossierSource = dossierSource;
+    }
+
+    /**
+     * Getter
+     * @return nombre de threads d'analyse des lignes
+     */
+    public int getParseurs() {
+        return parseurs;
+    }
+
+    /**
+     * Setter
+     * @param parseurs nombre de threads d'analyse des lignes (1 = pas de pipeline parallèle)
+     */
+    public void setParseurs(int parseurs) {
+        this.parseurs = parseurs;
+    }
+
+    /**
+     * Getter
+     * @param fichier nom du fichier d'import
+     * @return la plage du fichier restant à importer, ou null pour l'importer en entier
+     */
+    public SegmentFichier getPlage(String fichier) {
+        return plages.get(fichier);
+    }
+
+    /**
+     * Setter
+     * @param fichier nom du fichier d'import
+     * @param plage plage à importer, sur le disque
+     */
+    public void setPlage(String fichier, SegmentFichier plage) {
+        plages.put(fichier, plage);
+    }
+
+    /**
+     * Empreintes des lignes déjà importées d'un fichier, chargées depuis la base au premier appel
+     * @param fichier nom du fichier d'import
+     * @return les empreintes du fichier, ou null si la détection des changements est désactivée
+     */
+    public EmpreintesLignes getEmpreintes(String fichier) {
+        if (!detectionChangements) {
+            return null;
+        }
+        return empreintes.computeIfAbsent(fichier, f -> EmpreintesLignes.charger(f, new EmpreinteLigneDaoImpl(em)));
+    }
+
+    /**
+     * Setter
+     * @param detectionChangements true pour ignorer les lignes inchangées depuis le dernier import
+     * et mettre à jour en place les lignes modifiées
+     */
+    public void setDetectionChangements(boolean detectionChangements) {
+        this.detectionChangements = detectionChangements;
+    }
+
+    /**
+     * Setter
+     * @param suiviProgression true pour enregistrer la progression à chaque commit de lot
+     * (n'a d'effet durable qu'avec le commit par lot)
+     */
+    public void setSuiviProgression(boolean suiviProgression) {
+        this.suiviProgression = suiviProgression;
+    }
+
+    /**
+     * Getter
+     * @return true si les services insèrent en mode upsert
+     */
+    public boolean isUpsert() {
+        return upsert;
+    }
+
+    /**
+     * Setter
+     * @param upsert true pour insérer buteurs, buts, scores et tirs aux buts en une requête, sans recherche préalable
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
+    /**
+     * Getter
+     * @return cache des buteurs résolus, partagé avec les contextes d'étape
+     */
+    public CacheButeurs getButeurs() {
+        if (buteurs == null) {
+            buteurs = new CacheButeurs(capaciteCacheButeurs);
+        }
+        return buteurs;
+    }
+
+    /**
+     * Setter
+     * @param capaciteCacheButeurs nombre maximal de buteurs gardés en cache, à fixer avant l'import
+     */
+    public void setCapaciteCacheButeurs(int capaciteCacheButeurs) {
+        this.capaciteCacheButeurs = capaciteCacheButeurs;
+    }
+
+    /**
+     * Construit les filtres de Bloom des buteurs, buts, scores et tirs aux buts déjà en base,
+     * en une lecture des clés de chaque table. Chaque filtre prévoit le double des clés existantes,
+     * pour garder son taux de faux positifs malgré les insertions de l'import.
+     * @param tauxFauxPositifs taux de faux positifs visé, entre 0 et 1 exclus
+     * @return les filtres, partagés avec les contextes d'étape créés ensuite
+     */
+    public FiltresExistence chargerFiltres(double tauxFauxPositifs) {
+        long[] buteursExistants;
+        try (Stream<Object[]> cles = new ButeurDaoImpl(em).streamCles()) {
+            buteursExistants = cles.mapToLong(t -> FiltresExistence.cleButeur((String) t[0], (Integer) t[1]))
+                    .toArray();
+        }
+        long[] matchsAvecButs;
+        try (Stream<Integer> ids = new ButDaoImpl(em).streamIdsMatchs()) {
+            matchsAvecButs = ids.mapToLong(Integer::longValue).toArray();
+        }
+        long[] scores;
+        try (Stream<Integer> ids = new ScoreDaoImpl(em).streamIds()) {
+            scores = ids.mapToLong(Integer::longValue).toArray();
+        }
+        long[] tirsButs;
+        try (Stream<Integer> ids = new TirsButsDaoImpl(em).streamIds()) {
+            tirsButs = ids.mapToLong(Integer::longValue).toArray();
+        }
+        filtres = new FiltresExistence(filtre(buteursExistants, tauxFauxPositifs),
+                filtre(matchsAvecButs, tauxFauxPositifs), filtre(scores, tauxFauxPositifs),
+                filtre(tirsButs, tauxFauxPositifs));
+        return filtres;
+    }
+
+    private static FiltreBloom filtre(long[] cles, double tauxFauxPositifs) {
+        FiltreBloom filtre = new FiltreBloom(Math.max(2L * cles.length, CLES_FILTRE_MIN), tauxFauxPositifs);
+        for (long cle : cles) {
+            filtre.ajouter(cle);
+        }
+        return filtre;
+    }
+
+    /**
+     * Getter
+     * @return filtres de Bloom des entités déjà en base, null s'ils n'ont pas été chargés
+     */
+    public FiltresExistence getFiltres() {
+        return filtres;
+    }
+
+    /**
+     * Construit le classement des buteurs à partir des buts déjà en base ; les importeurs
+     * le tiennent ensuite à jour à chaque match et à chaque but insérés
+     * @return le classement, partagé avec les contextes d'étape créés ensuite
+     */
+    public ClassementButeurs chargerClassement() {
+        classement = new ClassementButeurs(matchs.taille());
+        new ClassementService(em, classement).reconstruire();
+        return classement;
+    }
+
+    /**
+     * Getter
+     * @return classement des buteurs, null s'il n'a pas été chargé
+     */
+    public ClassementButeurs getClassement() {
+        return classement;
+    }
+
+    /**
+     * Getter
+     * @return index des matchs
+     */
+    public MatchIndex getMatchs() {
+        return matchs;
+    }
+}
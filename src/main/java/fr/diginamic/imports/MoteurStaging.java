@@ -0,0 +1,365 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.CsvImporter;
+import fr.diginamic.utils.CsvTokenizer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Moteur d'import ensembliste, alternative aux importeurs ligne à ligne.
+ * Chaque fichier est d'abord chargé tel quel dans une table de staging (INSERT par batch JDBC,
+ * seule la conversion des types est faite en Java, avec les mêmes parseurs que les importeurs),
+ * puis équipes, matchs, scores, buteurs, buts et tirs aux buts sont résolus sur leurs clés
+ * naturelles par une poignée d'INSERT ... SELECT et d'UPDATE : le nombre d'allers-retours
+ * ne dépend plus du nombre de lignes mais du nombre d'étapes.
+ * Les lignes rejetées sont écrites dans erreur_import avec les mêmes messages et les mêmes
+ * catégories (traitement) que les services.
+ * Les INSERT reposent sur l'AUTO_INCREMENT des ids : incompatible avec le mode ids pooled.
+ */
+public class MoteurStaging {
+
+    /** Nombre de lignes envoyées par batch JDBC lors du chargement des tables de staging */
+    private static final int TAILLE_BATCH = 1000;
+
+    private static final String TABLE_RESULTATS = "stg_resultat";
+    private static final String TABLE_BUTS = "stg_but";
+    private static final String TABLE_TIRS_BUTS = "stg_tirs_buts";
+
+    /** Colonne d'un nom d'équipe ou de buteur, de même collation que les tables cibles pour les jointures */
+    private static final String NOM = " VARCHAR(255) COLLATE " + Equipe.COLLATION_NOM;
+
+    /** Début commun des requêtes de rejet : la sélection fournit fichier, ligne, message et traitement */
+    private static final String REJET =
+            "INSERT INTO erreur_import (fichier, ligne, message, date_erreur, traitement) ";
+
+    /** Id d'une équipe désignée par son nom, null si absente ou en doublon */
+    private static final String ID_EQUIPE =
+            "(SELECT CASE WHEN COUNT(*) = 1 THEN MIN(e.id) END FROM equipe e WHERE e.nom = %s)";
+
+    /** Id d'un match désigné par sa date et ses équipes, null s'il est absent ou en doublon */
+    private static final String ID_MATCH =
+            "(SELECT CASE WHEN COUNT(*) = 1 THEN MIN(m.id) END FROM match_foot m WHERE m.date = s.date_match "
+                    + "AND m.equipe_hote_id = s.equipe_hote_id AND m.equipe_invitee_id = s.equipe_invitee_id)";
+
+    /**
+     * Conversion d'un enregistrement CSV en valeurs des colonnes de staging
+     */
+    @FunctionalInterface
+    private interface Conversion {
+        Object[] valeurs(CsvTokenizer csv) throws Exception;
+    }
+
+    private final EntityManager em;
+    private final Path dossierSource;
+
+    /**
+     * Initialise le moteur
+     * @param em EntityManager dont la transaction englobe l'import
+     * @param dossierSource dossier des fichiers d'import, null pour lire les ressources du classpath
+     */
+    public MoteurStaging(EntityManager em, Path dossierSource) {
+        this.em = em;
+        this.dossierSource = dossierSource;
+    }
+
+    /**
+     * Recrée les tables de staging, vidées de toute façon à chaque chargement : une table laissée
+     * par une version précédente n'impose pas ses colonnes (collation des noms notamment).
+     * Le DDL provoquant un commit implicite sous MySQL,
+     * cette étape s'exécute dans sa propre transaction, avant celle de l'import.
+     */
+    public void preparer() {
+        em.getTransaction().begin();
+        for (String table : List.of(TABLE_RESULTATS, TABLE_BUTS, TABLE_TIRS_BUTS)) {
+            executer("DROP TABLE IF EXISTS " + table);
+        }
+        executer("CREATE TABLE " + TABLE_RESULTATS + " ("
+                + "numero BIGINT NOT NULL PRIMARY KEY, ligne TEXT, erreur TEXT, date_match DATE, "
+                + "equipe_hote" + NOM + ", equipe_invitee" + NOM + ", score_hote INT, score_invite INT, "
+                + "tournoi VARCHAR(255), ville VARCHAR(255), pays VARCHAR(255), lieu_neutre BOOLEAN, "
+                + "equipe_hote_id INT, equipe_invitee_id INT, match_id INT)");
+        executer("CREATE TABLE " + TABLE_BUTS + " ("
+                + "numero BIGINT NOT NULL PRIMARY KEY, ligne TEXT, erreur TEXT, date_match DATE, "
+                + "equipe_hote" + NOM + ", equipe_invitee" + NOM + ", equipe" + NOM + ", buteur" + NOM + ", "
+                + "minute INT, contre_son_camp BOOLEAN, penalty BOOLEAN, "
+                + "equipe_hote_id INT, equipe_invitee_id INT, equipe_id INT, match_id INT, buteur_id INT)");
+        executer("CREATE TABLE " + TABLE_TIRS_BUTS + " ("
+                + "numero BIGINT NOT NULL PRIMARY KEY, ligne TEXT, erreur TEXT, date_match DATE, "
+                + "equipe_hote" + NOM + ", equipe_invitee" + NOM + ", vainqueur" + NOM + ", "
+                + "equipe_commence" + NOM + ", equipe_hote_id INT, equipe_invitee_id INT, "
+                + "vainqueur_id INT, equipe_commence_id INT, match_id INT)");
+        em.getTransaction().commit();
+    }
+
+    /**
+     * Importe les trois fichiers dans l'ordre de leurs dépendances. À appeler dans une transaction active.
+     */
+    public void importer() {
+        importerResultats(ResultCsvImporter.FICHIER);
+        importerButs(GoalsScorersCsvImporter.FICHIER);
+        importerTirsButs(ShootoutsCsvImporter.FICHIER);
+    }
+
+    /**
+     * Import de results.csv : équipes, matchs et scores
+     * @param fichier nom du fichier d'import
+     */
+    public void importerResultats(String fichier) {
+        charger(TABLE_RESULTATS, fichier, List.of("date_match", "equipe_hote", "equipe_invitee", "score_hote",
+                "score_invite", "tournoi", "ville", "pays", "lieu_neutre"), csv -> {
+            ResultCsvImporter.LigneResultat l = ResultCsvImporter.parser(csv);
+            return new Object[]{l.date(), l.homeTeam(), l.awayTeam(), l.homeScore(), l.awayScore(),
+                    l.tournament(), l.city(), l.country(), l.neutral()};
+        });
+        rejeterErreursParsing(TABLE_RESULTATS, "results.csv", "Results");
+
+        // 1. Équipes : noms vides, insertion des nouvelles, résolution puis doublons
+        for (String colonne : List.of("equipe_hote", "equipe_invitee")) {
+            executer(REJET + "SELECT ?, ligne, ?, CURRENT_TIMESTAMP, 'Equipe' FROM " + TABLE_RESULTATS
+                            + " WHERE erreur IS NULL AND " + colonne + " = ''",
+                    fichier, "Le nom de l'équipe est vide ou invalide.");
+        }
+        int equipes = executer("INSERT INTO equipe (nom) SELECT DISTINCT n.nom FROM ("
+                + "SELECT equipe_hote AS nom FROM " + TABLE_RESULTATS + " WHERE erreur IS NULL"
+                + " UNION SELECT equipe_invitee FROM " + TABLE_RESULTATS + " WHERE erreur IS NULL) n"
+                + " WHERE n.nom <> '' AND NOT EXISTS (SELECT 1 FROM equipe e WHERE e.nom = n.nom)");
+        executer("UPDATE " + TABLE_RESULTATS + " s SET equipe_hote_id = " + idEquipe("s.equipe_hote")
+                + ", equipe_invitee_id = " + idEquipe("s.equipe_invitee") + " WHERE erreur IS NULL");
+        rejeterDoublonsEquipes(TABLE_RESULTATS, fichier, List.of("equipe_hote", "equipe_invitee"));
+
+        // 2. Matchs : date invalide, insertion de la première ligne de chaque clé absente, résolution
+        String equipesResolues = "s.equipe_hote_id IS NOT NULL AND s.equipe_invitee_id IS NOT NULL";
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Match' FROM " + TABLE_RESULTATS + " s"
+                        + " WHERE " + equipesResolues + " AND s.date_match > CURRENT_DATE",
+                fichier, "Erreur dans les paramètres : date invalide ou équipe hôte/invitée absente");
+        int matchs = executer("INSERT INTO match_foot (date, ville, pays, lieu_neutre, tournoi, equipe_hote_id, "
+                + "equipe_invitee_id) SELECT s.date_match, s.ville, s.pays, s.lieu_neutre, s.tournoi, "
+                + "s.equipe_hote_id, s.equipe_invitee_id FROM " + TABLE_RESULTATS + " s"
+                + premieres(TABLE_RESULTATS, equipesResolues + " AND s.date_match <= CURRENT_DATE",
+                "s.date_match, s.equipe_hote_id, s.equipe_invitee_id")
+                + " WHERE NOT EXISTS (SELECT 1 FROM match_foot m WHERE m.date = s.date_match"
+                + " AND m.equipe_hote_id = s.equipe_hote_id AND m.equipe_invitee_id = s.equipe_invitee_id)");
+        executer("UPDATE " + TABLE_RESULTATS + " s SET match_id = " + ID_MATCH + " WHERE " + equipesResolues);
+        // Après insertion, une ligne valide sans match résolu correspond forcément à plusieurs matchs
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Match' FROM " + TABLE_RESULTATS + " s"
+                        + " WHERE " + equipesResolues + " AND s.date_match <= CURRENT_DATE AND s.match_id IS NULL",
+                fichier, "Doublon : plusieurs matchs trouvés pour cette date et ces équipes");
+
+        // 3. Scores : valeurs négatives, insertion du premier score de chaque match, score contradictoire
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Score' FROM " + TABLE_RESULTATS + " s"
+                        + " WHERE s.match_id IS NOT NULL AND (s.score_hote < 0 OR s.score_invite < 0)",
+                fichier, "Erreur dans la recherche: match null ou scores invalides");
+        String scoresValides = "s.match_id IS NOT NULL AND s.score_hote >= 0 AND s.score_invite >= 0";
+        int scores = executer("INSERT INTO score (match_id, score_hote, score_invite)"
+                + " SELECT s.match_id, s.score_hote, s.score_invite FROM " + TABLE_RESULTATS + " s"
+                + premieres(TABLE_RESULTATS, scoresValides, "s.match_id")
+                + " WHERE NOT EXISTS (SELECT 1 FROM score sc WHERE sc.match_id = s.match_id)");
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Score' FROM " + TABLE_RESULTATS + " s"
+                        + " WHERE " + scoresValides + " AND EXISTS (SELECT 1 FROM score sc WHERE sc.match_id = s.match_id"
+                        + " AND (sc.score_hote <> s.score_hote OR sc.score_invite <> s.score_invite))",
+                fichier, "Un score différent est déjà enregistré pour ce match");
+
+        System.out.println(fichier + " : " + equipes + " équipes, " + matchs + " matchs, " + scores + " scores insérés");
+    }
+
+    /**
+     * Import de goalscorers.csv : buteurs et buts, sur les matchs déjà importés
+     * @param fichier nom du fichier d'import
+     */
+    public void importerButs(String fichier) {
+        charger(TABLE_BUTS, fichier, List.of("date_match", "equipe_hote", "equipe_invitee", "equipe", "buteur",
+                "minute", "contre_son_camp", "penalty"), csv -> {
+            GoalsScorersCsvImporter.LigneBut l = GoalsScorersCsvImporter.parser(csv);
+            return new Object[]{l.date(), l.homeTeam(), l.awayTeam(), l.team(), l.scorer(),
+                    l.minute(), l.ownGoal(), l.penalty()};
+        });
+        rejeterErreursParsing(TABLE_BUTS, "goalsscorers.csv", "GoalScorer");
+
+        // 1. Équipes et match : tous doivent exister (import préalable de results.csv)
+        executer("UPDATE " + TABLE_BUTS + " s SET equipe_hote_id = " + idEquipe("s.equipe_hote")
+                + ", equipe_invitee_id = " + idEquipe("s.equipe_invitee")
+                + ", equipe_id = " + idEquipe("s.equipe") + " WHERE erreur IS NULL");
+        executer(REJET + "SELECT ?, ligne, ?, CURRENT_TIMESTAMP, 'GoalScorer' FROM " + TABLE_BUTS
+                        + " WHERE erreur IS NULL AND (equipe_hote_id IS NULL OR equipe_invitee_id IS NULL"
+                        + " OR equipe_id IS NULL)",
+                "goalsscorers.csv", "Équipe hôte, invitée ou du buteur introuvable ou en doublon");
+        String equipesResolues = "s.equipe_hote_id IS NOT NULL AND s.equipe_invitee_id IS NOT NULL"
+                + " AND s.equipe_id IS NOT NULL";
+        executer("UPDATE " + TABLE_BUTS + " s SET match_id = " + ID_MATCH + " WHERE " + equipesResolues);
+
+        // 2. Buteurs : nom vide, insertion des nouveaux, résolution puis doublons
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Buteur' FROM " + TABLE_BUTS + " s"
+                        + " WHERE s.match_id IS NOT NULL AND s.equipe_id IS NOT NULL AND s.buteur = ''",
+                fichier, "Erreur dans la recherche: nom vide/invalide ou équipe null");
+        String buteurValide = "s.match_id IS NOT NULL AND s.equipe_id IS NOT NULL AND s.buteur <> ''";
+        int buteurs = executer("INSERT INTO buteur (nom, equipe_id) SELECT DISTINCT s.buteur, s.equipe_id FROM "
+                + TABLE_BUTS + " s WHERE " + buteurValide
+                + " AND NOT EXISTS (SELECT 1 FROM buteur b WHERE b.nom = s.buteur AND b.equipe_id = s.equipe_id)");
+        executer("UPDATE " + TABLE_BUTS + " s SET buteur_id = (SELECT CASE WHEN COUNT(*) = 1 THEN MIN(b.id) END"
+                + " FROM buteur b WHERE b.nom = s.buteur AND b.equipe_id = s.equipe_id) WHERE " + equipesResolues);
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'Buteur' FROM " + TABLE_BUTS + " s"
+                        + " WHERE " + buteurValide + " AND s.buteur_id IS NULL",
+                fichier, "Doublon : plusieurs buteurs trouvés pour ce nom et équipe");
+
+        // 3. Buts : minute négative, insertion de la première ligne de chaque clé absente, doublons
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'But' FROM " + TABLE_BUTS + " s"
+                        + " WHERE s.match_id IS NOT NULL AND s.buteur_id IS NOT NULL AND s.minute < 0",
+                fichier, "Paramètres invalides : match ou buteur null, ou minutage négatif");
+        String butValide = "s.match_id IS NOT NULL AND s.buteur_id IS NOT NULL AND s.minute >= 0";
+        String memeBut = "b.match_id = s.match_id AND b.buteur_id = s.buteur_id AND b.minute = s.minute";
+        int buts = executer("INSERT INTO but (minute, contre_son_camp, penalty, match_id, buteur_id)"
+                + " SELECT s.minute, s.contre_son_camp, s.penalty, s.match_id, s.buteur_id FROM " + TABLE_BUTS + " s"
+                + premieres(TABLE_BUTS, butValide, "s.match_id, s.buteur_id, s.minute")
+                + " WHERE NOT EXISTS (SELECT 1 FROM but b WHERE " + memeBut + ")");
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'But' FROM " + TABLE_BUTS + " s"
+                        + " WHERE " + butValide + " AND (SELECT COUNT(*) FROM but b WHERE " + memeBut + ") > 1",
+                fichier, "Doublon : plusieurs buts trouvés pour ce minutage, match et buteur");
+
+        System.out.println(fichier + " : " + buteurs + " buteurs, " + buts + " buts insérés");
+    }
+
+    /**
+     * Import de shootouts.csv : tirs aux buts, sur les matchs déjà importés
+     * @param fichier nom du fichier d'import
+     */
+    public void importerTirsButs(String fichier) {
+        charger(TABLE_TIRS_BUTS, fichier, List.of("date_match", "equipe_hote", "equipe_invitee", "vainqueur",
+                "equipe_commence"), csv -> {
+            ShootoutsCsvImporter.LigneTirsButs l = ShootoutsCsvImporter.parser(csv);
+            return new Object[]{l.date(), l.homeTeam(), l.awayTeam(), l.winner(), l.firstShooter()};
+        });
+        rejeterErreursParsing(TABLE_TIRS_BUTS, "shootouts.csv", "Shootouts");
+
+        // 1. Équipes et match (import préalable de results.csv), équipe qui commence facultative
+        executer("UPDATE " + TABLE_TIRS_BUTS + " s SET equipe_hote_id = " + idEquipe("s.equipe_hote")
+                + ", equipe_invitee_id = " + idEquipe("s.equipe_invitee")
+                + ", vainqueur_id = " + idEquipe("s.vainqueur")
+                + ", equipe_commence_id = " + idEquipe("s.equipe_commence") + " WHERE erreur IS NULL");
+        executer(REJET + "SELECT ?, ligne, ?, CURRENT_TIMESTAMP, 'Shootouts' FROM " + TABLE_TIRS_BUTS
+                        + " WHERE erreur IS NULL AND (equipe_hote_id IS NULL OR equipe_invitee_id IS NULL)",
+                "shootouts.csv", "Équipe hôte ou invitée introuvable ou en doublon");
+        executer("UPDATE " + TABLE_TIRS_BUTS + " s SET match_id = " + ID_MATCH
+                + " WHERE s.equipe_hote_id IS NOT NULL AND s.equipe_invitee_id IS NOT NULL");
+
+        // 2. Tirs aux buts : une séance par match, vainqueur contradictoire rejeté
+        String seanceValide = "s.match_id IS NOT NULL AND s.vainqueur_id IS NOT NULL";
+        int seances = executer("INSERT INTO tirs_buts (match_id, equipe_commence_id, vainqueur_id)"
+                + " SELECT s.match_id, s.equipe_commence_id, s.vainqueur_id FROM " + TABLE_TIRS_BUTS + " s"
+                + premieres(TABLE_TIRS_BUTS, seanceValide, "s.match_id")
+                + " WHERE NOT EXISTS (SELECT 1 FROM tirs_buts t WHERE t.match_id = s.match_id)");
+        executer(REJET + "SELECT ?, s.ligne, ?, CURRENT_TIMESTAMP, 'TirsButs' FROM " + TABLE_TIRS_BUTS + " s"
+                        + " WHERE " + seanceValide + " AND EXISTS (SELECT 1 FROM tirs_buts t"
+                        + " WHERE t.match_id = s.match_id AND t.vainqueur_id <> s.vainqueur_id)",
+                fichier, "Des tirs aux buts avec un autre vainqueur sont déjà enregistrés pour ce match");
+
+        System.out.println(fichier + " : " + seances + " séances de tirs aux buts insérées");
+    }
+
+    /**
+     * Vide puis remplit une table de staging, par batch JDBC. Une ligne dont la conversion échoue
+     * est conservée avec le message d'erreur et des colonnes vides, pour être rejetée en SQL.
+     * Une erreur de lecture ou d'insertion interrompt l'import : l'appelant doit annuler la transaction
+     * plutôt que de résoudre une table de staging chargée en partie.
+     * @param table table de staging
+     * @param fichier fichier à charger
+     * @param colonnes colonnes alimentées, dans l'ordre des valeurs produites par la conversion
+     * @param conversion conversion d'un enregistrement en valeurs
+     */
+    private void charger(String table, String fichier, List<String> colonnes, Conversion conversion) {
+        executer("DELETE FROM " + table);
+        String sql = "INSERT INTO " + table + " (numero, ligne, erreur, " + String.join(", ", colonnes)
+                + ") VALUES (?, ?, ?" + ", ?".repeat(colonnes.size()) + ")";
+        Object[] vide = new Object[colonnes.size()];
+        em.unwrap(Session.class).doWork(connexion -> {
+            try (PreparedStatement insert = connexion.prepareStatement(sql)) {
+                int[] enAttente = {0};
+                CsvImporter.lireCsv(dossierSource, fichier, csv -> {
+                    Object[] valeurs;
+                    String erreur = null;
+                    try {
+                        valeurs = conversion.valeurs(csv);
+                    } catch (Exception e) {
+                        valeurs = vide;
+                        erreur = e.getMessage();
+                    }
+                    try {
+                        insert.setLong(1, csv.numero());
+                        insert.setString(2, csv.ligne());
+                        insert.setString(3, erreur);
+                        for (int i = 0; i < valeurs.length; i++) {
+                            insert.setObject(i + 4, valeurs[i]);
+                        }
+                        insert.addBatch();
+                        if (++enAttente[0] == TAILLE_BATCH) {
+                            insert.executeBatch();
+                            enAttente[0] = 0;
+                        }
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Chargement de " + table + " interrompu", e);
+                    }
+                });
+                if (enAttente[0] > 0) {
+                    insert.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * Rejette les lignes que le parseur de l'importeur n'a pas pu convertir
+     */
+    private void rejeterErreursParsing(String table, String fichier, String traitement) {
+        executer(REJET + "SELECT ?, ligne, COALESCE(erreur, ''), CURRENT_TIMESTAMP, ? FROM " + table
+                + " WHERE erreur IS NOT NULL", fichier, traitement);
+    }
+
+    /**
+     * Rejette les lignes désignant une équipe dont le nom est porté par plusieurs équipes
+     */
+    private void rejeterDoublonsEquipes(String table, String fichier, List<String> colonnes) {
+        for (String colonne : colonnes) {
+            executer(REJET + "SELECT ?, s.ligne, CONCAT(?, s." + colonne + ", ''''), CURRENT_TIMESTAMP, 'Equipe'"
+                            + " FROM " + table + " s WHERE s.erreur IS NULL"
+                            + " AND (SELECT COUNT(*) FROM equipe e WHERE e.nom = s." + colonne + ") > 1",
+                    fichier, "Doublon : plusieurs équipes portent le nom '");
+        }
+    }
+
+    /**
+     * Jointure ne retenant, pour chaque clé, que la première ligne du fichier remplissant la condition :
+     * comme l'import ligne à ligne, c'est elle qui crée l'entité, les suivantes la retrouvent
+     * @param table table de staging, d'alias s dans la requête englobante
+     * @param condition condition sur les lignes (alias s)
+     * @param cle colonnes de la clé naturelle (alias s)
+     * @return la clause JOIN sur une table dérivée
+     */
+    private static String premieres(String table, String condition, String cle) {
+        return " JOIN (SELECT MIN(s.numero) AS numero FROM " + table + " s WHERE " + condition
+                + " GROUP BY " + cle + ") premiere ON premiere.numero = s.numero";
+    }
+
+    private static String idEquipe(String colonneNom) {
+        return String.format(ID_EQUIPE, colonneNom);
+    }
+
+    /**
+     * Exécute une requête native de mise à jour
+     * @param sql requête, paramètres positionnels ?
+     * @param parametres valeurs des paramètres dans l'ordre
+     * @return nombre de lignes touchées
+     */
+    private int executer(String sql, Object... parametres) {
+        Query requete = em.createNativeQuery(sql);
+        for (int i = 0; i < parametres.length; i++) {
+            requete.setParameter(i + 1, parametres[i]);
+        }
+        return requete.executeUpdate();
+    }
+}
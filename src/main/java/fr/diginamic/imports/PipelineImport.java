@@ -0,0 +1,279 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.utils.CsvImporter;
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.SegmentFichier;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline d'import d'un fichier CSV en trois étages :
+ * un lecteur qui découpe le fichier en lots de lignes brutes,
+ * N parseurs qui analysent et convertissent les lignes (dates, entiers, contrôles),
+ * et un unique écrivain, le thread appelant, qui seul utilise l'EntityManager
+ * et reçoit les lignes dans l'ordre du fichier.
+ * Les étages sont reliés par des files bornées : un écrivain ralenti par la base
+ * bloque les parseurs puis le lecteur, la mémoire consommée reste donc limitée.
+ * Avec un seul parseur, tout s'exécute dans le thread appelant sans file intermédiaire.
+ *
+ * @param <T> type de la ligne une fois analysée
+ */
+public final class PipelineImport<T> {
+
+    /** Nombre de lignes par lot échangé entre les étages */
+    private static final int LIGNES_PAR_LOT = 512;
+
+    /**
+     * Étage d'analyse : exécuté par les parseurs, ne doit pas accéder à la base
+     * @param <T> type de la ligne analysée
+     */
+    @FunctionalInterface
+    public interface Parseur<T> {
+        T parser(CsvTokenizer csv) throws Exception;
+    }
+
+    /**
+     * Étage d'écriture : exécuté par le seul écrivain, dans l'ordre du fichier
+     * @param <T> type de la ligne analysée
+     */
+    @FunctionalInterface
+    public interface Ecrivain<T> {
+        void ecrire(String ligne, T valeur) throws Exception;
+    }
+
+    /** Lot de lignes brutes, numéroté pour rétablir l'ordre du fichier */
+    private record Lot(long numero, String texte) {
+    }
+
+    /** Ligne analysée : valeur ou erreur de parsing */
+    private record LigneParsee<T>(String ligne, T valeur, Exception erreur) {
+    }
+
+    /** Lot de lignes analysées ; un lot sans lignes et de numéro négatif signale la fin d'un parseur */
+    private record LotParse<T>(long numero, List<LigneParsee<T>> lignes) {
+    }
+
+    private static final Lot FIN_LECTURE = new Lot(-1, "");
+
+    private final ImportContext ctx;
+    private final Parseur<T> parseur;
+    private final Ecrivain<T> ecrivain;
+    private final BiConsumer<String, Exception> surErreur;
+
+    /** Lignes en tête de parcours déjà commitées par un import interrompu */
+    private long lignesAIgnorer;
+
+    /**
+     * Construit le pipeline d'un importeur
+     * @param ctx contexte d'import (source, nombre de parseurs, découpage en lots)
+     * @param parseur analyse d'un enregistrement
+     * @param ecrivain écriture d'une ligne analysée
+     * @param surErreur traitement d'une erreur de parsing ou d'écriture
+     */
+    public PipelineImport(ImportContext ctx, Parseur<T> parseur, Ecrivain<T> ecrivain,
+                          BiConsumer<String, Exception> surErreur) {
+        this.ctx = ctx;
+        this.parseur = parseur;
+        this.ecrivain = ecrivain;
+        this.surErreur = surErreur;
+    }
+
+    /**
+     * Importe un fichier à travers le pipeline
+     * @param fichier nom du fichier d'import
+     */
+    public void executer(String fichier) {
+        lignesAIgnorer = ctx.debutFichier(fichier);
+        if (lignesAIgnorer > 0) {
+            System.out.println("Reprise de " + fichier + " après " + lignesAIgnorer + " lignes déjà commitées");
+        }
+        if (ctx.getParseurs() <= 1) {
+            parcourir(fichier, csv -> {
+                T valeur = null;
+                Exception erreur = null;
+                try {
+                    valeur = parseur.parser(csv);
+                } catch (Exception e) {
+                    erreur = e;
+                }
+                ecrire(csv.ligne(), valeur, erreur);
+            });
+        } else {
+            executerEnParallele(fichier, ctx.getParseurs());
+        }
+        ctx.finFichier();
+    }
+
+    private void executerEnParallele(String fichier, int parseurs) {
+        BlockingQueue<Lot> aAnalyser = new ArrayBlockingQueue<>(parseurs * 2);
+        BlockingQueue<LotParse<T>> aEcrire = new ArrayBlockingQueue<>(parseurs * 2);
+        ExecutorService executeur = Executors.newFixedThreadPool(parseurs + 1);
+        try {
+            List<Future<Void>> etages = new ArrayList<>(parseurs + 1);
+            etages.add(executeur.submit(() -> lire(fichier, aAnalyser, parseurs)));
+            for (int i = 0; i < parseurs; i++) {
+                etages.add(executeur.submit(() -> analyser(aAnalyser, aEcrire)));
+            }
+            ecrireDansLOrdre(aEcrire, parseurs);
+            // Un lecteur en échec termine les parseurs comme une fin de fichier : l'erreur est relancée ici
+            for (Future<Void> etage : etages) {
+                attendre(etage, fichier);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrompu : " + fichier, e);
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Étage lecteur : regroupe les enregistrements bruts par lots
+     */
+    private Void lire(String fichier, BlockingQueue<Lot> aAnalyser, int parseurs) throws InterruptedException {
+        StringBuilder texte = new StringBuilder(LIGNES_PAR_LOT * 128);
+        int[] lignes = {0};
+        long[] numero = {0};
+        try {
+            parcourir(fichier, csv -> {
+                texte.append(csv.ligne()).append('\n');
+                if (++lignes[0] == LIGNES_PAR_LOT) {
+                    envoyer(aAnalyser, new Lot(numero[0]++, texte.toString()));
+                    texte.setLength(0);
+                    lignes[0] = 0;
+                }
+            });
+            if (lignes[0] > 0) {
+                aAnalyser.put(new Lot(numero[0], texte.toString()));
+            }
+        } finally {
+            for (int i = 0; i < parseurs; i++) {
+                aAnalyser.put(FIN_LECTURE);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Étage parseur : analyse chaque ligne d'un lot sans toucher à la base
+     */
+    private Void analyser(BlockingQueue<Lot> aAnalyser, BlockingQueue<LotParse<T>> aEcrire) throws InterruptedException {
+        try {
+            Lot lot;
+            while ((lot = aAnalyser.take()) != FIN_LECTURE) {
+                List<LigneParsee<T>> resultats = new ArrayList<>(LIGNES_PAR_LOT);
+                CsvTokenizer csv = new CsvTokenizer(new StringReader(lot.texte()));
+                while (csv.suivant()) {
+                    String ligne = csv.ligne();
+                    try {
+                        resultats.add(new LigneParsee<>(ligne, parseur.parser(csv), null));
+                    } catch (Exception e) {
+                        resultats.add(new LigneParsee<>(ligne, null, e));
+                    }
+                }
+                aEcrire.put(new LotParse<>(lot.numero(), resultats));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            aEcrire.put(new LotParse<>(-1, List.of()));
+        }
+        return null;
+    }
+
+    /**
+     * Étage écrivain : remet les lots dans l'ordre du fichier et les écrit en base
+     */
+    private void ecrireDansLOrdre(BlockingQueue<LotParse<T>> aEcrire, int parseurs) throws InterruptedException {
+        Map<Long, LotParse<T>> enAttente = new HashMap<>();
+        long prochain = 0;
+        int parseursTermines = 0;
+        while (parseursTermines < parseurs) {
+            LotParse<T> lot = aEcrire.take();
+            if (lot.numero() < 0) {
+                parseursTermines++;
+                continue;
+            }
+            enAttente.put(lot.numero(), lot);
+            while ((lot = enAttente.remove(prochain)) != null) {
+                lot.lignes().forEach(l -> ecrire(l.ligne(), l.valeur(), l.erreur()));
+                prochain++;
+            }
+        }
+        if (!enAttente.isEmpty()) {
+            throw new IllegalStateException("Lots non écrits après l'arrêt des parseurs : " + enAttente.keySet());
+        }
+    }
+
+    private void ecrire(String ligne, T valeur, Exception erreurParsing) {
+        try {
+            if (erreurParsing != null) {
+                surErreur.accept(ligne, erreurParsing);
+            } else {
+                ecrivain.ecrire(ligne, valeur);
+            }
+        } catch (Exception e) {
+            surErreur.accept(ligne, e);
+        } finally {
+            ctx.ligneTraitee();
+        }
+    }
+
+    /**
+     * Parcourt le fichier entier, ou seulement la plage fixée par le contexte (import incrémental),
+     * en sautant les lignes déjà commitées
+     */
+    private void parcourir(String fichier, Consumer<CsvTokenizer> traitement) {
+        long[] ignorees = {0};
+        Consumer<CsvTokenizer> consumer = lignesAIgnorer == 0 ? traitement : csv -> {
+            if (ignorees[0] < lignesAIgnorer) {
+                ignorees[0]++;
+            } else {
+                traitement.accept(csv);
+            }
+        };
+        SegmentFichier plage = ctx.getPlage(fichier);
+        if (plage != null) {
+            CsvImporter.lirePlage(plage, consumer);
+        } else {
+            CsvImporter.lireCsv(ctx.getDossierSource(), fichier, consumer);
+        }
+    }
+
+    /**
+     * Attend la fin d'un étage et relance son exception éventuelle
+     */
+    private static void attendre(Future<Void> etage, String fichier) throws InterruptedException {
+        try {
+            etage.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Import de " + fichier + " en échec", e.getCause());
+        }
+    }
+
+    private static void envoyer(BlockingQueue<Lot> file, Lot lot) {
+        try {
+            file.put(lot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lecture interrompue", e);
+        }
+    }
+}
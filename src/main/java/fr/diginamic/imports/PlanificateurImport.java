@@ -0,0 +1,158 @@
+package fr.diginamic.imports;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Ordonnanceur des étapes d'import selon leurs dépendances (graphe orienté sans cycle).
+ * Chaque étape démarre dès que ses prérequis sont commités, sur un thread virtuel,
+ * avec son propre EntityManager et sa propre transaction : les étapes indépendantes
+ * (goalscorers et shootouts après results) s'exécutent donc en parallèle et la durée
+ * totale tend vers celle du chemin critique.
+ * Une étape en échec est annulée (rollback) et les étapes qui en dépendent ne sont pas lancées ;
+ * les étapes déjà commitées restent en base.
+ * Les registres du contexte sont partagés sans verrou : seule l'étape results.csv y ajoute
+ * des équipes et des matchs, et la fin d'un prérequis précède (happens-before)
+ * le démarrage des étapes qui en dépendent, qui ne font que les lire.
+ */
+public class PlanificateurImport {
+
+    /**
+     * Étape d'import
+     * @param nom nom unique de l'étape
+     * @param prerequis noms des étapes devant être terminées avant celle-ci
+     * @param action import à exécuter dans le contexte de l'étape
+     */
+    private record Etape(String nom, List<String> prerequis, Consumer<ImportContext> action) {
+    }
+
+    private final Map<String, Etape> etapes = new LinkedHashMap<>();
+
+    /**
+     * Déclare une étape
+     * @param nom nom unique de l'étape
+     * @param action import à exécuter dans le contexte de l'étape
+     * @param prerequis noms des étapes dont dépend celle-ci (déjà déclarées ou non)
+     * @return l'ordonnanceur, pour enchaîner les déclarations
+     */
+    public PlanificateurImport ajouter(String nom, Consumer<ImportContext> action, List<String> prerequis) {
+        if (etapes.putIfAbsent(nom, new Etape(nom, List.copyOf(prerequis), action)) != null) {
+            throw new IllegalArgumentException("Étape déjà déclarée : " + nom);
+        }
+        return this;
+    }
+
+    /**
+     * Exécute toutes les étapes et attend leur fin
+     * @param emf fabrique des EntityManager des étapes
+     * @param modele contexte dont les registres et réglages sont partagés par les étapes
+     * @throws IllegalStateException si au moins une étape a échoué
+     */
+    public void executer(EntityManagerFactory emf, ImportContext modele) {
+        List<Etape> ordre = ordreTopologique();
+        Map<String, CompletableFuture<Void>> fins = new HashMap<>();
+        try (ExecutorService executeur = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Etape etape : ordre) {
+                CompletableFuture<?>[] prerequis = etape.prerequis().stream()
+                        .map(fins::get)
+                        .toArray(CompletableFuture[]::new);
+                fins.put(etape.nom(), CompletableFuture.allOf(prerequis)
+                        .thenRunAsync(() -> executerEtape(etape, emf, modele), executeur));
+            }
+            CompletableFuture.allOf(fins.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            List<String> echecs = new ArrayList<>();
+            fins.forEach((nom, fin) -> {
+                if (fin.isCompletedExceptionally()) {
+                    echecs.add(nom);
+                }
+            });
+            throw new IllegalStateException("Étapes d'import en échec ou non lancées : " + echecs, e.getCause());
+        }
+    }
+
+    /**
+     * Exécute toutes les étapes l'une après l'autre, dans l'ordre des dépendances,
+     * avec l'EntityManager et la transaction du contexte fourni
+     * @param ctx contexte d'import de l'appelant
+     * @throws IllegalStateException si un prérequis est inconnu ou si le graphe contient un cycle
+     */
+    public void executerEnSequence(ImportContext ctx) {
+        for (Etape etape : ordreTopologique()) {
+            System.out.println("Import : " + etape.nom());
+            etape.action().accept(ctx);
+        }
+    }
+
+    /**
+     * Exécute une étape dans sa propre transaction
+     */
+    private void executerEtape(Etape etape, EntityManagerFactory emf, ImportContext modele) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        long debut = System.currentTimeMillis();
+        try {
+            System.out.println("Import : " + etape.nom());
+            transaction.begin();
+            etape.action().accept(modele.pourEtape(em));
+            transaction.commit();
+            System.out.println("Étape " + etape.nom() + " terminée en " + (System.currentTimeMillis() - debut) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Erreur pendant l'étape " + etape.nom() + " : rollback effectué.");
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Trie les étapes de sorte que chacune suive ses prérequis
+     * @return les étapes dans un ordre compatible avec les dépendances
+     * @throws IllegalStateException si un prérequis est inconnu ou si le graphe contient un cycle
+     */
+    private List<Etape> ordreTopologique() {
+        List<Etape> ordre = new ArrayList<>(etapes.size());
+        Set<String> visitees = new HashSet<>();
+        Set<String> enCours = new HashSet<>();
+        for (String nom : etapes.keySet()) {
+            visiter(nom, visitees, enCours, ordre);
+        }
+        return ordre;
+    }
+
+    private void visiter(String nom, Set<String> visitees, Set<String> enCours, List<Etape> ordre) {
+        if (visitees.contains(nom)) {
+            return;
+        }
+        Etape etape = etapes.get(nom);
+        if (etape == null) {
+            throw new IllegalStateException("Prérequis inconnu : " + nom);
+        }
+        if (!enCours.add(nom)) {
+            throw new IllegalStateException("Dépendance circulaire autour de l'étape : " + nom);
+        }
+        for (String prerequis : etape.prerequis()) {
+            visiter(prerequis, visitees, enCours, ordre);
+        }
+        enCours.remove(nom);
+        visitees.add(nom);
+        ordre.add(etape);
+    }
+}
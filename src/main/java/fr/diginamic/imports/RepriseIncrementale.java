@@ -0,0 +1,111 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.dao.PointRepriseDaoImpl;
+import fr.diginamic.model.PointReprise;
+import fr.diginamic.utils.Empreinte;
+import fr.diginamic.utils.FichierCsvMappe;
+import fr.diginamic.utils.SegmentFichier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Import incrémental des fichiers du disque : chaque fichier importé laisse un point de reprise
+ * (octets importés, nombre de lignes, empreinte de ces octets). À l'import suivant, si le début
+ * du fichier a toujours la même empreinte, seules les lignes ajoutées depuis sont importées ;
+ * sinon (fichier réécrit ou tronqué) le fichier est réimporté en entier.
+ * Seules les lignes complètes sont importées : une ligne en cours d'écriture le sera la fois suivante.
+ * Le point de reprise est enregistré dans la transaction de l'import du fichier, et seulement
+ * après une lecture complète de la plage : il ne peut donc pas avancer sans les données correspondantes.
+ * Le début du fichier n'est haché qu'une fois, pour le vérifier : le point garde l'état du hachage,
+ * que l'enregistrement prolonge sur les seules lignes ajoutées en comptant leurs fins de ligne au passage.
+ */
+public class RepriseIncrementale {
+
+    private final Path dossier;
+
+    /**
+     * Constructeur
+     * @param dossier dossier des fichiers d'import sur le disque
+     */
+    public RepriseIncrementale(Path dossier) {
+        if (dossier == null) {
+            throw new IllegalArgumentException("L'import incrémental nécessite un dossier source (import.dossier)");
+        }
+        this.dossier = dossier;
+    }
+
+    /**
+     * Importe la plage restant à lire d'un fichier, puis avance son point de reprise.
+     * Si l'import échoue (erreur de lecture notamment), l'exception est propagée
+     * et le point de reprise reste où il était : les lignes non lues le seront à l'import suivant.
+     * @param ctx contexte de l'étape d'import du fichier
+     * @param fichier nom du fichier d'import
+     * @param action import du fichier, qui lit la plage fixée dans le contexte
+     */
+    public void importer(ImportContext ctx, String fichier, Consumer<ImportContext> action) {
+        preparer(ctx, fichier);
+        action.accept(ctx);
+        enregistrer(ctx, fichier);
+    }
+
+    /**
+     * Fixe dans le contexte la plage du fichier restant à importer
+     * @param ctx contexte de l'étape d'import du fichier
+     * @param fichier nom du fichier d'import
+     */
+    public void preparer(ImportContext ctx, String fichier) {
+        Path chemin = dossier.resolve(fichier);
+        try {
+            long fin = FichierCsvMappe.finDerniereLigne(chemin, Files.size(chemin));
+            PointReprise point = new PointRepriseDaoImpl(ctx.getEm()).findByFichier(fichier);
+            long debut = 0;
+            if (point == null) {
+                System.out.println(fichier + " : premier import");
+            } else if (fin >= point.getOctets()
+                    && Empreinte.prefixe(chemin, point.getOctets()) == point.getEmpreinte()) {
+                debut = point.getOctets();
+                System.out.println(fichier + " : reprise après " + point.getLignes() + " lignes ("
+                        + (fin - debut) + " octets à importer)");
+            } else {
+                System.out.println(fichier + " : contenu déjà importé modifié, import complet");
+            }
+            ctx.setPlage(fichier, new SegmentFichier(chemin, debut, fin, debut == 0));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Préparation de l'import incrémental impossible : " + fichier, e);
+        }
+    }
+
+    /**
+     * Avance le point de reprise du fichier jusqu'à la fin de la plage importée
+     * @param ctx contexte de l'étape, dont la transaction contient l'import du fichier
+     * @param fichier nom du fichier d'import
+     */
+    public void enregistrer(ImportContext ctx, String fichier) {
+        SegmentFichier plage = ctx.getPlage(fichier);
+        if (plage == null) {
+            throw new IllegalStateException("Aucune plage préparée pour " + fichier);
+        }
+        try {
+            PointRepriseDaoImpl dao = new PointRepriseDaoImpl(ctx.getEm());
+            PointReprise point = dao.findByFichier(fichier);
+            Empreinte.Prefixe depuis = Empreinte.Prefixe.VIDE;
+            if (point == null) {
+                point = new PointReprise(fichier);
+                dao.insert(point);
+            } else if (!plage.premier() && point.getEtatEmpreinte() != null) {
+                // Début vérifié par preparer : seule la plage importée est hachée ; en-tête compris dans les lignes
+                depuis = new Empreinte.Prefixe(point.getOctets(), point.getEtatEmpreinte(), point.getEmpreinte(),
+                        point.getLignes() + 1);
+            }
+            Empreinte.Prefixe importe = Empreinte.prolonger(plage.fichier(), depuis, plage.fin());
+            long lignes = importe.finsDeLigne() - (importe.octets() > 0 ? 1 : 0);
+            point.avancer(plage.fin(), lignes, importe.empreinte(), importe.etat());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Enregistrement du point de reprise impossible : " + fichier, e);
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package fr.diginamic.imports;
 
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import fr.diginamic.services.EquipeService;
 import fr.diginamic.services.MatchService;
 import fr.diginamic.services.ScoreService;
 import fr.diginamic.utils.CheckUtils;
-import fr.diginamic.utils.CsvImporter;
-import fr.diginamic.utils.DateUtils;
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.Empreinte;
+import fr.diginamic.utils.EmpreintesLignes;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.EtatLigne;
 import jakarta.persistence.EntityManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Classe organisant l'import du fichier result.csv stocké dans resources
@@ -19,20 +23,42 @@ import java.time.LocalDate;
  */
 public class ResultCsvImporter {
 
+    /** Fichier importé */
+    public static final String FICHIER = "results.csv";
+
+    /** Étapes d'import devant être terminées avant celle-ci : aucun prérequis */
+    public static final List<String> PREREQUIS = List.of();
+
     private final EquipeService equipeService;
     private final MatchService matchService;
     private final ScoreService scoreService;
     private final ErreurCollector collector;
+    private final ImportContext ctx;
 
     /**
      * Initialise les services des entités concernées par l'import.
-     * @param em EntityManager partagé
+     * @param ctx contexte d'import partagé (EntityManager, erreurs, registres)
      */
-    public ResultCsvImporter(EntityManager em, ErreurCollector collector) {
-        this.equipeService = new EquipeService(em, collector);
-        this.matchService = new MatchService(em, collector);
+    public ResultCsvImporter(ImportContext ctx) {
+        EntityManager em = ctx.getEm();
+        ErreurCollector collector = ctx.getCollector();
+        this.equipeService = new EquipeService(em, collector, ctx.getEquipes());
+        this.matchService = new MatchService(em, collector, ctx.getMatchs());
         this.scoreService = new ScoreService(em, collector);
+        this.scoreService.setUpsert(ctx.isUpsert());
+        this.matchService.setClassement(ctx.getClassement());
+        if (ctx.getFiltres() != null) {
+            this.scoreService.setFiltre(ctx.getFiltres().scores());
+        }
         this.collector = collector;
+        this.ctx = ctx;
+    }
+
+    /**
+     * Ligne de results.csv une fois analysée
+     */
+    record LigneResultat(LocalDate date, String homeTeam, String awayTeam, int homeScore, int awayScore,
+                         String tournament, String city, String country, boolean neutral) {
     }
 
     /**
@@ -41,52 +67,81 @@ public class ResultCsvImporter {
      * @param fichier correspond au fichier d'import
      */
     public void importer(String fichier) {
-        CsvImporter.lireFichier(fichier, ligne -> {
-            try {
-                String[] tokens = ligne.split(",");
+        EmpreintesLignes empreintes = ctx.getEmpreintes(fichier);
+        new PipelineImport<>(ctx, ResultCsvImporter::parser,
+                (ligne, l) -> ecrire(l, ligne, fichier, empreintes),
+                (ligne, e) -> collector.logException("results.csv", ligne, e, "Results")).executer(fichier);
+        if (empreintes != null) {
+            empreintes.enregistrer(new EmpreinteLigneDaoImpl(ctx.getEm()));
+        }
+    }
 
-                if (tokens.length < 8) {
-                    throw new IllegalArgumentException("Ligne incomplète : " + ligne);
-                }
+    /**
+     * Analyse d'une ligne, sans accès à la base (exécutable par les parseurs du pipeline)
+     * @param csv lecteur positionné sur la ligne
+     * @return la ligne analysée
+     */
+    static LigneResultat parser(CsvTokenizer csv) {
+        if (csv.nombreChamps() < 9) {
+            throw new IllegalArgumentException("Ligne incomplète : " + csv.ligne());
+        }
+
+        // Format date correspondant au csv, lu sans passer par une String
+        return new LigneResultat(csv.date(0), csv.texte(1), csv.texte(2), csv.entier(3), csv.entier(4),
+                csv.texte(5), csv.texte(6), csv.texte(7), csv.booleen(8));
+    }
+
+    /**
+     * Écriture d'une ligne analysée : vérification si doublon et import,
+     * ou mise à jour en place si la ligne a changé depuis le dernier import
+     * @param l ligne analysée
+     * @param ligne ligne source
+     * @param fichier correspond au fichier d'import
+     * @param empreintes empreintes des lignes déjà importées, null pour tout traiter
+     */
+    private void ecrire(LigneResultat l, String ligne, String fichier, EmpreintesLignes empreintes) {
+        // 0. Ignorer la ligne si elle est identique à celle déjà importée pour ce match
+        long cle = 0;
+        long empreinte = 0;
+        EtatLigne etat = EtatLigne.NOUVELLE;
+        if (empreintes != null) {
+            cle = Empreinte.cle(l.date().toEpochDay(), l.homeTeam(), l.awayTeam());
+            empreinte = Empreinte.texte(ligne);
+            etat = empreintes.etat(cle, empreinte);
+            if (etat == EtatLigne.INCHANGEE) {
+                return;
+            }
+        }
 
-                String dateStr = tokens[0].trim();
-                String homeTeam = tokens[1].trim();
-                String awayTeam = tokens[2].trim();
-                int homeScore = Integer.parseInt(tokens[3].trim());
-                int awayScore = Integer.parseInt(tokens[4].trim());
-                String tournament = tokens[5].trim();
-                String city = tokens[6].trim();
-                String country = tokens[7].trim();
-                boolean neutral = Boolean.parseBoolean(tokens[8].trim());
-                // Format date correspondant au csv
-                LocalDate date = LocalDate.parse(dateStr, DateUtils.CSV_DATE_FORMATTER);
-
-                // 1. Insérer les équipes si nouvelles
-                equipeService.enregistrerEquipeSiNouvelle(homeTeam, ligne, fichier);
-                equipeService.enregistrerEquipeSiNouvelle(awayTeam, ligne, fichier);
-
-                // 2. Récupérer les équipes
-                Equipe equipeHote = equipeService.getByNom(homeTeam);
-                Equipe equipeInvitee = equipeService.getByNom(awayTeam);
-
-                if (CheckUtils.isNotNull(equipeHote) && CheckUtils.isNotNull(equipeInvitee)) {
-                    // 3. Insérer le match si nouveau
-                    matchService.enregistrerMatchSiNouveau(date, city, country, neutral, tournament,
-                            equipeHote, equipeInvitee, ligne, fichier);
-
-                    // 4. Récupérer le match (il vient d'être inséré ou existait déjà)
-                    Match match = matchService.getByDateAndEquipes(date, equipeHote, equipeInvitee);
-
-                    if (CheckUtils.isNotNull(match)) {
-                        // 5. Insérer le score si nouveau
-                        scoreService.enregistrerScoreSiNouveau(match, homeScore, awayScore, ligne, fichier);
-                    }
+        // 1. Insérer les équipes si nouvelles
+        equipeService.enregistrerEquipeSiNouvelle(l.homeTeam(), ligne, fichier);
+        equipeService.enregistrerEquipeSiNouvelle(l.awayTeam(), ligne, fichier);
+
+        // 2. Récupérer les équipes
+        Equipe equipeHote = equipeService.getByNom(l.homeTeam());
+        Equipe equipeInvitee = equipeService.getByNom(l.awayTeam());
+
+        if (CheckUtils.isNotNull(equipeHote) && CheckUtils.isNotNull(equipeInvitee)) {
+            // 3. Insérer le match si nouveau
+            matchService.enregistrerMatchSiNouveau(l.date(), l.city(), l.country(), l.neutral(), l.tournament(),
+                    equipeHote, equipeInvitee, ligne, fichier);
+
+            // 4. Récupérer le match (il vient d'être inséré ou existait déjà)
+            Match match = matchService.getByDateAndEquipes(l.date(), equipeHote, equipeInvitee);
+
+            if (CheckUtils.isNotNull(match)) {
+                // 5. Insérer le score si nouveau, ou corriger match et score si la ligne a changé
+                if (etat == EtatLigne.MODIFIEE) {
+                    matchService.mettreAJourMatch(match, l.city(), l.country(), l.neutral(), l.tournament(),
+                            ligne, fichier);
+                    scoreService.mettreAJourScore(match, l.homeScore(), l.awayScore(), ligne, fichier);
+                } else {
+                    scoreService.enregistrerScoreSiNouveau(match, l.homeScore(), l.awayScore(), ligne, fichier);
+                }
+                if (empreintes != null) {
+                    empreintes.retenir(cle, empreinte);
                 }
-            } catch (Exception e) {
-                System.err.println("Erreur de parsing ligne: " + ligne);
-                e.printStackTrace();
-                collector.log("results.csv", ligne, e.getMessage(), "Results");
             }
-        });
+        }
     }
 }
@@ -1,17 +1,21 @@
 package fr.diginamic.imports;
 
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import fr.diginamic.services.EquipeService;
 import fr.diginamic.services.MatchService;
 import fr.diginamic.services.TirsButsService;
 import fr.diginamic.utils.CheckUtils;
-import fr.diginamic.utils.CsvImporter;
-import fr.diginamic.utils.DateUtils;
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.Empreinte;
+import fr.diginamic.utils.EmpreintesLignes;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.EtatLigne;
 import jakarta.persistence.EntityManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Classe organisant l'import du fichier shootouts.csv stocké dans resources
@@ -19,20 +23,40 @@ import java.time.LocalDate;
  */
 public class ShootoutsCsvImporter {
 
+    /** Fichier importé */
+    public static final String FICHIER = "shootouts.csv";
+
+    /** Étapes d'import devant être terminées avant celle-ci : matchs et équipes issus de results.csv */
+    public static final List<String> PREREQUIS = List.of(ResultCsvImporter.FICHIER);
+
     private final EquipeService equipeService;
     private final MatchService matchService;
     private final TirsButsService tirsButsService;
     private final ErreurCollector collector;
+    private final ImportContext ctx;
 
     /**
      * Initialise les services des entités concernées par l'import.
-     * @param em EntityManager partagé
+     * @param ctx contexte d'import partagé (EntityManager, erreurs, registres)
      */
-    public ShootoutsCsvImporter(EntityManager em, ErreurCollector collector) {
-        this.equipeService = new EquipeService(em, collector);
-        this.matchService = new MatchService(em, collector);
+    public ShootoutsCsvImporter(ImportContext ctx) {
+        EntityManager em = ctx.getEm();
+        ErreurCollector collector = ctx.getCollector();
+        this.equipeService = new EquipeService(em, collector, ctx.getEquipes());
+        this.matchService = new MatchService(em, collector, ctx.getMatchs());
         this.tirsButsService = new TirsButsService(em, collector);
+        this.tirsButsService.setUpsert(ctx.isUpsert());
+        if (ctx.getFiltres() != null) {
+            this.tirsButsService.setFiltre(ctx.getFiltres().tirsButs());
+        }
         this.collector = collector;
+        this.ctx = ctx;
+    }
+
+    /**
+     * Ligne de shootouts.csv une fois analysée
+     */
+    record LigneTirsButs(LocalDate date, String homeTeam, String awayTeam, String winner, String firstShooter) {
     }
 
     /**
@@ -41,41 +65,71 @@ public class ShootoutsCsvImporter {
      * @param fichier correspond au fichier d'import
      */
     public void importer(String fichier) {
-        CsvImporter.lireFichier(fichier, ligne -> {
-            try{
-                String[] tokens = ligne.split(",");
+        EmpreintesLignes empreintes = ctx.getEmpreintes(fichier);
+        new PipelineImport<>(ctx, ShootoutsCsvImporter::parser,
+                (ligne, l) -> ecrire(l, ligne, fichier, empreintes),
+                (ligne, e) -> collector.logException("shootouts.csv", ligne, e, "Shootouts")).executer(fichier);
+        if (empreintes != null) {
+            empreintes.enregistrer(new EmpreinteLigneDaoImpl(ctx.getEm()));
+        }
+    }
 
-                if (tokens.length < 4) {
-                    throw new IllegalArgumentException("Ligne incomplète : " + ligne);
-                }
+    /**
+     * Analyse d'une ligne, sans accès à la base (exécutable par les parseurs du pipeline)
+     * @param csv lecteur positionné sur la ligne
+     * @return la ligne analysée
+     */
+    static LigneTirsButs parser(CsvTokenizer csv) {
+        if (csv.nombreChamps() < 4) {
+            throw new IllegalArgumentException("Ligne incomplète : " + csv.ligne());
+        }
 
-                String dateStr = tokens[0].trim();
-                String homeTeam = tokens[1].trim();
-                String awayTeam = tokens[2].trim();
-                String winner = tokens[3].trim();
-                String firstShooter = tokens.length > 4 ? tokens[4].trim() : "";
+        // Format date correspondant au csv, lu sans passer par une String
+        return new LigneTirsButs(csv.date(0), csv.texte(1), csv.texte(2), csv.texte(3),
+                csv.nombreChamps() > 4 ? csv.texte(4) : "");
+    }
 
-                // Format date correspondant au csv
-                LocalDate date = LocalDate.parse(dateStr, DateUtils.CSV_DATE_FORMATTER);
+    /**
+     * Écriture d'une ligne analysée : vérification si doublon et import,
+     * ou mise à jour en place si la ligne a changé depuis le dernier import
+     * @param l ligne analysée
+     * @param ligne ligne source
+     * @param fichier correspond au fichier d'import
+     * @param empreintes empreintes des lignes déjà importées, null pour tout traiter
+     */
+    private void ecrire(LigneTirsButs l, String ligne, String fichier, EmpreintesLignes empreintes) {
+        // Ignorer la ligne si elle est identique à celle déjà importée pour cette clé
+        long cle = 0;
+        long empreinte = 0;
+        EtatLigne etat = EtatLigne.NOUVELLE;
+        if (empreintes != null) {
+            cle = Empreinte.cle(l.date().toEpochDay(), l.homeTeam(), l.awayTeam());
+            empreinte = Empreinte.texte(ligne);
+            etat = empreintes.etat(cle, empreinte);
+            if (etat == EtatLigne.INCHANGEE) {
+                return;
+            }
+        }
 
-                // Récupérer matchs et équipes (import préalable de results.csv)
-                Equipe equipeHote = equipeService.getByNom(homeTeam);
-                Equipe equipeInvitee = equipeService.getByNom(awayTeam);
-                Match match = matchService.getByDateAndEquipes(date, equipeHote, equipeInvitee);
+        // Récupérer matchs et équipes (import préalable de results.csv)
+        Equipe equipeHote = equipeService.getByNom(l.homeTeam());
+        Equipe equipeInvitee = equipeService.getByNom(l.awayTeam());
+        Match match = matchService.getByDateAndEquipes(l.date(), equipeHote, equipeInvitee);
 
-                // identifier équipe qui commence (peut être null dans csv) et vainqueur
-                Equipe equipeCommence = CheckUtils.isValidString(firstShooter) ? equipeService.getByNom(firstShooter) : null;
-                Equipe vainqueur = equipeService.getByNom(winner);
+        // identifier équipe qui commence (peut être null dans csv) et vainqueur
+        Equipe equipeCommence = CheckUtils.isValidString(l.firstShooter()) ? equipeService.getByNom(l.firstShooter()) : null;
+        Equipe vainqueur = equipeService.getByNom(l.winner());
 
-                // Si match et vainqueur existants, y associer les tirs aux buts
-                if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur)){
-                   tirsButsService.enregistrerTirsButsSiNouveau(match, equipeCommence, vainqueur, ligne, fichier);
-               }
-            } catch (Exception e){
-                System.err.println("Erreur de parsing ligne: " + ligne);
-                e.printStackTrace();
-                collector.log("shootouts.csv", ligne, e.getMessage(), "Shootouts");
+        // Si match et vainqueur existants, y associer les tirs aux buts
+        if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur)){
+            if (etat == EtatLigne.MODIFIEE) {
+                tirsButsService.mettreAJourTirsButs(match, equipeCommence, vainqueur, ligne, fichier);
+            } else {
+                tirsButsService.enregistrerTirsButsSiNouveau(match, equipeCommence, vainqueur, ligne, fichier);
+            }
+            if (empreintes != null) {
+                empreintes.retenir(cle, empreinte);
             }
-        });
+        }
     }
 }
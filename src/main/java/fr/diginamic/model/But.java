@@ -8,7 +8,8 @@ import java.util.StringJoiner;
  * Classe représentant l'entité but dans le cadre d'un match de football
  */
 @Entity
-@Table(name="but")
+@Table(name="but",
+        indexes = @Index(name = "uk_but_match_buteur_minute", columnList = "match_id, buteur_id, minute", unique = true))
 public class But {
 
     @Id
@@ -26,13 +27,13 @@ public class But {
     /**
      * Relation ManyToOne avec le match durant lequel le but a été marqué
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="match_id")
     private Match match;
     /**
      * Relation ManyToOne avec le buteur ayant marqué le but
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="buteur_id")
     private Buteur buteur;
 
@@ -80,8 +81,8 @@ public class But {
         sb.append(", minute=").append(minute);
         sb.append(", contreSonCamp=").append(contreSonCamp);
         sb.append(", penalty=").append(penalty);
-        sb.append(", match=").append(match);
-        sb.append(", buteur=").append(buteur);
+        sb.append(", matchId=").append(match != null ? match.getId() : null);
+        sb.append(", buteurId=").append(buteur != null ? buteur.getId() : null);
         sb.append('}');
         return sb.toString();
     }
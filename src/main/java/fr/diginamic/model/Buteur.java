@@ -1,6 +1,9 @@
 package fr.diginamic.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Collate;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -8,22 +11,29 @@ import java.util.Set;
 /**
  * Classe représentant l'entité buteur :
  * joueur d'une équipe ayant marqué au moins un but au cours d'un match
+ * Les buteurs, créés une fois puis seulement relus, sont gardés dans le cache
+ * de second niveau, partagé entre les EntityManager.
  */
 @Entity
-@Table(name="buteur")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "buteur")
+@Table(name="buteur",
+        indexes = @Index(name = "uk_buteur_nom_equipe", columnList = "nom, equipe_id", unique = true))
 public class Buteur {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    /** Nom comparé à l'identique par la base, voir {@link Equipe#COLLATION_NOM} */
     @Column(nullable = false)
+    @Collate(Equipe.COLLATION_NOM)
     private String nom;
 
     /**
      * Relation ManyToOne pour représenter son appartenance à l'équipe
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="equipe_id")
     private Equipe equipe;
 
@@ -67,8 +77,7 @@ public class Buteur {
         final StringBuilder sb = new StringBuilder("Buteur{");
         sb.append("id=").append(id);
         sb.append(", nom='").append(nom).append('\'');
-        sb.append(", equipe=").append(equipe);
-        sb.append(", buts=").append(buts);
+        sb.append(", equipeId=").append(equipe != null ? equipe.getId() : null);
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,99 @@
+package fr.diginamic.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Classe représentant l'entité EmpreinteLigne :
+ * empreinte de la dernière version importée d'une ligne de fichier CSV,
+ * repérée par l'empreinte de sa clé naturelle (par exemple date et équipes d'un match)
+ */
+@Entity
+@Table(name = "empreinte_ligne",
+        indexes = @Index(name = "uk_empreinte_ligne_fichier_cle", columnList = "fichier, cle", unique = true))
+public class EmpreinteLigne {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(nullable = false)
+    private String fichier;
+
+    /** Empreinte 64 bits de la clé naturelle de la ligne */
+    private long cle;
+
+    /** Empreinte 64 bits du texte de la ligne */
+    private long empreinte;
+
+    /**
+     * Constructeur vide pour JPA
+     */
+    public EmpreinteLigne() {
+    }
+
+    /**
+     * Constructeur permettant de créer l'empreinte d'une ligne
+     * @param fichier nom du fichier d'import
+     * @param cle empreinte de la clé naturelle
+     * @param empreinte empreinte du texte de la ligne
+     */
+    public EmpreinteLigne(String fichier, long cle, long empreinte) {
+        this.fichier = fichier;
+        this.cle = cle;
+        this.empreinte = empreinte;
+    }
+
+    /**
+     * Optimise l'affichage d'une instance d'EmpreinteLigne
+     * @return les attributs de l'instance.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("EmpreinteLigne{");
+        sb.append("fichier='").append(fichier).append('\'');
+        sb.append(", cle=").append(cle);
+        sb.append(", empreinte=").append(empreinte);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Getter
+     * @return id de l'empreinte
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter
+     * @return nom du fichier d'import
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Getter
+     * @return empreinte de la clé naturelle
+     */
+    public long getCle() {
+        return cle;
+    }
+
+    /**
+     * Getter
+     * @return empreinte du texte de la ligne
+     */
+    public long getEmpreinte() {
+        return empreinte;
+    }
+
+    /**
+     * Setter
+     * @param empreinte empreinte du texte de la ligne
+     */
+    public void setEmpreinte(long empreinte) {
+        this.empreinte = empreinte;
+    }
+}
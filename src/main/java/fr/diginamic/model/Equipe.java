@@ -1,6 +1,9 @@
 package fr.diginamic.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Collate;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -8,15 +11,29 @@ import java.util.Set;
 /**
  * Classe représentant l'entité Equipe :
  * il s'agit d'une équipe internationale de football
+ * Les équipes, lues à chaque import et presque jamais modifiées, sont gardées dans
+ * le cache de second niveau, partagé entre les EntityManager.
  */
 @Entity
-@Table(name="equipe")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "equipe")
+@Table(name="equipe",
+        indexes = @Index(name = "uk_equipe_nom", columnList = "nom", unique = true))
 public class Equipe {
 
+    /**
+     * Collation binaire des noms d'équipes et de buteurs : la base compare les noms octet par octet,
+     * comme les registres, caches et filtres de Bloom de l'import, qui les indexent par la chaîne Java exacte.
+     * Avec la collation par défaut, insensible aux accents et à la casse, « Nguyen Hong Son » et
+     * « Nguyễn Hồng Sơn » seraient distincts en mémoire mais en conflit sur les index uniques.
+     */
+    public static final String COLLATION_NOM = "utf8mb4_0900_bin";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
 
+    @Collate(COLLATION_NOM)
     private String nom;
 
     /**
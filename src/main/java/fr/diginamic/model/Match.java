@@ -11,9 +11,26 @@ import java.util.Set;
  * il s'agit d'un match de football disputé entre deux équipes internationales
  */
 @Entity
-@Table(name="match_foot")
+@NamedEntityGraph(name = Match.GRAPHE_EQUIPES,
+        attributeNodes = {@NamedAttributeNode("equipeHote"), @NamedAttributeNode("equipeInvitee")})
+@NamedEntityGraph(name = Match.GRAPHE_RESULTAT,
+        attributeNodes = {@NamedAttributeNode("equipeHote"), @NamedAttributeNode("equipeInvitee"),
+                @NamedAttributeNode("score"), @NamedAttributeNode("tirsButs")})
+@Table(name="match_foot",
+        indexes = {
+                @Index(name = "uk_match_date_equipes",
+                        columnList = "date, equipe_hote_id, equipe_invitee_id", unique = true),
+                // Pagination par date : InnoDB complète l'index par la clé primaire, soit l'ordre (date, id)
+                @Index(name = "idx_match_date", columnList = "date")
+        })
 public class Match {
 
+    /** Graphe de chargement : le match et ses deux équipes */
+    public static final String GRAPHE_EQUIPES = "Match.equipes";
+
+    /** Graphe de chargement : le match, ses équipes, son score et ses tirs aux buts */
+    public static final String GRAPHE_RESULTAT = "Match.resultat";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
@@ -37,11 +54,11 @@ public class Match {
      * une équipe hôte qui accueille le match
      * une équipe invitée qui rejoint le match
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="equipe_hote_id")
     private Equipe equipeHote;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="equipe_invitee_id")
     private Equipe equipeInvitee;
 
@@ -53,15 +70,16 @@ public class Match {
     private Set<But> buts;
 
     /**
-     * Relation OneToOne avec l'entité score
+     * Relation OneToOne avec l'entité score ; côté inverse, elle n'est chargée
+     * à la demande que grâce à l'amélioration du bytecode (hibernate-enhance-maven-plugin)
      */
-    @OneToOne(mappedBy = "match")
+    @OneToOne(mappedBy = "match", fetch = FetchType.LAZY)
     private Score score;
 
     /**
      * Relation OneToOne avec l'entité tirsButs
      */
-    @OneToOne(mappedBy = "match")
+    @OneToOne(mappedBy = "match", fetch = FetchType.LAZY)
     private TirsButs tirsButs;
 
     /**
@@ -104,9 +122,9 @@ public class Match {
         sb.append(", pays='").append(pays).append('\'');
         sb.append(", lieuNeutre=").append(lieuNeutre);
         sb.append(", tournoi='").append(tournoi).append('\'');
-        sb.append(", equipeHote=").append(equipeHote);
-        sb.append(", equipeInvitee=").append(equipeInvitee);
-        sb.append(", buts=").append(buts);
+        // Associations paresseuses : seuls leurs ids, connus sans requête, sont affichés
+        sb.append(", equipeHoteId=").append(equipeHote != null ? equipeHote.getId() : null);
+        sb.append(", equipeInviteeId=").append(equipeInvitee != null ? equipeInvitee.getId() : null);
         sb.append('}');
         return sb.toString();
     }
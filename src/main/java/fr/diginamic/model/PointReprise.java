@@ -0,0 +1,144 @@
+package fr.diginamic.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant l'entité PointReprise :
+ * état d'un fichier source à l'issue de son dernier import,
+ * à partir duquel l'import incrémental reprend
+ */
+@Entity
+@Table(name = "point_reprise",
+        indexes = @Index(name = "uk_point_reprise_fichier", columnList = "fichier", unique = true))
+public class PointReprise {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(nullable = false)
+    private String fichier;
+
+    /** Nombre d'octets déjà importés : fin de la dernière ligne complète */
+    private long octets;
+
+    /** Nombre de lignes de données (hors en-tête) contenues dans ces octets */
+    private long lignes;
+
+    /** Empreinte 64 bits des octets déjà importés */
+    private long empreinte;
+
+    /**
+     * État du hachage de ces octets, repris pour prolonger l'empreinte sur les seules lignes ajoutées ;
+     * null pour un point enregistré sans cet état, dont l'empreinte est alors recalculée depuis le début
+     */
+    @Column(name = "etat_empreinte")
+    private Long etatEmpreinte;
+
+    @Column(name = "date_import")
+    private LocalDateTime dateImport;
+
+    /**
+     * Constructeur vide pour JPA
+     */
+    public PointReprise() {
+    }
+
+    /**
+     * Constructeur permettant de créer le point de reprise d'un fichier
+     * @param fichier nom du fichier d'import
+     */
+    public PointReprise(String fichier) {
+        this.fichier = fichier;
+    }
+
+    /**
+     * Enregistre l'état du fichier à l'issue d'un import
+     * @param octets nombre d'octets importés
+     * @param lignes nombre de lignes de données importées
+     * @param empreinte empreinte des octets importés
+     * @param etatEmpreinte état du hachage de ces octets
+     */
+    public void avancer(long octets, long lignes, long empreinte, long etatEmpreinte) {
+        this.octets = octets;
+        this.lignes = lignes;
+        this.empreinte = empreinte;
+        this.etatEmpreinte = etatEmpreinte;
+        this.dateImport = LocalDateTime.now();
+    }
+
+    /**
+     * Optimise l'affichage d'une instance de PointReprise
+     * @return les attributs de l'instance.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PointReprise{");
+        sb.append("fichier='").append(fichier).append('\'');
+        sb.append(", octets=").append(octets);
+        sb.append(", lignes=").append(lignes);
+        sb.append(", empreinte=").append(empreinte);
+        sb.append(", etatEmpreinte=").append(etatEmpreinte);
+        sb.append(", dateImport=").append(dateImport);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Getter
+     * @return id du point de reprise
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter
+     * @return nom du fichier d'import
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Getter
+     * @return nombre d'octets déjà importés
+     */
+    public long getOctets() {
+        return octets;
+    }
+
+    /**
+     * Getter
+     * @return nombre de lignes de données déjà importées
+     */
+    public long getLignes() {
+        return lignes;
+    }
+
+    /**
+     * Getter
+     * @return empreinte des octets déjà importés
+     */
+    public long getEmpreinte() {
+        return empreinte;
+    }
+
+    /**
+     * Getter
+     * @return état du hachage des octets déjà importés, null s'il n'a pas été enregistré
+     */
+    public Long getEtatEmpreinte() {
+        return etatEmpreinte;
+    }
+
+    /**
+     * Getter
+     * @return date du dernier import
+     */
+    public LocalDateTime getDateImport() {
+        return dateImport;
+    }
+}
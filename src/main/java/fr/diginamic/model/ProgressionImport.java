@@ -0,0 +1,123 @@
+package fr.diginamic.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant l'entité ProgressionImport :
+ * nombre de lignes d'un fichier déjà commitées par un import en cours.
+ * La ligne est mise à jour dans la transaction de chaque lot et supprimée
+ * à la fin d'un import réussi : sa présence signale un import à reprendre.
+ */
+@Entity
+@Table(name = "progression_import",
+        indexes = @Index(name = "uk_progression_import_fichier", columnList = "fichier", unique = true))
+public class ProgressionImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(nullable = false)
+    private String fichier;
+
+    /** Position dans le fichier où commence le parcours (0, ou début de la plage d'un import incrémental) */
+    private long debut;
+
+    /** Nombre de lignes de données parcourues et commitées depuis cette position */
+    private long lignes;
+
+    @Column(name = "date_maj")
+    private LocalDateTime dateMaj;
+
+    /**
+     * Constructeur vide pour JPA
+     */
+    public ProgressionImport() {
+    }
+
+    /**
+     * Constructeur permettant de créer la progression d'un fichier
+     * @param fichier nom du fichier d'import
+     * @param debut position du début du parcours dans le fichier
+     */
+    public ProgressionImport(String fichier, long debut) {
+        this.fichier = fichier;
+        this.debut = debut;
+        this.dateMaj = LocalDateTime.now();
+    }
+
+    /**
+     * Enregistre le nombre de lignes traitées à la fin d'un lot
+     * @param lignes nombre de lignes parcourues depuis le début du parcours
+     */
+    public void avancer(long lignes) {
+        this.lignes = lignes;
+        this.dateMaj = LocalDateTime.now();
+    }
+
+    /**
+     * Repart du début d'un nouveau parcours (plage d'import différente de celle enregistrée)
+     * @param debut position du début du parcours dans le fichier
+     */
+    public void recommencer(long debut) {
+        this.debut = debut;
+        avancer(0);
+    }
+
+    /**
+     * Optimise l'affichage d'une instance de ProgressionImport
+     * @return les attributs de l'instance.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ProgressionImport{");
+        sb.append("fichier='").append(fichier).append('\'');
+        sb.append(", debut=").append(debut);
+        sb.append(", lignes=").append(lignes);
+        sb.append(", dateMaj=").append(dateMaj);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Getter
+     * @return id de la progression
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter
+     * @return nom du fichier d'import
+     */
+    public String getFichier() {
+        return fichier;
+    }
+
+    /**
+     * Getter
+     * @return position du début du parcours dans le fichier
+     */
+    public long getDebut() {
+        return debut;
+    }
+
+    /**
+     * Getter
+     * @return nombre de lignes déjà commitées
+     */
+    public long getLignes() {
+        return lignes;
+    }
+
+    /**
+     * Getter
+     * @return date de la dernière mise à jour
+     */
+    public LocalDateTime getDateMaj() {
+        return dateMaj;
+    }
+}
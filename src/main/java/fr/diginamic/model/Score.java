@@ -15,7 +15,7 @@ public class Score {
     /**
      * Relation oneToOne avec match
      */
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @MapsId
     @JoinColumn(name = "match_id")
     private Match match;
@@ -50,7 +50,6 @@ public class Score {
     public String toString() {
         final StringBuilder sb = new StringBuilder("Score{");
         sb.append("matchId=").append(matchId);
-        sb.append(", match=").append(match);
         sb.append(", scoreHote=").append(scoreHote);
         sb.append(", scoreInvite=").append(scoreInvite);
         sb.append('}');
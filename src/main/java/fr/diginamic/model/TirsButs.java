@@ -12,7 +12,7 @@ public class TirsButs {
     /**
      * Relation oneToOne avec match
      */
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @MapsId
     @JoinColumn(name = "match_id")
     private Match match;
@@ -21,7 +21,7 @@ public class TirsButs {
      * Relation ManyToOne avec Equipe
      * pour définir quelle équipe commence le tir aux buts
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "equipe_commence_id", nullable = true)
     private Equipe equipeCommence;
 
@@ -29,7 +29,7 @@ public class TirsButs {
      * Relation ManyToOne avec Equipe
      * pour définir quelle équipe gagne au tir aux buts
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="vainqueur_id")
     private Equipe vainqueur;
 
@@ -60,9 +60,8 @@ public class TirsButs {
     public String toString() {
         final StringBuilder sb = new StringBuilder("TirsButs{");
         sb.append("matchId=").append(matchId);
-        sb.append(", match=").append(match);
-        sb.append(", equipeCommence=").append(equipeCommence);
-        sb.append(", vainqueur=").append(vainqueur);
+        sb.append(", equipeCommenceId=").append(equipeCommence != null ? equipeCommence.getId() : null);
+        sb.append(", vainqueurId=").append(vainqueur != null ? vainqueur.getId() : null);
         sb.append('}');
         return sb.toString();
     }
@@ -5,7 +5,10 @@ import fr.diginamic.model.But;
 import fr.diginamic.model.Buteur;
 import fr.diginamic.model.Match;
 import fr.diginamic.utils.CheckUtils;
+import fr.diginamic.utils.ClassementButeurs;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
+import fr.diginamic.utils.LongIntHashMap;
 import jakarta.persistence.EntityManager;
 
 import java.util.List;
@@ -18,6 +21,22 @@ public class ButService {
     private ButDaoImpl butDao;
     private final ErreurCollector erreurCollector;
 
+    /** Mode upsert : insertion ignorée par la base si le but existe déjà (match, buteur, minute) */
+    private boolean upsert;
+
+    /**
+     * Buts déjà en base du dernier match traité, (buteur, minute) → nombre de buts :
+     * les buts d'un match se suivant dans goalscorers.csv, une seule requête suffit par match
+     */
+    private final LongIntHashMap butsDuMatch = new LongIntHashMap(16);
+    private int matchCharge;
+
+    /** Ids des matchs ayant au moins un but en base, null sans filtre */
+    private FiltreBloom filtre;
+
+    /** Classement des buteurs tenu à jour à chaque but inséré ou corrigé, null sans classement */
+    private ClassementButeurs classement;
+
     /**
      * Initialise le service avec un EntityManager
      * @param em EntityManager à utiliser
@@ -28,8 +47,11 @@ public class ButService {
     }
 
     /**
-     * Insère un match s'il n'existe pas déjà en base.
+     * Insère un but s'il n'existe pas déjà en base.
      * En cas de doublon, une erreur est loguée.
+     * Les buts existants sont lus une fois par match puis tenus à jour en mémoire.
+     * En mode upsert, le classement n'est mis à jour que si la base a réellement inséré le but,
+     * afin qu'un nouvel import du même fichier ne double pas les totaux.
      * @param minute minute à laquelle le but est marqué
      * @param csc indique si le but est marqué contre son camp
      * @param penalty indique si le but est marqué sur penalty
@@ -43,15 +65,23 @@ public class ButService {
             String ligne, String fichier
     ) {
         try {
-            if (CheckUtils.isNotNull(match) && CheckUtils.isNotNull(buteur) && CheckUtils.isNotNegative(minute)) {
-                List<But> resultats = butDao.findByMatchButeurAndMinute(
-                        match.getId(), buteur.getId(), minute
-                );
+            boolean parametresValides = CheckUtils.isNotNull(match) && CheckUtils.isNotNull(buteur)
+                    && CheckUtils.isNotNegative(minute);
+            if (parametresValides && upsert) {
+                if (butDao.insererOuIgnorer(new But(minute, csc, penalty, match, buteur))) {
+                    compter(match, buteur, csc, penalty);
+                }
+                FiltreBloom.noter(filtre, match.getId());
+            } else if (parametresValides) {
+                int existants = compterButs(match, buteur, minute);
 
-                if (resultats.isEmpty()) {
+                if (existants == 0) {
                     But but = new But(minute, csc, penalty, match, buteur);
                     butDao.insert(but);
-                } else if (resultats.size() > 1) {
+                    butsDuMatch.put(cle(buteur.getId(), minute), 1);
+                    FiltreBloom.noter(filtre, match.getId());
+                    compter(match, buteur, csc, penalty);
+                } else if (existants > 1) {
                     erreurCollector.log(fichier, ligne,
                             "Doublon : plusieurs buts trouvés pour ce minutage, match et buteur", "But");
                 }
@@ -64,6 +94,122 @@ public class ButService {
         }
     }
 
+    /**
+     * Met à jour en place un but dont la ligne source a été corrigée
+     * (contre son camp, penalty), ou l'insère s'il n'existe pas
+     * @param minute minute à laquelle le but est marqué
+     * @param csc indique si le but est marqué contre son camp
+     * @param penalty indique si le but est marqué sur penalty
+     * @param match indique à quel match le but est rattaché
+     * @param buteur indique le buteur ayant marqué
+     * @param ligne indique à quelle ligne du csv l'erreur éventuelle est déclenchée
+     * @param fichier indique quel fichier est à l'origine de l'erreur éventuelle
+     */
+    public void mettreAJourBut(
+            int minute, boolean csc, boolean penalty, Match match, Buteur buteur,
+            String ligne, String fichier
+    ) {
+        try {
+            if (CheckUtils.isNotNull(match) && CheckUtils.isNotNull(buteur) && CheckUtils.isNotNegative(minute)) {
+                List<But> resultats = butDao.findByMatchButeurAndMinute(match.getId(), buteur.getId(), minute);
+                if (resultats.isEmpty()) {
+                    butDao.insert(new But(minute, csc, penalty, match, buteur));
+                    // Buts du match en mémoire désormais incomplets
+                    matchCharge = 0;
+                    FiltreBloom.noter(filtre, match.getId());
+                    compter(match, buteur, csc, penalty);
+                } else if (resultats.size() == 1) {
+                    But but = resultats.get(0);
+                    if (classement != null) {
+                        classement.corrigerBut(buteur.getId(), match.getId(), but.isContreSonCamp(), but.isPenalty(),
+                                csc, penalty);
+                    }
+                    but.setContreSonCamp(csc);
+                    but.setPenalty(penalty);
+                } else {
+                    erreurCollector.log(fichier, ligne,
+                            "Doublon : plusieurs buts trouvés pour ce minutage, match et buteur", "But");
+                }
+            } else {
+                erreurCollector.log(fichier, ligne,
+                        "Paramètres invalides : match ou buteur null, ou minutage négatif", "But");
+            }
+        } catch (Exception e) {
+            erreurCollector.log(fichier, ligne, e.getMessage(), "But");
+        }
+    }
+
+    /**
+     * Nombre de buts déjà enregistrés pour ce match, ce buteur et cette minute ;
+     * les buts du match sont chargés en une requête au premier but d'un nouveau match,
+     * sauf si le filtre garantit que le match n'en a aucun
+     * @param match match du but
+     * @param buteur buteur du but
+     * @param minute minute du but
+     * @return nombre de buts existants (plus d'un signale un doublon en base)
+     */
+    private int compterButs(Match match, Buteur buteur, int minute) {
+        if (match.getId() != matchCharge) {
+            butsDuMatch.clear();
+            List<Object[]> buts = FiltreBloom.peutExister(filtre, match.getId())
+                    ? butDao.findClesByMatch(match.getId())
+                    : List.of();
+            for (Object[] but : buts) {
+                long cle = cle((Integer) but[0], (Integer) but[1]);
+                int nombre = butsDuMatch.get(cle);
+                butsDuMatch.put(cle, nombre == LongIntHashMap.ABSENT ? 1 : nombre + 1);
+            }
+            matchCharge = match.getId();
+        }
+        int nombre = butsDuMatch.get(cle(buteur.getId(), minute));
+        return nombre == LongIntHashMap.ABSENT ? 0 : nombre;
+    }
+
+    private static long cle(int buteurId, int minute) {
+        return ((long) buteurId << 32) | (minute & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reporte un but inséré dans le classement des buteurs. Le tournoi d'un match non créé par cet import
+     * ni vu à la reconstruction est lu une fois sur le match, puis noté.
+     * @param match match du but
+     * @param buteur buteur du but
+     * @param csc true si le but est marqué contre son camp
+     * @param penalty true si le but est marqué sur penalty
+     */
+    private void compter(Match match, Buteur buteur, boolean csc, boolean penalty) {
+        if (classement != null) {
+            if (!classement.connaitMatch(match.getId())) {
+                classement.noterMatch(match.getId(), match.getTournoi());
+            }
+            classement.ajouterBut(buteur.getId(), match.getId(), csc, penalty);
+        }
+    }
+
+    /**
+     * Setter
+     * @param upsert true pour activer l'insertion en une requête, sans recherche préalable
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
+    /**
+     * Setter
+     * @param filtre filtre de Bloom des ids des matchs ayant des buts, null pour toujours lire les buts du match
+     */
+    public void setFiltre(FiltreBloom filtre) {
+        this.filtre = filtre;
+    }
+
+    /**
+     * Setter
+     * @param classement classement des buteurs à tenir à jour, null pour aucun
+     */
+    public void setClassement(ClassementButeurs classement) {
+        this.classement = classement;
+    }
+
     /**
      * Setter
      * @param butDao butDao, utilisé pour les tests
@@ -3,8 +3,12 @@ package fr.diginamic.services;
 import fr.diginamic.dao.ButeurDaoImpl;
 import fr.diginamic.model.Buteur;
 import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.CacheButeurs;
 import fr.diginamic.utils.CheckUtils;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
+import fr.diginamic.utils.FiltresExistence;
+import fr.diginamic.utils.RegistreButeurs;
 import jakarta.persistence.EntityManager;
 
 import java.util.List;
@@ -16,25 +20,65 @@ public class ButeurService {
 
     private ButeurDaoImpl buteurDao;
     private final ErreurCollector erreurCollector;
+    private final CacheButeurs cache;
+
+    /** Mode upsert : insertion ignorée par la base si le nom existe déjà pour cette équipe */
+    private boolean upsert;
+
+    /** Registre partagé de l'import partitionné : les buteurs absents y sont créés, une seule fois */
+    private RegistreButeurs registre;
+
+    /** Clés (nom, équipe) des buteurs déjà en base, null sans filtre */
+    private FiltreBloom filtre;
 
     /**
      * Initialise le service avec un EntityManager
      * @param em EntityManager à utiliser
      */
     public ButeurService(EntityManager em, ErreurCollector collector) {
+        this(em, collector, null);
+    }
+
+    /**
+     * Initialise le service avec un cache des buteurs déjà résolus :
+     * un buteur trouvé ou inséré une fois n'est plus recherché en base tant qu'il reste en cache
+     * @param em EntityManager à utiliser
+     * @param collector collecteur d'erreurs
+     * @param cache cache des buteurs, peut être null
+     */
+    public ButeurService(EntityManager em, ErreurCollector collector, CacheButeurs cache) {
         this.buteurDao = new ButeurDaoImpl(em);
         this.erreurCollector = collector;
+        this.cache = cache;
     }
 
     /**
-     * Récupère un buteur par son nom et son équipe pour l'import
+     * Récupère un buteur par son nom et son équipe pour l'import,
+     * sous forme de référence sans requête s'il est dans le cache
      * @param nom nom du buteur
      * @param equipe équipe du buteur
      * @return l'instance correspondante
      */
     public Buteur getByNomAndEquipe(String nom, Equipe equipe){
+        if (registre != null) {
+            int id = registre.get(nom, equipe.getId());
+            return id != RegistreButeurs.ABSENT ? buteurDao.getReference(id) : null;
+        }
+        if (cache != null) {
+            int id = cache.get(nom, equipe.getId());
+            if (id != CacheButeurs.ABSENT) {
+                return buteurDao.getReference(id);
+            }
+        }
+        if (!FiltreBloom.peutExister(filtre, FiltresExistence.cleButeur(nom, equipe.getId()))) {
+            return null;
+        }
         List<Buteur> buteurs = buteurDao.findByNomAndEquipe(nom, equipe.getId());
-        return buteurs.size() == 1 ? buteurs.get(0) : null;
+        if (buteurs.size() != 1) {
+            return null;
+        }
+        retenir(buteurs.get(0));
+        return buteurs.get(0);
     }
 
     /**
@@ -49,12 +93,35 @@ public class ButeurService {
             String nom, Equipe equipe, String ligne, String fichier
     ) {
         try {
-            if(CheckUtils.isValidString(nom) && CheckUtils.isNotNull(equipe)) {
-                List<Buteur> resultats = buteurDao.findByNomAndEquipe(nom, equipe.getId());
+            if (registre != null && CheckUtils.isValidString(nom) && CheckUtils.isNotNull(equipe)) {
+                // Création coordonnée entre les threads, hors de la transaction du service
+                registre.obtenir(nom, equipe.getId());
+                return;
+            }
+            if (cache != null && CheckUtils.isValidString(nom) && CheckUtils.isNotNull(equipe)
+                    && cache.get(nom, equipe.getId()) != CacheButeurs.ABSENT) {
+                // Buteur déjà trouvé ou inséré : ni recherche ni insertion
+                return;
+            }
+            if(CheckUtils.isValidString(nom) && CheckUtils.isNotNull(equipe) && upsert) {
+                int id = buteurDao.insererOuRecuperer(nom, equipe.getId());
+                FiltreBloom.noter(filtre, FiltresExistence.cleButeur(nom, equipe.getId()));
+                if (cache != null) {
+                    cache.put(nom, equipe.getId(), id);
+                }
+            } else if(CheckUtils.isValidString(nom) && CheckUtils.isNotNull(equipe)) {
+                long cle = FiltresExistence.cleButeur(nom, equipe.getId());
+                List<Buteur> resultats = FiltreBloom.peutExister(filtre, cle)
+                        ? buteurDao.findByNomAndEquipe(nom, equipe.getId())
+                        : List.of();
                 if(resultats.isEmpty()){
                     Buteur buteur = new Buteur(nom, equipe);
                     buteurDao.insert(buteur);
-                } else if(resultats.size() > 1 ) {
+                    FiltreBloom.noter(filtre, cle);
+                    retenir(buteur);
+                } else if (resultats.size() == 1) {
+                    retenir(resultats.get(0));
+                } else {
                     erreurCollector.log(fichier, ligne,
                             "Doublon : plusieurs buteurs trouvés pour ce nom et équipe", "Buteur");
                 }
@@ -67,6 +134,40 @@ public class ButeurService {
         }
     }
 
+    /**
+     * Place un buteur dans le cache, s'il est actif et que l'id est déjà attribué
+     * @param buteur buteur trouvé en base ou tout juste persisté
+     */
+    private void retenir(Buteur buteur) {
+        if (cache != null && buteur.getId() > 0) {
+            cache.put(buteur.getNom(), buteur.getEquipe().getId(), buteur.getId());
+        }
+    }
+
+    /**
+     * Setter
+     * @param upsert true pour activer l'insertion en une requête, sans recherche préalable
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
+    /**
+     * Setter
+     * @param registre registre concurrent des buteurs, remplaçant recherches et insertions en base
+     */
+    public void setRegistre(RegistreButeurs registre) {
+        this.registre = registre;
+    }
+
+    /**
+     * Setter
+     * @param filtre filtre de Bloom des clés (nom, équipe) des buteurs, null pour toujours rechercher en base
+     */
+    public void setFiltre(FiltreBloom filtre) {
+        this.filtre = filtre;
+    }
+
     /**
      * Setter
      * @param buteurDao buteurDao, utilisé pour les tests
@@ -0,0 +1,140 @@
+package fr.diginamic.services;
+
+import fr.diginamic.dao.ButDaoImpl;
+import fr.diginamic.dao.ButeurDaoImpl;
+import fr.diginamic.dao.MatchDaoImpl;
+import fr.diginamic.utils.ClassementButeurs;
+import fr.diginamic.vues.TotalButeur;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Service de lecture et de reconstruction du classement des buteurs tenu en mémoire.
+ * Les classements sont lus dans les ensembles triés de {@link ClassementButeurs} ;
+ * seuls les noms des buteurs retenus sont lus en base, en une requête.
+ */
+public class ClassementService {
+
+    private final ClassementButeurs classement;
+    private ButDaoImpl butDao;
+    private ButeurDaoImpl buteurDao;
+    private MatchDaoImpl matchDao;
+
+    /**
+     * Initialise le service avec un EntityManager
+     * @param em EntityManager à utiliser
+     * @param classement classement en mémoire lu et reconstruit par ce service
+     */
+    public ClassementService(EntityManager em, ClassementButeurs classement) {
+        this.classement = classement;
+        this.butDao = new ButDaoImpl(em);
+        this.buteurDao = new ButeurDaoImpl(em);
+        this.matchDao = new MatchDaoImpl(em);
+    }
+
+    /**
+     * Reconstruit entièrement le classement depuis la base : tournoi de chaque match,
+     * puis totaux par buteur et par tournoi agrégés en un seul parcours de la table des buts
+     */
+    public void reconstruire() {
+        classement.vider((int) Math.min(matchDao.count(), Integer.MAX_VALUE / 2));
+        try (Stream<Object[]> tournois = matchDao.streamTournois()) {
+            tournois.forEach(t -> classement.noterMatch((Integer) t[0], (String) t[1]));
+        }
+        try (Stream<Object[]> totaux = butDao.streamTotauxParButeurEtTournoi()) {
+            totaux.forEach(t -> classement.charger((Integer) t[0], (String) t[1],
+                    (Long) t[2], ((Number) t[3]).longValue(), ((Number) t[4]).longValue()));
+        }
+    }
+
+    /**
+     * Meilleurs buteurs toutes compétitions confondues
+     * @param nombre taille du classement
+     * @return au plus nombre totaux, par buts décroissants
+     */
+    public List<TotalButeur> meilleursButeurs(int nombre) {
+        return nommer(classement.meilleurs(nombre));
+    }
+
+    /**
+     * Meilleurs buteurs d'un tournoi
+     * @param tournoi nom du tournoi
+     * @param nombre taille du classement
+     * @return au plus nombre totaux sur les matchs du tournoi, par buts décroissants
+     */
+    public List<TotalButeur> meilleursButeursTournoi(String tournoi, int nombre) {
+        return nommer(classement.meilleurs(tournoi, nombre));
+    }
+
+    /**
+     * Meilleurs buteurs d'une équipe
+     * @param equipe nom de l'équipe
+     * @param nombre taille du classement
+     * @return au plus nombre totaux, par buts décroissants
+     */
+    public List<TotalButeur> meilleursButeursEquipe(String equipe, int nombre) {
+        return nommer(classement.meilleursParmi(buteurDao.findIdsByEquipe(equipe), nombre));
+    }
+
+    /**
+     * Complète les totaux du classement avec les noms des buteurs et de leurs équipes
+     * @param totaux totaux classés
+     * @return les lignes de classement, dans le même ordre
+     */
+    private List<TotalButeur> nommer(List<ClassementButeurs.Total> totaux) {
+        if (totaux.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>(totaux.size());
+        totaux.forEach(t -> ids.add(t.buteurId()));
+        Map<Integer, Object[]> noms = new HashMap<>(totaux.size() * 4 / 3 + 1);
+        for (Object[] nom : buteurDao.findNomsByIds(ids)) {
+            noms.put((Integer) nom[0], nom);
+        }
+        List<TotalButeur> lignes = new ArrayList<>(totaux.size());
+        for (ClassementButeurs.Total t : totaux) {
+            Object[] nom = noms.get(t.buteurId());
+            // Buteur supprimé depuis le dernier calcul : ligne sans nom plutôt que classement tronqué
+            lignes.add(new TotalButeur(t.buteurId(), nom != null ? (String) nom[1] : null,
+                    nom != null ? (String) nom[2] : null, t.buts(), t.penalties(), t.contreSonCamp()));
+        }
+        return lignes;
+    }
+
+    /**
+     * Getter
+     * @return classement en mémoire
+     */
+    public ClassementButeurs getClassement() {
+        return classement;
+    }
+
+    /**
+     * Setter
+     * @param butDao butDao, utilisé pour les tests
+     */
+    public void setButDao(ButDaoImpl butDao) {
+        this.butDao = butDao;
+    }
+
+    /**
+     * Setter
+     * @param buteurDao buteurDao, utilisé pour les tests
+     */
+    public void setButeurDao(ButeurDaoImpl buteurDao) {
+        this.buteurDao = buteurDao;
+    }
+
+    /**
+     * Setter
+     * @param matchDao matchDao, utilisé pour les tests
+     */
+    public void setMatchDao(MatchDaoImpl matchDao) {
+        this.matchDao = matchDao;
+    }
+}
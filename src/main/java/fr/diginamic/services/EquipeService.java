@@ -3,6 +3,7 @@ package fr.diginamic.services;
 import fr.diginamic.dao.EquipeDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.utils.CheckUtils;
+import fr.diginamic.utils.EquipeRegistry;
 import fr.diginamic.utils.ErreurCollector;
 import jakarta.persistence.EntityManager;
 
@@ -15,14 +16,27 @@ public class EquipeService {
 
     private EquipeDaoImpl equipeDao;
     private final ErreurCollector collector;
+    private final EquipeRegistry registry;
 
     /**
      * Initialise le service avec un EntityManager
      * @param em EntityManager à utiliser
      */
     public EquipeService(EntityManager em, ErreurCollector collector) {
+        this(em, collector, null);
+    }
+
+    /**
+     * Initialise le service avec un registre d'équipes préchargé :
+     * les recherches par nom ne passent alors plus par la base
+     * @param em EntityManager à utiliser
+     * @param collector collecteur d'erreurs
+     * @param registry registre des équipes, peut être null
+     */
+    public EquipeService(EntityManager em, ErreurCollector collector, EquipeRegistry registry) {
         this.equipeDao = new EquipeDaoImpl(em);
         this.collector = collector;
+        this.registry = registry;
     }
 
     /**
@@ -31,6 +45,10 @@ public class EquipeService {
      * @return l'instance correspondante 
      */
     public Equipe getByNom(String nom) {
+        if (registry != null) {
+            int id = registry.getId(nom);
+            return id > 0 ? equipeDao.getReference(id) : null;
+        }
         List<Equipe> equipes = equipeDao.findByName(nom);
         return equipes.size() == 1 ? equipes.get(0) : null;
     }
@@ -47,7 +65,16 @@ public class EquipeService {
      */
     public void enregistrerEquipeSiNouvelle(String nom, String ligne, String fichier) {
         try {
-            if(CheckUtils.isValidString(nom)) {
+            if(CheckUtils.isValidString(nom) && registry != null) {
+                if (!registry.contient(nom)) {
+                    Equipe equipe = new Equipe(nom);
+                    equipeDao.insert(equipe);
+                    registry.enregistrer(equipe);
+                } else if (registry.estDoublon(nom)) {
+                    collector.log(fichier, ligne,
+                            "Doublon : plusieurs équipes portent le nom '" + nom + "'", "Equipe");
+                }
+            } else if(CheckUtils.isValidString(nom)) {
                 List<Equipe> resultats = equipeDao.findByName(nom);
 
                 if (resultats.isEmpty()) {
@@ -4,7 +4,9 @@ import fr.diginamic.dao.MatchDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import fr.diginamic.utils.CheckUtils;
+import fr.diginamic.utils.ClassementButeurs;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.MatchIndex;
 import jakarta.persistence.EntityManager;
 
 import java.time.LocalDate;
@@ -17,14 +19,30 @@ public class MatchService {
 
     private MatchDaoImpl matchDao;
     private final ErreurCollector erreurCollector;
+    private final MatchIndex index;
+
+    /** Classement des buteurs auquel est noté le tournoi des nouveaux matchs, null sans classement */
+    private ClassementButeurs classement;
 
     /**
      * Initialise le service avec les DAO nécessaires.
      * @param em EntityManager partagé
      */
     public MatchService(EntityManager em, ErreurCollector collector) {
+        this(em, collector, null);
+    }
+
+    /**
+     * Initialise le service avec un index des matchs préchargé :
+     * les recherches par date et équipes ne passent alors plus par la base
+     * @param em EntityManager partagé
+     * @param collector collecteur d'erreurs
+     * @param index index des matchs, peut être null
+     */
+    public MatchService(EntityManager em, ErreurCollector collector, MatchIndex index) {
         this.matchDao = new MatchDaoImpl(em);
         this.erreurCollector = collector;
+        this.index = index;
     }
 
     /**
@@ -35,6 +53,10 @@ public class MatchService {
      * @return l'instance de Match correspondante
      */
     public Match getByDateAndEquipes(LocalDate date, Equipe hote, Equipe invitee) {
+        if (index != null) {
+            int id = index.get(date, hote.getId(), invitee.getId());
+            return id > 0 ? matchDao.getReference(id) : null;
+        }
         List<Match> matchs = matchDao.findByDateAndEquipes(date, hote.getId(), invitee.getId());
         return matchs.size() == 1 ? matchs.get(0) : null;
     }
@@ -57,13 +79,28 @@ public class MatchService {
                                           Equipe equipeHote, Equipe equipeInvitee,
                                           String ligne, String fichier) {
         try {
-            if (CheckUtils.isValidDate(date) && CheckUtils.isNotNull(equipeHote) && CheckUtils.isNotNull(equipeInvitee)) {
+            boolean parametresValides = CheckUtils.isValidDate(date)
+                    && CheckUtils.isNotNull(equipeHote) && CheckUtils.isNotNull(equipeInvitee);
+
+            if (parametresValides && index != null) {
+                int id = index.get(date, equipeHote.getId(), equipeInvitee.getId());
+                if (id == MatchIndex.ABSENT) {
+                    Match match = new Match(date, ville, pays, lieuNeutre, tournoi, equipeHote, equipeInvitee);
+                    matchDao.insert(match);
+                    index.enregistrer(match.getId(), date, equipeHote.getId(), equipeInvitee.getId());
+                    noterTournoi(match);
+                } else if (id == MatchIndex.DOUBLON) {
+                    erreurCollector.log(fichier, ligne,
+                            "Doublon : plusieurs matchs trouvés pour cette date et ces équipes", "Match");
+                }
+            } else if (parametresValides) {
 
                 List<Match> resultats = matchDao.findByDateAndEquipes(date, equipeHote.getId(), equipeInvitee.getId());
 
                 if (resultats.isEmpty()) {
                     Match match = new Match(date, ville, pays, lieuNeutre, tournoi, equipeHote, equipeInvitee);
                     matchDao.insert(match);
+                    noterTournoi(match);
                 } else if (resultats.size() > 1) {
                     erreurCollector.log(fichier, ligne,
                             "Doublon : plusieurs matchs trouvés pour cette date et ces équipes", "Match");
@@ -77,6 +114,53 @@ public class MatchService {
         }
     }
 
+    /**
+     * Met à jour en place les attributs d'un match dont la ligne source a été corrigée
+     * (la date et les équipes, qui identifient le match, sont inchangées)
+     * @param match match à mettre à jour
+     * @param ville ville où se joue le match
+     * @param pays pays où se joue le match
+     * @param lieuNeutre vrai si le lieu est neutre
+     * @param tournoi nom du tournoi
+     * @param ligne indique à quelle ligne du csv l'erreur éventuelle est déclenchée
+     * @param fichier indique quel fichier est à l'origine de l'erreur éventuelle
+     */
+    public void mettreAJourMatch(Match match, String ville, String pays, boolean lieuNeutre, String tournoi,
+                                 String ligne, String fichier) {
+        try {
+            if (CheckUtils.isNotNull(match)) {
+                match.setVille(ville);
+                match.setPays(pays);
+                match.setIsLieuNeutre(lieuNeutre);
+                match.setTournoi(tournoi);
+                // Buts suivants classés dans le nouveau tournoi ; les buts déjà comptés le seront à la reconstruction
+                noterTournoi(match);
+            } else {
+                erreurCollector.log(fichier, ligne, "Erreur dans la mise à jour : match introuvable", "Match");
+            }
+        } catch (Exception e) {
+            erreurCollector.log(fichier, ligne, e.getMessage(), "Match");
+        }
+    }
+
+    /**
+     * Note le tournoi d'un match dans le classement des buteurs, s'il y en a un
+     * @param match match inséré ou corrigé
+     */
+    private void noterTournoi(Match match) {
+        if (classement != null) {
+            classement.noterMatch(match.getId(), match.getTournoi());
+        }
+    }
+
+    /**
+     * Setter
+     * @param classement classement des buteurs à tenir informé du tournoi des matchs, null pour aucun
+     */
+    public void setClassement(ClassementButeurs classement) {
+        this.classement = classement;
+    }
+
     /**
      * Setter
      * @param matchDao matchDao, utilisé pour les tests
@@ -0,0 +1,233 @@
+package fr.diginamic.services;
+
+import fr.diginamic.dao.ButDaoImpl;
+import fr.diginamic.dao.ButeurDaoImpl;
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
+import fr.diginamic.dao.MatchDaoImpl;
+import fr.diginamic.dao.PointRepriseDaoImpl;
+import fr.diginamic.dao.ProgressionImportDaoImpl;
+import fr.diginamic.dao.ScoreDaoImpl;
+import fr.diginamic.dao.TirsButsDaoImpl;
+import fr.diginamic.imports.GoalsScorersCsvImporter;
+import fr.diginamic.imports.ResultCsvImporter;
+import fr.diginamic.imports.ShootoutsCsvImporter;
+import fr.diginamic.model.Buteur;
+import fr.diginamic.utils.Empreinte;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service de purge ensembliste des matchs d'une période ou d'un tournoi, avant le rechargement
+ * de données corrigées. Les dépendances sont supprimées par requêtes DELETE en masse,
+ * dans l'ordre des clés étrangères : buts, scores, tirs aux buts, puis matchs,
+ * et enfin les buteurs restés sans but. Les empreintes des lignes purgées et les points de reprise
+ * sont supprimés aussi, pour que le rechargement relise et réinsère ces lignes.
+ * La purge s'exécute dans la transaction de l'appelant, avant le chargement des registres de l'import.
+ */
+public class PurgeService {
+
+    /** Nombre d'ids de matchs par requête (liste IN) */
+    private static final int TAILLE_PAQUET = 1000;
+
+    /**
+     * Nombre de lignes supprimées par table
+     * @param matchs matchs
+     * @param buts buts
+     * @param scores scores
+     * @param tirsButs séances de tirs aux buts
+     * @param buteurs buteurs restés sans but
+     * @param empreintes empreintes de lignes d'import
+     */
+    public record Bilan(int matchs, int buts, int scores, int tirsButs, int buteurs, int empreintes) {
+    }
+
+    private final EntityManager em;
+    private MatchDaoImpl matchDao;
+    private ButDaoImpl butDao;
+    private ScoreDaoImpl scoreDao;
+    private TirsButsDaoImpl tirsDao;
+    private ButeurDaoImpl buteurDao;
+    private EmpreinteLigneDaoImpl empreinteDao;
+    private PointRepriseDaoImpl pointRepriseDao;
+    private ProgressionImportDaoImpl progressionDao;
+
+    /**
+     * Initialise le service avec un EntityManager
+     * @param em EntityManager à utiliser, dans une transaction active
+     */
+    public PurgeService(EntityManager em) {
+        this.em = em;
+        this.matchDao = new MatchDaoImpl(em);
+        this.butDao = new ButDaoImpl(em);
+        this.scoreDao = new ScoreDaoImpl(em);
+        this.tirsDao = new TirsButsDaoImpl(em);
+        this.buteurDao = new ButeurDaoImpl(em);
+        this.empreinteDao = new EmpreinteLigneDaoImpl(em);
+        this.pointRepriseDao = new PointRepriseDaoImpl(em);
+        this.progressionDao = new ProgressionImportDaoImpl(em);
+    }
+
+    /**
+     * Purge les matchs joués entre deux dates et leurs dépendances
+     * @param debut première date, incluse
+     * @param fin dernière date, incluse
+     * @return nombre de lignes supprimées par table
+     */
+    public Bilan purgerPeriode(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null || fin.isBefore(debut)) {
+            throw new IllegalArgumentException("Période de purge invalide : " + debut + " - " + fin);
+        }
+        return purger(matchDao.findClesByPeriode(debut, fin));
+    }
+
+    /**
+     * Purge les matchs d'un tournoi et leurs dépendances
+     * @param tournoi nom du tournoi, tel qu'il figure dans results.csv
+     * @return nombre de lignes supprimées par table
+     */
+    public Bilan purgerTournoi(String tournoi) {
+        if (tournoi == null || tournoi.isBlank()) {
+            throw new IllegalArgumentException("Tournoi à purger non renseigné");
+        }
+        return purger(matchDao.findClesByTournoi(tournoi));
+    }
+
+    /**
+     * Supprime les matchs sélectionnés par paquets d'ids, puis ce qui ne dépendait que d'eux
+     * @param matchs tuples (id, date, nom équipe hôte, nom équipe invitée) des matchs à purger
+     */
+    private Bilan purger(List<Object[]> matchs) {
+        // Le contexte de persistance ignore les DELETE en masse : rien ne doit y rester en attente
+        em.flush();
+        boolean avecEmpreintes = empreinteDao.countByFichier(ResultCsvImporter.FICHIER)
+                + empreinteDao.countByFichier(GoalsScorersCsvImporter.FICHIER)
+                + empreinteDao.countByFichier(ShootoutsCsvImporter.FICHIER) > 0;
+        int buts = 0;
+        int scores = 0;
+        int tirsButs = 0;
+        int supprimes = 0;
+        int empreintes = 0;
+        for (int i = 0; i < matchs.size(); i += TAILLE_PAQUET) {
+            List<Object[]> paquet = matchs.subList(i, Math.min(i + TAILLE_PAQUET, matchs.size()));
+            List<Integer> ids = new ArrayList<>(paquet.size());
+            paquet.forEach(m -> ids.add((Integer) m[0]));
+            if (avecEmpreintes) {
+                // Clés des lignes à calculer tant que buts et matchs sont encore en base
+                empreintes += supprimerEmpreintes(paquet, ids);
+            }
+            buts += butDao.deleteByMatchs(ids);
+            scores += scoreDao.deleteByMatchs(ids);
+            tirsButs += tirsDao.deleteByMatchs(ids);
+            supprimes += matchDao.deleteByIds(ids);
+        }
+        int buteurs = matchs.isEmpty() ? 0 : buteurDao.deleteSansBut();
+        if (!matchs.isEmpty()) {
+            // Lignes purgées situées avant les points d'arrêt : le prochain import doit relire les fichiers
+            pointRepriseDao.deleteAll();
+            progressionDao.deleteAll();
+        }
+        // Hibernate invalide déjà les régions des tables touchées ; l'éviction explicite
+        // couvre aussi les buteurs supprimés lus auparavant par un autre EntityManager
+        em.getEntityManagerFactory().getCache().evict(Buteur.class);
+        em.clear();
+        return new Bilan(supprimes, buts, scores, tirsButs, buteurs, empreintes);
+    }
+
+    /**
+     * Supprime les empreintes des lignes de results.csv, shootouts.csv et goalscorers.csv
+     * des matchs d'un paquet, en reconstituant leurs clés comme les importeurs
+     * @param paquet tuples (id, date, nom équipe hôte, nom équipe invitée)
+     * @param ids ids des matchs du paquet
+     * @return nombre d'empreintes supprimées
+     */
+    private int supprimerEmpreintes(List<Object[]> paquet, List<Integer> ids) {
+        Map<Integer, Object[]> parId = new HashMap<>(paquet.size() * 4 / 3 + 1);
+        List<Long> clesMatchs = new ArrayList<>(paquet.size());
+        for (Object[] m : paquet) {
+            parId.put((Integer) m[0], m);
+            clesMatchs.add(Empreinte.cle(((LocalDate) m[1]).toEpochDay(), (String) m[2], (String) m[3]));
+        }
+        List<Long> clesButs = new ArrayList<>();
+        for (Object[] b : butDao.findClesLignesByMatchs(ids)) {
+            Object[] m = parId.get((Integer) b[0]);
+            clesButs.add(Empreinte.cle(((LocalDate) m[1]).toEpochDay(), (String) m[2], (String) m[3],
+                    (String) b[1], (String) b[2], Integer.toString((Integer) b[3])));
+        }
+        int supprimees = empreinteDao.deleteByCles(ResultCsvImporter.FICHIER, clesMatchs)
+                + empreinteDao.deleteByCles(ShootoutsCsvImporter.FICHIER, clesMatchs);
+        for (int i = 0; i < clesButs.size(); i += TAILLE_PAQUET) {
+            supprimees += empreinteDao.deleteByCles(GoalsScorersCsvImporter.FICHIER,
+                    clesButs.subList(i, Math.min(i + TAILLE_PAQUET, clesButs.size())));
+        }
+        return supprimees;
+    }
+
+    /**
+     * Setter
+     * @param matchDao matchDao, utilisé pour les tests
+     */
+    public void setMatchDao(MatchDaoImpl matchDao) {
+        this.matchDao = matchDao;
+    }
+
+    /**
+     * Setter
+     * @param butDao butDao, utilisé pour les tests
+     */
+    public void setButDao(ButDaoImpl butDao) {
+        this.butDao = butDao;
+    }
+
+    /**
+     * Setter
+     * @param scoreDao scoreDao, utilisé pour les tests
+     */
+    public void setScoreDao(ScoreDaoImpl scoreDao) {
+        this.scoreDao = scoreDao;
+    }
+
+    /**
+     * Setter
+     * @param tirsDao tirsDao, utilisé pour les tests
+     */
+    public void setTirsDao(TirsButsDaoImpl tirsDao) {
+        this.tirsDao = tirsDao;
+    }
+
+    /**
+     * Setter
+     * @param buteurDao buteurDao, utilisé pour les tests
+     */
+    public void setButeurDao(ButeurDaoImpl buteurDao) {
+        this.buteurDao = buteurDao;
+    }
+
+    /**
+     * Setter
+     * @param empreinteDao empreinteDao, utilisé pour les tests
+     */
+    public void setEmpreinteDao(EmpreinteLigneDaoImpl empreinteDao) {
+        this.empreinteDao = empreinteDao;
+    }
+
+    /**
+     * Setter
+     * @param pointRepriseDao pointRepriseDao, utilisé pour les tests
+     */
+    public void setPointRepriseDao(PointRepriseDaoImpl pointRepriseDao) {
+        this.pointRepriseDao = pointRepriseDao;
+    }
+
+    /**
+     * Setter
+     * @param progressionDao progressionDao, utilisé pour les tests
+     */
+    public void setProgressionDao(ProgressionImportDaoImpl progressionDao) {
+        this.progressionDao = progressionDao;
+    }
+}
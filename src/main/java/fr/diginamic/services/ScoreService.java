@@ -5,10 +5,9 @@ import fr.diginamic.model.Match;
 import fr.diginamic.model.Score;
 import fr.diginamic.utils.CheckUtils;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
 import jakarta.persistence.EntityManager;
 
-import java.util.List;
-
 /**
  * Service métier pour la gestion des scores.
  */
@@ -17,6 +16,12 @@ public class ScoreService {
     private ScoreDaoImpl scoreDao;
     private final ErreurCollector erreurCollector;
 
+    /** Mode upsert : insertion ignorée par la base si le match a déjà un score */
+    private boolean upsert;
+
+    /** Ids des matchs ayant déjà un score en base, null sans filtre */
+    private FiltreBloom filtre;
+
     /**
      * Initialise le service avec un EntityManager
      * @param em EntityManager à utiliser
@@ -27,8 +32,8 @@ public class ScoreService {
     }
 
     /**
-     * Insère un score s'il n'existe pas déjà en base.
-     * En cas de doublon, une erreur est loguée.
+     * Insère un score si le match n'en a pas encore.
+     * Si le match a déjà un score différent, une erreur est loguée et le score existant est conservé.
      * @param match désigne le match à l'origine du score
      * @param scoreHote désigne le score final de l'équipe hôte
      * @param scoreInvite désigne le score final de l'équipe invitée
@@ -39,14 +44,25 @@ public class ScoreService {
             Match match, int scoreHote, int scoreInvite, String ligne, String fichier
     ){
         try {
-            if(CheckUtils.isNotNull(match) && CheckUtils.isNotNegative(scoreHote) && CheckUtils.isNotNegative(scoreInvite)) {
-                List<Score> resultats = scoreDao.findByMatchAndScores(match.getId(), scoreHote, scoreInvite);
-                if(resultats.isEmpty()) {
+            boolean parametresValides = CheckUtils.isNotNull(match)
+                    && CheckUtils.isNotNegative(scoreHote) && CheckUtils.isNotNegative(scoreInvite);
+            if(parametresValides && upsert) {
+                // Insertion ignorée par la base : le score existant est relu pour signaler un conflit comme sans upsert
+                if(!scoreDao.insererOuIgnorer(new Score(match, scoreHote, scoreInvite))) {
+                    signalerConflit(scoreDao.findById(match.getId()), scoreHote, scoreInvite, ligne, fichier);
+                }
+                FiltreBloom.noter(filtre, match.getId());
+            } else if(parametresValides) {
+                // Le score a pour clé primaire l'id du match : une seule recherche par clé, évitée si le filtre l'exclut
+                Score existant = FiltreBloom.peutExister(filtre, match.getId())
+                        ? scoreDao.findById(match.getId())
+                        : null;
+                if(existant == null) {
                     Score score = new Score(match, scoreHote, scoreInvite);
                     scoreDao.insert(score);
-                } else if(resultats.size() > 1) {
-                    erreurCollector.log(fichier, ligne,
-                            "Doublon : plusieurs scores trouvés pour ce match et ces résultats", "Score");
+                    FiltreBloom.noter(filtre, match.getId());
+                } else {
+                    signalerConflit(existant, scoreHote, scoreInvite, ligne, fichier);
                 }
             } else {
                 erreurCollector.log(fichier, ligne,
@@ -57,6 +73,67 @@ public class ScoreService {
         }
     }
 
+    /**
+     * Met à jour en place le score d'un match dont la ligne source a été corrigée,
+     * ou l'insère si le match n'en a pas encore
+     * @param match désigne le match à l'origine du score
+     * @param scoreHote désigne le nouveau score de l'équipe hôte
+     * @param scoreInvite désigne le nouveau score de l'équipe invitée
+     * @param ligne indique à quelle ligne du csv l'erreur éventuelle est déclenchée
+     * @param fichier indique quel fichier est à l'origine de l'erreur éventuelle
+     */
+    public void mettreAJourScore(Match match, int scoreHote, int scoreInvite, String ligne, String fichier) {
+        try {
+            if(CheckUtils.isNotNull(match)
+                    && CheckUtils.isNotNegative(scoreHote) && CheckUtils.isNotNegative(scoreInvite)) {
+                Score existant = scoreDao.findById(match.getId());
+                if(existant == null) {
+                    scoreDao.insert(new Score(match, scoreHote, scoreInvite));
+                    FiltreBloom.noter(filtre, match.getId());
+                } else {
+                    existant.setScoreHote(scoreHote);
+                    existant.setScoreInvite(scoreInvite);
+                }
+            } else {
+                erreurCollector.log(fichier, ligne,
+                        "Erreur dans la mise à jour: match null ou scores invalides", "Score");
+            }
+        } catch (Exception e) {
+            erreurCollector.log(fichier, ligne, e.getMessage(), "Score");
+        }
+    }
+
+    /**
+     * Logue un conflit si le score déjà en base diffère de celui de la ligne ; le score existant est conservé
+     * @param existant score déjà en base
+     * @param scoreHote score de l'équipe hôte lu dans la ligne
+     * @param scoreInvite score de l'équipe invitée lu dans la ligne
+     * @param ligne indique à quelle ligne du csv l'erreur éventuelle est déclenchée
+     * @param fichier indique quel fichier est à l'origine de l'erreur éventuelle
+     */
+    private void signalerConflit(Score existant, int scoreHote, int scoreInvite, String ligne, String fichier) {
+        if(existant != null && (existant.getScoreHote() != scoreHote || existant.getScoreInvite() != scoreInvite)) {
+            erreurCollector.log(fichier, ligne, "Conflit : ce match a déjà un score différent ("
+                    + existant.getScoreHote() + "-" + existant.getScoreInvite() + ")", "Score");
+        }
+    }
+
+    /**
+     * Setter
+     * @param filtre filtre de Bloom des ids des matchs ayant un score, null pour toujours rechercher en base
+     */
+    public void setFiltre(FiltreBloom filtre) {
+        this.filtre = filtre;
+    }
+
+    /**
+     * Setter
+     * @param upsert true pour activer l'insertion en une requête, sans recherche préalable
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
     /**
      * Setter
      * @param scoreDao scoreDao, utilisé pour les tests
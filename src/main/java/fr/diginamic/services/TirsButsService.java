@@ -6,6 +6,7 @@ import fr.diginamic.model.Match;
 import fr.diginamic.model.TirsButs;
 import fr.diginamic.utils.CheckUtils;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
 import jakarta.persistence.EntityManager;
 
 import java.util.List;
@@ -18,6 +19,12 @@ public class TirsButsService {
     private TirsButsDaoImpl tirsDao;
     private final ErreurCollector erreurCollector;
 
+    /** Mode upsert : insertion ignorée par la base si le match a déjà une séance de tirs aux buts */
+    private boolean upsert;
+
+    /** Ids des matchs ayant déjà une séance de tirs aux buts en base, null sans filtre */
+    private FiltreBloom filtre;
+
     /**
      * Initialise le service avec un EntityManager
      * @param em EntityManager à utiliser
@@ -40,13 +47,17 @@ public class TirsButsService {
             Match match, Equipe equipeCommence, Equipe vainqueur, String ligne, String fichier
     ) {
         try {
-            if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur)) {
-                List<TirsButs> resultats = tirsDao.findByMatchAndVainqueur(
-                        match.getId(), vainqueur.getId()
-                );
+            if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur) && upsert) {
+                tirsDao.insererOuIgnorer(new TirsButs(match, equipeCommence, vainqueur));
+                FiltreBloom.noter(filtre, match.getId());
+            } else if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur)) {
+                List<TirsButs> resultats = FiltreBloom.peutExister(filtre, match.getId())
+                        ? tirsDao.findByMatchAndVainqueur(match.getId(), vainqueur.getId())
+                        : List.of();
                 if(resultats.isEmpty()) {
                     TirsButs tirsButs = new TirsButs(match, equipeCommence, vainqueur);
                     tirsDao.insert(tirsButs);
+                    FiltreBloom.noter(filtre, match.getId());
                 } else if(resultats.size() > 1) {
                     erreurCollector.log(fichier, ligne,
                             "Doublon : plusieurs tirs aux buts trouvés pour ce match et équipes", "TirsButs");
@@ -60,6 +71,51 @@ public class TirsButsService {
         }
     }
 
+    /**
+     * Met à jour en place la séance de tirs aux buts d'un match dont la ligne source a été corrigée,
+     * ou l'insère si le match n'en a pas encore
+     * @param match désigne le match concerné par le tir aux buts
+     * @param equipeCommence désigne l'équipe qui commence à tirer
+     * @param vainqueur désigne l'équipe qui remporte le tir aux buts
+     * @param ligne indique à quelle ligne du csv l'erreur éventuelle est déclenchée
+     * @param fichier indique quel fichier est à l'origine de l'erreur éventuelle
+     */
+    public void mettreAJourTirsButs(Match match, Equipe equipeCommence, Equipe vainqueur, String ligne, String fichier) {
+        try {
+            if(CheckUtils.isNotNull(match) && CheckUtils.isNotNull(vainqueur)) {
+                TirsButs existant = tirsDao.findById(match.getId());
+                if(existant == null) {
+                    tirsDao.insert(new TirsButs(match, equipeCommence, vainqueur));
+                    FiltreBloom.noter(filtre, match.getId());
+                } else {
+                    existant.setEquipeCommence(equipeCommence);
+                    existant.setVainqueur(vainqueur);
+                }
+            } else {
+                erreurCollector.log(fichier, ligne,
+                        "Erreur dans la mise à jour: match ou vainqueur null", "TirsButs");
+            }
+        } catch (Exception e) {
+            erreurCollector.log(fichier, ligne, e.getMessage(), "TirsButs");
+        }
+    }
+
+    /**
+     * Setter
+     * @param filtre filtre de Bloom des ids des matchs ayant une séance de tirs aux buts, null pour toujours rechercher en base
+     */
+    public void setFiltre(FiltreBloom filtre) {
+        this.filtre = filtre;
+    }
+
+    /**
+     * Setter
+     * @param upsert true pour activer l'insertion en une requête, sans recherche préalable
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
     /**
      * Setter
      * @param tirsDao tirsDao, utilisé pour les tests
@@ -0,0 +1,293 @@
+package fr.diginamic.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache borné des buteurs résolus pendant l'import ((nom, id équipe) → id du buteur),
+ * évincés selon la politique W-TinyLFU :
+ * une petite fenêtre LRU (1 % des entrées) accueille les nouveaux buteurs, puis un segment principal
+ * SLRU (probation / protégé) ne les admet que s'ils ont été demandés plus souvent que la victime,
+ * d'après une esquisse Count-Min des fréquences d'accès. Les buteurs prolifiques restent donc en cache
+ * même quand une longue série de buteurs d'un seul but défile.
+ * Comme les registres, il ne conserve que des ids, valides après un clear() de l'EntityManager.
+ * Non synchronisé : utilisé par le seul écrivain de l'import de goalscorers.csv.
+ */
+public final class CacheButeurs {
+
+    /** Valeur retournée pour un buteur absent du cache */
+    public static final int ABSENT = 0;
+
+    private static final byte FENETRE = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTEGE = 2;
+
+    private record Cle(String nom, int equipeId) {
+    }
+
+    private static final class Noeud {
+        private final Cle cle;
+        private int id;
+        private byte zone;
+        private Noeud precedent;
+        private Noeud suivant;
+
+        private Noeud(Cle cle, int id) {
+            this.cle = cle;
+            this.id = id;
+        }
+    }
+
+    /** Liste doublement chaînée, la tête étant l'entrée la plus récemment utilisée */
+    private static final class Liste {
+        private final Noeud sentinelle = new Noeud(null, ABSENT);
+        private int taille;
+
+        private Liste() {
+            sentinelle.precedent = sentinelle;
+            sentinelle.suivant = sentinelle;
+        }
+
+        private void ajouterEnTete(Noeud n) {
+            n.precedent = sentinelle;
+            n.suivant = sentinelle.suivant;
+            sentinelle.suivant.precedent = n;
+            sentinelle.suivant = n;
+            taille++;
+        }
+
+        private void retirer(Noeud n) {
+            n.precedent.suivant = n.suivant;
+            n.suivant.precedent = n.precedent;
+            n.precedent = null;
+            n.suivant = null;
+            taille--;
+        }
+
+        private void remonter(Noeud n) {
+            retirer(n);
+            ajouterEnTete(n);
+        }
+
+        /** @return l'entrée la moins récemment utilisée, null si la liste est vide */
+        private Noeud derniere() {
+            return taille == 0 ? null : sentinelle.precedent;
+        }
+    }
+
+    /**
+     * Esquisse Count-Min à 4 lignes de compteurs saturant à 15 ; tous les compteurs sont divisés
+     * par deux après un nombre d'accès proportionnel à la capacité, pour oublier les fréquences anciennes
+     */
+    private static final class Esquisse {
+        private static final int[] GRAINES = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+        private static final int MAX = 15;
+
+        private final byte[][] compteurs;
+        private final int masque;
+        private final int periode;
+        private int acces;
+
+        private Esquisse(int capacite) {
+            int largeur = Integer.highestOneBit(Math.max(16, capacite - 1) * 2);
+            compteurs = new byte[GRAINES.length][largeur];
+            masque = largeur - 1;
+            periode = Math.max(10 * capacite, 16);
+        }
+
+        private int indice(int hash, int ligne) {
+            int h = hash * GRAINES[ligne];
+            return (h ^ (h >>> 16)) & masque;
+        }
+
+        private void incrementer(int hash) {
+            for (int i = 0; i < compteurs.length; i++) {
+                int j = indice(hash, i);
+                if (compteurs[i][j] < MAX) {
+                    compteurs[i][j]++;
+                }
+            }
+            if (++acces == periode) {
+                vieillir();
+            }
+        }
+
+        private int frequence(int hash) {
+            int min = MAX;
+            for (int i = 0; i < compteurs.length; i++) {
+                min = Math.min(min, compteurs[i][indice(hash, i)]);
+            }
+            return min;
+        }
+
+        private void vieillir() {
+            for (byte[] ligne : compteurs) {
+                for (int j = 0; j < ligne.length; j++) {
+                    ligne[j] >>= 1;
+                }
+            }
+            acces /= 2;
+        }
+    }
+
+    private final Map<Cle, Noeud> noeuds;
+    private final Liste fenetre = new Liste();
+    private final Liste probation = new Liste();
+    private final Liste protege = new Liste();
+    private final Esquisse esquisse;
+
+    private final int capaciteFenetre;
+    private final int capacitePrincipale;
+    private final int capaciteProtege;
+
+    private long succes;
+    private long echecs;
+    private long evictions;
+
+    /**
+     * Crée un cache vide
+     * @param capacite nombre maximal de buteurs conservés
+     */
+    public CacheButeurs(int capacite) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("Capacité du cache des buteurs invalide : " + capacite);
+        }
+        this.capaciteFenetre = Math.max(1, capacite / 100);
+        this.capacitePrincipale = capacite - capaciteFenetre;
+        this.capaciteProtege = capacitePrincipale * 8 / 10;
+        this.noeuds = new HashMap<>(capacite * 4 / 3 + 1);
+        this.esquisse = new Esquisse(capacite);
+    }
+
+    /**
+     * Recherche l'id d'un buteur ; chaque appel compte comme un accès pour la politique d'admission
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return l'id du buteur, ou {@link #ABSENT}
+     */
+    public int get(String nom, int equipeId) {
+        Cle cle = new Cle(nom, equipeId);
+        esquisse.incrementer(cle.hashCode());
+        Noeud n = noeuds.get(cle);
+        if (n == null) {
+            echecs++;
+            return ABSENT;
+        }
+        succes++;
+        switch (n.zone) {
+            case FENETRE -> fenetre.remonter(n);
+            case PROTEGE -> protege.remonter(n);
+            default -> promouvoir(n);
+        }
+        return n.id;
+    }
+
+    /**
+     * Retient un buteur qui vient d'être trouvé en base ou inséré
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @param id id du buteur
+     */
+    public void put(String nom, int equipeId, int id) {
+        Cle cle = new Cle(nom, equipeId);
+        Noeud existant = noeuds.get(cle);
+        if (existant != null) {
+            existant.id = id;
+            return;
+        }
+        Noeud n = new Noeud(cle, id);
+        n.zone = FENETRE;
+        fenetre.ajouterEnTete(n);
+        noeuds.put(cle, n);
+        if (fenetre.taille > capaciteFenetre) {
+            Noeud candidat = fenetre.derniere();
+            fenetre.retirer(candidat);
+            admettre(candidat);
+        }
+    }
+
+    /**
+     * Fait entrer dans le segment principal le buteur sorti de la fenêtre :
+     * s'il est plein, le candidat et la victime (fin de probation) s'affrontent sur leur fréquence
+     */
+    private void admettre(Noeud candidat) {
+        if (probation.taille + protege.taille < capacitePrincipale) {
+            ajouter(probation, candidat, PROBATION);
+            return;
+        }
+        Noeud victime = probation.derniere() != null ? probation.derniere() : protege.derniere();
+        if (victime != null
+                && esquisse.frequence(candidat.cle.hashCode()) > esquisse.frequence(victime.cle.hashCode())) {
+            (victime.zone == PROBATION ? probation : protege).retirer(victime);
+            evincer(victime);
+            ajouter(probation, candidat, PROBATION);
+        } else {
+            evincer(candidat);
+        }
+    }
+
+    /**
+     * Passe en segment protégé un buteur redemandé pendant sa probation,
+     * en rétrogradant si besoin le moins récent des protégés
+     */
+    private void promouvoir(Noeud n) {
+        probation.retirer(n);
+        ajouter(protege, n, PROTEGE);
+        if (protege.taille > capaciteProtege) {
+            Noeud retrograde = protege.derniere();
+            protege.retirer(retrograde);
+            ajouter(probation, retrograde, PROBATION);
+        }
+    }
+
+    private static void ajouter(Liste liste, Noeud n, byte zone) {
+        n.zone = zone;
+        liste.ajouterEnTete(n);
+    }
+
+    private void evincer(Noeud n) {
+        noeuds.remove(n.cle);
+        evictions++;
+    }
+
+    /**
+     * Getter
+     * @return nombre de buteurs en cache
+     */
+    public int taille() {
+        return noeuds.size();
+    }
+
+    /**
+     * Getter
+     * @return nombre de recherches ayant trouvé le buteur
+     */
+    public long getSucces() {
+        return succes;
+    }
+
+    /**
+     * Getter
+     * @return nombre de recherches n'ayant pas trouvé le buteur
+     */
+    public long getEchecs() {
+        return echecs;
+    }
+
+    /**
+     * Getter
+     * @return nombre de buteurs écartés du cache faute de place
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Proportion des recherches ayant trouvé le buteur
+     * @return taux de succès entre 0 et 1, 0 si aucune recherche
+     */
+    public double tauxSucces() {
+        long total = succes + echecs;
+        return total == 0 ? 0 : (double) succes / total;
+    }
+}
@@ -0,0 +1,128 @@
+package fr.diginamic.utils;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de second niveau (JCache / Ehcache) des entités de référence, Equipe et Buteur,
+ * et des requêtes de recherche par clé naturelle.
+ * Les régions sont créées par programme, dimensionnées en nombre d'entrées sur le tas :
+ * la configuration XML d'Ehcache 3 dépend de javax.xml.bind, absent du classpath.
+ */
+public final class CacheSecondNiveau {
+
+    /** Région des équipes (un peu plus de 300 dans les fichiers) */
+    public static final String REGION_EQUIPE = "equipe";
+
+    /** Région des buteurs (environ 14 000 dans les fichiers) */
+    public static final String REGION_BUTEUR = "buteur";
+
+    /** Région des résultats de EquipeDaoImpl.findByName */
+    public static final String REGION_REQUETES_EQUIPE = "requetes.equipe";
+
+    /** Région des résultats de ButeurDaoImpl.findByNomAndEquipe */
+    public static final String REGION_REQUETES_BUTEUR = "requetes.buteur";
+
+    /** Régions par défaut d'Hibernate pour le cache de requêtes */
+    private static final String REGION_REQUETES_DEFAUT = "default-query-results-region";
+    private static final String REGION_HORODATAGES = "default-update-timestamps-region";
+
+    /** Nombre maximal d'entrées par région, au-delà Ehcache évince les moins utilisées */
+    private static final Map<String, Long> TAILLES = new LinkedHashMap<>();
+
+    static {
+        TAILLES.put(REGION_EQUIPE, 1_000L);
+        TAILLES.put(REGION_BUTEUR, 20_000L);
+        TAILLES.put(REGION_REQUETES_EQUIPE, 1_000L);
+        TAILLES.put(REGION_REQUETES_BUTEUR, 20_000L);
+        TAILLES.put(REGION_REQUETES_DEFAUT, 1_000L);
+        // Une entrée par table modifiée : une éviction rendrait des résultats de requête périmés valides
+        TAILLES.put(REGION_HORODATAGES, 10_000L);
+    }
+
+    private static final URI URI_GESTIONNAIRE = URI.create("urn:fr.diginamic:cache-second-niveau");
+
+    /** Constructeur privé pour empêcher l’instanciation */
+    private CacheSecondNiveau() {
+        throw new AssertionError("Classe utilitaire, ne doit pas être instanciée.");
+    }
+
+    /**
+     * Propriétés à ajouter à la fabrique d'EntityManager pour activer le cache de second niveau
+     * et le cache de requêtes
+     * @param statistiques true pour que Hibernate compte les succès et échecs de chaque région
+     * @return propriétés Hibernate, dont le gestionnaire de cache déjà configuré
+     */
+    public static Map<String, Object> proprietes(boolean statistiques) {
+        Map<String, Object> proprietes = new HashMap<>();
+        proprietes.put("hibernate.cache.use_second_level_cache", "true");
+        proprietes.put("hibernate.cache.use_query_cache", "true");
+        proprietes.put("hibernate.cache.region.factory_class", "jcache");
+        proprietes.put("hibernate.javax.cache.cache_manager", gestionnaire());
+        proprietes.put("hibernate.generate_statistics", String.valueOf(statistiques));
+        // Seuls les totaux de fin d'import sont utiles, pas le bilan de chaque session
+        proprietes.put("hibernate.session.events.log", "false");
+        return proprietes;
+    }
+
+    /**
+     * Gestionnaire JCache d'Ehcache avec une région bornée par nom déclaré dans {@link #TAILLES}
+     * @return le gestionnaire, réutilisé s'il est encore ouvert
+     */
+    static CacheManager gestionnaire() {
+        EhcacheCachingProvider fournisseur = (EhcacheCachingProvider)
+                Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // Configuration Ehcache vide plutôt qu'une URI de fichier XML, les régions sont ajoutées ci-dessous
+        CacheManager gestionnaire = fournisseur.getCacheManager(URI_GESTIONNAIRE,
+                new DefaultConfiguration(CacheSecondNiveau.class.getClassLoader()));
+        TAILLES.forEach((region, taille) -> {
+            if (gestionnaire.getCache(region) == null) {
+                gestionnaire.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(taille))));
+            }
+        });
+        return gestionnaire;
+    }
+
+    /**
+     * Affiche les succès, échecs et ajouts de chaque région, pour vérifier que les lectures
+     * d'une session à l'autre ne vont plus en base. Nécessite les statistiques activées.
+     * @param emf fabrique d'EntityManager encore ouverte
+     */
+    public static void afficherStatistiques(EntityManagerFactory emf) {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        if (!stats.isStatisticsEnabled()) {
+            return;
+        }
+        System.out.println("Cache de second niveau : " + stats.getSecondLevelCacheHitCount() + " succès, "
+                + stats.getSecondLevelCacheMissCount() + " échecs, " + stats.getSecondLevelCachePutCount() + " ajouts");
+        afficher(REGION_EQUIPE, stats.getDomainDataRegionStatistics(REGION_EQUIPE));
+        afficher(REGION_BUTEUR, stats.getDomainDataRegionStatistics(REGION_BUTEUR));
+        System.out.println("Cache de requêtes : " + stats.getQueryCacheHitCount() + " succès, "
+                + stats.getQueryCacheMissCount() + " échecs, " + stats.getQueryCachePutCount() + " ajouts");
+        afficher(REGION_REQUETES_EQUIPE, stats.getQueryRegionStatistics(REGION_REQUETES_EQUIPE));
+        afficher(REGION_REQUETES_BUTEUR, stats.getQueryRegionStatistics(REGION_REQUETES_BUTEUR));
+    }
+
+    private static void afficher(String region, CacheRegionStatistics stats) {
+        if (stats != null) {
+            System.out.println("  " + region + " : " + stats.getHitCount() + " succès, " + stats.getMissCount()
+                    + " échecs, " + stats.getPutCount() + " ajouts");
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package fr.diginamic.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classement des buteurs tenu à jour en mémoire : buts, penalties et buts contre son camp par buteur,
+ * au général et par tournoi. Chaque classement est un ensemble trié par nombre de buts décroissant,
+ * remis en ordre à chaque but : un top N se lit sans parcourir les buts.
+ * Le classement ne retient que des ids ; le tournoi d'un match est noté à la création du match
+ * (ou à la reconstruction) pour ne pas avoir à charger le match à chaque but.
+ * Les méthodes sont synchronisées : l'import partitionné des buts le met à jour depuis plusieurs threads.
+ */
+public final class ClassementButeurs {
+
+    /**
+     * Totaux d'un buteur dans un classement
+     * @param buteurId id du buteur
+     * @param buts nombre de buts, contre son camp compris
+     * @param penalties dont buts sur penalty
+     * @param contreSonCamp dont buts contre son camp
+     */
+    public record Total(int buteurId, long buts, long penalties, long contreSonCamp) {
+    }
+
+    /** Ordre des classements : plus de buts d'abord, puis id de buteur croissant */
+    private static final Comparator<Total> ORDRE = Comparator.comparingLong(Total::buts).reversed()
+            .thenComparingInt(Total::buteurId);
+
+    /**
+     * Totaux d'un classement, accessibles par buteur et triés
+     */
+    private static final class Portee {
+
+        private final Map<Integer, Total> parButeur = new HashMap<>();
+        private final TreeSet<Total> tries = new TreeSet<>(ORDRE);
+
+        void ajouter(int buteurId, long buts, long penalties, long contreSonCamp) {
+            Total ancien = parButeur.get(buteurId);
+            if (ancien != null) {
+                // L'ordre dépend des buts : l'entrée est retirée avant d'être remplacée
+                tries.remove(ancien);
+                buts += ancien.buts();
+                penalties += ancien.penalties();
+                contreSonCamp += ancien.contreSonCamp();
+            }
+            Total total = new Total(buteurId, buts, penalties, contreSonCamp);
+            parButeur.put(buteurId, total);
+            tries.add(total);
+        }
+
+        List<Total> premiers(int nombre) {
+            List<Total> premiers = new ArrayList<>(Math.min(nombre, tries.size()));
+            Iterator<Total> totaux = tries.iterator();
+            while (premiers.size() < nombre && totaux.hasNext()) {
+                premiers.add(totaux.next());
+            }
+            return premiers;
+        }
+    }
+
+    private final Portee general = new Portee();
+
+    /** Classements par tournoi, nom du tournoi → indice de son classement */
+    private final List<Portee> parTournoi = new ArrayList<>();
+    private final Map<String, Integer> indicesTournois = new HashMap<>();
+
+    /** id du match → indice de son tournoi */
+    private LongIntHashMap tournoisDesMatchs;
+
+    /**
+     * Crée un classement vide
+     * @param matchsAttendus nombre de matchs prévu, pour dimensionner l'index des tournois
+     */
+    public ClassementButeurs(int matchsAttendus) {
+        this.tournoisDesMatchs = new LongIntHashMap(matchsAttendus);
+    }
+
+    /**
+     * Note le tournoi d'un match, pour classer ses buts
+     * @param matchId id du match
+     * @param tournoi nom du tournoi
+     */
+    public synchronized void noterMatch(int matchId, String tournoi) {
+        tournoisDesMatchs.put(matchId, indiceTournoi(tournoi));
+    }
+
+    /**
+     * Indique si le tournoi d'un match est connu
+     * @param matchId id du match
+     * @return true si le match a été noté
+     */
+    public synchronized boolean connaitMatch(int matchId) {
+        return tournoisDesMatchs.containsKey(matchId);
+    }
+
+    /**
+     * Compte un nouveau but ; un but d'un match non noté n'est compté qu'au classement général
+     * @param buteurId id du buteur
+     * @param matchId id du match
+     * @param contreSonCamp true si le but est marqué contre son camp
+     * @param penalty true si le but est marqué sur penalty
+     */
+    public synchronized void ajouterBut(int buteurId, int matchId, boolean contreSonCamp, boolean penalty) {
+        ajouter(buteurId, matchId, 1, penalty ? 1 : 0, contreSonCamp ? 1 : 0);
+    }
+
+    /**
+     * Reporte la correction d'un but déjà compté (contre son camp, penalty)
+     * @param buteurId id du buteur
+     * @param matchId id du match
+     * @param ancienContreSonCamp valeur avant correction
+     * @param ancienPenalty valeur avant correction
+     * @param contreSonCamp valeur corrigée
+     * @param penalty valeur corrigée
+     */
+    public synchronized void corrigerBut(int buteurId, int matchId, boolean ancienContreSonCamp, boolean ancienPenalty,
+                                         boolean contreSonCamp, boolean penalty) {
+        int penalties = (penalty ? 1 : 0) - (ancienPenalty ? 1 : 0);
+        int cscs = (contreSonCamp ? 1 : 0) - (ancienContreSonCamp ? 1 : 0);
+        if (penalties != 0 || cscs != 0) {
+            ajouter(buteurId, matchId, 0, penalties, cscs);
+        }
+    }
+
+    /**
+     * Ajoute les totaux d'un buteur dans un tournoi, lors de la reconstruction depuis la base
+     * @param buteurId id du buteur
+     * @param tournoi nom du tournoi
+     * @param buts nombre de buts
+     * @param penalties dont buts sur penalty
+     * @param contreSonCamp dont buts contre son camp
+     */
+    public synchronized void charger(int buteurId, String tournoi, long buts, long penalties, long contreSonCamp) {
+        general.ajouter(buteurId, buts, penalties, contreSonCamp);
+        parTournoi.get(indiceTournoi(tournoi)).ajouter(buteurId, buts, penalties, contreSonCamp);
+    }
+
+    /**
+     * Vide le classement et l'index des tournois, avant une reconstruction
+     * @param matchsAttendus nombre de matchs prévu
+     */
+    public synchronized void vider(int matchsAttendus) {
+        general.parButeur.clear();
+        general.tries.clear();
+        parTournoi.clear();
+        indicesTournois.clear();
+        tournoisDesMatchs = new LongIntHashMap(matchsAttendus);
+    }
+
+    /**
+     * Meilleurs buteurs toutes compétitions confondues
+     * @param nombre taille du classement
+     * @return au plus nombre totaux, par buts décroissants
+     */
+    public synchronized List<Total> meilleurs(int nombre) {
+        return general.premiers(nombre);
+    }
+
+    /**
+     * Meilleurs buteurs d'un tournoi
+     * @param tournoi nom du tournoi
+     * @param nombre taille du classement
+     * @return au plus nombre totaux, par buts décroissants, vide pour un tournoi inconnu
+     */
+    public synchronized List<Total> meilleurs(String tournoi, int nombre) {
+        Integer indice = indicesTournois.get(tournoi);
+        return indice == null ? List.of() : parTournoi.get(indice).premiers(nombre);
+    }
+
+    /**
+     * Meilleurs buteurs d'un groupe de buteurs, par exemple ceux d'une équipe
+     * @param buteurIds ids des buteurs du groupe
+     * @param nombre taille du classement
+     * @return au plus nombre totaux, par buts décroissants ; les buteurs sans but sont ignorés
+     */
+    public synchronized List<Total> meilleursParmi(Collection<Integer> buteurIds, int nombre) {
+        List<Total> totaux = new ArrayList<>(buteurIds.size());
+        for (Integer buteurId : buteurIds) {
+            Total total = general.parButeur.get(buteurId);
+            if (total != null) {
+                totaux.add(total);
+            }
+        }
+        totaux.sort(ORDRE);
+        return totaux.size() > nombre ? new ArrayList<>(totaux.subList(0, nombre)) : totaux;
+    }
+
+    /**
+     * Totaux d'un buteur
+     * @param buteurId id du buteur
+     * @return ses totaux toutes compétitions confondues, null s'il n'a pas de but
+     */
+    public synchronized Total getTotal(int buteurId) {
+        return general.parButeur.get(buteurId);
+    }
+
+    /**
+     * Getter
+     * @return nombre de buteurs classés
+     */
+    public synchronized int taille() {
+        return general.parButeur.size();
+    }
+
+    private void ajouter(int buteurId, int matchId, long buts, long penalties, long contreSonCamp) {
+        general.ajouter(buteurId, buts, penalties, contreSonCamp);
+        int indice = tournoisDesMatchs.get(matchId);
+        if (indice != LongIntHashMap.ABSENT) {
+            parTournoi.get(indice).ajouter(buteurId, buts, penalties, contreSonCamp);
+        }
+    }
+
+    private int indiceTournoi(String tournoi) {
+        Integer indice = indicesTournois.get(tournoi);
+        if (indice == null) {
+            indice = parTournoi.size();
+            parTournoi.add(new Portee());
+            indicesTournois.put(tournoi, indice);
+        }
+        return indice;
+    }
+}
@@ -1,12 +1,18 @@
 package fr.diginamic.utils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.function.Consumer;
 
 /**
- * Classe utilitaire pour importer et traiter des fichiers CSV placés dans le dossier resources.
+ * Classe utilitaire pour importer et traiter des fichiers CSV placés dans le dossier resources
+ * ou, pour les gros fichiers, lus directement sur le disque par projection mémoire.
  */
 public class CsvImporter {
 
@@ -39,4 +45,94 @@ public class CsvImporter {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Parcourt un fichier CSV enregistrement par enregistrement avec un {@link CsvTokenizer} :
+     * l'action reçoit le lecteur positionné sur l'enregistrement courant (en-tête ignoré).
+     * Le lecteur est réutilisé d'un enregistrement à l'autre et ne doit pas être conservé.
+     * Une erreur de lecture ou levée par l'action interrompt le parcours et est propagée :
+     * l'appelant ne doit pas prendre un fichier lu en partie pour un fichier complet.
+     * @param resourceName nom du fichier dans resources (lu en UTF-8)
+     * @param consumer action à exécuter pour chaque enregistrement
+     * @throws UncheckedIOException en cas d'erreur de lecture
+     */
+    public static void lireCsv(String resourceName, Consumer<CsvTokenizer> consumer) {
+        InputStream is = CsvImporter.class.getClassLoader().getResourceAsStream(resourceName);
+
+        if (is == null) {
+            System.err.println("Fichier introuvable dans les ressources : " + resourceName);
+            return;
+        }
+
+        try (InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            if (csv.suivant()) {
+                while (csv.suivant()) {
+                    consumer.accept(csv);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la lecture du fichier " + resourceName, e);
+        }
+    }
+
+    /**
+     * Parcourt un fichier CSV pris dans un dossier du disque s'il est fourni, sinon dans resources.
+     * Les erreurs de lecture et celles de l'action sont propagées.
+     * @param dossier dossier des fichiers d'import, ou null pour lire les ressources
+     * @param fichier nom du fichier
+     * @param consumer action à exécuter pour chaque enregistrement
+     * @throws UncheckedIOException en cas d'erreur de lecture
+     */
+    public static void lireCsv(Path dossier, String fichier, Consumer<CsvTokenizer> consumer) {
+        if (dossier == null) {
+            lireCsv(fichier, consumer);
+            return;
+        }
+        try {
+            for (SegmentFichier segment : FichierCsvMappe.segmenter(dossier.resolve(fichier), 1)) {
+                lireSegment(segment, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la lecture du fichier " + fichier, e);
+        }
+    }
+
+    /**
+     * Parcourt une plage d'un fichier du disque (par exemple la partie ajoutée depuis le dernier import),
+     * découpée si besoin en segments projetés en mémoire
+     * Les erreurs de lecture et celles de l'action sont propagées : une plage lue en partie
+     * ne doit pas faire avancer le point de reprise du fichier.
+     * @param plage plage commençant en début de ligne ; l'en-tête est ignoré si elle débute le fichier
+     * @param consumer action à exécuter pour chaque enregistrement
+     * @throws UncheckedIOException en cas d'erreur de lecture
+     */
+    public static void lirePlage(SegmentFichier plage, Consumer<CsvTokenizer> consumer) {
+        try {
+            for (SegmentFichier segment : FichierCsvMappe.segmenter(plage, 1)) {
+                lireSegment(segment, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la lecture du fichier " + plage.fichier(), e);
+        }
+    }
+
+    /**
+     * Parcourt un segment de fichier projeté en mémoire ; la ligne d'en-tête est ignorée
+     * si le segment débute le fichier. Chaque segment peut être lu par un thread différent.
+     * @param segment segment aligné sur les fins de ligne
+     * @param consumer action à exécuter pour chaque enregistrement
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static void lireSegment(SegmentFichier segment, Consumer<CsvTokenizer> consumer) throws IOException {
+        try (Reader reader = FichierCsvMappe.ouvrir(segment)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            if (segment.premier() && !csv.suivant()) {
+                return;
+            }
+            while (csv.suivant()) {
+                consumer.accept(csv);
+            }
+        }
+    }
 }
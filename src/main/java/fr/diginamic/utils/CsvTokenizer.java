@@ -0,0 +1,319 @@
+package fr.diginamic.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Lecteur CSV en flux conforme à la RFC 4180 (champs entre guillemets pouvant contenir
+ * des virgules, des retours à la ligne et des guillemets doublés).
+ * Les champs de l'enregistrement courant sont exposés comme des bornes dans un tampon
+ * de caractères réutilisé d'une ligne à l'autre : aucun tableau ni String n'est alloué
+ * tant que l'appelant n'en demande pas explicitement (texte(), ligne()).
+ * Les accesseurs typés (entier, booléen, date) lisent directement le tampon.
+ */
+public final class CsvTokenizer {
+
+    private static final char SEPARATEUR = ',';
+    private static final char GUILLEMET = '"';
+
+    private final Reader source;
+    private final char[] lecture = new char[16 * 1024];
+    private int position;
+    private int limite;
+
+    /** Contenu des champs de l'enregistrement courant, guillemets retirés */
+    private char[] champs = new char[512];
+    private int longueur;
+    private int[] debuts = new int[16];
+    private int[] fins = new int[16];
+    private int nombreChamps;
+
+    /**
+     * Texte brut de l'enregistrement courant, pour la journalisation des erreurs :
+     * bornes dans le tampon de lecture, complétées par la partie recopiée
+     * dans {@code brut} quand l'enregistrement chevauche un rechargement du tampon
+     */
+    private int debutBrut;
+    private int finBrut;
+    private boolean enregistrementEnCours;
+    private char[] brut = new char[512];
+    private int longueurBrute;
+    private String ligne;
+
+    private long numero;
+
+    /**
+     * Crée un lecteur sur une source de caractères
+     * @param source source à lire (non fermée par le lecteur)
+     */
+    public CsvTokenizer(Reader source) {
+        this.source = source;
+    }
+
+    /**
+     * Avance sur l'enregistrement suivant
+     * @return false si la fin du flux est atteinte
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public boolean suivant() throws IOException {
+        nombreChamps = 0;
+        longueur = 0;
+        longueurBrute = 0;
+        ligne = null;
+
+        if (position == limite && !remplir()) {
+            return false;
+        }
+        debutBrut = position;
+        enregistrementEnCours = true;
+        numero++;
+        int c = lire();
+        while (true) {
+            int debut = longueur;
+            if (c == GUILLEMET) {
+                c = lireEntreGuillemets();
+            }
+            while (c >= 0 && c != SEPARATEUR && c != '\n' && c != '\r') {
+                ajouter((char) c);
+                c = lire();
+            }
+            ajouterChamp(debut, longueur);
+            if (c == SEPARATEUR) {
+                c = lire();
+                continue;
+            }
+            if (c == '\r' && voir() == '\n') {
+                lire();
+            }
+            finBrut = position;
+            enregistrementEnCours = false;
+            return true;
+        }
+    }
+
+    /**
+     * Getter
+     * @return nombre de champs de l'enregistrement courant
+     */
+    public int nombreChamps() {
+        return nombreChamps;
+    }
+
+    /**
+     * Getter
+     * @return numéro de l'enregistrement courant dans le flux (1 pour l'en-tête)
+     */
+    public long numero() {
+        return numero;
+    }
+
+    /**
+     * Indique si un champ est vide (après suppression des espaces)
+     * @param i index du champ
+     * @return true si vide
+     */
+    public boolean estVide(int i) {
+        verifier(i);
+        return fins[i] == debuts[i];
+    }
+
+    /**
+     * Construit la chaîne d'un champ, espaces de bord retirés
+     * @param i index du champ
+     * @return le texte du champ
+     */
+    public String texte(int i) {
+        verifier(i);
+        return new String(champs, debuts[i], fins[i] - debuts[i]);
+    }
+
+    /**
+     * Lit un champ entier sans construire de chaîne
+     * @param i index du champ
+     * @return la valeur entière
+     * @throws NumberFormatException si le champ n'est pas un entier
+     */
+    public int entier(int i) {
+        verifier(i);
+        int p = debuts[i];
+        int fin = fins[i];
+        boolean negatif = p < fin && champs[p] == '-';
+        if (p < fin && (champs[p] == '-' || champs[p] == '+')) {
+            p++;
+        }
+        if (p == fin) {
+            throw new NumberFormatException("For input string: \"" + texte(i) + "\"");
+        }
+        long valeur = 0;
+        for (; p < fin; p++) {
+            int chiffre = champs[p] - '0';
+            if (chiffre < 0 || chiffre > 9) {
+                throw new NumberFormatException("For input string: \"" + texte(i) + "\"");
+            }
+            valeur = valeur * 10 + chiffre;
+            if (valeur > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + texte(i) + "\"");
+            }
+        }
+        valeur = negatif ? -valeur : valeur;
+        if (valeur > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + texte(i) + "\"");
+        }
+        return (int) valeur;
+    }
+
+    /**
+     * Lit un champ booléen avec la même règle que Boolean.parseBoolean
+     * @param i index du champ
+     * @return true si le champ vaut "true" sans tenir compte de la casse
+     */
+    public boolean booleen(int i) {
+        verifier(i);
+        int d = debuts[i];
+        return fins[i] - d == 4
+                && (champs[d] | 0x20) == 't' && (champs[d + 1] | 0x20) == 'r'
+                && (champs[d + 2] | 0x20) == 'u' && (champs[d + 3] | 0x20) == 'e';
+    }
+
+    /**
+     * Lit un champ date au format yyyy-MM-dd ({@link DateUtils#CSV_DATE_FORMATTER})
+     * @param i index du champ
+     * @return la date
+     * @throws java.time.format.DateTimeParseException si le champ n'est pas une date valide
+     */
+    public LocalDate date(int i) {
+        verifier(i);
+        int d = debuts[i];
+        if (fins[i] - d == 10 && champs[d + 4] == '-' && champs[d + 7] == '-') {
+            int annee = chiffres(d, 4);
+            int mois = chiffres(d + 5, 2);
+            int jour = chiffres(d + 8, 2);
+            if (annee >= 0 && mois >= 0 && jour >= 0) {
+                try {
+                    return LocalDate.of(annee, mois, jour);
+                } catch (DateTimeException e) {
+                    // Cas limites (jour hors du mois...) : même résolution que le formateur
+                }
+            }
+        }
+        return LocalDate.parse(texte(i), DateUtils.CSV_DATE_FORMATTER);
+    }
+
+    /**
+     * Texte brut de l'enregistrement courant, construit au premier appel
+     * @return la ligne telle qu'elle figure dans le fichier, sans fin de ligne
+     */
+    public String ligne() {
+        if (ligne == null) {
+            int suite = finBrut - debutBrut;
+            if (longueurBrute + suite > brut.length) {
+                brut = Arrays.copyOf(brut, Math.max(brut.length * 2, longueurBrute + suite));
+            }
+            System.arraycopy(lecture, debutBrut, brut, longueurBrute, suite);
+            int fin = longueurBrute + suite;
+            while (fin > 0 && (brut[fin - 1] == '\n' || brut[fin - 1] == '\r')) {
+                fin--;
+            }
+            ligne = new String(brut, 0, fin);
+        }
+        return ligne;
+    }
+
+    private int chiffres(int debut, int nombre) {
+        int valeur = 0;
+        for (int p = debut; p < debut + nombre; p++) {
+            int chiffre = champs[p] - '0';
+            if (chiffre < 0 || chiffre > 9) {
+                return -1;
+            }
+            valeur = valeur * 10 + chiffre;
+        }
+        return valeur;
+    }
+
+    private int lireEntreGuillemets() throws IOException {
+        while (true) {
+            int c = lire();
+            if (c < 0) {
+                return c;
+            }
+            if (c == GUILLEMET) {
+                int suivant = lire();
+                if (suivant != GUILLEMET) {
+                    return suivant;
+                }
+            }
+            ajouter((char) c);
+        }
+    }
+
+    private void ajouterChamp(int debut, int fin) {
+        while (debut < fin && champs[debut] <= ' ') {
+            debut++;
+        }
+        while (fin > debut && champs[fin - 1] <= ' ') {
+            fin--;
+        }
+        if (nombreChamps == debuts.length) {
+            debuts = Arrays.copyOf(debuts, nombreChamps * 2);
+            fins = Arrays.copyOf(fins, nombreChamps * 2);
+        }
+        debuts[nombreChamps] = debut;
+        fins[nombreChamps] = fin;
+        nombreChamps++;
+    }
+
+    private void ajouter(char c) {
+        if (longueur == champs.length) {
+            champs = Arrays.copyOf(champs, longueur * 2);
+        }
+        champs[longueur++] = c;
+    }
+
+    private int lire() throws IOException {
+        if (position == limite && !remplir()) {
+            return -1;
+        }
+        return lecture[position++];
+    }
+
+    private int voir() throws IOException {
+        if (position == limite && !remplir()) {
+            return -1;
+        }
+        return lecture[position];
+    }
+
+    private boolean remplir() throws IOException {
+        if (enregistrementEnCours) {
+            // L'enregistrement chevauche deux tampons : on conserve sa partie déjà lue
+            int reste = limite - debutBrut;
+            if (longueurBrute + reste > brut.length) {
+                brut = Arrays.copyOf(brut, Math.max(brut.length * 2, longueurBrute + reste));
+            }
+            System.arraycopy(lecture, debutBrut, brut, longueurBrute, reste);
+            longueurBrute += reste;
+            debutBrut = limite;
+        }
+        int lus = source.read(lecture, 0, lecture.length);
+        while (lus == 0) {
+            lus = source.read(lecture, 0, lecture.length);
+        }
+        if (lus < 0) {
+            return false;
+        }
+        position = 0;
+        limite = lus;
+        debutBrut = 0;
+        return true;
+    }
+
+    private void verifier(int i) {
+        if (i < 0 || i >= nombreChamps) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + nombreChamps);
+        }
+    }
+}
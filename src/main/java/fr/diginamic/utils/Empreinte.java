@@ -0,0 +1,160 @@
+package fr.diginamic.utils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Empreintes 64 bits non cryptographiques, pour détecter qu'un contenu a changé
+ * entre deux imports : le contenu est lu par mots de 8 octets, chaque mot est mélangé
+ * dans l'état puis l'état final passe par le finaliseur de MurmurHash3.
+ * Deux contenus différents ont une empreinte égale avec une probabilité de l'ordre de 2^-64.
+ */
+public final class Empreinte {
+
+    private static final long PREMIER_1 = 0x9E3779B97F4A7C15L;
+    private static final long PREMIER_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /** Taille des fenêtres projetées successivement pour hacher un fichier */
+    private static final long TAILLE_FENETRE = 1L << 30;
+
+    /** Constructeur privé pour empêcher l’instanciation */
+    private Empreinte() {
+        throw new AssertionError("Classe utilitaire, ne doit pas être instanciée.");
+    }
+
+    /**
+     * Empreinte d'un préfixe de fichier, prolongeable quand le fichier s'allonge
+     * @param octets longueur du préfixe
+     * @param etat état du mélange après les mots de 8 octets complets du préfixe, à reprendre pour le prolonger
+     * @param empreinte empreinte du préfixe, égale à {@link #prefixe(Path, long)}
+     * @param finsDeLigne nombre de '\n' du préfixe, comptés pendant le même parcours
+     */
+    public record Prefixe(long octets, long etat, long empreinte, long finsDeLigne) {
+
+        /** Préfixe vide, point de départ d'un fichier haché depuis le début */
+        public static final Prefixe VIDE = new Prefixe(0, PREMIER_1, finaliser(PREMIER_1), 0);
+    }
+
+    /**
+     * Calcule l'empreinte des premiers octets d'un fichier, lus par projection mémoire
+     * @param fichier chemin du fichier
+     * @param longueur nombre d'octets à prendre en compte depuis le début
+     * @return l'empreinte du préfixe
+     * @throws IOException en cas d'erreur de lecture ou si le fichier est plus court que la longueur
+     */
+    public static long prefixe(Path fichier, long longueur) throws IOException {
+        return prolonger(fichier, Prefixe.VIDE, longueur).empreinte();
+    }
+
+    /**
+     * Prolonge l'empreinte d'un préfixe déjà haché : seuls les octets ajoutés sont lus, ainsi que
+     * les au plus 7 octets du dernier mot incomplet du préfixe. Le résultat est celui d'un hachage
+     * depuis le début, à condition que les octets du préfixe n'aient pas changé entre-temps.
+     * @param fichier chemin du fichier
+     * @param depuis préfixe déjà haché, {@link Prefixe#VIDE} pour partir du début
+     * @param longueur nouvelle longueur du préfixe, au moins celle de depuis
+     * @return le préfixe prolongé
+     * @throws IOException en cas d'erreur de lecture ou si le fichier est plus court que la longueur
+     */
+    public static Prefixe prolonger(Path fichier, Prefixe depuis, long longueur) throws IOException {
+        if (longueur < depuis.octets()) {
+            throw new IllegalArgumentException("Préfixe déjà haché plus long que la longueur demandée : " + fichier);
+        }
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() < longueur) {
+                throw new IOException("Fichier plus court que le préfixe demandé : " + fichier);
+            }
+            long etat = depuis.etat();
+            long finsDeLigne = depuis.finsDeLigne();
+            // Reprise au début du dernier mot incomplet, dont les octets déjà comptés sont écartés du décompte
+            long debut = depuis.octets() & -Long.BYTES;
+            int dejaComptes = (int) (depuis.octets() - debut) * Byte.SIZE;
+            long reste = 0;
+            while (debut < longueur) {
+                long fin = Math.min((debut / TAILLE_FENETRE + 1) * TAILLE_FENETRE, longueur);
+                MappedByteBuffer zone = canal.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+                zone.order(ByteOrder.LITTLE_ENDIAN);
+                while (zone.remaining() >= Long.BYTES) {
+                    long mot = zone.getLong();
+                    etat = melanger(etat, mot);
+                    finsDeLigne += finsDeLigne(mot >>> dejaComptes);
+                    dejaComptes = 0;
+                }
+                reste = 0;
+                for (int decalage = 0; zone.hasRemaining(); decalage += Byte.SIZE) {
+                    reste |= (zone.get() & 0xFFL) << decalage;
+                }
+                finsDeLigne += finsDeLigne(reste >>> dejaComptes);
+                dejaComptes = 0;
+                if (fin % TAILLE_FENETRE == 0) {
+                    // Fenêtre complète : son reste (vide) fait partie de l'état repris
+                    etat = melanger(etat, reste);
+                }
+                debut = fin;
+            }
+            long dernier = longueur % TAILLE_FENETRE == 0 ? etat : melanger(etat, reste);
+            return new Prefixe(longueur, etat, finaliser(dernier ^ longueur), finsDeLigne);
+        }
+    }
+
+    /**
+     * Calcule l'empreinte d'un texte
+     * @param texte texte à hacher
+     * @return l'empreinte du texte
+     */
+    public static long texte(CharSequence texte) {
+        long etat = PREMIER_1;
+        int longueur = texte.length();
+        int i = 0;
+        for (; i + 4 <= longueur; i += 4) {
+            etat = melanger(etat, texte.charAt(i) | (long) texte.charAt(i + 1) << 16
+                    | (long) texte.charAt(i + 2) << 32 | (long) texte.charAt(i + 3) << 48);
+        }
+        long reste = 0;
+        for (int decalage = 0; i < longueur; i++, decalage += Character.SIZE) {
+            reste |= (long) texte.charAt(i) << decalage;
+        }
+        return finaliser(melanger(etat, reste) ^ longueur);
+    }
+
+    /**
+     * Calcule l'empreinte d'une clé naturelle datée, sans concaténer ses champs
+     * @param jourEpoch date en jours depuis 1970-01-01
+     * @param champs autres champs de la clé, dans un ordre fixe
+     * @return l'empreinte de la clé
+     */
+    public static long cle(long jourEpoch, CharSequence... champs) {
+        long etat = melanger(PREMIER_1, jourEpoch);
+        for (CharSequence champ : champs) {
+            etat = melanger(etat, texte(champ));
+        }
+        return finaliser(etat ^ champs.length);
+    }
+
+    /**
+     * Compte les octets '\n' d'un mot de 8 octets, sans branchement : un octet nul après le ou exclusif
+     * est le seul à ne pas positionner son bit de poids fort, que ce soit par lui-même ou par l'addition
+     */
+    private static long finsDeLigne(long mot) {
+        long x = mot ^ 0x0A0A0A0A0A0A0A0AL;
+        long y = (x & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return Long.bitCount(~(y | x | 0x7F7F7F7F7F7F7F7FL));
+    }
+
+    private static long melanger(long etat, long mot) {
+        return Long.rotateLeft(etat ^ (mot * PREMIER_2), 31) * PREMIER_1;
+    }
+
+    private static long finaliser(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
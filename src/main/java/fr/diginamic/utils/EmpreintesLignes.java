@@ -0,0 +1,138 @@
+package fr.diginamic.utils;
+
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Empreintes des lignes d'un fichier déjà importées, indexées par l'empreinte de leur clé naturelle.
+ * Chaque ligne relue est classée {@link EtatLigne#INCHANGEE}, {@link EtatLigne#MODIFIEE}
+ * ou {@link EtatLigne#NOUVELLE} par deux comparaisons de long, sans requête ni entité.
+ * Une clé rencontrée une seconde fois pendant le même import est classée NOUVELLE :
+ * les contrôles de doublon habituels des services s'appliquent, et seule la première
+ * ligne de la clé est retenue, pour qu'un doublon du fichier ne fasse pas alterner
+ * les valeurs d'un import à l'autre.
+ * Les empreintes retenues sont écrites en fin de fichier, dans la transaction de l'import.
+ * Non thread-safe : utilisée par le seul écrivain de l'étape.
+ */
+public final class EmpreintesLignes {
+
+    private static final int PREMIERE = 1;
+    private static final int TRAITEE = 2;
+
+    private final String fichier;
+    private final LongLongHashMap connues;
+
+    /** Clés rencontrées pendant cet import : PREMIERE tant que la ligne n'est pas retenue */
+    private final LongIntHashMap vues;
+
+    private long[] nouvellesCles = new long[64];
+    private long[] nouvellesEmpreintes = new long[64];
+    private int nouvelles;
+    private long[] modifieesCles = new long[64];
+    private long[] modifieesEmpreintes = new long[64];
+    private int modifiees;
+
+    /**
+     * Crée un ensemble d'empreintes vide
+     * @param fichier nom du fichier d'import
+     * @param entreesAttendues nombre de lignes prévu
+     */
+    public EmpreintesLignes(String fichier, int entreesAttendues) {
+        this.fichier = fichier;
+        this.connues = new LongLongHashMap(entreesAttendues);
+        this.vues = new LongIntHashMap(entreesAttendues);
+    }
+
+    /**
+     * Charge les empreintes enregistrées lors des imports précédents d'un fichier
+     * @param fichier nom du fichier d'import
+     * @param dao DAO des empreintes
+     * @return les empreintes du fichier
+     */
+    public static EmpreintesLignes charger(String fichier, EmpreinteLigneDaoImpl dao) {
+        long nombre = dao.countByFichier(fichier);
+        EmpreintesLignes empreintes = new EmpreintesLignes(fichier, (int) Math.min(nombre, Integer.MAX_VALUE / 2));
+        try (Stream<Object[]> lignes = dao.streamByFichier(fichier)) {
+            lignes.forEach(t -> empreintes.connues.put((Long) t[0], (Long) t[1]));
+        }
+        return empreintes;
+    }
+
+    /**
+     * Classe une ligne par rapport à la version importée précédemment
+     * @param cle empreinte de la clé naturelle de la ligne
+     * @param empreinte empreinte du texte de la ligne
+     * @return l'état de la ligne
+     */
+    public EtatLigne etat(long cle, long empreinte) {
+        if (vues.put(cle, PREMIERE) != LongIntHashMap.ABSENT) {
+            vues.put(cle, TRAITEE);
+            return EtatLigne.NOUVELLE;
+        }
+        if (!connues.containsKey(cle)) {
+            return EtatLigne.NOUVELLE;
+        }
+        return connues.getOrDefault(cle, empreinte) == empreinte ? EtatLigne.INCHANGEE : EtatLigne.MODIFIEE;
+    }
+
+    /**
+     * Retient l'empreinte d'une ligne importée avec succès, sans effet pour une clé déjà traitée
+     * @param cle empreinte de la clé naturelle de la ligne
+     * @param empreinte empreinte du texte de la ligne
+     */
+    public void retenir(long cle, long empreinte) {
+        if (vues.get(cle) != PREMIERE) {
+            return;
+        }
+        vues.put(cle, TRAITEE);
+        boolean connue = connues.containsKey(cle);
+        if (connue && connues.getOrDefault(cle, empreinte) == empreinte) {
+            return;
+        }
+        connues.put(cle, empreinte);
+        if (connue) {
+            if (modifiees == modifieesCles.length) {
+                modifieesCles = Arrays.copyOf(modifieesCles, modifiees * 2);
+                modifieesEmpreintes = Arrays.copyOf(modifieesEmpreintes, modifiees * 2);
+            }
+            modifieesCles[modifiees] = cle;
+            modifieesEmpreintes[modifiees++] = empreinte;
+        } else {
+            if (nouvelles == nouvellesCles.length) {
+                nouvellesCles = Arrays.copyOf(nouvellesCles, nouvelles * 2);
+                nouvellesEmpreintes = Arrays.copyOf(nouvellesEmpreintes, nouvelles * 2);
+            }
+            nouvellesCles[nouvelles] = cle;
+            nouvellesEmpreintes[nouvelles++] = empreinte;
+        }
+    }
+
+    /**
+     * Écrit les empreintes retenues depuis le dernier enregistrement
+     * @param dao DAO des empreintes, sur l'EntityManager de l'import
+     */
+    public void enregistrer(EmpreinteLigneDaoImpl dao) {
+        dao.insererParLot(fichier, nouvellesCles, nouvellesEmpreintes, nouvelles);
+        dao.mettreAJourParLot(fichier, modifieesCles, modifieesEmpreintes, modifiees);
+        nouvelles = 0;
+        modifiees = 0;
+    }
+
+    /**
+     * Getter
+     * @return nombre de lignes nouvelles retenues et non encore enregistrées
+     */
+    public int getNouvelles() {
+        return nouvelles;
+    }
+
+    /**
+     * Getter
+     * @return nombre de lignes modifiées retenues et non encore enregistrées
+     */
+    public int getModifiees() {
+        return modifiees;
+    }
+}
@@ -0,0 +1,80 @@
+package fr.diginamic.utils;
+
+import fr.diginamic.model.Equipe;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registre en mémoire des équipes (nom → id) partagé par les imports.
+ * Préchargé en une seule requête puis tenu à jour à chaque insertion,
+ * il évite un aller-retour en base pour chaque résolution d'équipe.
+ * Seuls les ids sont conservés : ils restent valides après un clear() de l'EntityManager.
+ */
+public final class EquipeRegistry {
+
+    private final Map<String, Integer> equipes = new HashMap<>();
+
+    /** Noms portés par plusieurs équipes en base : jamais résolus, signalés en doublon */
+    private final Set<String> doublons = new HashSet<>();
+
+    /**
+     * Charge les équipes déjà présentes en base
+     * @param existantes liste de toutes les équipes en base
+     */
+    public void charger(List<Equipe> existantes) {
+        for (Equipe equipe : existantes) {
+            if (equipes.putIfAbsent(equipe.getNom(), equipe.getId()) != null) {
+                doublons.add(equipe.getNom());
+            }
+        }
+        doublons.forEach(equipes::remove);
+    }
+
+    /**
+     * Récupère l'id de l'équipe portant ce nom
+     * @param nom nom de l'équipe
+     * @return l'id de l'équipe, ou 0 si absente ou en doublon
+     */
+    public int getId(String nom) {
+        Integer id = equipes.get(nom);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Indique si le nom est connu du registre (équipe unique ou doublon)
+     * @param nom nom de l'équipe
+     * @return true si une équipe au moins porte ce nom
+     */
+    public boolean contient(String nom) {
+        return equipes.containsKey(nom) || doublons.contains(nom);
+    }
+
+    /**
+     * Indique si plusieurs équipes portent ce nom en base
+     * @param nom nom de l'équipe
+     * @return true si le nom est en doublon
+     */
+    public boolean estDoublon(String nom) {
+        return doublons.contains(nom);
+    }
+
+    /**
+     * Référence une équipe qui vient d'être insérée
+     * @param equipe équipe persistée
+     */
+    public void enregistrer(Equipe equipe) {
+        equipes.put(equipe.getNom(), equipe.getId());
+    }
+
+    /**
+     * Getter
+     * @return nombre d'équipes résolues par le registre
+     */
+    public int taille() {
+        return equipes.size();
+    }
+}
@@ -1,17 +1,132 @@
 package fr.diginamic.utils;
 
+import fr.diginamic.dao.ErreurImportDaoImpl;
 import fr.diginamic.model.ErreurImport;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 /**
  * Utilitaire centralisant les erreurs rencontrées pendant l'import.
  * À utiliser à la place du DAO pour éviter les conflits de transaction.
+ * Thread-safe : partagé par les étapes d'import exécutées en parallèle.
+ * Deux modes :
+ * - en mémoire (constructeur sans argument) : les erreurs sont conservées jusqu'à leur persistance par l'appelant ;
+ * - en flux (avec une fabrique d'EntityManager) : les erreurs passent par une file bornée qu'un thread
+ * écrivain vide par batch JDBC, dans ses propres transactions. Elles restent en base même si l'import
+ * est annulé, et la mémoire occupée ne dépend pas de leur nombre : si l'écrivain prend du retard,
+ * les threads d'import attendent qu'une place se libère dans la file.
+ * Dans les deux modes, le nombre d'erreurs par traitement est tenu à jour.
+ * Les erreurs sont aussi regroupées par fichier, traitement et message normalisé (valeurs entre
+ * guillemets, nombres et texte de la ligne remplacés) : les traces de pile ne sont affichées que pour
+ * les premières occurrences de chaque groupe et, en mode agrégation, seules les K premières lignes
+ * d'un groupe sont conservées, les suivantes étant résumées par un décompte à la fermeture.
  */
-public final class ErreurCollector {
+public final class ErreurCollector implements AutoCloseable {
 
-    private final List<ErreurImport> erreurs = new ArrayList<>();
+    /** Nombre d'erreurs en attente d'écriture au-delà duquel les producteurs sont bloqués */
+    private static final int CAPACITE_DEFAUT = 10_000;
+
+    /** Nombre maximal d'erreurs écrites par batch JDBC */
+    public static final int TAILLE_BATCH = 500;
+
+    /** Délai d'attente de l'écrivain, au terme duquel il vérifie s'il doit s'arrêter */
+    private static final long ATTENTE_MS = 200;
+
+    /** Nombre de traces de pile affichées par groupe d'erreurs */
+    private static final int TRACES_PAR_GROUPE = 3;
+
+    /** Nombre maximal de groupes distincts, au-delà les messages sont regroupés par fichier et traitement */
+    private static final int GROUPES_MAX = 10_000;
+
+    private static final Pattern ENTRE_GUILLEMETS = Pattern.compile("\"[^\"]*\"");
+    private static final Pattern NOMBRE = Pattern.compile("\\d+");
+
+    /**
+     * Erreurs identiques à la valeur près
+     */
+    private static final class Groupe {
+        private final String fichier;
+        private final String traitement;
+        private final String message;
+        private final AtomicLong occurrences = new AtomicLong();
+        private final AtomicInteger traces = new AtomicInteger();
+
+        private Groupe(String fichier, String traitement, String message) {
+            this.fichier = fichier;
+            this.traitement = traitement;
+            this.message = message;
+        }
+    }
+
+    private final List<ErreurImport> erreurs;
+
+    /** Nombre d'erreurs déjà remises pour être persistées, protégé par le verrou de la liste */
+    private int extraites;
+
+    private final BlockingQueue<ErreurImport> aEcrire;
+    private final EntityManagerFactory emf;
+    private final Thread ecrivain;
+    private final AtomicBoolean ferme = new AtomicBoolean();
+
+    /** Demande d'arrêt de l'écrivain, une fois les dernières erreurs déposées */
+    private volatile boolean arret;
+
+    private final Map<String, LongAdder> parTraitement = new ConcurrentHashMap<>();
+    private final Map<String, Groupe> groupes = new ConcurrentHashMap<>();
+
+    /** Nombre de lignes conservées par groupe d'erreurs, 0 pour toutes les conserver */
+    private volatile int echantillons;
+    private final LongAdder total = new LongAdder();
+    private final LongAdder ecrites = new LongAdder();
+    private final LongAdder perdues = new LongAdder();
+
+    /**
+     * Collecteur en mémoire : les erreurs sont conservées jusqu'à leur persistance par l'appelant
+     */
+    public ErreurCollector() {
+        this.erreurs = Collections.synchronizedList(new ArrayList<>());
+        this.aEcrire = null;
+        this.emf = null;
+        this.ecrivain = null;
+    }
+
+    /**
+     * Collecteur en flux avec une file de capacité par défaut
+     * @param emf fabrique de l'EntityManager propre à l'écrivain
+     */
+    public ErreurCollector(EntityManagerFactory emf) {
+        this(emf, CAPACITE_DEFAUT);
+    }
+
+    /**
+     * Collecteur en flux : démarre l'écrivain des erreurs
+     * @param emf fabrique de l'EntityManager propre à l'écrivain
+     * @param capacite nombre maximal d'erreurs en attente d'écriture
+     */
+    public ErreurCollector(EntityManagerFactory emf, int capacite) {
+        this.erreurs = Collections.synchronizedList(new ArrayList<>());
+        this.aEcrire = new ArrayBlockingQueue<>(capacite);
+        this.emf = emf;
+        this.ecrivain = Thread.ofPlatform().daemon().name("ecrivain-erreurs").start(this::ecrire);
+    }
 
     /**
      * Ajoute une erreur complète
@@ -21,14 +136,247 @@ public final class ErreurCollector {
      * @param traitement nom de l'étape ou de l'entité concernée
      */
     public void log(String fichier, String ligne, String message, String traitement) {
-        erreurs.add(new ErreurImport(fichier, ligne, message, traitement));
+        enregistrer(fichier, ligne, message, traitement);
+    }
+
+    /**
+     * Ajoute une erreur due à une exception ; sa trace de pile n'est affichée
+     * que pour les premières occurrences de son groupe
+     * @param fichier nom du fichier en erreur
+     * @param ligne ligne source
+     * @param e exception levée
+     * @param traitement nom de l'étape ou de l'entité concernée
+     */
+    public void logException(String fichier, String ligne, Exception e, String traitement) {
+        Groupe groupe = enregistrer(fichier, ligne, e.getMessage(), traitement);
+        int trace = groupe.traces.getAndIncrement();
+        if (trace < TRACES_PAR_GROUPE) {
+            System.err.println("Erreur (" + traitement + ") ligne : " + ligne);
+            e.printStackTrace();
+        } else if (trace == TRACES_PAR_GROUPE) {
+            System.err.println("Erreurs suivantes sans trace (" + traitement + ") : " + groupe.message);
+        }
     }
 
     /**
-     * Retourne toutes les erreurs accumulées
-     * @return liste d'erreurs
+     * Compte une erreur dans son traitement et son groupe, puis la conserve
+     * sauf si son groupe a déjà atteint le nombre d'échantillons
+     */
+    private Groupe enregistrer(String fichier, String ligne, String message, String traitement) {
+        total.increment();
+        parTraitement.computeIfAbsent(Objects.requireNonNullElse(traitement, ""), t -> new LongAdder()).increment();
+        Groupe groupe = groupe(fichier, ligne, message, traitement);
+        long occurrence = groupe.occurrences.incrementAndGet();
+        int limite = echantillons;
+        if (limite == 0 || occurrence <= limite) {
+            conserver(new ErreurImport(fichier, ligne, message, traitement));
+        }
+        return groupe;
+    }
+
+    private void conserver(ErreurImport erreur) {
+        if (aEcrire == null) {
+            erreurs.add(erreur);
+        } else {
+            envoyer(erreur);
+        }
+    }
+
+    /**
+     * Retrouve le groupe d'une erreur, créé à sa première occurrence
+     */
+    private Groupe groupe(String fichier, String ligne, String message, String traitement) {
+        String normalise = normaliser(message, ligne);
+        String cle = fichier + '\u0000' + traitement + '\u0000' + normalise;
+        Groupe groupe = groupes.get(cle);
+        if (groupe != null) {
+            return groupe;
+        }
+        if (groupes.size() >= GROUPES_MAX) {
+            normalise = "(autres messages)";
+            cle = fichier + '\u0000' + traitement + '\u0000' + normalise;
+        }
+        String libelle = normalise;
+        return groupes.computeIfAbsent(cle, c -> new Groupe(fichier, traitement, libelle));
+    }
+
+    /**
+     * Normalise un message d'erreur pour regrouper les erreurs qui ne diffèrent que par les valeurs
+     * @param message message d'erreur
+     * @param ligne ligne source, remplacée si le message la reprend
+     * @return le message normalisé
+     */
+    static String normaliser(String message, String ligne) {
+        if (message == null) {
+            return "";
+        }
+        String normalise = ligne != null && !ligne.isEmpty() ? message.replace(ligne, "<ligne>") : message;
+        normalise = ENTRE_GUILLEMETS.matcher(normalise).replaceAll("\"?\"");
+        return NOMBRE.matcher(normalise).replaceAll("#");
+    }
+
+    /**
+     * Retourne les erreurs apparues depuis le précédent appel, pour les persister
+     * au fil de l'import ; elles restent comptées dans {@link #getNombreErreurs()}.
+     * En mode flux, l'écrivain les persiste lui-même : la liste est toujours vide.
+     * @return les erreurs non encore extraites
+     */
+    public List<ErreurImport> extraireNonEnregistrees() {
+        synchronized (erreurs) {
+            List<ErreurImport> nouvelles = new ArrayList<>(erreurs.subList(extraites, erreurs.size()));
+            extraites = erreurs.size();
+            return nouvelles;
+        }
+    }
+
+    /**
+     * Retourne toutes les erreurs accumulées en mode mémoire
+     * @return liste d'erreurs, vide en mode flux où les erreurs ne sont pas conservées
      */
     public List<ErreurImport> getErreurs() {
         return erreurs;
     }
+
+    /**
+     * Getter
+     * @return nombre total d'erreurs collectées
+     */
+    public long getNombreErreurs() {
+        return total.sum();
+    }
+
+    /**
+     * Getter
+     * @return nombre d'erreurs collectées par traitement, triées par nom de traitement
+     */
+    public Map<String, Long> getNombreParTraitement() {
+        Map<String, Long> nombres = new TreeMap<>();
+        parTraitement.forEach((traitement, nombre) -> nombres.put(traitement, nombre.sum()));
+        return nombres;
+    }
+
+    /**
+     * Getter
+     * @return nombre d'occurrences par groupe d'erreurs ("fichier / traitement / message normalisé"),
+     * du plus fréquent au moins fréquent
+     */
+    public Map<String, Long> getNombreParGroupe() {
+        Map<String, Long> nombres = new LinkedHashMap<>();
+        groupes.values().stream()
+                .sorted((a, b) -> Long.compare(b.occurrences.get(), a.occurrences.get()))
+                .forEach(g -> nombres.put(g.fichier + " / " + g.traitement + " / " + g.message, g.occurrences.get()));
+        return nombres;
+    }
+
+    /**
+     * Setter
+     * @param echantillons nombre de lignes conservées par groupe d'erreurs identiques, 0 pour toutes les conserver
+     */
+    public void setEchantillons(int echantillons) {
+        this.echantillons = echantillons;
+    }
+
+    /**
+     * Getter
+     * @return nombre d'erreurs écrites en base par l'écrivain
+     */
+    public long getNombreEcrites() {
+        return ecrites.sum();
+    }
+
+    /**
+     * Getter
+     * @return nombre d'erreurs que l'écrivain n'a pas pu écrire
+     */
+    public long getNombrePerdues() {
+        return perdues.sum();
+    }
+
+    /**
+     * En mode agrégation, ajoute une erreur de synthèse par groupe dont des lignes n'ont pas été conservées ;
+     * puis attend l'écriture des erreurs en attente et arrête l'écrivain (mode flux)
+     */
+    @Override
+    public void close() {
+        if (!ferme.compareAndSet(false, true)) {
+            return;
+        }
+        int limite = echantillons;
+        if (limite > 0) {
+            for (Groupe groupe : groupes.values()) {
+                long occurrences = groupe.occurrences.get();
+                if (occurrences > limite) {
+                    conserver(new ErreurImport(groupe.fichier, null, occurrences + " occurrences, "
+                            + limite + " lignes conservées : " + groupe.message, groupe.traitement));
+                }
+            }
+        }
+        if (ecrivain == null) {
+            return;
+        }
+        arret = true;
+        try {
+            ecrivain.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Dépose une erreur dans la file, en attendant une place tant que l'écrivain est actif
+     */
+    private void envoyer(ErreurImport erreur) {
+        try {
+            while (!aEcrire.offer(erreur, ATTENTE_MS, TimeUnit.MILLISECONDS)) {
+                if (!ecrivain.isAlive()) {
+                    perdues.increment();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            perdues.increment();
+        }
+    }
+
+    /**
+     * Boucle de l'écrivain : vide la file par lots jusqu'à la fermeture du collecteur
+     */
+    private void ecrire() {
+        EntityManager em = emf.createEntityManager();
+        ErreurImportDaoImpl dao = new ErreurImportDaoImpl(em);
+        List<ErreurImport> lot = new ArrayList<>(TAILLE_BATCH);
+        try {
+            while (!arret || !aEcrire.isEmpty()) {
+                ErreurImport premiere = aEcrire.poll(ATTENTE_MS, TimeUnit.MILLISECONDS);
+                if (premiere != null) {
+                    lot.add(premiere);
+                    aEcrire.drainTo(lot, TAILLE_BATCH - 1);
+                    ecrireLot(em, dao, lot);
+                    lot.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            perdues.add(aEcrire.size() + lot.size());
+            em.close();
+        }
+    }
+
+    private void ecrireLot(EntityManager em, ErreurImportDaoImpl dao, List<ErreurImport> lot) {
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            dao.insererParLot(lot);
+            transaction.commit();
+            ecrites.add(lot.size());
+        } catch (RuntimeException e) {
+            System.err.println("Écriture de " + lot.size() + " erreurs d'import impossible : " + e.getMessage());
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            perdues.add(lot.size());
+        }
+    }
 }
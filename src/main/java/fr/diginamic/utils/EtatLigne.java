@@ -0,0 +1,16 @@
+package fr.diginamic.utils;
+
+/**
+ * État d'une ligne d'import par rapport à la version importée précédemment
+ */
+public enum EtatLigne {
+
+    /** Clé naturelle inconnue (ou déjà rencontrée pendant cet import) : traitement complet */
+    NOUVELLE,
+
+    /** Même clé naturelle, texte différent : mise à jour en place */
+    MODIFIEE,
+
+    /** Même clé naturelle et même texte : ligne ignorée */
+    INCHANGEE
+}
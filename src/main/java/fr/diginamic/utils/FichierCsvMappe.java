@@ -0,0 +1,195 @@
+package fr.diginamic.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture de fichiers CSV du disque par projection mémoire (FileChannel.map) :
+ * l'UTF-8 est décodé directement depuis la zone projetée vers le tampon du lecteur,
+ * sans InputStream ni BufferedReader intermédiaire.
+ * Le fichier peut être découpé en segments alignés sur les fins de ligne pour être
+ * réparti entre plusieurs threads. Le découpage suppose qu'aucun champ entre guillemets
+ * ne contient de retour à la ligne, ce qui est le cas des fichiers d'import.
+ */
+public final class FichierCsvMappe {
+
+    /** Taille maximale d'une projection (limite de MappedByteBuffer) */
+    static final long TAILLE_MAX_SEGMENT = Integer.MAX_VALUE;
+
+    /** Constructeur privé pour empêcher l’instanciation */
+    private FichierCsvMappe() {
+        throw new AssertionError("Classe utilitaire, ne doit pas être instanciée.");
+    }
+
+    /**
+     * Découpe un fichier en segments de tailles proches, chacun commençant en début de ligne
+     * @param fichier chemin du fichier
+     * @param nombreSegments nombre de segments souhaité (augmenté si un segment dépasse 2 Go)
+     * @return les segments dans l'ordre du fichier
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static List<SegmentFichier> segmenter(Path fichier, int nombreSegments) throws IOException {
+        long taille;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            taille = canal.size();
+        }
+        return segmenter(new SegmentFichier(fichier, 0, taille, true), nombreSegments);
+    }
+
+    /**
+     * Découpe une plage d'un fichier en segments de tailles proches, chacun commençant en début de ligne
+     * @param plage plage à découper, commençant en début de ligne
+     * @param nombreSegments nombre de segments souhaité (augmenté si un segment dépasse 2 Go)
+     * @return les segments dans l'ordre du fichier ; seul un segment débutant le fichier contient l'en-tête
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static List<SegmentFichier> segmenter(SegmentFichier plage, int nombreSegments) throws IOException {
+        try (FileChannel canal = FileChannel.open(plage.fichier(), StandardOpenOption.READ)) {
+            long taille = plage.taille();
+            long minimum = (taille + TAILLE_MAX_SEGMENT - 2) / (TAILLE_MAX_SEGMENT - 1);
+            int nombre = (int) Math.max(Math.max(nombreSegments, minimum), 1);
+            long cible = Math.max(taille / nombre, 1);
+
+            List<SegmentFichier> segments = new ArrayList<>(nombre);
+            long debut = plage.debut();
+            ByteBuffer octet = ByteBuffer.allocate(4096);
+            while (debut < plage.fin()) {
+                long fin = segments.size() == nombre - 1 ? plage.fin()
+                        : Math.min(finDeLigne(canal, debut + cible, octet), plage.fin());
+                fin = Math.min(fin, debut + TAILLE_MAX_SEGMENT);
+                segments.add(new SegmentFichier(plage.fichier(), debut, fin, debut == 0));
+                debut = fin;
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Cherche la fin de la dernière ligne complète avant une limite
+     * @param fichier chemin du fichier
+     * @param limite position à ne pas dépasser (taille du fichier en général)
+     * @return la position suivant le dernier '\n' avant la limite, 0 s'il n'y en a pas
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static long finDerniereLigne(Path fichier, long limite) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            ByteBuffer tampon = ByteBuffer.allocate(4096);
+            long fin = Math.min(limite, canal.size());
+            while (fin > 0) {
+                long debut = Math.max(fin - tampon.capacity(), 0);
+                tampon.clear().limit((int) (fin - debut));
+                while (tampon.hasRemaining() && canal.read(tampon, debut + tampon.position()) > 0) {
+                    // lecture complète de la fenêtre
+                }
+                for (int i = tampon.position() - 1; i >= 0; i--) {
+                    if (tampon.get(i) == '\n') {
+                        return debut + i + 1;
+                    }
+                }
+                fin = debut;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Compte les fins de ligne d'une plage du fichier
+     * @param plage plage à parcourir
+     * @return le nombre de '\n' de la plage
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static long compterLignes(SegmentFichier plage) throws IOException {
+        long lignes = 0;
+        for (SegmentFichier segment : segmenter(plage, 1)) {
+            try (FileChannel canal = FileChannel.open(segment.fichier(), StandardOpenOption.READ)) {
+                MappedByteBuffer zone = canal.map(FileChannel.MapMode.READ_ONLY, segment.debut(), segment.taille());
+                while (zone.hasRemaining()) {
+                    if (zone.get() == '\n') {
+                        lignes++;
+                    }
+                }
+            }
+        }
+        return lignes;
+    }
+
+    /**
+     * Ouvre un lecteur UTF-8 sur un segment projeté en mémoire
+     * @param segment segment à lire
+     * @return lecteur de caractères à fermer après usage
+     * @throws IOException en cas d'erreur de projection
+     */
+    public static Reader ouvrir(SegmentFichier segment) throws IOException {
+        try (FileChannel canal = FileChannel.open(segment.fichier(), StandardOpenOption.READ)) {
+            // La projection reste valide après la fermeture du canal
+            MappedByteBuffer zone = canal.map(FileChannel.MapMode.READ_ONLY, segment.debut(), segment.taille());
+            return new LecteurUtf8(zone);
+        }
+    }
+
+    /**
+     * Cherche la position suivant le premier '\n' à partir d'une position donnée
+     */
+    private static long finDeLigne(FileChannel canal, long depart, ByteBuffer tampon) throws IOException {
+        long position = depart;
+        while (true) {
+            tampon.clear();
+            int lus = canal.read(tampon, position);
+            if (lus <= 0) {
+                return canal.size();
+            }
+            for (int i = 0; i < lus; i++) {
+                if (tampon.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += lus;
+        }
+    }
+
+    /**
+     * Lecteur décodant l'UTF-8 d'une zone projetée directement dans le tableau de l'appelant
+     */
+    private static final class LecteurUtf8 extends Reader {
+
+        private final ByteBuffer zone;
+        private final CharsetDecoder decodeur = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private boolean termine;
+
+        LecteurUtf8(ByteBuffer zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (termine) {
+                return -1;
+            }
+            CharBuffer cible = CharBuffer.wrap(cbuf, off, len);
+            decodeur.decode(zone, cible, true);
+            if (!zone.hasRemaining() && decodeur.flush(cible).isUnderflow()) {
+                termine = true;
+            }
+            int lus = cible.position() - off;
+            return lus == 0 && termine ? -1 : lus;
+        }
+
+        @Override
+        public void close() {
+            termine = true;
+        }
+    }
+}
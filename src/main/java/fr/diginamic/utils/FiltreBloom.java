@@ -0,0 +1,159 @@
+package fr.diginamic.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtre de Bloom sur des clés 64 bits : répond « absent à coup sûr » ou « peut-être présent ».
+ * Une réponse négative est toujours exacte, une réponse positive est fausse avec une probabilité
+ * proche du taux choisi tant que le nombre de clés ajoutées ne dépasse pas le nombre prévu.
+ * Le tableau de bits est dimensionné à la construction (-n·ln p / ln²2 bits, k = m/n·ln 2 hachages)
+ * et les k positions sont dérivées d'un seul mélange de la clé par double hachage.
+ * Les bits sont posés de manière atomique : ajouts et consultations peuvent venir de plusieurs threads.
+ */
+public final class FiltreBloom {
+
+    private final AtomicLongArray bits;
+    private final long nombreBits;
+    private final int nombreHachages;
+
+    private final LongAdder ajouts = new LongAdder();
+    private final LongAdder consultations = new LongAdder();
+    private final LongAdder absents = new LongAdder();
+
+    /**
+     * Crée un filtre vide
+     * @param attendus nombre de clés prévu (existantes et à venir)
+     * @param tauxFauxPositifs probabilité visée d'une réponse positive pour une clé absente, entre 0 et 1 exclus
+     */
+    public FiltreBloom(long attendus, double tauxFauxPositifs) {
+        if (attendus < 1 || !(tauxFauxPositifs > 0 && tauxFauxPositifs < 1)) {
+            throw new IllegalArgumentException("Filtre de Bloom invalide : " + attendus + " clés, taux "
+                    + tauxFauxPositifs);
+        }
+        double ln2 = Math.log(2);
+        long mots = Math.max(1, (long) Math.ceil(-attendus * Math.log(tauxFauxPositifs) / (ln2 * ln2) / Long.SIZE));
+        if (mots > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtre de Bloom trop grand : " + attendus + " clés");
+        }
+        this.bits = new AtomicLongArray((int) mots);
+        this.nombreBits = mots * Long.SIZE;
+        this.nombreHachages = (int) Math.max(1, Math.round((double) nombreBits / attendus * ln2));
+    }
+
+    /**
+     * Ajoute une clé
+     * @param cle clé naturelle compactée ou hachée sur 64 bits
+     */
+    public void ajouter(long cle) {
+        long h = melanger(cle);
+        long pas = (h >>> 32) | 1;
+        for (int i = 0; i < nombreHachages; i++, h += pas) {
+            long position = Long.remainderUnsigned(h, nombreBits);
+            int mot = (int) (position >>> 6);
+            long masque = 1L << position;
+            if ((bits.get(mot) & masque) == 0) {
+                bits.getAndAccumulate(mot, masque, (a, b) -> a | b);
+            }
+        }
+        ajouts.increment();
+    }
+
+    /**
+     * Indique si la clé a pu être ajoutée
+     * @param cle clé naturelle compactée ou hachée sur 64 bits
+     * @return false si la clé n'a jamais été ajoutée, true si elle l'a peut-être été
+     */
+    public boolean peutContenir(long cle) {
+        consultations.increment();
+        long h = melanger(cle);
+        long pas = (h >>> 32) | 1;
+        for (int i = 0; i < nombreHachages; i++, h += pas) {
+            long position = Long.remainderUnsigned(h, nombreBits);
+            if ((bits.get((int) (position >>> 6)) & 1L << position) == 0) {
+                absents.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consulte un filtre éventuel avant une recherche en base
+     * @param filtre filtre à consulter, null sans filtre
+     * @param cle clé naturelle de l'entité recherchée
+     * @return false si l'entité est absente à coup sûr, true si elle peut exister (ou sans filtre)
+     */
+    public static boolean peutExister(FiltreBloom filtre, long cle) {
+        return filtre == null || filtre.peutContenir(cle);
+    }
+
+    /**
+     * Reporte dans un filtre éventuel une entité insérée, pour qu'elle ne soit plus jamais dite absente
+     * @param filtre filtre à compléter, null sans filtre
+     * @param cle clé naturelle de l'entité insérée
+     */
+    public static void noter(FiltreBloom filtre, long cle) {
+        if (filtre != null) {
+            filtre.ajouter(cle);
+        }
+    }
+
+    /**
+     * Taux de faux positifs attendu compte tenu des clés réellement ajoutées
+     * @return probabilité estimée (1 - e^(-k·n/m))^k
+     */
+    public double tauxFauxPositifsEstime() {
+        return Math.pow(1 - Math.exp(-(double) nombreHachages * ajouts.sum() / nombreBits), nombreHachages);
+    }
+
+    /**
+     * Getter
+     * @return mémoire occupée par le tableau de bits, en octets
+     */
+    public long octets() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    /**
+     * Getter
+     * @return nombre de fonctions de hachage
+     */
+    public int getNombreHachages() {
+        return nombreHachages;
+    }
+
+    /**
+     * Getter
+     * @return nombre de clés ajoutées
+     */
+    public long getAjouts() {
+        return ajouts.sum();
+    }
+
+    /**
+     * Getter
+     * @return nombre de consultations
+     */
+    public long getConsultations() {
+        return consultations.sum();
+    }
+
+    /**
+     * Getter
+     * @return nombre de consultations ayant répondu « absent », donc de recherches évitées
+     */
+    public long getAbsents() {
+        return absents.sum();
+    }
+
+    /** Finaliseur de MurmurHash3 : les ids consécutifs sont dispersés sur tout le tableau */
+    private static long melanger(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,49 @@
+package fr.diginamic.utils;
+
+/**
+ * Filtres de Bloom des clés naturelles déjà en base, construits au démarrage de l'import :
+ * quand un filtre répond « absent », le service insère sans rechercher l'entité.
+ * Équipes et matchs n'en ont pas besoin, leurs registres en mémoire étant complets.
+ * @param buteurs clés (nom, id équipe) des buteurs, voir {@link #cleButeur(String, int)}
+ * @param butsParMatch ids des matchs ayant au moins un but
+ * @param scores ids des matchs ayant un score
+ * @param tirsButs ids des matchs ayant une séance de tirs aux buts
+ */
+public record FiltresExistence(FiltreBloom buteurs, FiltreBloom butsParMatch, FiltreBloom scores,
+                               FiltreBloom tirsButs) {
+
+    /**
+     * Clé d'un buteur dans son filtre
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return empreinte 64 bits de la clé naturelle
+     */
+    public static long cleButeur(String nom, int equipeId) {
+        return Empreinte.cle(equipeId, nom);
+    }
+
+    /**
+     * Mémoire occupée par les quatre filtres
+     * @return taille totale des tableaux de bits, en octets
+     */
+    public long octets() {
+        return buteurs.octets() + butsParMatch.octets() + scores.octets() + tirsButs.octets();
+    }
+
+    /**
+     * Affiche pour chaque filtre la mémoire, les clés, les recherches évitées et le taux de faux positifs estimé
+     */
+    public void afficher() {
+        System.out.println("Filtres de Bloom : " + octets() / 1024 + " Ko");
+        afficher("buteurs", buteurs);
+        afficher("buts par match", butsParMatch);
+        afficher("scores", scores);
+        afficher("tirs aux buts", tirsButs);
+    }
+
+    private static void afficher(String nom, FiltreBloom filtre) {
+        System.out.printf("  %s : %d Ko, %d clés, %d k, %d/%d recherches évitées, faux positifs estimés %.3f %%%n",
+                nom, filtre.octets() / 1024, filtre.getAjouts(), filtre.getNombreHachages(), filtre.getAbsents(),
+                filtre.getConsultations(), filtre.tauxFauxPositifsEstime() * 100);
+    }
+}
@@ -0,0 +1,62 @@
+package fr.diginamic.utils;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mode optionnel d'allocation des identifiants par blocs (table id_generateur, optimiseur pooled).
+ * Contrairement à IDENTITY, l'id est connu dès le persist sans INSERT immédiat :
+ * Hibernate peut alors regrouper les INSERT en batch JDBC.
+ */
+public final class IdGenerateurs {
+
+    /** Fichier de mapping surchargeant la stratégie IDENTITY des entités */
+    public static final String ORM_XML = "META-INF/orm-ids-pooled.xml";
+
+    /** Taille des blocs d'ids, identique à allocation-size dans {@link #ORM_XML} */
+    public static final int TAILLE_ALLOCATION = 50;
+
+    /** Tables dont l'id est alloué par bloc, clé de la ligne dans id_generateur */
+    private static final List<String> TABLES = List.of("equipe", "match_foot", "buteur", "but", "erreur_import");
+
+    /** Constructeur privé pour empêcher l’instanciation */
+    private IdGenerateurs() {
+        throw new AssertionError("Classe utilitaire, ne doit pas être instanciée.");
+    }
+
+    /**
+     * Propriété à ajouter à la fabrique d'EntityManager pour activer le mode
+     * @return propriété Hibernate listant le fichier de mapping
+     */
+    public static Map<String, Object> proprietes() {
+        return Map.of("hibernate.orm_xml_files", List.of(ORM_XML));
+    }
+
+    /**
+     * Crée la table id_generateur si besoin et place chaque compteur au-delà du plus grand id
+     * existant, afin que les blocs alloués ne recouvrent jamais des lignes insérées en
+     * AUTO_INCREMENT (import précédent, moteur staging). À appeler dans une transaction active.
+     * @param em EntityManager utilisé pour les requêtes natives
+     */
+    public static void synchroniser(EntityManager em) {
+        em.createNativeQuery("CREATE TABLE IF NOT EXISTS id_generateur ("
+                + "entite VARCHAR(64) NOT NULL PRIMARY KEY, prochain_id BIGINT NOT NULL)").executeUpdate();
+        for (String table : TABLES) {
+            long plancher = ((Number) em.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)
+                    .getSingleResult()).longValue() + TAILLE_ALLOCATION + 1;
+            int majs = em.createNativeQuery(
+                    "UPDATE id_generateur SET prochain_id = GREATEST(prochain_id, ?) WHERE entite = ?")
+                    .setParameter(1, plancher)
+                    .setParameter(2, table)
+                    .executeUpdate();
+            if (majs == 0) {
+                em.createNativeQuery("INSERT INTO id_generateur (entite, prochain_id) VALUES (?, ?)")
+                        .setParameter(1, table)
+                        .setParameter(2, plancher)
+                        .executeUpdate();
+            }
+        }
+    }
+}
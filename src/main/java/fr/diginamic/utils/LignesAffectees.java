@@ -0,0 +1,39 @@
+package fr.diginamic.utils;
+
+import java.util.Map;
+
+/**
+ * Nombre de lignes renvoyé par les insertions upsert (INSERT ... ON DUPLICATE KEY UPDATE id = id).
+ * Par défaut, Connector/J demande au serveur le nombre de lignes trouvées (CLIENT_FOUND_ROWS) :
+ * un doublon laissé inchangé compte alors 1, exactement comme une insertion.
+ * Avec useAffectedRows=true, seules les lignes réellement modifiées comptent et un doublon ignoré
+ * compte 0 : c'est cette sémantique qui permet aux DAO de distinguer une insertion d'un doublon.
+ */
+public final class LignesAffectees {
+
+    /** Propriété de connexion, transmise telle quelle au pilote JDBC par Hibernate */
+    public static final String PROPRIETE = "hibernate.connection.useAffectedRows";
+
+    /** Constructeur privé pour empêcher l’instanciation */
+    private LignesAffectees() {
+        throw new AssertionError("Classe utilitaire, ne doit pas être instanciée.");
+    }
+
+    /**
+     * Propriété à ajouter à la fabrique d'EntityManager dès que le mode upsert est actif.
+     * Si les connexions viennent d'un pool configuré hors d'Hibernate, ajouter useAffectedRows=true à son URL JDBC.
+     * @return propriété de connexion activant le comptage des lignes modifiées
+     */
+    public static Map<String, Object> proprietes() {
+        return Map.of(PROPRIETE, "true");
+    }
+
+    /**
+     * Interprète le résultat d'un upsert d'une ligne
+     * @param lignes nombre renvoyé par executeUpdate
+     * @return true si la ligne a été insérée, false si un doublon a été ignoré
+     */
+    public static boolean inseree(int lignes) {
+        return lignes == 1;
+    }
+}
@@ -0,0 +1,168 @@
+package fr.diginamic.utils;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage primitive long → int à adressage ouvert (sondage linéaire).
+ * Aucune boîte Long/Integer ni objet d'entrée n'est alloué : les clés et les valeurs
+ * sont rangées dans deux tableaux parallèles, ce qui permet de tenir des dizaines
+ * de millions d'entrées sans pression sur le ramasse-miettes.
+ * Non thread-safe en écriture ; les lectures concurrentes sont sûres une fois le remplissage terminé.
+ */
+public final class LongIntHashMap {
+
+    /** Valeur retournée par {@link #get(long)} pour une clé absente */
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    private static final long CLE_LIBRE = 0L;
+    private static final float TAUX_REMPLISSAGE = 0.6f;
+    private static final int CAPACITE_MAX = 1 << 30;
+
+    private long[] cles;
+    private int[] valeurs;
+    private int masque;
+    private int taille;
+    private int seuil;
+
+    /** La clé 0 sert de marqueur de case libre : elle est stockée à part */
+    private boolean cleZeroPresente;
+    private int valeurCleZero;
+
+    /**
+     * Crée une table dimensionnée pour le nombre d'entrées attendu
+     * @param entreesAttendues nombre d'entrées prévu (évite les redimensionnements)
+     */
+    public LongIntHashMap(int entreesAttendues) {
+        int capacite = capacitePour(Math.max(entreesAttendues, 16));
+        allouer(capacite);
+    }
+
+    /**
+     * Récupère la valeur associée à une clé
+     * @param cle clé recherchée
+     * @return la valeur, ou {@link #ABSENT} si la clé est inconnue
+     */
+    public int get(long cle) {
+        if (cle == CLE_LIBRE) {
+            return cleZeroPresente ? valeurCleZero : ABSENT;
+        }
+        int i = index(cle);
+        long courante;
+        while ((courante = cles[i]) != CLE_LIBRE) {
+            if (courante == cle) {
+                return valeurs[i];
+            }
+            i = (i + 1) & masque;
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Indique si la clé est présente
+     * @param cle clé recherchée
+     * @return true si présente
+     */
+    public boolean containsKey(long cle) {
+        return get(cle) != ABSENT;
+    }
+
+    /**
+     * Associe une valeur à une clé
+     * @param cle clé
+     * @param valeur valeur (différente de {@link #ABSENT})
+     * @return l'ancienne valeur, ou {@link #ABSENT}
+     */
+    public int put(long cle, int valeur) {
+        if (valeur == ABSENT) {
+            throw new IllegalArgumentException("Valeur réservée : " + valeur);
+        }
+        if (cle == CLE_LIBRE) {
+            int ancienne = cleZeroPresente ? valeurCleZero : ABSENT;
+            if (!cleZeroPresente) {
+                cleZeroPresente = true;
+                taille++;
+            }
+            valeurCleZero = valeur;
+            return ancienne;
+        }
+        int i = index(cle);
+        long courante;
+        while ((courante = cles[i]) != CLE_LIBRE) {
+            if (courante == cle) {
+                int ancienne = valeurs[i];
+                valeurs[i] = valeur;
+                return ancienne;
+            }
+            i = (i + 1) & masque;
+        }
+        cles[i] = cle;
+        valeurs[i] = valeur;
+        if (++taille >= seuil) {
+            redimensionner();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Getter
+     * @return nombre d'entrées
+     */
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Vide la table en conservant sa capacité
+     */
+    public void clear() {
+        Arrays.fill(cles, CLE_LIBRE);
+        cleZeroPresente = false;
+        taille = 0;
+    }
+
+    private int index(long cle) {
+        // Finaliseur de MurmurHash3 : disperse les bits de poids fort des clés composites
+        long h = cle;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & masque;
+    }
+
+    private void allouer(int capacite) {
+        cles = new long[capacite];
+        valeurs = new int[capacite];
+        masque = capacite - 1;
+        seuil = (int) (capacite * TAUX_REMPLISSAGE);
+    }
+
+    private void redimensionner() {
+        if (cles.length == CAPACITE_MAX) {
+            throw new IllegalStateException("Capacité maximale atteinte : " + taille + " entrées");
+        }
+        long[] anciennesCles = cles;
+        int[] anciennesValeurs = valeurs;
+        allouer(cles.length << 1);
+        for (int j = 0; j < anciennesCles.length; j++) {
+            long cle = anciennesCles[j];
+            if (cle != CLE_LIBRE) {
+                int i = index(cle);
+                while (cles[i] != CLE_LIBRE) {
+                    i = (i + 1) & masque;
+                }
+                cles[i] = cle;
+                valeurs[i] = anciennesValeurs[j];
+            }
+        }
+    }
+
+    private static int capacitePour(int entrees) {
+        long besoin = (long) Math.ceil(entrees / (double) TAUX_REMPLISSAGE) + 1;
+        if (besoin > CAPACITE_MAX) {
+            throw new IllegalArgumentException("Trop d'entrées attendues : " + entrees);
+        }
+        return Integer.highestOneBit((int) besoin - 1) << 1;
+    }
+}
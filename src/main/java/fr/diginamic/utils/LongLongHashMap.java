@@ -0,0 +1,172 @@
+package fr.diginamic.utils;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage primitive long → long à adressage ouvert (sondage linéaire),
+ * sur le modèle de {@link LongIntHashMap} : clés et valeurs dans deux tableaux parallèles,
+ * sans boîte ni objet d'entrée. Toutes les valeurs sont admises, y compris 0 et les négatifs,
+ * d'où {@link #getOrDefault(long, long)} plutôt qu'une valeur réservée.
+ * Non thread-safe en écriture ; les lectures concurrentes sont sûres une fois le remplissage terminé.
+ */
+public final class LongLongHashMap {
+
+    private static final long CLE_LIBRE = 0L;
+    private static final float TAUX_REMPLISSAGE = 0.6f;
+    private static final int CAPACITE_MAX = 1 << 30;
+
+    private long[] cles;
+    private long[] valeurs;
+    private int masque;
+    private int taille;
+    private int seuil;
+
+    /** La clé 0 sert de marqueur de case libre : elle est stockée à part */
+    private boolean cleZeroPresente;
+    private long valeurCleZero;
+
+    /**
+     * Crée une table dimensionnée pour le nombre d'entrées attendu
+     * @param entreesAttendues nombre d'entrées prévu (évite les redimensionnements)
+     */
+    public LongLongHashMap(int entreesAttendues) {
+        allouer(capacitePour(Math.max(entreesAttendues, 16)));
+    }
+
+    /**
+     * Récupère la valeur associée à une clé
+     * @param cle clé recherchée
+     * @param defaut valeur retournée si la clé est inconnue
+     * @return la valeur, ou la valeur par défaut
+     */
+    public long getOrDefault(long cle, long defaut) {
+        if (cle == CLE_LIBRE) {
+            return cleZeroPresente ? valeurCleZero : defaut;
+        }
+        int i = index(cle);
+        long courante;
+        while ((courante = cles[i]) != CLE_LIBRE) {
+            if (courante == cle) {
+                return valeurs[i];
+            }
+            i = (i + 1) & masque;
+        }
+        return defaut;
+    }
+
+    /**
+     * Indique si la clé est présente
+     * @param cle clé recherchée
+     * @return true si présente
+     */
+    public boolean containsKey(long cle) {
+        if (cle == CLE_LIBRE) {
+            return cleZeroPresente;
+        }
+        int i = index(cle);
+        long courante;
+        while ((courante = cles[i]) != CLE_LIBRE) {
+            if (courante == cle) {
+                return true;
+            }
+            i = (i + 1) & masque;
+        }
+        return false;
+    }
+
+    /**
+     * Associe une valeur à une clé
+     * @param cle clé
+     * @param valeur valeur
+     * @return true si la clé était absente
+     */
+    public boolean put(long cle, long valeur) {
+        if (cle == CLE_LIBRE) {
+            boolean nouvelle = !cleZeroPresente;
+            if (nouvelle) {
+                cleZeroPresente = true;
+                taille++;
+            }
+            valeurCleZero = valeur;
+            return nouvelle;
+        }
+        int i = index(cle);
+        long courante;
+        while ((courante = cles[i]) != CLE_LIBRE) {
+            if (courante == cle) {
+                valeurs[i] = valeur;
+                return false;
+            }
+            i = (i + 1) & masque;
+        }
+        cles[i] = cle;
+        valeurs[i] = valeur;
+        if (++taille >= seuil) {
+            redimensionner();
+        }
+        return true;
+    }
+
+    /**
+     * Getter
+     * @return nombre d'entrées
+     */
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Vide la table en conservant sa capacité
+     */
+    public void clear() {
+        Arrays.fill(cles, CLE_LIBRE);
+        cleZeroPresente = false;
+        taille = 0;
+    }
+
+    private int index(long cle) {
+        // Finaliseur de MurmurHash3, comme LongIntHashMap
+        long h = cle;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & masque;
+    }
+
+    private void allouer(int capacite) {
+        cles = new long[capacite];
+        valeurs = new long[capacite];
+        masque = capacite - 1;
+        seuil = (int) (capacite * TAUX_REMPLISSAGE);
+    }
+
+    private void redimensionner() {
+        if (cles.length == CAPACITE_MAX) {
+            throw new IllegalStateException("Capacité maximale atteinte : " + taille + " entrées");
+        }
+        long[] anciennesCles = cles;
+        long[] anciennesValeurs = valeurs;
+        allouer(cles.length << 1);
+        for (int j = 0; j < anciennesCles.length; j++) {
+            long cle = anciennesCles[j];
+            if (cle != CLE_LIBRE) {
+                int i = index(cle);
+                while (cles[i] != CLE_LIBRE) {
+                    i = (i + 1) & masque;
+                }
+                cles[i] = cle;
+                valeurs[i] = anciennesValeurs[j];
+            }
+        }
+    }
+
+    private static int capacitePour(int entrees) {
+        long besoin = (long) Math.ceil(entrees / (double) TAUX_REMPLISSAGE) + 1;
+        if (besoin > CAPACITE_MAX) {
+            throw new IllegalArgumentException("Trop d'entrées attendues : " + entrees);
+        }
+        return Integer.highestOneBit((int) besoin - 1) << 1;
+    }
+}
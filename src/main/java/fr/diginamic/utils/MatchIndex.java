@@ -0,0 +1,96 @@
+package fr.diginamic.utils;
+
+import java.time.LocalDate;
+
+/**
+ * Index en mémoire des matchs par clé naturelle (date, équipe hôte, équipe invitée).
+ * La clé est compactée dans un long : 24 bits pour le jour epoch (décalé pour rester positif)
+ * puis 20 bits pour chaque id d'équipe. Les ids de match sont rangés dans une
+ * {@link LongIntHashMap}, sans boîte ni hachage de LocalDate.
+ */
+public final class MatchIndex {
+
+    /** Valeur retournée lorsqu'aucun match ne correspond */
+    public static final int ABSENT = LongIntHashMap.ABSENT;
+
+    /** Marqueur d'une clé portée par plusieurs matchs en base */
+    public static final int DOUBLON = -1;
+
+    private static final int BITS_EQUIPE = 20;
+    private static final int BITS_JOUR = 24;
+    private static final long MAX_EQUIPE = (1L << BITS_EQUIPE) - 1;
+    private static final long DECALAGE_JOUR = 1L << (BITS_JOUR - 1);
+
+    private final LongIntHashMap matchs;
+
+    /**
+     * Crée un index dimensionné pour le nombre de matchs attendu
+     * @param matchsAttendus nombre de matchs prévu
+     */
+    public MatchIndex(int matchsAttendus) {
+        this.matchs = new LongIntHashMap(matchsAttendus);
+    }
+
+    /**
+     * Compacte la clé naturelle d'un match dans un long
+     * @param jourEpoch date du match en jours depuis 1970-01-01
+     * @param hoteId id de l'équipe hôte
+     * @param inviteeId id de l'équipe invitée
+     * @return la clé compactée
+     */
+    public static long cle(long jourEpoch, int hoteId, int inviteeId) {
+        long jour = jourEpoch + DECALAGE_JOUR;
+        if (jour < 0 || jour >= 1L << BITS_JOUR) {
+            throw new IllegalArgumentException("Date hors limites pour l'index : jour " + jourEpoch);
+        }
+        if (hoteId < 0 || hoteId > MAX_EQUIPE || inviteeId < 0 || inviteeId > MAX_EQUIPE) {
+            throw new IllegalArgumentException("Id d'équipe hors limites pour l'index : " + hoteId + "/" + inviteeId);
+        }
+        return jour << (2 * BITS_EQUIPE) | (long) hoteId << BITS_EQUIPE | inviteeId;
+    }
+
+    /**
+     * Ajoute un match déjà présent en base lors du préchargement.
+     * Une clé rencontrée deux fois est marquée en doublon.
+     * @param matchId id du match
+     * @param jourEpoch date du match en jours depuis 1970-01-01
+     * @param hoteId id de l'équipe hôte
+     * @param inviteeId id de l'équipe invitée
+     */
+    public void charger(int matchId, long jourEpoch, int hoteId, int inviteeId) {
+        long cle = cle(jourEpoch, hoteId, inviteeId);
+        if (matchs.put(cle, matchId) != ABSENT) {
+            matchs.put(cle, DOUBLON);
+        }
+    }
+
+    /**
+     * Référence un match qui vient d'être inséré
+     * @param matchId id du match
+     * @param date date du match
+     * @param hoteId id de l'équipe hôte
+     * @param inviteeId id de l'équipe invitée
+     */
+    public void enregistrer(int matchId, LocalDate date, int hoteId, int inviteeId) {
+        matchs.put(cle(date.toEpochDay(), hoteId, inviteeId), matchId);
+    }
+
+    /**
+     * Recherche l'id d'un match
+     * @param date date du match
+     * @param hoteId id de l'équipe hôte
+     * @param inviteeId id de l'équipe invitée
+     * @return l'id du match, {@link #DOUBLON} ou {@link #ABSENT}
+     */
+    public int get(LocalDate date, int hoteId, int inviteeId) {
+        return matchs.get(cle(date.toEpochDay(), hoteId, inviteeId));
+    }
+
+    /**
+     * Getter
+     * @return nombre de clés indexées
+     */
+    public int taille() {
+        return matchs.size();
+    }
+}
@@ -0,0 +1,142 @@
+package fr.diginamic.utils;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre concurrent des buteurs ((nom, id équipe) → id) partagé par les threads
+ * de l'import partitionné des buts.
+ * Préchargé avec les buteurs déjà en base, il garantit qu'un buteur absent n'est créé qu'une fois :
+ * le premier thread qui le demande réserve la clé et lance la création, les suivants attendent son id.
+ * Comme les autres registres, il ne conserve que des ids.
+ * Les noms sont comparés à l'identique, comme en base où buteur.nom a une collation binaire
+ * (voir {@link fr.diginamic.model.Equipe#COLLATION_NOM}) : deux graphies d'un nom
+ * (accents, casse) sont deux buteurs pour le registre comme pour l'index unique.
+ */
+public final class RegistreButeurs {
+
+    /** Valeur retournée pour un buteur inconnu ou en doublon */
+    public static final int ABSENT = 0;
+
+    /**
+     * Création d'un buteur en base, visible des autres transactions dès son retour (transaction commitée)
+     */
+    @FunctionalInterface
+    public interface Creation {
+        int creer(String nom, int equipeId);
+    }
+
+    private record Cle(String nom, int equipeId) {
+    }
+
+    private final Map<Cle, CompletableFuture<Integer>> ids = new ConcurrentHashMap<>();
+
+    /** Clés portées par plusieurs buteurs en base : jamais résolues, signalées en doublon */
+    private final Set<Cle> doublons = new HashSet<>();
+
+    private final Creation creation;
+    private final LongAdder creations = new LongAdder();
+
+    /**
+     * Crée un registre vide
+     * @param creation création d'un buteur absent du registre
+     */
+    public RegistreButeurs(Creation creation) {
+        this.creation = creation;
+    }
+
+    /**
+     * Ajoute un buteur déjà présent en base, avant le démarrage des threads d'import.
+     * Une clé rencontrée deux fois est marquée en doublon.
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @param id id du buteur
+     */
+    public void charger(String nom, int equipeId, int id) {
+        Cle cle = new Cle(nom, equipeId);
+        if (doublons.contains(cle) || ids.putIfAbsent(cle, CompletableFuture.completedFuture(id)) != null) {
+            ids.remove(cle);
+            doublons.add(cle);
+        }
+    }
+
+    /**
+     * Indique si plusieurs buteurs portent ce nom dans cette équipe en base
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return true si la clé est en doublon
+     */
+    public boolean estDoublon(String nom, int equipeId) {
+        return doublons.contains(new Cle(nom, equipeId));
+    }
+
+    /**
+     * Récupère l'id d'un buteur connu, sans création
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return l'id, ou {@link #ABSENT} si le buteur est inconnu, en doublon ou en échec de création
+     */
+    public int get(String nom, int equipeId) {
+        CompletableFuture<Integer> id = ids.get(new Cle(nom, equipeId));
+        return id == null || id.isCompletedExceptionally() ? ABSENT : id.join();
+    }
+
+    /**
+     * Récupère l'id d'un buteur, en le créant s'il est absent.
+     * Si un autre thread est en train de le créer, attend la fin de cette création.
+     * @param nom nom du buteur
+     * @param equipeId id de son équipe
+     * @return l'id du buteur
+     * @throws IllegalStateException si la clé est en doublon
+     * @throws RuntimeException si la création a échoué (la clé est alors libérée pour une nouvelle tentative)
+     */
+    public int obtenir(String nom, int equipeId) {
+        Cle cle = new Cle(nom, equipeId);
+        if (doublons.contains(cle)) {
+            throw new IllegalStateException("Doublon : plusieurs buteurs trouvés pour ce nom et équipe");
+        }
+        CompletableFuture<Integer> id = ids.get(cle);
+        if (id == null) {
+            CompletableFuture<Integer> reserve = new CompletableFuture<>();
+            id = ids.putIfAbsent(cle, reserve);
+            if (id == null) {
+                try {
+                    int cree = creation.creer(nom, equipeId);
+                    creations.increment();
+                    reserve.complete(cree);
+                    return cree;
+                } catch (RuntimeException e) {
+                    ids.remove(cle, reserve);
+                    reserve.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return id.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        }
+    }
+
+    /**
+     * Getter
+     * @return nombre de buteurs créés par le registre
+     */
+    public long getCreations() {
+        return creations.sum();
+    }
+
+    /**
+     * Getter
+     * @return nombre de buteurs résolus par le registre
+     */
+    public int taille() {
+        return ids.size();
+    }
+}
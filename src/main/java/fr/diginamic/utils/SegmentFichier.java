@@ -0,0 +1,21 @@
+package fr.diginamic.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Portion d'un fichier CSV alignée sur les fins de ligne, traitable indépendamment des autres.
+ * @param fichier chemin du fichier
+ * @param debut position du premier octet (début de ligne)
+ * @param fin position suivant le dernier octet (après un '\n' ou fin de fichier)
+ * @param premier true pour le segment contenant la ligne d'en-tête
+ */
+public record SegmentFichier(Path fichier, long debut, long fin, boolean premier) {
+
+    /**
+     * Getter
+     * @return taille du segment en octets
+     */
+    public long taille() {
+        return fin - debut;
+    }
+}
@@ -0,0 +1,23 @@
+package fr.diginamic.vues;
+
+/**
+ * Total des buts d'un buteur, agrégé par la base (GROUP BY) : seules les lignes du classement
+ * remontent, et non les buts eux-mêmes
+ * @param buteurId id du buteur
+ * @param buteur nom du buteur
+ * @param equipe nom de son équipe
+ * @param buts nombre total de buts, contre son camp compris
+ * @param penalties dont buts sur penalty
+ * @param contreSonCamp dont buts contre son camp
+ */
+public record TotalButeur(int buteurId, String buteur, String equipe, long buts, long penalties,
+                          long contreSonCamp) {
+
+    /**
+     * Buts marqués pour son équipe
+     * @return nombre de buts hors contre son camp
+     */
+    public long butsMarques() {
+        return buts - contreSonCamp;
+    }
+}
@@ -0,0 +1,21 @@
+package fr.diginamic.vues;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne de lecture d'un but : le match, le buteur et son équipe réduits à leurs noms,
+ * construits directement par la requête, sans entité gérée
+ * @param id id du but
+ * @param matchId id du match
+ * @param date date du match
+ * @param equipeHote nom de l'équipe hôte du match
+ * @param equipeInvitee nom de l'équipe invitée du match
+ * @param buteur nom du buteur
+ * @param equipeButeur nom de l'équipe du buteur
+ * @param minute minute du but
+ * @param contreSonCamp true si le but est marqué contre son camp
+ * @param penalty true si le but est marqué sur penalty
+ */
+public record VueBut(int id, int matchId, LocalDate date, String equipeHote, String equipeInvitee, String buteur,
+                     String equipeButeur, int minute, boolean contreSonCamp, boolean penalty) {
+}
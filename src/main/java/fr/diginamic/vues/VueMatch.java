@@ -0,0 +1,41 @@
+package fr.diginamic.vues;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne de lecture d'un match pour les listes et rapports : équipes, score et tirs aux buts
+ * réduits à leurs valeurs, construits directement par la requête (expression constructeur).
+ * Jamais gérée par un EntityManager : ni proxy, ni collection, ni copie pour la détection des modifications.
+ * @param id id du match
+ * @param date date du match
+ * @param tournoi nom du tournoi
+ * @param ville ville du match
+ * @param pays pays du match
+ * @param lieuNeutre true si le match est joué sur terrain neutre
+ * @param equipeHote nom de l'équipe hôte
+ * @param equipeInvitee nom de l'équipe invitée
+ * @param scoreHote buts de l'équipe hôte, null si le match n'a pas de score
+ * @param scoreInvite buts de l'équipe invitée, null si le match n'a pas de score
+ * @param vainqueurTirsButs nom du vainqueur de la séance de tirs aux buts, null s'il n'y en a pas eu
+ */
+public record VueMatch(int id, LocalDate date, String tournoi, String ville, String pays, boolean lieuNeutre,
+                       String equipeHote, String equipeInvitee, Integer scoreHote, Integer scoreInvite,
+                       String vainqueurTirsButs) {
+
+    /**
+     * Vainqueur du match, au score ou aux tirs aux buts
+     * @return nom de l'équipe gagnante, null en cas de nul sans tirs aux buts ou sans score
+     */
+    public String vainqueur() {
+        if (scoreHote == null || scoreInvite == null) {
+            return null;
+        }
+        if (scoreHote > scoreInvite) {
+            return equipeHote;
+        }
+        if (scoreInvite > scoreHote) {
+            return equipeInvitee;
+        }
+        return vainqueurTirsButs;
+    }
+}
@@ -0,0 +1,94 @@
+package fr.diginamic.bench;
+
+import fr.diginamic.utils.CsvTokenizer;
+import fr.diginamic.utils.DateUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparaison JMH du découpage historique (split + trim) et du CsvTokenizer sur results.csv,
+ * chargé en mémoire pour isoler le coût du parsing de celui des entrées/sorties.
+ * Lancement : mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=fr.diginamic.bench.CsvTokenizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class CsvTokenizerBenchmark {
+
+    private String contenu;
+
+    @Setup
+    public void charger() throws IOException {
+        try (InputStream is = CsvTokenizerBenchmark.class.getClassLoader().getResourceAsStream("results.csv")) {
+            if (is == null) {
+                throw new IllegalStateException("results.csv introuvable dans les ressources");
+            }
+            contenu = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Chemin historique des importeurs : readLine, split(","), trim() sur chaque champ
+     */
+    @Benchmark
+    public void split(Blackhole bh) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(contenu))) {
+            reader.readLine();
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                String[] tokens = ligne.split(",");
+                LocalDate date = LocalDate.parse(tokens[0].trim(), DateUtils.CSV_DATE_FORMATTER);
+                bh.consume(date);
+                bh.consume(tokens[1].trim());
+                bh.consume(tokens[2].trim());
+                bh.consume(Integer.parseInt(tokens[3].trim()));
+                bh.consume(Integer.parseInt(tokens[4].trim()));
+                bh.consume(tokens[5].trim());
+                bh.consume(tokens[6].trim());
+                bh.consume(tokens[7].trim());
+                bh.consume(Boolean.parseBoolean(tokens[8].trim()));
+            }
+        }
+    }
+
+    /**
+     * Nouveau chemin : champs lus en place, Strings construites pour les seuls textes conservés
+     */
+    @Benchmark
+    public void tokenizer(Blackhole bh) throws IOException {
+        CsvTokenizer csv = new CsvTokenizer(new StringReader(contenu));
+        csv.suivant();
+        while (csv.suivant()) {
+            bh.consume(csv.date(0));
+            bh.consume(csv.texte(1));
+            bh.consume(csv.texte(2));
+            bh.consume(csv.entier(3));
+            bh.consume(csv.entier(4));
+            bh.consume(csv.texte(5));
+            bh.consume(csv.texte(6));
+            bh.consume(csv.texte(7));
+            bh.consume(csv.booleen(8));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CsvTokenizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
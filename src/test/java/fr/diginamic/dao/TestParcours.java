@@ -0,0 +1,58 @@
+package fr.diginamic.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour les parcours en flux et paginés des DAO
+ */
+public class TestParcours {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStream_VidageParPaquets() {
+        // GIVEN – 1 200 lignes, soit trois paquets
+        EntityManager em = mock(EntityManager.class);
+        TypedQuery<Integer> requete = mock(TypedQuery.class, RETURNS_SELF);
+        AtomicBoolean ferme = new AtomicBoolean();
+        when(requete.getResultStream()).thenReturn(IntStream.rangeClosed(1, 1_200).boxed()
+                .onClose(() -> ferme.set(true)));
+        int[] vidagesVus = new int[1_201];
+
+        // WHEN – on note, pour chaque ligne, le nombre de vidages déjà faits
+        long lues;
+        try (Stream<Integer> flux = Parcours.stream(em, requete)) {
+            lues = flux.peek(i -> vidagesVus[i] = mockingDetails(em).getInvocations().size()).count();
+        }
+
+        // THEN – un vidage avant les lignes 501 et 1001 seulement, flux source fermé
+        assertEquals(1_200, lues);
+        assertEquals(0, vidagesVus[500]);
+        assertEquals(1, vidagesVus[501]);
+        assertEquals(1, vidagesVus[1_000]);
+        assertEquals(2, vidagesVus[1_001]);
+        verify(em, times(2)).clear();
+        verify(requete).setHint("org.hibernate.fetchSize", Parcours.TAILLE_PAQUET);
+        verify(requete).setHint("org.hibernate.readOnly", true);
+        assertTrue(ferme.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPage_TailleInvalide() {
+        // GIVEN
+        TypedQuery<Integer> requete = mock(TypedQuery.class, RETURNS_SELF);
+
+        // WHEN / THEN
+        assertThrows(IllegalArgumentException.class, () -> Parcours.page(requete, 0));
+        verify(requete, never()).getResultList();
+    }
+}
@@ -0,0 +1,163 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.utils.ErreurCollector;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.RollbackException;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour tester ImportButsPartitionne avec Junit & Mockito
+ */
+public class TestImportButsPartitionne {
+
+    @TempDir
+    Path dossier;
+
+    private EntityManagerFactory emf;
+    private ImportContext ctx;
+    private EntityManager[] ems;
+    private EntityTransaction[] transactions;
+
+    /** Lignes reçues par chaque partition, relevées via son collecteur */
+    private List<List<String>> lignesParPartition;
+
+    @BeforeEach
+    public void setUp() {
+        emf = mock(EntityManagerFactory.class);
+        ctx = mock(ImportContext.class);
+        when(ctx.getDossierSource()).thenReturn(dossier);
+
+        // Registre des buteurs préchargé à vide
+        EntityManager em = mock(EntityManager.class);
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object[]> cles = mock(TypedQuery.class);
+        when(ctx.getEm()).thenReturn(em);
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(cles);
+        when(cles.getResultStream()).thenReturn(Stream.empty());
+
+        // 2 partitions : les DAO de leurs EntityManager échouent, chaque ligne est donc loguée par sa partition
+        transactions = new EntityTransaction[2];
+        lignesParPartition = new ArrayList<>();
+        ems = new EntityManager[2];
+        for (int i = 0; i < 2; i++) {
+            ems[i] = mock(EntityManager.class);
+            transactions[i] = mock(EntityTransaction.class);
+            when(ems[i].getTransaction()).thenReturn(transactions[i]);
+            List<String> lignes = Collections.synchronizedList(new ArrayList<>());
+            lignesParPartition.add(lignes);
+            ErreurCollector collector = mock(ErreurCollector.class);
+            doAnswer(invocation -> lignes.add(invocation.getArgument(1)))
+                    .when(collector).logException(anyString(), anyString(), any(), anyString());
+            ImportContext contexte = mock(ImportContext.class);
+            when(contexte.getEm()).thenReturn(ems[i]);
+            when(contexte.getCollector()).thenReturn(collector);
+            when(ctx.pourPartition(ems[i])).thenReturn(contexte);
+        }
+        when(emf.createEntityManager()).thenReturn(ems[0], ems[1]);
+    }
+
+    @Test
+    public void testImporter_LignesReparties_PartitionEnEchecSignalee() throws IOException {
+        // GIVEN – 40 matchs de 3 buts ; le commit de la seconde partition échoue
+        StringBuilder contenu = new StringBuilder("date,home_team,away_team,team,scorer,minute,own_goal,penalty\n");
+        for (int m = 0; m < 40; m++) {
+            for (int b = 0; b < 3; b++) {
+                contenu.append("1990-01-").append(String.format("%02d", m % 28 + 1)).append(",Hote").append(m)
+                        .append(",Invitee").append(m).append(",Hote").append(m).append(",Buteur").append(b)
+                        .append(',').append(10 + b).append(",FALSE,FALSE\n");
+            }
+        }
+        Files.writeString(dossier.resolve("goalscorers.csv"), contenu);
+        RollbackException refus = new RollbackException("commit refusé");
+        doThrow(refus).when(transactions[1]).commit();
+
+        // WHEN
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ImportButsPartitionne(emf, ctx, 2).importer("goalscorers.csv"));
+
+        // THEN – l'échec de la partition n'est pas masqué, l'autre partition est commitée
+        assertSame(refus, e.getCause());
+        verify(transactions[0]).commit();
+
+        // THEN – chaque ligne traitée une fois, toutes les lignes d'un match dans la même partition
+        Map<String, Integer> partitionDuMatch = new HashMap<>();
+        int total = 0;
+        for (int p = 0; p < 2; p++) {
+            assertFalse(lignesParPartition.get(p).isEmpty());
+            for (String ligne : lignesParPartition.get(p)) {
+                // Match : date, équipe hôte et équipe invitée
+                String match = String.join(",", List.of(ligne.split(",")).subList(0, 3));
+                Integer precedente = partitionDuMatch.put(match, p);
+                assertTrue(precedente == null || precedente == p, match);
+                total++;
+            }
+        }
+        assertEquals(120, total);
+        assertEquals(40, partitionDuMatch.size());
+    }
+
+    @Test
+    public void testImporter_LectureEnEchec_AucunCommit() {
+        // GIVEN – fichier absent du dossier source
+
+        // WHEN
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ImportButsPartitionne(emf, ctx, 2).importer("goalscorers.csv"));
+
+        // THEN – l'erreur de lecture est remontée et aucune partition ne commite
+        assertInstanceOf(UncheckedIOException.class, e.getCause());
+        verify(transactions[0], never()).commit();
+        verify(transactions[1], never()).commit();
+    }
+
+    @Test
+    public void testImporter_LectureInterrompueAvecCommitParLot_AucunCommit() throws IOException {
+        // GIVEN – contexte réel commitant tous les 10 lignes ; 300 lignes lues puis une ligne incomplète
+        // dont la journalisation échoue, ce qui interrompt la lecture
+        EntityManager em = mock(EntityManager.class);
+        @SuppressWarnings("unchecked")
+        TypedQuery<Object> requete = mock(TypedQuery.class, RETURNS_SELF);
+        when(em.createQuery(anyString(), any(Class.class))).thenReturn(requete);
+        when(requete.getSingleResult()).thenReturn(0L);
+        when(requete.getResultStream()).thenAnswer(invocation -> Stream.empty());
+        ErreurCollector collector = mock(ErreurCollector.class);
+        doThrow(new IllegalStateException("journal des erreurs indisponible"))
+                .when(collector).logException(anyString(), contains("incomplete"), any(), eq("GoalScorer"));
+        ImportContext contexte = new ImportContext(em, collector, 10, true);
+        contexte.setDossierSource(dossier);
+        StringBuilder contenu = new StringBuilder("date,home_team,away_team,team,scorer,minute,own_goal,penalty\n");
+        for (int i = 0; i < 300; i++) {
+            contenu.append("1990-01-01,Hote,Invitee,Hote,Buteur").append(i).append(",10,FALSE,FALSE\n");
+        }
+        contenu.append("ligne incomplete\n");
+        Files.writeString(dossier.resolve("goalscorers.csv"), contenu);
+
+        // WHEN
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ImportButsPartitionne(emf, contexte, 1).importer("goalscorers.csv"));
+
+        // THEN – le premier lot a été écrit et flushé par lots, mais jamais commité
+        assertEquals("journal des erreurs indisponible", e.getCause().getMessage());
+        verify(ems[0], atLeast(25)).flush();
+        verify(transactions[0], never()).commit();
+    }
+}
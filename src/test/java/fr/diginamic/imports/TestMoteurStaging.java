@@ -0,0 +1,96 @@
+package fr.diginamic.imports;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour tester le chargement des tables de staging de MoteurStaging avec Junit & Mockito
+ */
+public class TestMoteurStaging {
+
+    private static final String ENTETE = "date,home_team,away_team,home_score,away_score,tournament,city,country,neutral\n";
+
+    @TempDir
+    Path dossier;
+
+    private EntityManager em;
+    private PreparedStatement insert;
+    private MoteurStaging moteur;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        em = mock(EntityManager.class);
+        when(em.createNativeQuery(anyString())).thenReturn(mock(Query.class));
+        Session session = mock(Session.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        Connection connexion = mock(Connection.class);
+        insert = mock(PreparedStatement.class);
+        when(connexion.prepareStatement(anyString())).thenReturn(insert);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connexion);
+            return null;
+        }).when(session).doWork(any());
+        moteur = new MoteurStaging(em, dossier);
+    }
+
+    @Test
+    public void testImporterResultats_ChargementPuisResolution() throws IOException, SQLException {
+        // GIVEN
+        Files.writeString(dossier.resolve("results.csv"), ENTETE
+                + "1872-11-30,Scotland,England,0,0,Friendly,Glasgow,Scotland,FALSE\n"
+                + "1873-03-08,England,Scotland,4,2,Friendly,London,England,FALSE\n");
+
+        // WHEN
+        moteur.importerResultats("results.csv");
+
+        // THEN – deux lignes en un batch, puis résolution ensembliste
+        verify(insert, times(2)).addBatch();
+        verify(insert, times(1)).executeBatch();
+        verify(em).createNativeQuery(startsWith("INSERT INTO equipe"));
+    }
+
+    @Test
+    public void testImporterResultats_EchecInsertion_Propage() throws IOException, SQLException {
+        // GIVEN – la seconde ligne ne peut pas être ajoutée au batch
+        Files.writeString(dossier.resolve("results.csv"), ENTETE
+                + "1872-11-30,Scotland,England,0,0,Friendly,Glasgow,Scotland,FALSE\n"
+                + "1873-03-08,England,Scotland,4,2,Friendly,London,England,FALSE\n"
+                + "1874-03-07,Scotland,England,2,1,Friendly,Glasgow,Scotland,FALSE\n");
+        doNothing().doThrow(new SQLException("Connexion perdue")).when(insert).addBatch();
+
+        // WHEN
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> moteur.importerResultats("results.csv"));
+
+        // THEN – lecture interrompue, aucune résolution sur la table chargée en partie
+        assertInstanceOf(SQLException.class, e.getCause());
+        verify(insert, times(2)).addBatch();
+        verify(insert, never()).executeBatch();
+        verify(em, never()).createNativeQuery(startsWith("INSERT INTO equipe"));
+    }
+
+    @Test
+    public void testImporterResultats_FichierIllisible_Propage() {
+        // GIVEN – aucun fichier dans le dossier
+
+        // WHEN / THEN
+        assertThrows(UncheckedIOException.class, () -> moteur.importerResultats("results.csv"));
+        verify(em, never()).createNativeQuery(startsWith("INSERT INTO equipe"));
+    }
+}
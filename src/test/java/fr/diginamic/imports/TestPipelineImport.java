@@ -0,0 +1,89 @@
+package fr.diginamic.imports;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le pipeline lecteur / parseurs / écrivain
+ */
+public class TestPipelineImport {
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    public void testEcritureDansLOrdreAvecPlusieursParseurs() throws IOException {
+        // GIVEN – 5000 lignes dont une sur 100 invalide, 4 parseurs
+        StringBuilder contenu = new StringBuilder("valeur\n");
+        for (int i = 0; i < 5000; i++) {
+            contenu.append(i % 100 == 0 ? "NA" : String.valueOf(i)).append('\n');
+        }
+        Files.writeString(dossier.resolve("nombres.csv"), contenu);
+
+        ImportContext ctx = mock(ImportContext.class);
+        when(ctx.getParseurs()).thenReturn(4);
+        when(ctx.getDossierSource()).thenReturn(dossier);
+
+        List<Integer> ecrites = new ArrayList<>();
+        List<String> erreurs = new ArrayList<>();
+
+        // WHEN
+        new PipelineImport<Integer>(ctx, csv -> csv.entier(0),
+                (ligne, valeur) -> ecrites.add(valeur),
+                (ligne, e) -> erreurs.add(ligne)).executer("nombres.csv");
+
+        // THEN – valeurs reçues dans l'ordre du fichier par le thread appelant
+        assertEquals(4950, ecrites.size());
+        assertEquals(50, erreurs.size());
+        for (int i = 1; i < ecrites.size(); i++) {
+            assertTrue(ecrites.get(i - 1) < ecrites.get(i));
+        }
+        verify(ctx, times(5000)).ligneTraitee();
+    }
+
+    @Test
+    public void testReprise_LignesDejaCommiteesIgnorees() throws IOException {
+        // GIVEN – import interrompu après 3 lignes commitées, 2 parseurs
+        Files.writeString(dossier.resolve("nombres.csv"), "valeur\n1\n2\n3\n4\n5\n");
+
+        ImportContext ctx = mock(ImportContext.class);
+        when(ctx.getParseurs()).thenReturn(2);
+        when(ctx.getDossierSource()).thenReturn(dossier);
+        when(ctx.debutFichier("nombres.csv")).thenReturn(3L);
+
+        List<Integer> ecrites = new ArrayList<>();
+
+        // WHEN
+        new PipelineImport<Integer>(ctx, csv -> csv.entier(0),
+                (ligne, valeur) -> ecrites.add(valeur),
+                (ligne, e) -> fail(ligne)).executer("nombres.csv");
+
+        // THEN – seules les lignes suivantes sont traitées, puis la fin du fichier est signalée
+        assertEquals(List.of(4, 5), ecrites);
+        verify(ctx, times(2)).ligneTraitee();
+        verify(ctx).finFichier();
+    }
+
+    @Test
+    public void testLectureEnEchec_ErreurPropagee() {
+        // GIVEN – fichier absent, 2 parseurs : l'échec survient dans le thread lecteur
+        ImportContext ctx = mock(ImportContext.class);
+        when(ctx.getParseurs()).thenReturn(2);
+        when(ctx.getDossierSource()).thenReturn(dossier);
+
+        // WHEN / THEN – l'erreur parvient à l'appelant et la fin du fichier n'est pas signalée
+        assertThrows(UncheckedIOException.class, () -> new PipelineImport<Integer>(ctx, csv -> csv.entier(0),
+                (ligne, valeur) -> fail(ligne), (ligne, e) -> fail(ligne)).executer("absent.csv"));
+        verify(ctx, never()).finFichier();
+    }
+}
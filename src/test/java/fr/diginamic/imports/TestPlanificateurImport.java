@@ -0,0 +1,99 @@
+package fr.diginamic.imports;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour l'ordonnanceur des étapes d'import
+ */
+public class TestPlanificateurImport {
+
+    private EntityManagerFactory emf;
+    private EntityTransaction transaction;
+    private ImportContext ctx;
+
+    @BeforeEach
+    public void setUp() {
+        emf = mock(EntityManagerFactory.class);
+        EntityManager em = mock(EntityManager.class);
+        transaction = mock(EntityTransaction.class);
+        ctx = mock(ImportContext.class);
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.getTransaction()).thenReturn(transaction);
+        when(ctx.pourEtape(em)).thenReturn(ctx);
+    }
+
+    @Test
+    public void testEtapesIndependantesEnParalleleApresLeurPrerequis() {
+        // GIVEN – goals et shootouts attendent chacun l'autre : ne passe que s'ils tournent en même temps
+        List<String> journal = new CopyOnWriteArrayList<>();
+        CountDownLatch rendezVous = new CountDownLatch(2);
+        Runnable attendreLAutre = () -> {
+            rendezVous.countDown();
+            try {
+                assertTrue(rendezVous.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        PlanificateurImport planificateur = new PlanificateurImport()
+                .ajouter("goals", c -> { attendreLAutre.run(); journal.add("goals"); }, List.of("results"))
+                .ajouter("shootouts", c -> { attendreLAutre.run(); journal.add("shootouts"); }, List.of("results"))
+                .ajouter("results", c -> journal.add("results"), List.of());
+
+        // WHEN
+        planificateur.executer(emf, ctx);
+
+        // THEN – results d'abord, puis les deux autres, chacun dans sa transaction
+        assertEquals(3, journal.size());
+        assertEquals("results", journal.get(0));
+        verify(emf, times(3)).createEntityManager();
+        verify(transaction, times(3)).commit();
+    }
+
+    @Test
+    public void testEchecAnnuleLesEtapesDependantes() {
+        // GIVEN
+        List<String> journal = new CopyOnWriteArrayList<>();
+        PlanificateurImport planificateur = new PlanificateurImport()
+                .ajouter("results", c -> { throw new IllegalArgumentException("fichier illisible"); }, List.of())
+                .ajouter("goals", c -> journal.add("goals"), List.of("results"));
+        when(transaction.isActive()).thenReturn(true);
+
+        // WHEN
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> planificateur.executer(emf, ctx));
+
+        // THEN
+        assertTrue(journal.isEmpty());
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verify(transaction).rollback();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    public void testDependanceCirculaireOuInconnue() {
+        // GIVEN
+        PlanificateurImport cycle = new PlanificateurImport()
+                .ajouter("a", c -> { }, List.of("b"))
+                .ajouter("b", c -> { }, List.of("a"));
+        PlanificateurImport inconnu = new PlanificateurImport()
+                .ajouter("a", c -> { }, List.of("absent"));
+
+        // WHEN / THEN – rien n'est lancé
+        assertThrows(IllegalStateException.class, () -> cycle.executer(emf, ctx));
+        assertThrows(IllegalStateException.class, () -> inconnu.executer(emf, ctx));
+        verify(emf, never()).createEntityManager();
+    }
+}
@@ -0,0 +1,133 @@
+package fr.diginamic.imports;
+
+import fr.diginamic.model.PointReprise;
+import fr.diginamic.utils.CsvImporter;
+import fr.diginamic.utils.Empreinte;
+import fr.diginamic.utils.SegmentFichier;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour tester l'avancement des points de reprise de RepriseIncrementale avec Junit & Mockito
+ */
+public class TestRepriseIncrementale {
+
+    private static final String FICHIER = "results.csv";
+
+    @TempDir
+    Path dossier;
+
+    private EntityManager em;
+    private TypedQuery<PointReprise> requete;
+    private ImportContext ctx;
+    private RepriseIncrementale reprise;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        em = mock(EntityManager.class);
+        requete = mock(TypedQuery.class);
+        when(em.createQuery(anyString(), eq(PointReprise.class))).thenReturn(requete);
+        when(requete.setParameter(anyString(), any())).thenReturn(requete);
+        when(requete.getResultStream()).thenAnswer(invocation -> Stream.empty());
+
+        // Contexte réduit aux plages fixées par la reprise
+        Map<String, SegmentFichier> plages = new HashMap<>();
+        ctx = mock(ImportContext.class);
+        when(ctx.getEm()).thenReturn(em);
+        doAnswer(invocation -> plages.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(ctx).setPlage(anyString(), any());
+        when(ctx.getPlage(anyString())).thenAnswer(invocation -> plages.get(invocation.<String>getArgument(0)));
+
+        reprise = new RepriseIncrementale(dossier);
+    }
+
+    @Test
+    public void testImporter_LectureComplete_PointAvance() throws IOException {
+        // GIVEN – premier import d'un fichier de deux lignes
+        Path chemin = dossier.resolve(FICHIER);
+        Files.writeString(chemin, "date,home_team\n1872-11-30,Scotland\n1873-03-08,England\n");
+        List<String> lues = new ArrayList<>();
+
+        // WHEN
+        reprise.importer(ctx, FICHIER, c -> CsvImporter.lirePlage(c.getPlage(FICHIER), csv -> lues.add(csv.texte(1))));
+
+        // THEN – point de reprise créé à la fin du fichier
+        ArgumentCaptor<PointReprise> point = ArgumentCaptor.forClass(PointReprise.class);
+        verify(em).persist(point.capture());
+        assertEquals(List.of("Scotland", "England"), lues);
+        assertEquals(Files.size(chemin), point.getValue().getOctets());
+        assertEquals(2, point.getValue().getLignes());
+    }
+
+    @Test
+    public void testImporter_LectureEnEchec_PointInchange() throws IOException {
+        // GIVEN – un premier import, puis des lignes ajoutées dont la lecture échoue
+        Path chemin = dossier.resolve(FICHIER);
+        Files.writeString(chemin, "date,home_team\n1872-11-30,Scotland\n");
+        reprise.importer(ctx, FICHIER, c -> CsvImporter.lirePlage(c.getPlage(FICHIER), csv -> { }));
+        ArgumentCaptor<PointReprise> captor = ArgumentCaptor.forClass(PointReprise.class);
+        verify(em).persist(captor.capture());
+        PointReprise point = captor.getValue();
+        long octets = point.getOctets();
+        when(requete.getResultStream()).thenAnswer(invocation -> Stream.of(point));
+        Files.writeString(chemin, "1873-03-08,England\n1874-03-07,Scotland\n", StandardOpenOption.APPEND);
+
+        // WHEN – le fichier disparaît au milieu de l'import
+        assertThrows(UncheckedIOException.class, () -> reprise.importer(ctx, FICHIER, c -> {
+            try {
+                Files.delete(chemin);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            CsvImporter.lirePlage(c.getPlage(FICHIER), csv -> { });
+        }));
+
+        // THEN – le point de reprise n'a pas bougé : les lignes ajoutées seront relues
+        assertEquals(octets, point.getOctets());
+        assertEquals(1, point.getLignes());
+    }
+
+    @Test
+    public void testImporter_Reprise_EmpreinteProlongee() throws IOException {
+        // GIVEN – un premier import, puis des lignes ajoutées
+        Path chemin = dossier.resolve(FICHIER);
+        Files.writeString(chemin, "date,home_team\n1872-11-30,Scotland\n");
+        reprise.importer(ctx, FICHIER, c -> CsvImporter.lirePlage(c.getPlage(FICHIER), csv -> { }));
+        ArgumentCaptor<PointReprise> captor = ArgumentCaptor.forClass(PointReprise.class);
+        verify(em).persist(captor.capture());
+        PointReprise point = captor.getValue();
+        when(requete.getResultStream()).thenAnswer(invocation -> Stream.of(point));
+        Files.writeString(chemin, "1873-03-08,England\n1874-03-07,Scotland\n", StandardOpenOption.APPEND);
+        List<String> lues = new ArrayList<>();
+
+        // WHEN
+        reprise.importer(ctx, FICHIER, c -> CsvImporter.lirePlage(c.getPlage(FICHIER), csv -> lues.add(csv.texte(1))));
+
+        // THEN – seul l'ajout est lu ; empreinte, état et lignes identiques à ceux d'un hachage complet
+        Empreinte.Prefixe complet = Empreinte.prolonger(chemin, Empreinte.Prefixe.VIDE, Files.size(chemin));
+        assertEquals(List.of("England", "Scotland"), lues);
+        assertEquals(Files.size(chemin), point.getOctets());
+        assertEquals(3, point.getLignes());
+        assertEquals(complet.empreinte(), point.getEmpreinte());
+        assertEquals(complet.etat(), point.getEtatEmpreinte());
+    }
+}
@@ -4,6 +4,7 @@ import fr.diginamic.dao.ButDaoImpl;
 import fr.diginamic.model.But;
 import fr.diginamic.model.Buteur;
 import fr.diginamic.model.Match;
+import fr.diginamic.utils.ClassementButeurs;
 import fr.diginamic.utils.ErreurCollector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -41,7 +43,7 @@ public class TestButService {
     @Test
     public void testEnregistrerButSiNouveau_nouveauBut(){
         // GIVEN
-        when(butDaoMock.findByMatchButeurAndMinute(1, 10, 45)).thenReturn(Collections.emptyList());
+        when(butDaoMock.findClesByMatch(1)).thenReturn(Collections.emptyList());
         // WHEN
         butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne test", "fichier test");
         // THEN
@@ -49,12 +51,33 @@ public class TestButService {
         verify(collectorMock, never()).log(any(), any(), any(), any());
     }
 
+    @Test
+    public void testEnregistrerButSiNouveau_uneRequeteParMatch() {
+        // GIVEN – un but déjà en base pour ce match, à la 10e minute
+        List<Object[]> existants = List.<Object[]>of(new Object[]{10, 10});
+        when(butDaoMock.findClesByMatch(1)).thenReturn(existants);
+        Match autreMatch = new Match();
+        autreMatch.setId(2);
+
+        // WHEN – buts consécutifs du même match, dont un rejoué, puis un autre match
+        butService.enregistrerButSiNouveau(10, false, false, match, buteur, "ligne 1", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne 2", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne 3", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, autreMatch, buteur, "ligne 4", "fichier test");
+
+        // THEN – une requête par match, et le but inséré n'est pas réinséré
+        verify(butDaoMock, times(1)).findClesByMatch(1);
+        verify(butDaoMock, times(1)).findClesByMatch(2);
+        verify(butDaoMock, never()).findByMatchButeurAndMinute(anyInt(), anyInt(), anyInt());
+        verify(butDaoMock, times(1)).insert(argThat(b -> b.getMatch() == match && b.getMinute() == 45));
+        verify(butDaoMock, times(1)).insert(argThat(b -> b.getMatch() == autreMatch));
+        verify(collectorMock, never()).log(any(), any(), any(), any());
+    }
+
     @Test
     public void testEnregistrerButSiNouveau_doublon_logErreur() {
         // GIVEN
-        But but = new But();
-        but.setMinute(45);
-        when(butDaoMock.findByMatchButeurAndMinute(1, 10, 45)).thenReturn(List.of(but, new But()));
+        when(butDaoMock.findClesByMatch(1)).thenReturn(List.of(new Object[]{10, 45}, new Object[]{10, 45}));
 
         // WHEN
         butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne test", "fichier test");
@@ -113,4 +136,46 @@ public class TestButService {
         );
         verify(butDaoMock, never()).insert(any());
     }
+
+    @Test
+    public void testClassement_ButsInseresEtCorriges() {
+        // GIVEN – classement vide, tournoi du match lu sur le match à son premier but
+        ClassementButeurs classement = new ClassementButeurs(16);
+        butService.setClassement(classement);
+        match.setTournoi("FIFA World Cup");
+        when(butDaoMock.findClesByMatch(1)).thenReturn(Collections.emptyList());
+        But existant = new But(80, false, false, match, buteur);
+        when(butDaoMock.findByMatchButeurAndMinute(1, 10, 80)).thenReturn(List.of(existant));
+
+        // WHEN – deux buts insérés, un rejoué, puis un but existant corrigé en penalty
+        butService.enregistrerButSiNouveau(10, false, true, match, buteur, "ligne 1", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne 2", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne 3", "fichier test");
+        butService.mettreAJourBut(80, false, true, match, buteur, "ligne 4", "fichier test");
+
+        // THEN
+        assertEquals(new ClassementButeurs.Total(10, 2, 2, 0), classement.getTotal(10));
+        assertEquals(List.of(new ClassementButeurs.Total(10, 2, 2, 0)), classement.meilleurs("FIFA World Cup", 5));
+    }
+
+    @Test
+    public void testClassement_UpsertIgnore_TotalInchange() {
+        // GIVEN – classement reconstruit depuis la base, fichier réimporté en mode upsert
+        ClassementButeurs classement = new ClassementButeurs(16);
+        classement.charger(10, "FIFA World Cup", 2, 1, 0);
+        classement.noterMatch(1, "FIFA World Cup");
+        butService.setClassement(classement);
+        butService.setUpsert(true);
+        // Le but de la 10e minute est déjà en base : la base ne l'insère pas
+        when(butDaoMock.insererOuIgnorer(any())).thenAnswer(invocation -> invocation.<But>getArgument(0).getMinute() != 10);
+
+        // WHEN – un but déjà en base, ignoré par la base, puis un but réellement inséré
+        butService.enregistrerButSiNouveau(10, false, true, match, buteur, "ligne 1", "fichier test");
+        butService.enregistrerButSiNouveau(45, false, false, match, buteur, "ligne 2", "fichier test");
+
+        // THEN – seul le but inséré est compté
+        assertEquals(new ClassementButeurs.Total(10, 3, 1, 0), classement.getTotal(10));
+        assertEquals(List.of(new ClassementButeurs.Total(10, 3, 1, 0)), classement.meilleurs("FIFA World Cup", 5));
+        verify(butDaoMock, never()).insert(any());
+    }
 }
@@ -3,7 +3,11 @@ package fr.diginamic.services;
 import fr.diginamic.dao.ButeurDaoImpl;
 import fr.diginamic.model.Buteur;
 import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.CacheButeurs;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
+import fr.diginamic.utils.FiltresExistence;
+import org.hibernate.annotations.Collate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -131,4 +135,101 @@ public class TestButeurService {
 
         verify(buteurDaoMock, never()).insert(any());
     }
+
+    @Test
+    public void enregistrerSiNouveau_upsertNomInvalide() {
+        //GIVEN
+        buteurService.setUpsert(true);
+        //WHEN
+        buteurService.enregistrerButeurSiNouveau(" ", france, "ligne", "fichier");
+        buteurService.enregistrerButeurSiNouveau("Mbappé", france, "ligne", "fichier");
+        //THEN – contrôles inchangés, puis insertion en une requête
+        verify(collectorMock).log(eq("fichier"), eq("ligne"), contains("nom vide"), eq("Buteur"));
+        verify(buteurDaoMock).insererOuRecuperer("Mbappé", france.getId());
+        verify(buteurDaoMock, never()).findByNomAndEquipe(anyString(), anyInt());
+    }
+
+    @Test
+    public void enregistrerSiNouveau_cacheEvitePuisRemplaceLaRecherche() {
+        //GIVEN – buteur inséré par le service avec cache : l'id est attribué au persist
+        CacheButeurs cache = new CacheButeurs(100);
+        ButeurService service = new ButeurService(null, collectorMock, cache);
+        service.setButeurDao(buteurDaoMock);
+        when(buteurDaoMock.findByNomAndEquipe("Mbappé", france.getId())).thenReturn(Collections.emptyList());
+        doAnswer(invocation -> {
+            invocation.<Buteur>getArgument(0).setId(7);
+            return null;
+        }).when(buteurDaoMock).insert(any(Buteur.class));
+        Buteur reference = new Buteur("Mbappé", france);
+        when(buteurDaoMock.getReference(7)).thenReturn(reference);
+        //WHEN
+        service.enregistrerButeurSiNouveau("Mbappé", france, "ligne", "fichier");
+        Buteur result = service.getByNomAndEquipe("Mbappé", france);
+        service.enregistrerButeurSiNouveau("Mbappé", france, "ligne 2", "fichier");
+        //THEN – une seule recherche, puis le buteur tout juste créé est servi par le cache
+        assertSame(reference, result);
+        verify(buteurDaoMock, times(1)).findByNomAndEquipe("Mbappé", france.getId());
+        verify(buteurDaoMock, times(1)).insert(any(Buteur.class));
+        assertEquals(2, cache.getSucces());
+        assertEquals(1, cache.getEchecs());
+    }
+
+    @Test
+    public void enregistrerSiNouveau_upsertPuisGet_idEnCache() {
+        //GIVEN – mode upsert avec cache : l'id du buteur est relu après l'insertion
+        CacheButeurs cache = new CacheButeurs(100);
+        ButeurService service = new ButeurService(null, collectorMock, cache);
+        service.setButeurDao(buteurDaoMock);
+        service.setUpsert(true);
+        when(buteurDaoMock.insererOuRecuperer("Mbappé", france.getId())).thenReturn(7);
+        Buteur reference = new Buteur("Mbappé", france);
+        when(buteurDaoMock.getReference(7)).thenReturn(reference);
+        //WHEN
+        service.enregistrerButeurSiNouveau("Mbappé", france, "ligne", "fichier");
+        Buteur result = service.getByNomAndEquipe("Mbappé", france);
+        //THEN – le buteur est servi par le cache, sans recherche par nom
+        assertSame(reference, result);
+        verify(buteurDaoMock, never()).findByNomAndEquipe(anyString(), anyInt());
+        assertEquals(1, cache.getSucces());
+    }
+
+    @Test
+    public void getByNomAndEquipe_doublonNonMisEnCache() {
+        //GIVEN
+        CacheButeurs cache = new CacheButeurs(100);
+        ButeurService service = new ButeurService(null, collectorMock, cache);
+        service.setButeurDao(buteurDaoMock);
+        Buteur autre = new Buteur("Mbappé", france);
+        autre.setId(2);
+        mbappe.setId(1);
+        when(buteurDaoMock.findByNomAndEquipe("Mbappé", france.getId())).thenReturn(List.of(mbappe, autre));
+        //WHEN
+        service.getByNomAndEquipe("Mbappé", france);
+        Buteur result = service.getByNomAndEquipe("Mbappé", france);
+        //THEN – un nom ambigu reste résolu par la base à chaque fois
+        assertNull(result);
+        assertEquals(0, cache.taille());
+        verify(buteurDaoMock, times(2)).findByNomAndEquipe("Mbappé", france.getId());
+    }
+
+    @Test
+    public void enregistrerSiNouveau_filtreBloom_nomsAccentuesDistincts() throws NoSuchFieldException {
+        //GIVEN – seul « Nguyen Hong Son » est en base pour le Vietnam
+        Equipe vietnam = new Equipe("Vietnam");
+        vietnam.setId(2);
+        FiltreBloom filtre = new FiltreBloom(100, 0.01);
+        filtre.ajouter(FiltresExistence.cleButeur("Nguyen Hong Son", vietnam.getId()));
+        buteurService.setFiltre(filtre);
+        //WHEN
+        buteurService.enregistrerButeurSiNouveau("Nguyễn Hồng Sơn", vietnam, "ligne", "fichier");
+        //THEN – la graphie accentuée est un autre buteur pour le filtre...
+        assertNotEquals(FiltresExistence.cleButeur("Nguyen Hong Son", vietnam.getId()),
+                FiltresExistence.cleButeur("Nguyễn Hồng Sơn", vietnam.getId()));
+        verify(buteurDaoMock).insert(argThat(b -> b.getNom().equals("Nguyễn Hồng Sơn")));
+        verify(collectorMock, never()).log(any(), any(), any(), any());
+        //THEN – ... comme pour l'index unique, le nom étant comparé par une collation binaire
+        Collate collation = Buteur.class.getDeclaredField("nom").getAnnotation(Collate.class);
+        assertEquals(Equipe.COLLATION_NOM, collation.value());
+        assertTrue(collation.value().endsWith("_bin"));
+    }
 }
@@ -2,6 +2,7 @@ package fr.diginamic.services;
 
 import fr.diginamic.dao.EquipeDaoImpl;
 import fr.diginamic.model.Equipe;
+import fr.diginamic.utils.EquipeRegistry;
 import fr.diginamic.utils.ErreurCollector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -108,4 +109,64 @@ public class TestEquipeService {
         verify(equipeDaoMock, never()).insert(any());
     }
 
+    @Test
+    public void testRegistre_GetByNomSansRequete() {
+        // GIVEN – registre préchargé avec Brazil
+        EquipeRegistry registry = new EquipeRegistry();
+        registry.charger(List.of(brazil));
+        EquipeService service = new EquipeService(null, collectorMock, registry);
+        service.setEquipeDao(equipeDaoMock);
+        when(equipeDaoMock.getReference(10)).thenReturn(brazil);
+
+        // WHEN
+        Equipe result = service.getByNom("Brazil");
+
+        // THEN – résolu en mémoire, aucune requête
+        assertSame(brazil, result);
+        assertNull(service.getByNom("PSG"));
+        verify(equipeDaoMock, never()).findByName(any());
+    }
+
+    @Test
+    public void testRegistre_NouvelleEquipeInsereeUneSeuleFois() {
+        // GIVEN – registre vide
+        EquipeRegistry registry = new EquipeRegistry();
+        EquipeService service = new EquipeService(null, collectorMock, registry);
+        service.setEquipeDao(equipeDaoMock);
+
+        doAnswer(inv -> {
+            inv.<Equipe>getArgument(0).setId(42);
+            return null;
+        }).when(equipeDaoMock).insert(any());
+        when(equipeDaoMock.getReference(42)).thenReturn(new Equipe("Japan"));
+
+        // WHEN – la même équipe apparaît deux fois
+        service.enregistrerEquipeSiNouvelle("Japan", "ligne test", "fichier test");
+        service.enregistrerEquipeSiNouvelle("Japan", "ligne test", "fichier test");
+
+        // THEN – une seule insertion, équipe disponible dans le registre
+        verify(equipeDaoMock, times(1)).insert(argThat(e -> e.getNom().equals("Japan")));
+        verify(equipeDaoMock, never()).findByName(any());
+        assertNotNull(service.getByNom("Japan"));
+        verify(equipeDaoMock).getReference(42);
+    }
+
+    @Test
+    public void testRegistre_Doublon_LogErreur() {
+        // GIVEN – deux équipes en base portent le même nom
+        Equipe autreBrazil = new Equipe("Brazil");
+        autreBrazil.setId(11);
+        EquipeRegistry registry = new EquipeRegistry();
+        registry.charger(List.of(brazil, autreBrazil));
+        EquipeService service = new EquipeService(null, collectorMock, registry);
+        service.setEquipeDao(equipeDaoMock);
+
+        // WHEN
+        service.enregistrerEquipeSiNouvelle("Brazil", "ligne test", "fichier test");
+
+        // THEN
+        verify(collectorMock).log(eq("fichier test"), eq("ligne test"), contains("plusieurs équipes"), eq("Equipe"));
+        verify(equipeDaoMock, never()).insert(any());
+        assertNull(service.getByNom("Brazil"));
+    }
 }
@@ -4,6 +4,7 @@ import fr.diginamic.dao.MatchDaoImpl;
 import fr.diginamic.model.Equipe;
 import fr.diginamic.model.Match;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.MatchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -172,4 +173,59 @@ public class TestMatchService {
         );
         verify(matchDaoMock, never()).insert(any());
     }
+
+    @Test
+    public void testIndex_NouveauMatchPuisRechercheSansRequete() {
+        // GIVEN – index vide, l'insertion attribue l'id 100
+        MatchIndex index = new MatchIndex(16);
+        MatchService service = new MatchService(null, collectorMock, index);
+        service.setMatchDao(matchDaoMock);
+        doAnswer(inv -> {
+            inv.<Match>getArgument(0).setId(100);
+            return null;
+        }).when(matchDaoMock).insert(any());
+        when(matchDaoMock.getReference(100)).thenReturn(match);
+
+        // WHEN
+        service.enregistrerMatchSiNouveau(
+                match.getDate(), match.getVille(), match.getPays(),
+                match.isLieuNeutre(), match.getTournoi(),
+                france, argentine, "ligne test", "fichier test"
+        );
+        service.enregistrerMatchSiNouveau(
+                match.getDate(), match.getVille(), match.getPays(),
+                match.isLieuNeutre(), match.getTournoi(),
+                france, argentine, "ligne test", "fichier test"
+        );
+        Match result = service.getByDateAndEquipes(match.getDate(), france, argentine);
+
+        // THEN – une seule insertion, aucune requête de recherche
+        verify(matchDaoMock, times(1)).insert(any());
+        verify(matchDaoMock, never()).findByDateAndEquipes(any(), anyInt(), anyInt());
+        assertSame(match, result);
+        assertNull(service.getByDateAndEquipes(match.getDate(), argentine, france));
+    }
+
+    @Test
+    public void testIndex_Doublon_LogErreur() {
+        // GIVEN – deux matchs en base pour la même clé naturelle
+        MatchIndex index = new MatchIndex(16);
+        long jour = match.getDate().toEpochDay();
+        index.charger(100, jour, france.getId(), argentine.getId());
+        index.charger(101, jour, france.getId(), argentine.getId());
+        MatchService service = new MatchService(null, collectorMock, index);
+        service.setMatchDao(matchDaoMock);
+
+        // WHEN
+        service.enregistrerMatchSiNouveau(
+                match.getDate(), match.getVille(), match.getPays(),
+                match.isLieuNeutre(), match.getTournoi(),
+                france, argentine, "ligne test", "fichier test"
+        );
+
+        // THEN
+        verify(collectorMock).log(eq("fichier test"), eq("ligne test"), contains("plusieurs matchs"), eq("Match"));
+        verify(matchDaoMock, never()).insert(any());
+        assertNull(service.getByDateAndEquipes(match.getDate(), france, argentine));
+    }
 }
@@ -0,0 +1,129 @@
+package fr.diginamic.services;
+
+import fr.diginamic.dao.ButDaoImpl;
+import fr.diginamic.dao.ButeurDaoImpl;
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
+import fr.diginamic.dao.MatchDaoImpl;
+import fr.diginamic.dao.PointRepriseDaoImpl;
+import fr.diginamic.dao.ProgressionImportDaoImpl;
+import fr.diginamic.dao.ScoreDaoImpl;
+import fr.diginamic.dao.TirsButsDaoImpl;
+import fr.diginamic.utils.Empreinte;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour tester PurgeService avec Junit & Mockito
+ */
+public class TestPurgeService {
+
+    private static final LocalDate DEBUT = LocalDate.of(2022, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2022, 12, 31);
+    private static final LocalDate JOUR = LocalDate.of(2022, 11, 20);
+
+    private MatchDaoImpl matchDaoMock;
+    private ButDaoImpl butDaoMock;
+    private ScoreDaoImpl scoreDaoMock;
+    private TirsButsDaoImpl tirsDaoMock;
+    private ButeurDaoImpl buteurDaoMock;
+    private EmpreinteLigneDaoImpl empreinteDaoMock;
+    private PointRepriseDaoImpl pointRepriseDaoMock;
+    private ProgressionImportDaoImpl progressionDaoMock;
+    private PurgeService purgeService;
+
+    @BeforeEach
+    public void setUp() {
+        matchDaoMock = mock(MatchDaoImpl.class);
+        butDaoMock = mock(ButDaoImpl.class);
+        scoreDaoMock = mock(ScoreDaoImpl.class);
+        tirsDaoMock = mock(TirsButsDaoImpl.class);
+        buteurDaoMock = mock(ButeurDaoImpl.class);
+        empreinteDaoMock = mock(EmpreinteLigneDaoImpl.class);
+        pointRepriseDaoMock = mock(PointRepriseDaoImpl.class);
+        progressionDaoMock = mock(ProgressionImportDaoImpl.class);
+        purgeService = new PurgeService(mock(EntityManager.class, RETURNS_DEEP_STUBS));
+        purgeService.setMatchDao(matchDaoMock);
+        purgeService.setButDao(butDaoMock);
+        purgeService.setScoreDao(scoreDaoMock);
+        purgeService.setTirsDao(tirsDaoMock);
+        purgeService.setButeurDao(buteurDaoMock);
+        purgeService.setEmpreinteDao(empreinteDaoMock);
+        purgeService.setPointRepriseDao(pointRepriseDaoMock);
+        purgeService.setProgressionDao(progressionDaoMock);
+    }
+
+    @Test
+    public void testPurgerPeriode_OrdreDesDependances() {
+        // GIVEN – deux matchs dans la période, aucune empreinte en base
+        when(matchDaoMock.findClesByPeriode(DEBUT, FIN)).thenReturn(List.of(
+                new Object[]{1, JOUR, "Qatar", "Ecuador"}, new Object[]{2, JOUR, "England", "Iran"}));
+        when(butDaoMock.deleteByMatchs(List.of(1, 2))).thenReturn(8);
+        when(scoreDaoMock.deleteByMatchs(List.of(1, 2))).thenReturn(2);
+        when(matchDaoMock.deleteByIds(List.of(1, 2))).thenReturn(2);
+        when(buteurDaoMock.deleteSansBut()).thenReturn(3);
+
+        // WHEN
+        PurgeService.Bilan bilan = purgeService.purgerPeriode(DEBUT, FIN);
+
+        // THEN – dépendances avant les matchs, buteurs orphelins ensuite, une requête par table
+        InOrder ordre = inOrder(butDaoMock, scoreDaoMock, tirsDaoMock, matchDaoMock, buteurDaoMock);
+        ordre.verify(butDaoMock).deleteByMatchs(List.of(1, 2));
+        ordre.verify(scoreDaoMock).deleteByMatchs(List.of(1, 2));
+        ordre.verify(tirsDaoMock).deleteByMatchs(List.of(1, 2));
+        ordre.verify(matchDaoMock).deleteByIds(List.of(1, 2));
+        ordre.verify(buteurDaoMock).deleteSansBut();
+        verify(pointRepriseDaoMock).deleteAll();
+        verify(progressionDaoMock).deleteAll();
+        verify(empreinteDaoMock, never()).deleteByCles(any(), any());
+        assertEquals(new PurgeService.Bilan(2, 8, 2, 0, 3, 0), bilan);
+    }
+
+    @Test
+    public void testPurgerTournoi_EmpreintesDesLignesPurgees() {
+        // GIVEN – un match avec un but, et des empreintes de lignes en base
+        when(matchDaoMock.findClesByTournoi("FIFA World Cup")).thenReturn(List.<Object[]>of(
+                new Object[]{1, JOUR, "Qatar", "Ecuador"}));
+        when(butDaoMock.findClesLignesByMatchs(List.of(1))).thenReturn(List.<Object[]>of(
+                new Object[]{1, "Ecuador", "Enner Valencia", 16}));
+        when(empreinteDaoMock.countByFichier(any())).thenReturn(10L);
+        long cleMatch = Empreinte.cle(JOUR.toEpochDay(), "Qatar", "Ecuador");
+        long cleBut = Empreinte.cle(JOUR.toEpochDay(), "Qatar", "Ecuador", "Ecuador", "Enner Valencia", "16");
+
+        // WHEN
+        purgeService.purgerTournoi("FIFA World Cup");
+
+        // THEN – mêmes clés que celles calculées par les importeurs
+        verify(empreinteDaoMock).deleteByCles("results.csv", List.of(cleMatch));
+        verify(empreinteDaoMock).deleteByCles("shootouts.csv", List.of(cleMatch));
+        verify(empreinteDaoMock).deleteByCles("goalscorers.csv", List.of(cleBut));
+    }
+
+    @Test
+    public void testPurgerPeriode_AucunMatch_RienSupprime() {
+        // GIVEN
+        when(matchDaoMock.findClesByPeriode(DEBUT, FIN)).thenReturn(List.of());
+
+        // WHEN
+        PurgeService.Bilan bilan = purgeService.purgerPeriode(DEBUT, FIN);
+
+        // THEN – ni suppression ni remise à zéro des points de reprise
+        verify(matchDaoMock, never()).deleteByIds(any());
+        verify(buteurDaoMock, never()).deleteSansBut();
+        verifyNoInteractions(pointRepriseDaoMock, progressionDaoMock);
+        assertEquals(new PurgeService.Bilan(0, 0, 0, 0, 0, 0), bilan);
+    }
+
+    @Test
+    public void testPurgerPeriode_PeriodeInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> purgeService.purgerPeriode(FIN, DEBUT));
+        verifyNoInteractions(matchDaoMock);
+    }
+}
@@ -4,12 +4,12 @@ import fr.diginamic.dao.ScoreDaoImpl;
 import fr.diginamic.model.Match;
 import fr.diginamic.model.Score;
 import fr.diginamic.utils.ErreurCollector;
+import fr.diginamic.utils.FiltreBloom;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Collections;
-import java.util.List;
-
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,8 +39,7 @@ public class TestScoreService {
     @Test
     public void enregistrerSiNouveau_NouveauScore() {
         //GIVEN
-        when(scoreDaoMock.findByMatchAndScores(match.getId(), 1,2))
-                .thenReturn(Collections.emptyList());
+        when(scoreDaoMock.findById(match.getId())).thenReturn(null);
         //WHEN
         scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
         //THEN
@@ -54,22 +53,44 @@ public class TestScoreService {
     }
 
     @Test
-    public void enregistrerSiNouveau_doublon_logError() {
-        //GIVEN
-        when(scoreDaoMock.findByMatchAndScores(match.getId(), 1,2))
-                .thenReturn(List.of(score, new Score()));
+    public void enregistrerSiNouveau_ScoreDifferent_logConflit() {
+        //GIVEN – le match a déjà un score, différent de celui de la ligne
+        when(scoreDaoMock.findById(match.getId())).thenReturn(new Score(match, 0, 0));
         //WHEN
         scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
-        //THEN
+        //THEN – conflit logué, aucun second persist sur la même clé primaire
         verify(collectorMock).log(
                 eq("fichier test"),
                 eq("ligne test"),
-                contains("plusieurs scores"),
+                contains("score différent"),
                 eq("Score")
         );
-        // Aucun insert
         verify(scoreDaoMock, never()).insert(any());
     }
+
+    @Test
+    public void enregistrerSiNouveau_MemeScore_AucuneAction() {
+        //GIVEN
+        when(scoreDaoMock.findById(match.getId())).thenReturn(score);
+        //WHEN
+        scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
+        //THEN
+        verify(scoreDaoMock, never()).insert(any());
+        verifyNoInteractions(collectorMock);
+    }
+
+    @Test
+    public void mettreAJourScore_ScoreCorrige_ModifieEnPlace() {
+        //GIVEN – ligne corrigée en amont : 1-2 devient 2-2
+        when(scoreDaoMock.findById(match.getId())).thenReturn(score);
+        //WHEN
+        scoreService.mettreAJourScore(match, 2, 2, "ligne test", "fichier test");
+        //THEN
+        assertEquals(2, score.getScoreHote());
+        assertEquals(2, score.getScoreInvite());
+        verify(scoreDaoMock, never()).insert(any());
+        verifyNoInteractions(collectorMock);
+    }
     @Test
     public void testEnregistrerSiNouveau_ScoreInvalide_LogErreur() {
         // WHEN – nom null invalide
@@ -103,4 +124,66 @@ public class TestScoreService {
         );
         verify(scoreDaoMock, never()).insert(any());
     }
+
+    @Test
+    public void testEnregistrerSiNouveau_Upsert_UneSeuleRequete() {
+        // GIVEN – mode upsert : le match n'a pas encore de score, la base l'insère
+        scoreService.setUpsert(true);
+        when(scoreDaoMock.insererOuIgnorer(any())).thenReturn(true);
+
+        // WHEN
+        scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
+
+        // THEN – aucune recherche préalable ni persist, aucune erreur
+        verify(scoreDaoMock).insererOuIgnorer(any(Score.class));
+        verify(scoreDaoMock, never()).findById(anyInt());
+        verify(scoreDaoMock, never()).insert(any());
+        verifyNoInteractions(collectorMock);
+    }
+
+    @Test
+    public void testEnregistrerSiNouveau_Upsert_ScoreDifferent_logConflit() {
+        // GIVEN – mode upsert : la base ignore l'insertion, le match a un score différent
+        scoreService.setUpsert(true);
+        when(scoreDaoMock.insererOuIgnorer(any())).thenReturn(false);
+        when(scoreDaoMock.findById(match.getId())).thenReturn(new Score(match, 0, 0));
+
+        // WHEN
+        scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
+
+        // THEN – même conflit que sans upsert, score existant conservé
+        verify(collectorMock).log(eq("fichier test"), eq("ligne test"), contains("score différent"), eq("Score"));
+        verify(scoreDaoMock, never()).insert(any());
+    }
+
+    @Test
+    public void testEnregistrerSiNouveau_Upsert_MemeScore_AucuneErreur() {
+        // GIVEN – mode upsert : la base ignore l'insertion, le match a déjà ce score
+        scoreService.setUpsert(true);
+        when(scoreDaoMock.insererOuIgnorer(any())).thenReturn(false);
+        when(scoreDaoMock.findById(match.getId())).thenReturn(score);
+
+        // WHEN
+        scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
+
+        // THEN
+        verifyNoInteractions(collectorMock);
+    }
+
+    @Test
+    public void testEnregistrerSiNouveau_FiltreAbsent_AucuneRecherche() {
+        // GIVEN – filtre de Bloom ne contenant que le match 2
+        FiltreBloom filtre = new FiltreBloom(100, 0.01);
+        filtre.ajouter(2);
+        scoreService.setFiltre(filtre);
+
+        // WHEN
+        scoreService.enregistrerScoreSiNouveau(match, 1, 2, "ligne test", "fichier test");
+
+        // THEN – inséré sans recherche, puis ajouté au filtre
+        verify(scoreDaoMock, never()).findById(anyInt());
+        verify(scoreDaoMock).insert(any(Score.class));
+        assertTrue(filtre.peutContenir(match.getId()));
+        verifyNoInteractions(collectorMock);
+    }
 }
@@ -0,0 +1,65 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le cache des buteurs à éviction W-TinyLFU
+ */
+public class TestCacheButeurs {
+
+    @Test
+    public void testGetPut_SuccesEchecs() {
+        // GIVEN
+        CacheButeurs cache = new CacheButeurs(10);
+
+        // WHEN
+        int avant = cache.get("Pelé", 1);
+        cache.put("Pelé", 1, 42);
+
+        // THEN
+        assertEquals(CacheButeurs.ABSENT, avant);
+        assertEquals(42, cache.get("Pelé", 1));
+        assertEquals(CacheButeurs.ABSENT, cache.get("Pelé", 2));
+        assertEquals(1, cache.getSucces());
+        assertEquals(2, cache.getEchecs());
+        assertEquals(1.0 / 3, cache.tauxSucces(), 1e-9);
+    }
+
+    @Test
+    public void testEviction_ButeursFrequentsConserves() {
+        // GIVEN – 50 buteurs prolifiques, demandés souvent
+        CacheButeurs cache = new CacheButeurs(100);
+        for (int tour = 0; tour < 5; tour++) {
+            for (int i = 1; i <= 50; i++) {
+                if (cache.get("Prolifique " + i, 1) == CacheButeurs.ABSENT) {
+                    cache.put("Prolifique " + i, 1, i);
+                }
+            }
+        }
+
+        // WHEN – longue série de buteurs d'un seul but
+        for (int i = 1; i <= 5_000; i++) {
+            if (cache.get("Unique " + i, 2) == CacheButeurs.ABSENT) {
+                cache.put("Unique " + i, 2, 1_000 + i);
+            }
+        }
+
+        // THEN – taille bornée, et les prolifiques ont résisté au balayage
+        assertTrue(cache.taille() <= 100);
+        assertTrue(cache.getEvictions() >= 4_950 - 100);
+        int conserves = 0;
+        for (int i = 1; i <= 50; i++) {
+            if (cache.get("Prolifique " + i, 1) == i) {
+                conserves++;
+            }
+        }
+        assertTrue(conserves >= 45, "prolifiques conservés : " + conserves);
+    }
+
+    @Test
+    public void testCapaciteInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheButeurs(0));
+    }
+}
@@ -0,0 +1,45 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour la configuration des régions du cache de second niveau
+ */
+public class TestCacheSecondNiveau {
+
+    @Test
+    public void testGestionnaire_RegionsBorneesEtReutilisees() {
+        // GIVEN
+        CacheManager gestionnaire = CacheSecondNiveau.gestionnaire();
+        Cache<Object, Object> equipes = gestionnaire.getCache(CacheSecondNiveau.REGION_EQUIPE);
+        equipes.put(1, "France");
+
+        // WHEN – second appel, comme à la création d'une nouvelle fabrique d'EntityManager
+        CacheManager encore = CacheSecondNiveau.gestionnaire();
+
+        // THEN
+        assertSame(gestionnaire, encore);
+        assertEquals("France", encore.getCache(CacheSecondNiveau.REGION_EQUIPE).get(1));
+        assertNotNull(encore.getCache(CacheSecondNiveau.REGION_BUTEUR));
+        assertNotNull(encore.getCache(CacheSecondNiveau.REGION_REQUETES_BUTEUR));
+        assertNotNull(encore.getCache("default-update-timestamps-region"));
+    }
+
+    @Test
+    public void testProprietes_CacheEtStatistiques() {
+        // WHEN
+        Map<String, Object> proprietes = CacheSecondNiveau.proprietes(true);
+
+        // THEN
+        assertEquals("true", proprietes.get("hibernate.cache.use_second_level_cache"));
+        assertEquals("true", proprietes.get("hibernate.cache.use_query_cache"));
+        assertEquals("true", proprietes.get("hibernate.generate_statistics"));
+        assertInstanceOf(CacheManager.class, proprietes.get("hibernate.javax.cache.cache_manager"));
+    }
+}
@@ -0,0 +1,84 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour tester ClassementButeurs avec Junit
+ */
+public class TestClassementButeurs {
+
+    private static final int AMICAL = 1;
+    private static final int COUPE_DU_MONDE = 2;
+
+    private ClassementButeurs classement;
+
+    @BeforeEach
+    public void setUp() {
+        classement = new ClassementButeurs(16);
+        classement.noterMatch(AMICAL, "Friendly");
+        classement.noterMatch(COUPE_DU_MONDE, "FIFA World Cup");
+    }
+
+    @Test
+    public void testAjouterBut_ClassementTrieParButs() {
+        // GIVEN / WHEN – le buteur 2 dépasse le buteur 1 en cours d'import
+        classement.ajouterBut(1, AMICAL, false, false);
+        classement.ajouterBut(1, COUPE_DU_MONDE, false, true);
+        classement.ajouterBut(2, COUPE_DU_MONDE, false, false);
+        classement.ajouterBut(2, COUPE_DU_MONDE, true, false);
+        classement.ajouterBut(2, AMICAL, false, false);
+
+        // THEN
+        assertEquals(List.of(new ClassementButeurs.Total(2, 3, 0, 1), new ClassementButeurs.Total(1, 2, 1, 0)),
+                classement.meilleurs(5));
+        assertEquals(List.of(new ClassementButeurs.Total(2, 2, 0, 1)), classement.meilleurs("FIFA World Cup", 1));
+        assertEquals(List.of(new ClassementButeurs.Total(1, 2, 1, 0)), classement.meilleursParmi(List.of(1, 3), 5));
+        assertTrue(classement.meilleurs("Copa América", 5).isEmpty());
+    }
+
+    @Test
+    public void testCorrigerBut_TotauxDecales() {
+        // GIVEN
+        classement.ajouterBut(1, COUPE_DU_MONDE, false, true);
+
+        // WHEN – le penalty était en fait un but contre son camp
+        classement.corrigerBut(1, COUPE_DU_MONDE, false, true, true, false);
+
+        // THEN
+        assertEquals(new ClassementButeurs.Total(1, 1, 0, 1), classement.getTotal(1));
+        assertEquals(List.of(new ClassementButeurs.Total(1, 1, 0, 1)), classement.meilleurs("FIFA World Cup", 5));
+    }
+
+    @Test
+    public void testCharger_IdentiqueAuxAjouts() {
+        // GIVEN – mêmes buts, comptés un à un ou chargés depuis des totaux par tournoi
+        classement.ajouterBut(1, AMICAL, false, false);
+        classement.ajouterBut(1, COUPE_DU_MONDE, false, true);
+        classement.ajouterBut(1, COUPE_DU_MONDE, false, false);
+        ClassementButeurs reconstruit = new ClassementButeurs(16);
+
+        // WHEN
+        reconstruit.charger(1, "Friendly", 1, 0, 0);
+        reconstruit.charger(1, "FIFA World Cup", 2, 1, 0);
+
+        // THEN
+        assertEquals(classement.meilleurs(5), reconstruit.meilleurs(5));
+        assertEquals(classement.meilleurs("FIFA World Cup", 5), reconstruit.meilleurs("FIFA World Cup", 5));
+    }
+
+    @Test
+    public void testAjouterBut_MatchInconnu_GeneralSeulement() {
+        // GIVEN / WHEN
+        classement.ajouterBut(1, 99, false, false);
+
+        // THEN
+        assertEquals(1, classement.getTotal(1).buts());
+        assertTrue(classement.meilleurs("Friendly", 5).isEmpty());
+        assertFalse(classement.connaitMatch(99));
+    }
+}
@@ -0,0 +1,82 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le lecteur CSV CsvTokenizer
+ */
+public class TestCsvTokenizer {
+
+    @Test
+    public void testChampsTypes() throws IOException {
+        // GIVEN
+        CsvTokenizer csv = new CsvTokenizer(new StringReader(
+                "1872-11-30, Scotland ,England,0,-2,Friendly,Glasgow,Scotland,FALSE\r\n"));
+
+        // WHEN
+        assertTrue(csv.suivant());
+
+        // THEN
+        assertEquals(9, csv.nombreChamps());
+        assertEquals(LocalDate.of(1872, 11, 30), csv.date(0));
+        assertEquals("Scotland", csv.texte(1));
+        assertEquals(0, csv.entier(3));
+        assertEquals(-2, csv.entier(4));
+        assertFalse(csv.booleen(8));
+        assertEquals("1872-11-30, Scotland ,England,0,-2,Friendly,Glasgow,Scotland,FALSE", csv.ligne());
+        assertFalse(csv.suivant());
+    }
+
+    @Test
+    public void testChampsEntreGuillemets() throws IOException {
+        // GIVEN – virgule, guillemets doublés et retour à la ligne dans des champs entre guillemets
+        CsvTokenizer csv = new CsvTokenizer(new StringReader(
+                "2000-01-01,\"Korea, Republic\",\"Le \"\"Onze\"\"\",\"a\nb\"\nsuite,TRUE\n"));
+
+        // WHEN / THEN
+        assertTrue(csv.suivant());
+        assertEquals(4, csv.nombreChamps());
+        assertEquals("Korea, Republic", csv.texte(1));
+        assertEquals("Le \"Onze\"", csv.texte(2));
+        assertEquals("a\nb", csv.texte(3));
+
+        assertTrue(csv.suivant());
+        assertEquals("suite", csv.texte(0));
+        assertTrue(csv.booleen(1));
+        assertEquals(2, csv.numero());
+    }
+
+    @Test
+    public void testChampInvalide() throws IOException {
+        // GIVEN – minute absente ("NA") et champ final vide
+        CsvTokenizer csv = new CsvTokenizer(new StringReader("NA,\n"));
+        assertTrue(csv.suivant());
+
+        // THEN
+        assertThrows(NumberFormatException.class, () -> csv.entier(0));
+        assertEquals(2, csv.nombreChamps());
+        assertTrue(csv.estVide(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> csv.texte(2));
+    }
+
+    @Test
+    public void testLigneChevauchantLeTampon() throws IOException {
+        // GIVEN – enregistrements plus longs que le tampon de lecture
+        String longue = "x".repeat(40_000);
+        CsvTokenizer csv = new CsvTokenizer(new StringReader("a," + longue + "\nb,c"));
+
+        // WHEN / THEN
+        assertTrue(csv.suivant());
+        assertEquals("a," + longue, csv.ligne());
+        assertEquals(longue, csv.texte(1));
+        assertTrue(csv.suivant());
+        assertEquals("b,c", csv.ligne());
+        assertFalse(csv.suivant());
+    }
+}
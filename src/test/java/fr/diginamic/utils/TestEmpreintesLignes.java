@@ -0,0 +1,84 @@
+package fr.diginamic.utils;
+
+import fr.diginamic.dao.EmpreinteLigneDaoImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le classement des lignes par empreinte
+ */
+public class TestEmpreintesLignes {
+
+    private static final String LIGNE = "2000-01-01,France,Brazil,1,2,Friendly,Paris,France,FALSE";
+    private static final String LIGNE_CORRIGEE = "2000-01-01,France,Brazil,2,2,Friendly,Paris,France,FALSE";
+
+    private EmpreinteLigneDaoImpl daoMock;
+    private long cle;
+
+    @BeforeEach
+    public void setUp() {
+        daoMock = mock(EmpreinteLigneDaoImpl.class);
+        cle = Empreinte.cle(LocalDate.of(2000, 1, 1).toEpochDay(), "France", "Brazil");
+        // Empreinte enregistrée lors d'un import précédent
+        when(daoMock.countByFichier("results.csv")).thenReturn(1L);
+        when(daoMock.streamByFichier("results.csv"))
+                .thenReturn(Stream.<Object[]>of(new Object[]{cle, Empreinte.texte(LIGNE)}));
+    }
+
+    @Test
+    public void testEtat_InchangeeModifieeNouvelle() {
+        // GIVEN
+        EmpreintesLignes empreintes = EmpreintesLignes.charger("results.csv", daoMock);
+        long autreCle = Empreinte.cle(LocalDate.of(2000, 1, 2).toEpochDay(), "France", "Brazil");
+
+        // WHEN / THEN
+        assertEquals(EtatLigne.INCHANGEE, empreintes.etat(cle, Empreinte.texte(LIGNE)));
+        assertEquals(EtatLigne.NOUVELLE, empreintes.etat(autreCle, Empreinte.texte(LIGNE)));
+        assertNotEquals(cle, Empreinte.cle(LocalDate.of(2000, 1, 1).toEpochDay(), "Brazil", "France"));
+    }
+
+    @Test
+    public void testRetenir_SeulesLesLignesChangeesSontEcrites() {
+        // GIVEN – ligne corrigée en amont, puis la même clé en doublon dans le fichier
+        EmpreintesLignes empreintes = EmpreintesLignes.charger("results.csv", daoMock);
+        long corrigee = Empreinte.texte(LIGNE_CORRIGEE);
+
+        // WHEN
+        EtatLigne premiere = empreintes.etat(cle, corrigee);
+        empreintes.retenir(cle, corrigee);
+        EtatLigne doublon = empreintes.etat(cle, Empreinte.texte(LIGNE));
+        empreintes.retenir(cle, Empreinte.texte(LIGNE));
+        empreintes.enregistrer(daoMock);
+
+        // THEN – une seule mise à jour, celle de la première ligne de la clé
+        assertEquals(EtatLigne.MODIFIEE, premiere);
+        assertEquals(EtatLigne.NOUVELLE, doublon);
+        verify(daoMock).mettreAJourParLot(eq("results.csv"), any(), argThat(e -> e[0] == corrigee), eq(1));
+        verify(daoMock).insererParLot(eq("results.csv"), any(), any(), eq(0));
+    }
+
+    @Test
+    public void testLongLongHashMap_ValeursQuelconques() {
+        // GIVEN – table sous-dimensionnée, valeurs négatives et clé 0
+        LongLongHashMap map = new LongLongHashMap(4);
+
+        // WHEN
+        for (long i = 0; i < 50_000; i++) {
+            map.put(i * 17, -i);
+        }
+
+        // THEN
+        assertEquals(50_000, map.size());
+        assertEquals(0L, map.getOrDefault(0L, 99L));
+        assertEquals(-49_999L, map.getOrDefault(49_999L * 17, 99L));
+        assertEquals(99L, map.getOrDefault(-1L, 99L));
+        assertFalse(map.containsKey(-1L));
+    }
+}
@@ -0,0 +1,134 @@
+package fr.diginamic.utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockMakers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Classe de test pour le collecteur d'erreurs, en mémoire et en flux
+ */
+public class TestErreurCollector {
+
+    @Test
+    public void testModeMemoire_ExtractionSansDoublon() {
+        // GIVEN
+        ErreurCollector collector = new ErreurCollector();
+        collector.log("results.csv", "ligne 1", "message", "Results");
+        collector.log("results.csv", "ligne 2", "message", "Score");
+
+        // WHEN
+        int premiere = collector.extraireNonEnregistrees().size();
+        collector.log("shootouts.csv", "ligne 3", "message", "TirsButs");
+        int seconde = collector.extraireNonEnregistrees().size();
+
+        // THEN – chaque erreur n'est remise qu'une fois, toutes restent comptées
+        assertEquals(2, premiere);
+        assertEquals(1, seconde);
+        assertEquals(3, collector.getNombreErreurs());
+        assertEquals(3, collector.getErreurs().size());
+    }
+
+    @Test
+    public void testModeFlux_FileBorneeEcriteParLots() throws SQLException {
+        // GIVEN – file de 10 places pour 1200 erreurs venant de 4 threads
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        EntityManager em = mock(EntityManager.class);
+        EntityTransaction transaction = mock(EntityTransaction.class);
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.getTransaction()).thenReturn(transaction);
+        SessionImplementor session = mock(SessionImplementor.class, withSettings().mockMaker(MockMakers.PROXY));
+        EntityPersister persister = mock(EntityPersister.class, withSettings().mockMaker(MockMakers.PROXY));
+        when(em.unwrap(SessionImplementor.class)).thenReturn(session);
+        when(session.getEntityPersister(any(), any())).thenReturn(persister);
+        when(persister.getGenerator()).thenReturn(mock(Generator.class));
+        Connection connexion = mock(Connection.class);
+        PreparedStatement insert = mock(PreparedStatement.class);
+        when(connexion.prepareStatement(anyString())).thenReturn(insert);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connexion);
+            return null;
+        }).when(session).doWork(any());
+        // Taille de chaque batch exécuté, relevée au fil des addBatch
+        List<Integer> lots = new ArrayList<>();
+        int[] enCours = new int[1];
+        doAnswer(invocation -> ++enCours[0]).when(insert).addBatch();
+        doAnswer(invocation -> {
+            lots.add(enCours[0]);
+            enCours[0] = 0;
+            return new int[0];
+        }).when(insert).executeBatch();
+        ErreurCollector collector = new ErreurCollector(emf, 10);
+
+        // WHEN
+        Thread[] producteurs = new Thread[4];
+        for (int t = 0; t < producteurs.length; t++) {
+            String traitement = t % 2 == 0 ? "But" : "Buteur";
+            producteurs[t] = Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 300; i++) {
+                    collector.log("goalscorers.csv", "ligne " + i, "message", traitement);
+                }
+            });
+        }
+        for (Thread producteur : producteurs) {
+            assertDoesNotThrow(() -> producteur.join());
+        }
+        collector.close();
+
+        // THEN – tout est écrit par l'écrivain, rien n'est conservé en mémoire
+        assertEquals(1200, collector.getNombreEcrites());
+        assertEquals(0, collector.getNombrePerdues());
+        assertEquals(Map.of("But", 600L, "Buteur", 600L), collector.getNombreParTraitement());
+        assertTrue(collector.getErreurs().isEmpty());
+        assertEquals(1200, lots.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(lots.stream().allMatch(taille -> taille > 0 && taille <= ErreurCollector.TAILLE_BATCH));
+        verify(insert, times(1200)).addBatch();
+        verify(em).close();
+    }
+
+    @Test
+    public void testAgregation_EchantillonsPuisSynthese() {
+        // GIVEN – 2 lignes conservées par groupe
+        ErreurCollector collector = new ErreurCollector();
+        collector.setEchantillons(2);
+
+        // WHEN – 10 erreurs ne différant que par la valeur, 1 erreur d'un autre traitement
+        for (int i = 0; i < 10; i++) {
+            collector.logException("goalsscorers.csv", "ligne " + i,
+                    new NumberFormatException("For input string: \"N" + i + "\""), "GoalScorer");
+        }
+        collector.log("goalsscorers.csv", "ligne 10", "Paramètres invalides", "But");
+        collector.close();
+
+        // THEN – 2 échantillons + 1 erreur isolée + 1 synthèse, mais toutes les occurrences comptées
+        assertEquals(4, collector.getErreurs().size());
+        assertEquals(11, collector.getNombreErreurs());
+        assertEquals(10L, collector.getNombreParGroupe()
+                .get("goalsscorers.csv / GoalScorer / For input string: \"?\""));
+        assertTrue(collector.getErreurs().get(3).getMessage().startsWith("10 occurrences"));
+    }
+
+    @Test
+    public void testNormaliser_LigneNombresEtValeurs() {
+        String ligne = "2000-01-01,France";
+        assertEquals("Ligne incomplète : <ligne>",
+                ErreurCollector.normaliser("Ligne incomplète : " + ligne, ligne));
+        assertEquals("Index # out of bounds for length #",
+                ErreurCollector.normaliser("Index 8 out of bounds for length 7", ligne));
+    }
+}
@@ -0,0 +1,111 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour la lecture par projection mémoire et le découpage en segments
+ */
+public class TestFichierCsvMappe {
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    public void testSegmentsAlignesSurLesLignes() throws IOException {
+        // GIVEN – en-tête puis 1000 lignes contenant des caractères multi-octets
+        StringBuilder contenu = new StringBuilder("date,home_team\n");
+        for (int i = 0; i < 1000; i++) {
+            contenu.append("2000-01-01,Curaçao ").append(i).append('\n');
+        }
+        Path fichier = dossier.resolve("results.csv");
+        Files.writeString(fichier, contenu, StandardCharsets.UTF_8);
+
+        // WHEN
+        List<SegmentFichier> segments = FichierCsvMappe.segmenter(fichier, 7);
+        List<String> equipes = new ArrayList<>();
+        for (SegmentFichier segment : segments) {
+            CsvImporter.lireSegment(segment, csv -> equipes.add(csv.texte(1)));
+        }
+
+        // THEN – segments contigus, chaque ligne lue une seule fois, en-tête ignoré
+        assertEquals(7, segments.size());
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i - 1).fin(), segments.get(i).debut());
+        }
+        assertEquals(Files.size(fichier), segments.get(segments.size() - 1).fin());
+        assertEquals(1000, equipes.size());
+        assertEquals("Curaçao 0", equipes.get(0));
+        assertEquals("Curaçao 999", equipes.get(999));
+    }
+
+    @Test
+    public void testPlageAjouteeDepuisLeDernierImport() throws IOException {
+        // GIVEN – fichier importé une première fois, puis complété par deux lignes et une ligne incomplète
+        Path fichier = dossier.resolve("shootouts.csv");
+        Files.writeString(fichier, "date,home_team\n2000-01-01,A\n2000-01-02,B\n", StandardCharsets.UTF_8);
+        long importe = Files.size(fichier);
+        long empreinte = Empreinte.prefixe(fichier, importe);
+        Files.writeString(fichier, "date,home_team\n2000-01-01,A\n2000-01-02,B\n2000-01-03,C\n2000-01-04,D\n2000-01",
+                StandardCharsets.UTF_8);
+
+        // WHEN
+        long fin = FichierCsvMappe.finDerniereLigne(fichier, Files.size(fichier));
+        SegmentFichier plage = new SegmentFichier(fichier, importe, fin, false);
+        List<String> equipes = new ArrayList<>();
+        CsvImporter.lirePlage(plage, csv -> equipes.add(csv.texte(1)));
+
+        // THEN – début inchangé, seules les lignes complètes ajoutées sont lues
+        assertEquals(empreinte, Empreinte.prefixe(fichier, importe));
+        assertEquals(List.of("C", "D"), equipes);
+        assertEquals(2, FichierCsvMappe.compterLignes(plage));
+        assertEquals(Files.size(fichier) - "2000-01".length(), fin);
+    }
+
+    @Test
+    public void testEmpreinteChangeSiLeDebutEstReecrit() throws IOException {
+        // GIVEN
+        Path fichier = dossier.resolve("goalscorers.csv");
+        Files.writeString(fichier, "date,home_team\n2000-01-01,A\n", StandardCharsets.UTF_8);
+        long longueur = Files.size(fichier);
+        long avant = Empreinte.prefixe(fichier, longueur);
+
+        // WHEN – même longueur, un caractère modifié
+        Files.writeString(fichier, "date,home_team\n2000-01-01,B\n", StandardCharsets.UTF_8);
+
+        // THEN
+        assertNotEquals(avant, Empreinte.prefixe(fichier, longueur));
+        assertEquals(0, FichierCsvMappe.finDerniereLigne(fichier, "date".length()));
+    }
+
+    @Test
+    public void testEmpreinteProlongee_EgaleAuHachageComplet() throws IOException {
+        // GIVEN – lignes de longueurs variées, pour couper à toutes les positions dans un mot de 8 octets
+        Path fichier = dossier.resolve("results.csv");
+        StringBuilder contenu = new StringBuilder("date,home_team\n");
+        for (int i = 0; i < 20; i++) {
+            contenu.append("2000-01-").append(10 + i).append(",Équipe ").append("x".repeat(i)).append('\n');
+        }
+        Files.writeString(fichier, contenu, StandardCharsets.UTF_8);
+        long longueur = Files.size(fichier);
+        Empreinte.Prefixe complet = Empreinte.prolonger(fichier, Empreinte.Prefixe.VIDE, longueur);
+
+        // WHEN / THEN – préfixe haché jusqu'à k octets puis prolongé jusqu'à la fin
+        assertEquals(Empreinte.prefixe(fichier, longueur), complet.empreinte());
+        assertEquals(21, complet.finsDeLigne());
+        for (long k = 0; k <= longueur; k++) {
+            Empreinte.Prefixe debut = Empreinte.prolonger(fichier, Empreinte.Prefixe.VIDE, k);
+            assertEquals(Empreinte.prefixe(fichier, k), debut.empreinte());
+            assertEquals(complet, Empreinte.prolonger(fichier, debut, longueur), "coupure à " + k);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le filtre de Bloom des pré-vérifications d'existence
+ */
+public class TestFiltreBloom {
+
+    @Test
+    public void testPeutContenir_AucunFauxNegatif() {
+        // GIVEN – 50 000 ids de matchs consécutifs
+        FiltreBloom filtre = new FiltreBloom(50_000, 0.01);
+        for (long id = 1; id <= 50_000; id++) {
+            filtre.ajouter(id);
+        }
+
+        // WHEN / THEN – chaque clé ajoutée est toujours dite présente
+        for (long id = 1; id <= 50_000; id++) {
+            assertTrue(filtre.peutContenir(id));
+        }
+        assertEquals(0, filtre.getAbsents());
+    }
+
+    @Test
+    public void testPeutContenir_TauxFauxPositifsProcheDuTauxVise() {
+        // GIVEN – filtre rempli à sa capacité prévue
+        FiltreBloom filtre = new FiltreBloom(50_000, 0.01);
+        for (long id = 1; id <= 50_000; id++) {
+            filtre.ajouter(id);
+        }
+
+        // WHEN – 100 000 clés jamais ajoutées
+        int fauxPositifs = 0;
+        for (long id = 1_000_001; id <= 1_100_000; id++) {
+            if (filtre.peutContenir(id)) {
+                fauxPositifs++;
+            }
+        }
+
+        // THEN – environ 1 %, 9,6 bits par clé et 7 hachages
+        assertTrue(fauxPositifs < 1_500, "faux positifs : " + fauxPositifs);
+        assertEquals(0.01, filtre.tauxFauxPositifsEstime(), 0.002);
+        assertEquals(7, filtre.getNombreHachages());
+        assertTrue(filtre.octets() < 65_000);
+        assertEquals(100_000 - fauxPositifs, filtre.getAbsents());
+    }
+
+    @Test
+    public void testConstructeur_TauxInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> new FiltreBloom(1_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FiltreBloom(1_000, 1));
+        assertThrows(IllegalArgumentException.class, () -> new FiltreBloom(0, 0.01));
+    }
+
+    @Test
+    public void testPeutExisterEtNoter_FiltreOptionnel() {
+        // GIVEN – un filtre, et null pour un service sans filtre (toute recherche reste nécessaire)
+        FiltreBloom filtre = new FiltreBloom(1_000, 0.01);
+
+        // WHEN
+        FiltreBloom.noter(null, 7);
+        FiltreBloom.noter(filtre, 7);
+
+        // THEN
+        assertTrue(FiltreBloom.peutExister(null, 7));
+        assertTrue(FiltreBloom.peutExister(filtre, 7));
+        assertFalse(FiltreBloom.peutExister(filtre, 8));
+        assertEquals(1, filtre.getAjouts());
+    }
+}
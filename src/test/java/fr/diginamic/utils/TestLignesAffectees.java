@@ -0,0 +1,34 @@
+package fr.diginamic.utils;
+
+import com.mysql.cj.conf.PropertyDefinitions;
+import com.mysql.cj.conf.PropertyKey;
+import org.hibernate.engine.jdbc.connections.internal.ConnectionProviderInitiator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le comptage des lignes des insertions upsert
+ */
+public class TestLignesAffectees {
+
+    @Test
+    public void testProprietes_TransmisesAuPiloteMySql() {
+        // WHEN – propriétés de connexion telles qu'Hibernate les passe au pilote
+        Properties connexion = ConnectionProviderInitiator.getConnectionProperties(LignesAffectees.proprietes());
+
+        // THEN – propriété reconnue par Connector/J, qui ne l'active pas par défaut
+        String cle = PropertyKey.useAffectedRows.getKeyName();
+        assertEquals("true", connexion.getProperty(cle));
+        assertEquals(Boolean.FALSE, PropertyDefinitions.getPropertyDefinition(PropertyKey.useAffectedRows).getDefaultValue());
+    }
+
+    @Test
+    public void testInseree_DoublonIgnoreCompteZero() {
+        // THEN – useAffectedRows=true : 1 pour une insertion, 0 pour un doublon laissé inchangé
+        assertTrue(LignesAffectees.inseree(1));
+        assertFalse(LignesAffectees.inseree(0));
+    }
+}
@@ -0,0 +1,57 @@
+package fr.diginamic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour la table primitive LongIntHashMap et l'encodage des clés de MatchIndex
+ */
+public class TestLongIntHashMap {
+
+    @Test
+    public void testPutGet_AvecRedimensionnement() {
+        // GIVEN – table volontairement sous-dimensionnée
+        LongIntHashMap map = new LongIntHashMap(4);
+
+        // WHEN
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i * 31L, i);
+        }
+
+        // THEN
+        assertEquals(100_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, map.get(i * 31L));
+        }
+        assertEquals(LongIntHashMap.ABSENT, map.get(-5L));
+    }
+
+    @Test
+    public void testCleZeroEtRemplacement() {
+        // GIVEN
+        LongIntHashMap map = new LongIntHashMap(16);
+
+        // WHEN
+        map.put(0L, 7);
+        int ancienne = map.put(0L, 8);
+
+        // THEN
+        assertEquals(7, ancienne);
+        assertEquals(8, map.get(0L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testCleMatch_DistincteParComposante() {
+        // GIVEN – dates antérieures à 1970 et équipes inversées
+        long a = MatchIndex.cle(-35_000, 1, 2);
+        long b = MatchIndex.cle(-35_000, 2, 1);
+        long c = MatchIndex.cle(-34_999, 1, 2);
+
+        // THEN
+        assertNotEquals(a, b);
+        assertNotEquals(a, c);
+        assertThrows(IllegalArgumentException.class, () -> MatchIndex.cle(0, 1 << 20, 1));
+    }
+}
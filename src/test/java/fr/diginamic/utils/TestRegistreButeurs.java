@@ -0,0 +1,113 @@
+package fr.diginamic.utils;
+
+import fr.diginamic.model.Buteur;
+import fr.diginamic.model.Equipe;
+import org.hibernate.annotations.Collate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test pour le registre concurrent des buteurs de l'import partitionné
+ */
+public class TestRegistreButeurs {
+
+    @Test
+    public void testObtenir_UneSeuleCreationParButeur() throws Exception {
+        // GIVEN – création lente, pour que les threads se chevauchent
+        AtomicInteger sequence = new AtomicInteger(100);
+        AtomicInteger appels = new AtomicInteger();
+        RegistreButeurs registre = new RegistreButeurs((nom, equipeId) -> {
+            appels.incrementAndGet();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return sequence.incrementAndGet();
+        });
+
+        // WHEN – 8 threads demandent les mêmes 5 buteurs
+        List<Future<Integer>> ids = new ArrayList<>();
+        try (ExecutorService executeur = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                for (int i = 0; i < 5; i++) {
+                    int numero = i;
+                    ids.add(executeur.submit(() -> registre.obtenir("Buteur " + numero, 1)));
+                }
+            }
+        }
+
+        // THEN
+        assertEquals(5, appels.get());
+        assertEquals(5, registre.getCreations());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(registre.get("Buteur " + (i % 5), 1), ids.get(i).get());
+        }
+    }
+
+    @Test
+    public void testCharger_ExistantsEtDoublons() {
+        // GIVEN
+        RegistreButeurs registre = new RegistreButeurs((nom, equipeId) -> {
+            throw new AssertionError("aucune création attendue");
+        });
+
+        // WHEN
+        registre.charger("Pelé", 1, 10);
+        registre.charger("Silva", 2, 20);
+        registre.charger("Silva", 2, 21);
+
+        // THEN
+        assertEquals(10, registre.obtenir("Pelé", 1));
+        assertTrue(registre.estDoublon("Silva", 2));
+        assertEquals(RegistreButeurs.ABSENT, registre.get("Silva", 2));
+        assertThrows(IllegalStateException.class, () -> registre.obtenir("Silva", 2));
+    }
+
+    @Test
+    public void testObtenir_EchecLibereLaCle() {
+        // GIVEN – première création en échec, la suivante réussit
+        AtomicInteger appels = new AtomicInteger();
+        RegistreButeurs registre = new RegistreButeurs((nom, equipeId) -> {
+            if (appels.incrementAndGet() == 1) {
+                throw new IllegalStateException("base indisponible");
+            }
+            return 42;
+        });
+
+        // WHEN / THEN
+        assertThrows(IllegalStateException.class, () -> registre.obtenir("Zidane", 3));
+        assertEquals(RegistreButeurs.ABSENT, registre.get("Zidane", 3));
+        assertEquals(42, registre.obtenir("Zidane", 3));
+    }
+
+    @Test
+    public void testObtenir_GraphiesAccentueesDistinctes() throws NoSuchFieldException {
+        // GIVEN – « Matthias Phaeton » déjà en base pour la Guadeloupe
+        List<String> crees = new ArrayList<>();
+        RegistreButeurs registre = new RegistreButeurs((nom, equipeId) -> {
+            crees.add(nom);
+            return 6;
+        });
+        registre.charger("Matthias Phaeton", 3, 5);
+
+        // WHEN
+        int existant = registre.obtenir("Matthias Phaeton", 3);
+        int accentue = registre.obtenir("Matthias Phaëton", 3);
+
+        // THEN – la graphie accentuée est créée à part, ce que l'index unique accepte grâce à la collation binaire
+        assertEquals(5, existant);
+        assertEquals(6, accentue);
+        assertEquals(List.of("Matthias Phaëton"), crees);
+        assertEquals(Equipe.COLLATION_NOM, Buteur.class.getDeclaredField("nom").getAnnotation(Collate.class).value());
+        assertTrue(Equipe.COLLATION_NOM.endsWith("_bin"));
+    }
+}
@@ -0,0 +1,47 @@
+package fr.diginamic.vues;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test des records de lecture avec Junit
+ */
+public class TestVues {
+
+    private static final LocalDate FINALE = LocalDate.of(2022, 12, 18);
+
+    private static VueMatch match(Integer scoreHote, Integer scoreInvite, String vainqueurTirsButs) {
+        return new VueMatch(1, FINALE, "FIFA World Cup", "Lusail", "Qatar", true, "Argentina", "France",
+                scoreHote, scoreInvite, vainqueurTirsButs);
+    }
+
+    @Test
+    public void testVainqueur_AuScore() {
+        assertEquals("Argentina", match(2, 1, null).vainqueur());
+        assertEquals("France", match(0, 1, null).vainqueur());
+    }
+
+    @Test
+    public void testVainqueur_AuxTirsAuxButs() {
+        // GIVEN – nul à la fin du match, séance de tirs aux buts
+        VueMatch vue = match(3, 3, "Argentina");
+
+        // WHEN / THEN
+        assertEquals("Argentina", vue.vainqueur());
+    }
+
+    @Test
+    public void testVainqueur_NulOuSansScore() {
+        assertNull(match(1, 1, null).vainqueur());
+        assertNull(match(null, null, null).vainqueur());
+    }
+
+    @Test
+    public void testButsMarques_HorsContreSonCamp() {
+        TotalButeur total = new TotalButeur(1, "Lionel Messi", "Argentina", 12, 4, 2);
+        assertEquals(10, total.butsMarques());
+    }
+}